@@ -255,18 +255,48 @@ public class Abstract {
             throws AttributeError, Throwable {
         // Decisions are based on type of o (that of name is known)
         Operations ops = Operations.of(o);
+        AttributeError error = null;
         try {
             // Invoke __getattribute__.
-            return ops.op_getattribute.invokeExact(o, name);
-        } catch (EmptyException | AttributeError e) {
-            try {
-                // Not found or not defined: fall back on __getattr__.
-                return ops.op_getattr.invokeExact(o, name);
-            } catch (EmptyException ignored) {
-                // __getattr__ not defined, original exception stands.
-                if (e instanceof AttributeError) { throw e; }
-                throw noAttributeError(o, name);
-            }
+            Object attr = getAttribute(ops, o, name);
+            if (attr != PyObjectUtil.NOT_FOUND) { return attr; }
+        } catch (AttributeError e) {
+            error = e;
+        }
+        if (Slot.op_getattr.isDefinedFor(ops)) {
+            // Not found or not defined: fall back on __getattr__.
+            return ops.op_getattr.invokeExact(o, name);
+        }
+        // __getattr__ not defined, original exception stands.
+        throw error != null ? error : noAttributeError(o, name);
+    }
+
+    /**
+     * Invoke {@code __getattribute__} on an object, by the internal
+     * protocol in which a miss returns {@link PyObjectUtil#NOT_FOUND},
+     * where the object implements {@code __getattribute__} as
+     * {@code object} or {@code type} does. Otherwise, a miss will
+     * throw {@link AttributeError} as usual. If {@code __getattribute__}
+     * is not defined at all, the result is {@code NOT_FOUND}.
+     *
+     * @param ops operations of {@code o}
+     * @param o object to operate on
+     * @param name of attribute
+     * @return {@code o.name} or {@code NOT_FOUND}
+     * @throws AttributeError if non-existent etc.
+     * @throws Throwable on other errors
+     */
+    private static Object getAttribute(Operations ops, Object o,
+            String name) throws AttributeError, Throwable {
+        MethodHandle getattribute = ops.op_getattribute;
+        if (getattribute == PyBaseObject.TYPE.op_getattribute) {
+            return PyBaseObject.getAttribute(o, name);
+        } else if (getattribute == PyType.TYPE.op_getattribute) {
+            return ((PyType)o).getAttribute(name);
+        } else if (Slot.op_getattribute.isDefinedFor(ops)) {
+            return getattribute.invokeExact(o, name);
+        } else {
+            return PyObjectUtil.NOT_FOUND;
         }
     }
 
@@ -306,16 +336,16 @@ public class Abstract {
         Operations ops = Operations.of(o);
         try {
             // Invoke __getattribute__
-            return ops.op_getattribute.invokeExact(o, name);
-        } catch (EmptyException | AttributeError e) {
+            Object attr = getAttribute(ops, o, name);
+            if (attr != PyObjectUtil.NOT_FOUND) { return attr; }
+        } catch (AttributeError e) {}
+        if (Slot.op_getattr.isDefinedFor(ops)) {
             try {
                 // Not found or not defined: fall back on __getattr__.
                 return ops.op_getattr.invokeExact(o, name);
-            } catch (EmptyException | AttributeError ignored) {
-                // __getattr__ not defined, original exception stands.
-                return null;
-            }
+            } catch (AttributeError e) {}
         }
+        return null;
     }
 
     /**
@@ -705,11 +735,11 @@ public class Abstract {
             return null;
         } else {
             // res might be a descriptor
-            try {
+            Operations ops = Operations.of(res);
+            if (Slot.op_get.isDefinedFor(ops)) {
                 // invoke the descriptor's __get__
-                MethodHandle f = Operations.of(res).op_get;
-                res = f.invokeExact(res, self, selfType);
-            } catch (EmptyException e) {}
+                res = ops.op_get.invokeExact(res, self, selfType);
+            }
         }
         return res;
     }
@@ -805,6 +835,11 @@ public class Abstract {
      */
     // Compare CPython PyIter_Next in abstract.c
     static Object next(Object iter) throws Throwable {
+        if (iter instanceof AbstractPyIterator) {
+            // Built-in iterator: avoid StopIteration
+            Object item = ((AbstractPyIterator)iter).next();
+            return item == PyObjectUtil.NOT_FOUND ? null : item;
+        }
         Operations o = Operations.of(iter);
         try {
             return o.op_next.invokeExact(iter);
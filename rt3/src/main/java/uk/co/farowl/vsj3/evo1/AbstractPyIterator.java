@@ -42,4 +42,26 @@ abstract class AbstractPyIterator extends AbstractPyObject {
      * @throws Throwable from implementation
      */
     abstract Object __next__() throws StopIteration, Throwable;
+
+    /**
+     * Get the next item from the iteration, as {@link #__next__()},
+     * except that exhaustion of the iterator is signalled by returning
+     * {@link PyObjectUtil#NOT_FOUND}. The Java API (for example
+     * {@link Abstract#next(Object)}) prefers this method, so that a
+     * loop over a built-in iterator need not end in an exception.
+     * <p>
+     * This implementation calls {@code __next__}. A sub-class may
+     * override it to avoid the exception altogether, and implement
+     * {@code __next__} by calling it.
+     *
+     * @return the next object or {@code NOT_FOUND}
+     * @throws Throwable from implementation
+     */
+    Object next() throws Throwable {
+        try {
+            return __next__();
+        } catch (StopIteration e) {
+            return PyObjectUtil.NOT_FOUND;
+        }
+    }
 }
@@ -666,7 +666,19 @@ class ArgParser {
      * constructor.) Nor must there be excess default values for the
      * number of parameters.
      */
-    private void checkShape() {
+    private void checkShape() { checkShape(defaults, kwdefaults); }
+
+    /**
+     * Check that the given defaults are consistent with the parameters
+     * this parser describes, as {@link #checkShape()} does for those
+     * held in the parser. A client that supplies its own defaults when
+     * parsing (see {@link ArrayFrameWrapper#ArrayFrameWrapper(Object[],
+     * Object[], Map)}) should check them this way when they are set.
+     *
+     * @param defaults positional defaults (or {@code null})
+     * @param kwdefaults keyword defaults (or {@code null})
+     */
+    void checkShape(Object[] defaults, Map<Object, Object> kwdefaults) {
         // XXX This may be too fussy, given that Python function is not
         final int N = argcount;
         final int L = defaults == null ? 0 : defaults.length;
@@ -701,6 +713,76 @@ class ArgParser {
         return arg;
     }
 
+    /**
+     * Create a plan for binding arguments given by keyword, with the
+     * given names in the given order, to the parameters of this
+     * parser. A call site that always uses the same keywords may keep
+     * the plan and pass it to
+     * {@link #parseToFrame(FrameWrapper, Object[], int, int, KeywordPlan)}
+     * on each call with this parser, so that the names need not be
+     * matched again. No plan is possible (and the method returns
+     * {@code null}) if a name does not match an allowable parameter, or
+     * appears twice: such calls must use the general parse.
+     *
+     * @param kwnames keywords used in the call
+     * @return plan for the call or {@code null}
+     */
+    KeywordPlan keywordPlan(String[] kwnames) {
+        int n = kwnames.length, minSlot = regargcount;
+        int[] slots = new int[n];
+        for (int i = 0; i < n; i++) {
+            int slot = -1;
+            for (int k = posonlyargcount; k < regargcount; k++) {
+                if (argnames[k].equals(kwnames[i])) { slot = k; break; }
+            }
+            // Not found, or the same name was used earlier in the call
+            if (slot < 0) { return null; }
+            for (int j = 0; j < i; j++) {
+                if (slots[j] == slot) { return null; }
+            }
+            slots[i] = slot;
+            minSlot = Math.min(minSlot, slot);
+        }
+        return new KeywordPlan(kwnames, slots,
+                Math.min(minSlot, argcount));
+    }
+
+    /**
+     * The frame slot of each keyword argument in a call that always
+     * uses the same keywords, valid for the parser that created it.
+     * See {@link ArgParser#keywordPlan(String[])}.
+     */
+    final class KeywordPlan {
+
+        /** Keywords used in the call. */
+        final String[] kwnames;
+
+        /** Frame slot of each argument named in {@link #kwnames}. */
+        private final int[] slots;
+
+        /**
+         * The most arguments a call may give by position for the plan
+         * to apply. More would fill a slot in {@link #slots} twice, or
+         * be in excess of the positional parameters.
+         */
+        private final int maxPositional;
+
+        private KeywordPlan(String[] kwnames, int[] slots,
+                int maxPositional) {
+            this.kwnames = kwnames;
+            this.slots = slots;
+            this.maxPositional = maxPositional;
+        }
+
+        /**
+         * Whether this plan was made by the given parser.
+         *
+         * @param ap the parser
+         * @return whether this plan applies to calls using {@code ap}
+         */
+        boolean isFor(ArgParser ap) { return ap == ArgParser.this; }
+    }
+
     /**
      * Abstract wrapper for storage that the enclosing argument parser
      * should be able to fill from the arguments to a Python call.
@@ -710,6 +792,37 @@ class ArgParser {
      */
     abstract class FrameWrapper {
 
+        /**
+         * The positional defaults applied in this parse, normally those
+         * held by the parser, or {@code null} if there are none.
+         */
+        final Object[] defaults;
+
+        /**
+         * The keyword defaults applied in this parse, normally those
+         * held by the parser, or {@code null} if there are none.
+         */
+        final Map<Object, Object> kwdefaults;
+
+        /** Wrap storage to be filled using the parser's defaults. */
+        FrameWrapper() {
+            this(ArgParser.this.defaults, ArgParser.this.kwdefaults);
+        }
+
+        /**
+         * Wrap storage to be filled using defaults supplied by the
+         * client, rather than those held by the parser. This allows a
+         * single parser to serve every function created from the same
+         * code, each with its own defaults.
+         *
+         * @param defaults positional defaults (or {@code null})
+         * @param kwdefaults keyword defaults (or {@code null})
+         */
+        FrameWrapper(Object[] defaults, Map<Object, Object> kwdefaults) {
+            this.defaults = defaults;
+            this.kwdefaults = kwdefaults;
+        }
+
         /**
          * Get the local variable named by {@code argnames[i]}
          *
@@ -1249,6 +1362,24 @@ class ArgParser {
          */
         ArrayFrameWrapper(Object[] vars) { this(vars, 0); }
 
+        /**
+         * Wrap an existing array, to be filled using defaults supplied
+         * by the client rather than those held by the parser. The
+         * capacity of the array must be sufficient to hold the parse
+         * result.
+         *
+         * @param vars destination array
+         * @param defaults positional defaults (or {@code null})
+         * @param kwdefaults keyword defaults (or {@code null})
+         */
+        ArrayFrameWrapper(Object[] vars, Object[] defaults,
+                Map<Object, Object> kwdefaults) {
+            super(defaults, kwdefaults);
+            this.vars = vars;
+            this.start = 0;
+            assert argcount <= vars.length;
+        }
+
         @Override
         Object getLocal(int i) { return vars[start + i]; }
 
@@ -1309,13 +1440,13 @@ class ArgParser {
 
             if (nargs < argcount) {
                 // Set remaining positional parameters from default
-                frame.applyDefaults(nargs, defaults);
+                frame.applyDefaults(nargs, frame.defaults);
             }
         }
 
         if (kwonlyargcount > 0)
             // Set keyword parameters from default values
-            frame.applyKWDefaults(kwdefaults);
+            frame.applyKWDefaults(frame.kwdefaults);
     }
 
     /**
@@ -1374,13 +1505,76 @@ class ArgParser {
 
             if (nargs < argcount) {
                 // Set remaining positional parameters from default
-                frame.applyDefaults(nargs, defaults);
+                frame.applyDefaults(nargs, frame.defaults);
             }
         }
 
         if (kwonlyargcount > 0)
             // Set keyword parameters from default values
-            frame.applyKWDefaults(kwdefaults);
+            frame.applyKWDefaults(frame.kwdefaults);
+    }
+
+    /**
+     * Parse when an args array and keyword plan are supplied, that is,
+     * for a vector call on a stack slice, from a site that has already
+     * matched its keywords to the parameters of this parser. If the
+     * plan does not apply to the arguments (for example there are too
+     * many positional arguments), the general parse takes over, so
+     * that any error is reported in the usual way.
+     *
+     * @param frame to populate with argument values
+     * @param stack array containing all arguments
+     * @param start of the slice in the stack
+     * @param nargs number of arguments in the slice, whether position
+     *     or keyword
+     * @param plan made by this parser for the keywords of the call
+     */
+    void parseToFrame(FrameWrapper frame, Object[] stack, int start,
+            int nargs, KeywordPlan plan) {
+
+        assert plan.isFor(this);
+        int[] slots = plan.slots;
+        int nkwargs = slots.length;
+
+        // Number of arguments given by position
+        nargs = nargs - nkwargs;
+
+        if (nargs > plan.maxPositional) {
+            // Too many positional arguments for the plan: use general
+            parseToFrame(frame, stack, start, nargs + nkwargs,
+                    plan.kwnames);
+            return;
+        }
+
+        // Set parameters from the positional arguments in the call.
+        if (nargs > 0) {
+            frame.setPositionalArguments(stack, start, nargs);
+        }
+
+        // Set parameters from the keyword arguments as planned.
+        for (int i = 0, j = start + nargs; i < nkwargs; i++) {
+            frame.setLocal(slots[i], stack[j++]);
+        }
+
+        if (varKeywordsIndex >= 0) {
+            // All keywords matched: the ** parameter is empty
+            frame.setLocal(varKeywordsIndex, Py.dict());
+        }
+
+        // Since nargs <= argcount, there are no excess positional args
+        if (varArgsIndex >= 0) {
+            // No excess: set the * parameter in the frame to empty
+            frame.setLocal(varArgsIndex, PyTuple.EMPTY);
+        }
+
+        if (nargs < argcount) {
+            // Set remaining positional parameters from default
+            frame.applyDefaults(nargs, frame.defaults);
+        }
+
+        if (kwonlyargcount > 0)
+            // Set keyword parameters from default values
+            frame.applyKWDefaults(frame.kwdefaults);
     }
 
     /**
@@ -1434,12 +1628,12 @@ class ArgParser {
 
             if (nargs < argcount) {
                 // Set remaining positional parameters from default
-                frame.applyDefaults(nargs, defaults);
+                frame.applyDefaults(nargs, frame.defaults);
             }
         }
 
         if (kwonlyargcount > 0)
             // Set keyword parameters from default values
-            frame.applyKWDefaults(kwdefaults);
+            frame.applyKWDefaults(frame.kwdefaults);
     }
 }
@@ -185,7 +185,7 @@ class BuiltinsModule extends JavaModule {
             PyFunction<?> func = code.createFunction(interp,
                     globalsDict, null, null, null, free);
             PyFrame<?> frame = func.createFrame(locals);
-            frame.eval();
+            frame.eval(tstate);
 
         } else {
             /*
@@ -40,9 +40,32 @@ public class CPython311Code extends PyCode {
     // See CPython lnotab_notes.txt
     final byte[] linetable;
 
+    /** Decoded {@link #linetable} created when first needed. */
+    private LineIndex lineIndex;
+
+    /**
+     * Call sites for {@code KW_NAMES} by index in {@link #consts},
+     * each created when first needed.
+     */
+    private KeywordCallSite[] keywordSites;
+
+    /**
+     * Sites reading a member that feeds arithmetic, by index in
+     * {@link #names}, each created when first needed.
+     */
+    private MemberSite[] memberSites;
+
     /** Number of entries needed for evaluation stack. */
     final int stacksize;
 
+    /**
+     * Argument parser matched to this code object, shared by every
+     * function created from it, and created when the first function is.
+     * It holds no defaults: each function supplies its own when it
+     * parses arguments to a frame.
+     */
+    private ArgParser argParser;
+
     /**
      * Table of byte code address ranges mapped to handler addresses in
      * a compact byte encoding (defined by CPython and appearing in the
@@ -259,17 +282,35 @@ public class CPython311Code extends PyCode {
     }
 
     /**
-     * Build an {@link ArgParser} to match the code object and given
-     * defaults. This is a call-back when constructing a
-     * {@code CPython311Function} from this {@code code} object and also
-     * when the code object of a function is replaced. The method
-     * ensures the parser reflects the variable names and the frame
-     * layout implied by the code object. The caller (the function
-     * definition) supplies the default values of arguments on return.
+     * Get the {@link ArgParser} matched to this code object, building
+     * it now if this is the first time it is needed (normally when the
+     * first function is created from this code). Code objects that no
+     * function is made from (for example, most of those in a module
+     * loaded from a cache) never build one.
      *
      * @return parser reflecting the frame layout of this code object
      */
-    ArgParser buildParser() {
+    ArgParser argParser() {
+        /*
+         * As for lineIndex(), threads may race to build the parser, and
+         * any of the results is safe to use, since its state is final
+         * or (the defaults) never set in a parser belonging to code.
+         */
+        ArgParser ap = argParser;
+        if (ap == null) { argParser = ap = buildParser(); }
+        return ap;
+    }
+
+    /**
+     * Build an {@link ArgParser} to match the code object, to become
+     * {@link #argParser}. The method ensures the parser reflects the
+     * variable names and the frame layout implied by the code object.
+     * Functions created from this {@code code} object supply the
+     * default values of arguments each time they parse a call.
+     *
+     * @return parser reflecting the frame layout of this code object
+     */
+    private ArgParser buildParser() {
         int regargcount = argcount + kwonlyargcount;
         return new ArgParser(name, layout.localnames, regargcount,
                 posonlyargcount, kwonlyargcount,
@@ -280,6 +321,221 @@ public class CPython311Code extends PyCode {
     @Override
     CPythonLayout layout() { return layout; }
 
+    /**
+     * Find the source line of the instruction at the given index in
+     * {@link #wordcode}.
+     *
+     * @param ip index in {@link #wordcode} (half the CPython offset)
+     * @return source line, or -1 if the instruction has none
+     */
+    // Compare CPython PyCode_Addr2Line in codeobject.c
+    int lineOf(int ip) { return lineIndex().line(ip); }
+
+    /**
+     * Find the index in {@link #wordcode} of the first instruction at
+     * which tracing begins, which is the {@code RESUME} that ends the
+     * prologue of the code (or 0 if there is none).
+     *
+     * @return index of the first traceable instruction
+     */
+    // Compare CPython _co_firsttraceable in codeobject.c
+    int firstTraceable() {
+        for (int ip = 0; ip < wordcode.length; ip++) {
+            if ((wordcode[ip] & 0xff00) == Opcode311.RESUME << 8) {
+                return ip;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Get the index of source lines to instructions decoded from the
+     * {@link #linetable}, decoding it now if this is the first time it
+     * is needed.
+     *
+     * @return the index of source lines
+     */
+    LineIndex lineIndex() {
+        /*
+         * Several threads may race to decode the table, and all but
+         * one of the results will be garbage, but since a LineIndex is
+         * immutable (its fields final) any of them is safe to use.
+         */
+        LineIndex index = lineIndex;
+        if (index == null) {
+            lineIndex = index =
+                    new LineIndex(linetable, firstlineno, wordcode.length);
+        }
+        return index;
+    }
+
+    /**
+     * Get the call site for keyword arguments named by the {@code tuple}
+     * at the given index in {@link #consts} (the argument of a
+     * {@code KW_NAMES} instruction), creating it if this is the first
+     * time it is needed.
+     *
+     * @param i index in {@link #consts} of the keyword names
+     * @return the call site
+     * @throws TypeError if any keyword is not a string
+     */
+    KeywordCallSite keywordSite(int i) throws TypeError {
+        /*
+         * As for lineIndex(), threads may race to create the array or
+         * a site, and all but one of the results will be garbage. Each
+         * is usable, since a site re-validates its plan on every call.
+         */
+        KeywordCallSite[] sites = keywordSites;
+        if (sites == null) {
+            keywordSites = sites = new KeywordCallSite[consts.length];
+        }
+        KeywordCallSite site = sites[i];
+        if (site == null) {
+            sites[i] = site = new KeywordCallSite((PyTuple)consts[i]);
+        }
+        return site;
+    }
+
+    /**
+     * Get the site for reading the attribute named at the given index
+     * in {@link #names} where the value feeds a {@code BINARY_OP},
+     * creating it if this is the first time it is needed.
+     *
+     * @param i index in {@link #names} of the attribute name
+     * @return the site
+     */
+    MemberSite memberSite(int i) {
+        // As for keywordSite(), threads may race harmlessly.
+        MemberSite[] sites = memberSites;
+        if (sites == null) {
+            memberSites = sites = new MemberSite[names.length];
+        }
+        MemberSite site = sites[i];
+        if (site == null) { sites[i] = site = new MemberSite(names[i]); }
+        return site;
+    }
+
+    /**
+     * A {@code LOAD_ATTR} followed by a {@code BINARY_OP}, at which the
+     * attribute may be a numeric field exposed by a
+     * {@link PyMemberDescr}. The site remembers the last type of object
+     * seen and the member found on it (or that there is none). Only an
+     * immutable type that uses {@code object.__getattribute__} is
+     * eligible, so the member found on the type cannot change.
+     */
+    static final class MemberSite {
+
+        /** Name of the attribute. */
+        final String name;
+
+        /** The last type seen here and its member (or {@code null}). */
+        private volatile Link link;
+
+        /** A type and the member it gives {@link #name} (or null). */
+        private record Link(PyType type, PyMemberDescr member) {}
+
+        /**
+         * Create a site for reads of the given attribute.
+         *
+         * @param name of the attribute
+         */
+        MemberSite(String name) { this.name = name; }
+
+        /**
+         * Compute {@code v op obj.name} without creating a Python
+         * object for {@code obj.name}, if it is a member that supports
+         * this (see {@link PyMemberDescr#binaryOp(Object, int, Object)
+         * PyMemberDescr.binaryOp}), or return {@code null}.
+         *
+         * @param v left operand
+         * @param op the argument of {@code BINARY_OP}
+         * @param obj the object whose attribute is the right operand
+         * @return {@code v op obj.name} or {@code null}
+         */
+        Object binaryOp(Object v, int op, Object obj) {
+            PyType type = PyType.of(obj);
+            Link k = link;
+            if (k == null || k.type != type) {
+                // First read here, or a different type was seen
+                link = k = new Link(type, member(type));
+            }
+            return k.member == null ? null : k.member.binaryOp(v, op, obj);
+        }
+
+        /**
+         * Find the member descriptor for {@link #name} on the type, if
+         * the type is eligible for {@link #binaryOp(Object, int, Object)}.
+         *
+         * @param type to search
+         * @return the member or {@code null}
+         */
+        private PyMemberDescr member(PyType type) {
+            if (!type.isMutable() && type.hasGenericGetAttr()
+                    && type.lookup(name) instanceof PyMemberDescr m) {
+                return m;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A {@code CALL} with arguments given by keyword, as named in a
+     * {@code KW_NAMES} instruction. The site converts the names to Java
+     * {@code String} once, and remembers the plan by which the parser
+     * of the last function called here bound the keyword arguments to
+     * its frame. While the same code is called here (with any
+     * defaults) the arguments bind without matching names again.
+     */
+    static final class KeywordCallSite {
+
+        /** Keywords used in the call. */
+        final String[] kwnames;
+
+        /** Plan for the parser last called here, or {@code null}. */
+        private volatile ArgParser.KeywordPlan plan;
+
+        /**
+         * Create a site for calls using the given keywords.
+         *
+         * @param kwnames keywords used in the call
+         * @throws TypeError if any keyword is not a string
+         */
+        KeywordCallSite(PyTuple kwnames) throws TypeError {
+            this.kwnames = Callables.namesArray(kwnames);
+        }
+
+        /**
+         * Call an object with the vector call protocol, where the last
+         * {@code kwnames.length} arguments are given by keyword.
+         *
+         * @param tstate the current thread state
+         * @param callable target
+         * @param stack positional and keyword arguments
+         * @param start position of arguments in the array
+         * @param nargs number of positional <b>and keyword</b> arguments
+         * @return the return from the call to the object
+         * @throws TypeError if target is not callable
+         * @throws Throwable for errors raised in the function
+         */
+        Object call(ThreadState tstate, Object callable, Object[] stack,
+                int start, int nargs) throws TypeError, Throwable {
+            if (callable instanceof CPython311Function) {
+                CPython311Function func = (CPython311Function)callable;
+                ArgParser ap = func.argParser();
+                ArgParser.KeywordPlan p = plan;
+                if (p == null || !p.isFor(ap)) {
+                    // First call here, or a different code was called
+                    plan = p = ap.keywordPlan(kwnames);
+                }
+                if (p != null) {
+                    return func.call(tstate, stack, start, nargs, p);
+                }
+            }
+            return Callables.vectorcall(callable, stack, start, nargs,
+                    kwnames);
+        }
+    }
+
     /**
      * Store information about the variables required by a
      * {@link CPython311Code} object and where they will be stored in
@@ -297,16 +553,16 @@ public class CPython311Code extends PyCode {
          * variables do not in general form a contiguous block in the
          * frame.
          */
-        private final int cell0;
+        final int cell0;
         /**
          * Index of first free variable. Free variables form a
          * contiguous block in the frame from this index.
          */
         final int free0;
         /** Names of all the variables in frame order. */
-        private final String[] localnames;
+        final String[] localnames;
         /** Kinds of all the variables in frame order. */
-        private final byte[] kinds;
+        final byte[] kinds;
 
         /**
          * Construct a {@code Layout} based on a representation used
@@ -379,6 +635,33 @@ public class CPython311Code extends PyCode {
             this.free0 = localnames.length - nfree;
         }
 
+        /**
+         * Construct a {@code Layout} directly from the values of its
+         * fields, as they were computed for another (for example, one
+         * saved by {@link CPython311CodeCache}).
+         *
+         * @param localnames names of all the variables in frame order
+         * @param kinds kinds of all the variables in frame order
+         * @param nvarnames count of {@code co_varnames}
+         * @param ncellvars count of {@code co_cellvars}
+         * @param nfreevars count of {@code co_freevars}
+         * @param cell0 index of first cell
+         */
+        CPythonLayout(String[] localnames, byte[] kinds, int nvarnames,
+                int ncellvars, int nfreevars, int cell0) {
+            if (kinds.length != localnames.length) {
+                throw new ValueError(LENGTHS_UNEQUAL, kinds.length,
+                        localnames.length);
+            }
+            this.localnames = localnames;
+            this.kinds = kinds;
+            this.nvarnames = nvarnames;
+            this.ncellvars = ncellvars;
+            this.nfreevars = nfreevars;
+            this.cell0 = cell0;
+            this.free0 = localnames.length - nfreevars;
+        }
+
         @Override
         public int size() { return localnames.length; }
 
@@ -484,6 +767,181 @@ public class CPython311Code extends PyCode {
         }
     }
 
+    /**
+     * An index between instructions and source lines, decoded from the
+     * location table of a {@link CPython311Code} (as defined in CPython
+     * {@code Objects/locations.md}). The code is divided into ranges
+     * of consecutive instructions on the same line, and the index finds
+     * the line of an instruction, or the ranges of a line, by binary
+     * search. Instructions are identified by their index in
+     * {@link CPython311Code#wordcode}, which is half the offset CPython
+     * would report.
+     */
+    static final class LineIndex {
+
+        /**
+         * Index in {@code wordcode} at which each range starts, in
+         * ascending order, followed by the length of {@code wordcode}.
+         */
+        private final int[] starts;
+
+        /** Line of each range, or -1 where there is none. */
+        private final int[] lines;
+
+        /** Ranges (as indexes of {@link #lines}) ordered by line. */
+        private final int[] byLine;
+
+        /**
+         * Decode a location table.
+         *
+         * @param t the location table
+         * @param firstlineno first line of the code
+         * @param length of the code in 16-bit words
+         */
+        LineIndex(byte[] t, int firstlineno, int length) {
+            // Each range needs at least one byte of t
+            int[] s = new int[t.length + 2], l = new int[t.length + 1];
+            int n = 0, line = firstlineno, addr = 0;
+            // Read position in t (in an array so helpers may advance it)
+            int[] pos = {0};
+            while (pos[0] < t.length && addr < length) {
+                int b = t[pos[0]++] & 0xff;
+                int code = (b >> 3) & 0xf;
+                switch (code) {
+                    case 15: // No location
+                        break;
+                    case 14: // Long form: line, end line, column, end col
+                        line += signedVarint(t, pos);
+                        varint(t, pos);
+                        varint(t, pos);
+                        varint(t, pos);
+                        break;
+                    case 13: // No column
+                        line += signedVarint(t, pos);
+                        break;
+                    case 12:
+                    case 11:
+                    case 10: // One-line forms: column and end column
+                        line += code - 10;
+                        pos[0] += 2;
+                        break;
+                    default: // Short forms: same line, column
+                        pos[0] += 1;
+                        break;
+                }
+                int rangeLine = code == 15 ? -1 : line;
+                // Start a new range only if the line changes
+                if (n == 0 || l[n - 1] != rangeLine) {
+                    s[n] = addr;
+                    l[n++] = rangeLine;
+                }
+                addr += (b & 7) + 1;
+            }
+            s[n] = Math.min(addr, length);
+            this.starts = Arrays.copyOf(s, n + 1);
+            this.lines = Arrays.copyOf(l, n);
+
+            // Sort the ranges by line (then start) as (line, range)
+            long[] key = new long[n];
+            for (int i = 0; i < n; i++) {
+                key[i] = ((long)l[i] << 32) | i;
+            }
+            Arrays.sort(key);
+            this.byLine = new int[n];
+            for (int i = 0; i < n; i++) { byLine[i] = (int)key[i]; }
+        }
+
+        /**
+         * Find the source line of an instruction.
+         *
+         * @param ip index in {@code wordcode} of the instruction
+         * @return the line, or -1 if the instruction has none
+         */
+        int line(int ip) {
+            int n = lines.length;
+            if (ip < 0 || n == 0 || ip >= starts[n]) { return -1; }
+            // Find the last range starting at or before ip
+            int i = Arrays.binarySearch(starts, 0, n, ip);
+            return lines[i >= 0 ? i : -i - 2];
+        }
+
+        /**
+         * Find the instructions that belong to a source line, as
+         * ranges in ascending order, each being a pair of elements in
+         * the returned array: the index in {@code wordcode} of the
+         * first instruction in the range, and the index after the last.
+         *
+         * @param line of interest
+         * @return ranges of the line as start-end pairs (may be empty)
+         */
+        int[] ranges(int line) {
+            // Find the first range with the given line
+            int lo = 0, hi = byLine.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (lines[byLine[mid]] < line) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            int end = lo;
+            while (end < byLine.length && lines[byLine[end]] == line) {
+                end++;
+            }
+            int[] r = new int[2 * (end - lo)];
+            for (int k = lo, j = 0; k < end; k++) {
+                int i = byLine[k];
+                r[j++] = starts[i];
+                r[j++] = starts[i + 1];
+            }
+            return r;
+        }
+
+        /**
+         * Return the distinct source lines to which any instruction
+         * belongs, in ascending order.
+         *
+         * @return the lines of the code
+         */
+        int[] lines() {
+            return Arrays.stream(lines).filter(x -> x >= 0).sorted()
+                    .distinct().toArray();
+        }
+
+        /**
+         * Read an unsigned variable-length integer from a location
+         * table, in 6-bit chunks (least significant first), in which
+         * bit 6 signals that another chunk follows.
+         *
+         * @param t the location table
+         * @param pos {@code pos[0]} is the position, updated on return
+         * @return the value read
+         */
+        private static int varint(byte[] t, int[] pos) {
+            int b = t[pos[0]++], v = b & 0x3f;
+            for (int shift = 6; (b & 0x40) != 0; shift += 6) {
+                b = t[pos[0]++];
+                v |= (b & 0x3f) << shift;
+            }
+            return v;
+        }
+
+        /**
+         * Read a signed variable-length integer from a location table,
+         * in which the sign is the least significant bit of the
+         * unsigned form.
+         *
+         * @param t the location table
+         * @param pos {@code pos[0]} is the position, updated on return
+         * @return the value read
+         */
+        private static int signedVarint(byte[] t, int[] pos) {
+            int v = varint(t, pos);
+            return (v & 1) != 0 ? -(v >> 1) : v >> 1;
+        }
+    }
+
     // Plumbing -------------------------------------------------------
 
     private static final String NAME_TUPLES_STRING =
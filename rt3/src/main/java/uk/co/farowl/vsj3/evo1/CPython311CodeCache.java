@@ -0,0 +1,624 @@
+// Copyright (c)2023 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import uk.co.farowl.vsj3.evo1.CPython311Code.CPythonLayout;
+import uk.co.farowl.vsj3.evo1.base.InterpreterError;
+import uk.co.farowl.vsj3.evo1.modules.marshal;
+
+/**
+ * A persistent cache of {@link CPython311Code} objects prepared from
+ * compiled modules ({@code .pyc} files). Loading a module through
+ * {@code marshal} involves decoding every object, validating the
+ * arguments to {@link CPython311Code#create}, converting the byte code
+ * to word code and computing the frame layout. For a short-lived
+ * process this may take longer than running the code. Here we save
+ * the result of that work, the first time a given {@code .pyc} is
+ * loaded, in a form that a later run can turn back into code objects
+ * with little more than array copies.
+ * <p>
+ * Entries are keyed by a hash of the {@code .pyc} file contents,
+ * which names the cache file. A changed {@code .pyc} simply misses the
+ * cache, and identical files share an entry. The hash is the SHA-256
+ * digest of the contents, so that no {@code .pyc}, however it was
+ * made, can be given the entry of another. (The digest is computed by
+ * intrinsics where the platform has them, and costs little beside
+ * reading the file.) An entry that is unreadable for any reason is
+ * ignored and replaced. Failure to write the cache is not an error:
+ * the code is still returned.
+ * <p>
+ * The format of an entry is little-endian throughout and is read
+ * sequentially from a mapped buffer:
+ * <ol>
+ * <li>A header: {@link #CACHE_MAGIC}, {@link #FORMAT_VERSION},
+ * {@link #PYC_MAGIC} and the 32-byte key of the {@code .pyc}.</li>
+ * <li>A pool of all the strings the code uses (names, constants, file
+ * names), each as a flag byte, a length and the Latin-1 bytes or
+ * UTF-16 characters. Elsewhere, a string is an index in the pool, so
+ * each distinct string is created once.</li>
+ * <li>The code objects, nested ones before those that contain them,
+ * each a fixed series of integers and arrays matching the fields of
+ * {@link CPython311Code}. The last is the module itself.</li>
+ * </ol>
+ */
+public final class CPython311CodeCache {
+
+    /** Identifies a cache file ({@code "VSJC"} when read as bytes). */
+    private static final int CACHE_MAGIC = 0x434a5356;
+    /** Changed whenever the format changes. */
+    private static final int FORMAT_VERSION = 3;
+    /**
+     * The magic number placed by CPython 3.11 in the header of compiled
+     * files. The table of these is found in CPython source
+     * {@code Lib/importlib/_bootstrap_external.py}.
+     */
+    private static final int PYC_MAGIC = 3495;
+    /** File name extension of cache entries. */
+    private static final String SUFFIX = ".vsj311";
+
+    // Flags in the string pool
+    private static final int STR_UTF16 = 1, STR_INTERN = 2;
+
+    // Tags of constants
+    private static final int CONST_NONE = 'N', CONST_FALSE = 'F',
+            CONST_TRUE = 'T', CONST_ELLIPSIS = '.', CONST_INT = 'i',
+            CONST_INT64 = 'q', CONST_LONG = 'l', CONST_FLOAT = 'g',
+            CONST_STR = 'u', CONST_BYTES = 's', CONST_TUPLE = '(',
+            CONST_CODE = 'c';
+
+    /** Directory holding the cache entries. */
+    private final Path directory;
+
+    /**
+     * Create a cache in the given directory, which will be created if
+     * necessary when the first entry is written.
+     *
+     * @param directory to hold cache entries
+     */
+    public CPython311CodeCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Load the module code object from a {@code .pyc} file, from the
+     * cache if there is a valid entry, and otherwise by {@code marshal}
+     * (creating the entry for next time).
+     *
+     * @param pyc compiled module
+     * @return the module code object
+     * @throws OSError if the {@code .pyc} cannot be read
+     * @throws ValueError if it is not valid CPython 3.11 compiled code
+     */
+    public CPython311Code load(Path pyc) throws OSError, ValueError {
+        ByteBuffer data = readFile(pyc);
+        byte[] key = key(data);
+        Path entry = directory.resolve(hex(key) + SUFFIX);
+
+        if (Files.isReadable(entry)) {
+            CPython311Code code = readEntry(entry, key);
+            if (code != null) { return code; }
+        }
+
+        // No valid entry: use marshal and save the result
+        CPython311Code code = unmarshal(new marshal.BytesReader(data), pyc);
+        writeEntry(entry, key, code);
+        return code;
+    }
+
+    /**
+     * Load the module code object from a {@code .pyc} file by
+     * {@code marshal}, without reference to any cache.
+     *
+     * @param pyc compiled module
+     * @return the module code object
+     * @throws OSError if the {@code .pyc} cannot be read
+     * @throws ValueError if it is not valid CPython 3.11 compiled code
+     */
+    public static CPython311Code loadUncached(Path pyc)
+            throws OSError, ValueError {
+        return unmarshal(new marshal.BytesReader(readFile(pyc)), pyc);
+    }
+
+    /**
+     * Decode the code object from the contents of a {@code .pyc} file,
+     * checking the header.
+     *
+     * @param reader positioned at the start of the file
+     * @param pyc file name (for messages)
+     * @return the code object
+     * @throws ValueError if it is not valid CPython 3.11 compiled code
+     */
+    private static CPython311Code unmarshal(marshal.Reader reader,
+            Path pyc) throws ValueError {
+        int magic = reader.readShort();
+        int magic2 = reader.readShort();
+        if (magic != PYC_MAGIC || magic2 != 0x0a0d) {
+            throw new ValueError("bad magic number in '%s'", pyc);
+        }
+        // Flags and source time stamp or hash
+        for (int i = 0; i < 3; i++) { reader.readInt(); }
+        Object o = reader.readObject();
+        if (o instanceof CPython311Code code) { return code; }
+        throw new ValueError("no code object in '%s'", pyc);
+    }
+
+    /**
+     * Read the whole of a file into a little-endian buffer.
+     *
+     * @param file to read
+     * @return the contents
+     * @throws OSError if the file cannot be read
+     */
+    private static ByteBuffer readFile(Path file) throws OSError {
+        try (FileChannel ch =
+                FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new OSError("file too large: %s", file);
+            }
+            ByteBuffer bb = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return bb.order(ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException ioe) {
+            throw new OSError(ioe);
+        }
+    }
+
+    /**
+     * Compute the 32-byte key of the remaining contents of a buffer
+     * (without moving its position), their SHA-256 digest.
+     *
+     * @param data to hash
+     * @return the key
+     */
+    private static byte[] key(ByteBuffer data) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(data.duplicate());
+            return sha256.digest();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new InterpreterError(e, "no SHA-256 digest");
+        }
+    }
+
+    /** @return {@code bytes} as a hexadecimal string. */
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(2 * bytes.length);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16))
+                    .append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+
+    // Reading --------------------------------------------------------
+
+    /**
+     * Read a cache entry, returning {@code null} if it is not valid for
+     * the given key.
+     *
+     * @param entry file to read
+     * @param key expected in the header
+     * @return the module code object or {@code null}
+     */
+    private static CPython311Code readEntry(Path entry, byte[] key) {
+        try {
+            ByteBuffer buf = readFile(entry);
+            if (buf.getInt() != CACHE_MAGIC
+                    || buf.getInt() != FORMAT_VERSION
+                    || buf.getInt() != PYC_MAGIC) {
+                return null;
+            }
+            byte[] d = new byte[key.length];
+            buf.get(d);
+            if (!Arrays.equals(d, key)) { return null; }
+            return new Decoder(buf).read();
+        } catch (RuntimeException e) {
+            // Any failure means the entry is unusable: ignore it
+            return null;
+        }
+    }
+
+    /**
+     * Reconstruct code objects from the body of a cache entry. Each
+     * part is read in sequence from the buffer.
+     */
+    private static class Decoder {
+
+        private final ByteBuffer buf;
+        /** The string pool. */
+        private String[] strings;
+        /** Code objects read so far. */
+        private CPython311Code[] codes;
+
+        Decoder(ByteBuffer buf) { this.buf = buf; }
+
+        /** @return the module code object (the last). */
+        CPython311Code read() {
+            int n = buf.getInt();
+            strings = new String[n];
+            for (int i = 0; i < n; i++) { strings[i] = readPooled(); }
+            n = buf.getInt();
+            codes = new CPython311Code[n];
+            for (int i = 0; i < n; i++) { codes[i] = readCode(); }
+            if (buf.hasRemaining()) {
+                throw new IllegalArgumentException("trailing data");
+            }
+            return codes[n - 1];
+        }
+
+        private String readPooled() {
+            int flags = buf.get();
+            int n = buf.getInt();
+            String s;
+            if ((flags & STR_UTF16) != 0) {
+                char[] c = new char[n];
+                buf.asCharBuffer().get(c);
+                buf.position(buf.position() + 2 * n);
+                s = new String(c);
+            } else {
+                byte[] b = new byte[n];
+                buf.get(b);
+                s = new String(b, StandardCharsets.ISO_8859_1);
+            }
+            return (flags & STR_INTERN) != 0 ? s.intern() : s;
+        }
+
+        private CPython311Code readCode() {
+            int argcount = buf.getInt();
+            int posonlyargcount = buf.getInt();
+            int kwonlyargcount = buf.getInt();
+            int stacksize = buf.getInt();
+            int flags = buf.getInt();
+            int firstlineno = buf.getInt();
+            String filename = strings[buf.getInt()];
+            String name = strings[buf.getInt()];
+            String qualname = strings[buf.getInt()];
+
+            String[] localnames = readStrings();
+            byte[] kinds = new byte[localnames.length];
+            buf.get(kinds);
+            int nvarnames = buf.getInt();
+            int ncellvars = buf.getInt();
+            int nfreevars = buf.getInt();
+            int cell0 = buf.getInt();
+            CPythonLayout layout = new CPythonLayout(localnames, kinds,
+                    nvarnames, ncellvars, nfreevars, cell0);
+
+            String[] names = readStrings();
+
+            short[] wordcode = new short[buf.getInt()];
+            buf.asShortBuffer().get(wordcode);
+            buf.position(buf.position() + 2 * wordcode.length);
+
+            byte[] linetable = readBytes();
+            byte[] exceptiontable = readBytes();
+
+            Object[] consts = new Object[buf.getInt()];
+            for (int i = 0; i < consts.length; i++) {
+                consts[i] = readConst();
+            }
+
+            return new CPython311Code(filename, name, qualname, flags,
+                    wordcode, firstlineno, linetable, consts, names,
+                    layout, argcount, posonlyargcount, kwonlyargcount,
+                    stacksize, exceptiontable);
+        }
+
+        private String[] readStrings() {
+            String[] s = new String[buf.getInt()];
+            for (int i = 0; i < s.length; i++) {
+                s[i] = strings[buf.getInt()];
+            }
+            return s;
+        }
+
+        private byte[] readBytes() {
+            byte[] b = new byte[buf.getInt()];
+            buf.get(b);
+            return b;
+        }
+
+        private Object readConst() {
+            int tag = buf.get();
+            switch (tag) {
+                case CONST_NONE:
+                    return Py.None;
+                case CONST_FALSE:
+                    return Py.False;
+                case CONST_TRUE:
+                    return Py.True;
+                case CONST_ELLIPSIS:
+                    return Py.Ellipsis;
+                case CONST_INT:
+                    return buf.getInt();
+                case CONST_INT64:
+                    return buf.getLong();
+                case CONST_LONG:
+                    // Narrow to the representation marshal gives
+                    BigInteger v = new BigInteger(readBytes());
+                    return PyLongMethods.toInt(v);
+                case CONST_FLOAT:
+                    return buf.getDouble();
+                case CONST_STR:
+                    return strings[buf.getInt()];
+                case CONST_BYTES:
+                    return new PyBytes(readBytes());
+                case CONST_TUPLE:
+                    Object[] items = new Object[buf.getInt()];
+                    for (int i = 0; i < items.length; i++) {
+                        items[i] = readConst();
+                    }
+                    return PyTuple.from(items);
+                case CONST_CODE:
+                    return codes[buf.getInt()];
+                default:
+                    throw new IllegalArgumentException("bad tag");
+            }
+        }
+    }
+
+    // Writing --------------------------------------------------------
+
+    /**
+     * Write a cache entry for a code object. The entry is written to a
+     * temporary file and moved into place, so that a concurrent reader
+     * sees either no entry or a complete one. Failure is silent.
+     *
+     * @param entry file to create
+     * @param key identifying the {@code .pyc}
+     * @param code to save
+     */
+    private void writeEntry(Path entry, byte[] key,
+            CPython311Code code) {
+        ByteBuffer data;
+        try {
+            data = new Encoder().encode(key, code);
+        } catch (IllegalArgumentException e) {
+            // A constant we cannot save: do without the cache
+            return;
+        }
+        Path tmp = null;
+        try {
+            Files.createDirectories(directory);
+            tmp = Files.createTempFile(directory, "entry", ".tmp");
+            try (FileChannel ch =
+                    FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                while (data.hasRemaining()) { ch.write(data); }
+            }
+            Files.move(tmp, entry, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // The cache is an optimisation: continue without it
+            try {
+                if (tmp != null) { Files.deleteIfExists(tmp); }
+            } catch (IOException e2) {}
+        }
+    }
+
+    /**
+     * Serialise code objects in the format read by {@link Decoder}.
+     * The string pool is only complete when the code has been written,
+     * so the two are collected separately and joined at the end.
+     */
+    private static class Encoder {
+
+        /** The string pool: each distinct string and its index. */
+        private final Map<String, Integer> strings =
+                new LinkedHashMap<>();
+        /** Strings to be interned when read. */
+        private final List<Boolean> interned = new ArrayList<>();
+        /** Index of each code object written. */
+        private final Map<PyCode, Integer> codes =
+                new IdentityHashMap<>();
+        /** The encoded code objects. */
+        private ByteBuffer out = allocate(4096);
+
+        /**
+         * Encode a complete cache entry.
+         *
+         * @param key identifying the {@code .pyc}
+         * @param code module code object
+         * @return the entry, ready to write
+         * @throws IllegalArgumentException if a constant is not one of
+         *     the supported types
+         */
+        ByteBuffer encode(byte[] key, CPython311Code code)
+                throws IllegalArgumentException {
+            writeCode(code);
+            ByteBuffer body = out.flip();
+
+            // Now we know the strings, we can write the header and pool
+            out = allocate(4096 + body.remaining());
+            out.putInt(CACHE_MAGIC).putInt(FORMAT_VERSION)
+                    .putInt(PYC_MAGIC).put(key);
+            out.putInt(strings.size());
+            int i = 0;
+            for (String s : strings.keySet()) {
+                writePooled(s, interned.get(i++));
+            }
+            out.putInt(codes.size());
+            ensure(body.remaining());
+            return out.put(body).flip();
+        }
+
+        private void writePooled(String s, boolean intern) {
+            int n = s.length();
+            boolean latin1 = s.chars().allMatch(c -> c < 256);
+            int flags = (latin1 ? 0 : STR_UTF16)
+                    | (intern ? STR_INTERN : 0);
+            ensure(5 + 2 * n);
+            out.put((byte)flags).putInt(n);
+            if (latin1) {
+                out.put(s.getBytes(StandardCharsets.ISO_8859_1));
+            } else {
+                for (int i = 0; i < n; i++) { out.putChar(s.charAt(i)); }
+            }
+        }
+
+        /**
+         * Write a code object, after any it contains, and return its
+         * index.
+         *
+         * @param code to write
+         * @return its index
+         */
+        private int writeCode(CPython311Code code) {
+            /*
+             * Nested code objects first, so they are read first. We
+             * encode from a copy of the constants, in which deferred
+             * code has been resolved, and leave the code unchanged.
+             */
+            Object[] consts = code.consts.clone();
+            for (int i = 0; i < consts.length; i++) {
+                consts[i] = writeNestedCode(consts[i]);
+            }
+
+            CPythonLayout layout = code.layout;
+            ensure(64);
+            out.putInt(code.argcount).putInt(code.posonlyargcount)
+                    .putInt(code.kwonlyargcount).putInt(code.stacksize)
+                    .putInt(code.flags).putInt(code.firstlineno);
+            out.putInt(pool(code.filename, false))
+                    .putInt(pool(code.name, true))
+                    .putInt(pool(code.qualname, true));
+
+            writeStrings(layout.localnames);
+            ensure(layout.kinds.length + 16);
+            out.put(layout.kinds);
+            out.putInt(layout.nvarnames).putInt(layout.ncellvars)
+                    .putInt(layout.nfreevars).putInt(layout.cell0);
+
+            writeStrings(code.names);
+
+            short[] wordcode = code.wordcode;
+            ensure(4 + 2 * wordcode.length);
+            out.putInt(wordcode.length);
+            out.asShortBuffer().put(wordcode);
+            out.position(out.position() + 2 * wordcode.length);
+
+            writeBytes(code.linetable);
+            writeBytes(code.exceptiontable);
+
+            ensure(4);
+            out.putInt(consts.length);
+            for (Object c : consts) { writeConst(c); }
+
+            int index = codes.size();
+            codes.put(code, index);
+            return index;
+        }
+
+        /**
+         * Write any code objects in a constant (which may be deferred),
+         * returning the constant with any deferred code created.
+         */
+        private Object writeNestedCode(Object c) {
+            if (c instanceof PyCode.Deferred || c instanceof PyCode) {
+                PyCode code = PyCode.of(c);
+                if (code instanceof CPython311Code c311) {
+                    if (!codes.containsKey(c311)) { writeCode(c311); }
+                    return c311;
+                }
+            } else if (c instanceof PyTuple t) {
+                for (Object item : t) { writeNestedCode(item); }
+            }
+            return c;
+        }
+
+        private void writeStrings(String[] s) {
+            ensure(4 + 4 * s.length);
+            out.putInt(s.length);
+            for (String name : s) { out.putInt(pool(name, true)); }
+        }
+
+        private void writeBytes(byte[] b) {
+            ensure(4 + b.length);
+            out.putInt(b.length).put(b);
+        }
+
+        private void writeConst(Object c) throws IllegalArgumentException {
+            ensure(9);
+            if (c == Py.None) {
+                out.put((byte)CONST_NONE);
+            } else if (c == Py.Ellipsis) {
+                out.put((byte)CONST_ELLIPSIS);
+            } else if (c instanceof Boolean b) {
+                out.put((byte)(b ? CONST_TRUE : CONST_FALSE));
+            } else if (c instanceof Integer i) {
+                out.put((byte)CONST_INT).putInt(i);
+            } else if (c instanceof Long v) {
+                out.put((byte)CONST_INT64).putLong(v);
+            } else if (c instanceof BigInteger b) {
+                out.put((byte)CONST_LONG);
+                writeBytes(b.toByteArray());
+            } else if (c instanceof Double d) {
+                out.put((byte)CONST_FLOAT).putDouble(d);
+            } else if (c instanceof String s) {
+                out.put((byte)CONST_STR).putInt(pool(s, false));
+            } else if (c instanceof PyBytes b && b.getType() == PyBytes.TYPE) {
+                out.put((byte)CONST_BYTES);
+                writeBytes(b.asByteArray());
+            } else if (c instanceof PyTuple t && t.getType() == PyTuple.TYPE) {
+                out.put((byte)CONST_TUPLE).putInt(t.size());
+                for (Object item : t) { writeConst(item); }
+            } else if (c instanceof CPython311Code code) {
+                out.put((byte)CONST_CODE).putInt(codes.get(code));
+            } else {
+                throw new IllegalArgumentException(
+                        "cannot cache " + PyType.of(c).getName());
+            }
+        }
+
+        /**
+         * Return the index in the string pool of a string, adding it if
+         * necessary.
+         *
+         * @param s to find or add
+         * @param intern whether to intern it when read
+         * @return its index
+         */
+        private int pool(String s, boolean intern) {
+            Integer index = strings.get(s);
+            if (index == null) {
+                index = strings.size();
+                strings.put(s, index);
+                interned.add(intern);
+            } else if (intern) {
+                interned.set(index, true);
+            }
+            return index;
+        }
+
+        /** Ensure there is room for {@code n} more bytes. */
+        private void ensure(int n) {
+            if (out.remaining() < n) {
+                int size = Math.max(2 * out.capacity(), out.position() + n);
+                out = allocate(size).put(out.flip());
+            }
+        }
+
+        private static ByteBuffer allocate(int size) {
+            return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+}
@@ -39,6 +39,41 @@ class CPython311Frame extends PyFrame<CPython311Code> {
      */
     private final Map<Object, Object> builtins;
 
+    /**
+     * Profiler (from the interpreter) counting the instructions this
+     * frame executes, or {@code null} if not profiling.
+     */
+    private final OpcodeProfiler profiler;
+
+    /**
+     * Record (from the interpreter) of the instructions this frame
+     * executes, or {@code null} if not recording coverage.
+     */
+    private final Coverage coverage;
+
+    /**
+     * Index in {@code code.wordcode} of the last call or backward jump
+     * executed, from which we can tell approximately where execution
+     * has reached (exactly if this is not the top frame). It is
+     * recorded only where the interpreter counts steps, to keep the
+     * cost down.
+     */
+    int lasti = 0;
+
+    /**
+     * When tracing, the line of the last {@code "line"} event, or -1.
+     */
+    private int traceLine = -1;
+
+    /** When tracing, the instruction of the last line event. */
+    private int traceIp = -1;
+
+    /**
+     * When tracing, the index of the {@code RESUME} instruction, at or
+     * before which no {@code "line"} event is signalled.
+     */
+    private int traceFirst;
+
     /**
      * Create a {@code CPython38Frame}, which is a {@code PyFrame} with
      * the storage and mechanism to execute a module or isolated code
@@ -81,51 +116,993 @@ class CPython311Frame extends PyFrame<CPython311Code> {
     // Compare CPython _PyFrame_New_NoTrack in frameobject.c
     protected CPython311Frame(CPython311Function func, Object locals) {
 
-        // Initialise the basics.
-        super(func);
+        // Initialise the basics.
+        super(func);
+
+        CPython311Code code = func.code;
+        this.valuestack = new Object[code.stacksize];
+        int nfast = 0;
+
+        // The need for a dictionary of locals depends on the code
+        EnumSet<PyCode.Trait> traits = code.traits;
+        if (traits.contains(Trait.NEWLOCALS)) {
+            // Ignore locals argument
+            if (traits.contains(Trait.OPTIMIZED)) {
+                // We can create it later but probably won't need to
+                this.locals = null;
+                // Instead locals are in an array
+                nfast = code.layout.size();
+            } else {
+                this.locals = new PyDict();
+            }
+        } else if (locals == null) {
+            // Default to same as globals.
+            this.locals = func.globals;
+        } else {
+            /*
+             * Use supplied locals. As it may not implement j.u.Map, we
+             * wrap any Python object as a Map. Depending on the
+             * operations attempted, this may break later.
+             */
+            this.locals = locals;
+        }
+
+        // Locally present the func.__builtins__ as a Map
+        this.builtins = PyMapping.map(func.builtins);
+
+        // Profiling is decided once for the life of the frame
+        this.profiler = func.interpreter.profiler;
+        this.coverage = func.interpreter.coverage;
+
+        // Initialise local variables (plain and cell)
+        this.fastlocals =
+                nfast > 0 ? new Object[nfast] : EMPTY_OBJECT_ARRAY;
+        // Free variables are initialised by opcode COPY_FREE_VARS
+    }
+
+    @Override
+    Object eval(ThreadState tstate) {
+        // Push this frame onto the stack of the thread state.
+        tstate.push(this);
+        try {
+            // Choose the loop once for the whole frame
+            if (profiler == null && coverage == null && !tstate.traced) {
+                return execute(tstate);
+            } else {
+                return evalInstrumented(tstate);
+            }
+        } finally {
+            tstate.pop();
+        }
+    }
+
+    /**
+     * Execute the code in this frame, through
+     * {@link #executeInstrumented(ThreadState, long[], long[], boolean)
+     * executeInstrumented}, counting instructions for the profiler of
+     * the interpreter, recording them for its coverage, and signalling
+     * events to the trace and profile functions of the thread (as far
+     * as each of these is present).
+     *
+     * @param tstate the current thread state
+     * @return return value of the frame
+     */
+    private Object evalInstrumented(ThreadState tstate) {
+        long[] counts = profiler == null ? null : profiler.counts(code);
+        long[] bits = coverage == null ? null : coverage.bits(code);
+        if (!tstate.traced) {
+            return executeInstrumented(tstate, counts, bits, false);
+        }
+        // The frame may be executed more than once (ColumnEvaluator)
+        trace = null;
+        lasti = 0;
+        traceIp = traceLine = -1;
+        traceFirst = code.firstTraceable();
+        tstate.traceCall(this);
+        Object result;
+        try {
+            result = executeInstrumented(tstate, counts, bits, true);
+        } catch (BaseException e) {
+            // The loop signalled the "exception" event
+            tstate.traceReturn(this, Py.None);
+            throw e;
+        }
+        tstate.traceReturn(this, result);
+        return result;
+    }
+
+    /**
+     * Signal a {@code "line"} event if the instruction at the given
+     * index begins a new line, or is reached by a backward jump.
+     *
+     * @param tstate the current thread state
+     * @param ip index in {@code code.wordcode} of the instruction
+     */
+    // Compare CPython maybe_call_line_trace in ceval.c
+    private void traceInstruction(ThreadState tstate, int ip) {
+        // The prologue up to RESUME produces no line events
+        if (trace != null && ip > traceFirst) {
+            int line = code.lineOf(ip);
+            if (line >= 0 && (line != traceLine || ip < traceIp)) {
+                lasti = ip;
+                tstate.traceLine(this);
+            }
+            if (line >= 0) { traceLine = line; }
+            traceIp = ip;
+        }
+    }
+
+    /**
+     * Execute the code in this frame, which {@link #eval()} has made
+     * the top of the stack of the current thread state.
+     *
+     * @param tstate the current thread state
+     * @return return value of the frame
+     */
+    private Object execute(ThreadState tstate) {
+
+        // Evaluation stack and index
+        final Object[] s = valuestack;
+        int sp = stacktop;
+
+        /*
+         * Because we use a word array, our ip is half the CPython ip.
+         * The latter, and all jump arguments, are always even, so we
+         * have to halve the jump distances or destinations.
+         */
+        int ip = 0;
+
+        /*
+         * We read each 16-bit instruction from wordcode[] into opword.
+         * Bits 8-15 are the opcode itself. The bottom 8 bits are an
+         * argument. (The oparg after an EXTENDED_ARG gets special
+         * treatment to produce the chaining of argument values.)
+         */
+        final CPython311Code code = this.code;
+        int opword = code.wordcode[ip++] & 0xffff;
+
+        // Opcode argument (where needed).
+        int oparg = opword & 0xff;
+
+        // @formatter:off
+        // The structure of the interpreter loop is:
+        // while (ip <= END) {
+        //     switch (opword >> 8) {
+        //     case Opcode311.LOAD_CONST:
+        //         s[sp++] = consts[oparg]; break;
+        //     // other cases
+        //     case Opcode311.RETURN_VALUE:
+        //         returnValue = s[--sp]; break loop;
+        //     case Opcode311.EXTENDED_ARG:
+        //         opword = wordcode[ip++] & 0xffff;
+        //         oparg = (oparg << 8) | opword & 0xff;
+        //         continue;
+        //     default:
+        //         throw new InterpreterError("...");
+        //     }
+        //     opword = wordcode[ip++] & 0xffff;
+        //     oparg = opword & 0xff;
+        // }
+        // @formatter:on
+
+        // Cached references from code
+        final String[] names = code.names;
+        final Object[] consts = code.consts;
+        final short[] wordcode = code.wordcode;
+        final int END = wordcode.length;
+
+        final PyDict globals = func.globals;
+        assert globals != null;
+
+        // Wrap locals (any type) as a minimal kind of Java map
+        Map<Object, Object> locals = localsMapOrNull();
+
+        // Holds keyword call site between KW_NAMES and CALL
+        CPython311Code.KeywordCallSite kwsite = null;
+
+        loop: while (ip <= END) {
+            /*
+             * Here every so often, or maybe inside the try, and
+             * conditional on the opcode, CPython would have us check
+             * for asynchronous events that need handling. Some are not
+             * relevant to this implementation (GIL drop request). We
+             * count backward jumps and calls in tstate.countdown, and
+             * check only when it runs out (see ThreadState.tick()). At
+             * the same places, we note the instruction in lasti.
+             */
+
+            // Comparison with CPython macros in c.eval:
+            // TOP() : s[sp-1]
+            // PEEK(n) : s[sp-n]
+            // POP() : s[--sp]
+            // PUSH(v) : s[sp++] = v
+            // SET_TOP(v) : s[sp-1] = v
+            // GETLOCAL(oparg) : fastlocals[oparg];
+            // PyCell_GET(cell) : cell.get()
+            // PyCell_SET(cell, v) : cell.set(v)
+
+            try {
+                // Interpret opcode
+                switch (opword >> 8) {
+                    // Cases ordered as CPython to aid comparison
+
+                    case Opcode311.NOP:
+                    case Opcode311.RESUME:
+                        break;
+
+                    case Opcode311.LOAD_CLOSURE:
+                    case Opcode311.LOAD_FAST: {
+                        Object v = fastlocals[oparg];
+                        if (v == null) { throw unboundFast(oparg); }
+                        s[sp++] = v;
+                        break;
+                    }
+
+                    case Opcode311.LOAD_CONST:
+                        s[sp++] = consts[oparg];
+                        break;
+
+                    case Opcode311.STORE_FAST:
+                        fastlocals[oparg] = s[--sp];
+                        break;
+
+                    case Opcode311.PUSH_NULL:
+                        s[sp++] = null;
+                        break;
+
+                    case Opcode311.UNARY_NEGATIVE: {
+                        int top = sp - 1;
+                        s[top] = PyNumber.negative(s[top]);
+                        break;
+                    }
+
+                    case Opcode311.UNARY_INVERT: {
+                        int top = sp - 1;
+                        s[top] = PyNumber.invert(s[top]);
+                        break;
+                    }
+
+                    case Opcode311.BINARY_SUBSCR: {
+                        // w | v | -> | w[v] |
+                        // -------^sp --------^sp
+                        Object v = s[--sp];
+                        int top = sp - 1;
+                        s[top] = PySequence.getItem(s[top], v);
+                        ip += Opcode311.INLINE_CACHE_ENTRIES_BINARY_SUBSCR;
+                        break;
+                    }
+
+                    case Opcode311.LIST_APPEND: {
+                        Object v = s[--sp];
+                        PyList list = (PyList)s[sp - oparg];
+                        list.add(v);
+                        break;
+                    }
+
+                    case Opcode311.STORE_SUBSCR: // w[v] = u
+                        // u | w | v | -> |
+                        // -----------^sp -^sp
+                        sp -= 3;
+                        // setItem(w, v, u)
+                        PySequence.setItem(s[sp + 1], s[sp + 2], s[sp]);
+                        ip += Opcode311.INLINE_CACHE_ENTRIES_STORE_SUBSCR;
+                        break;
+
+                    case Opcode311.DELETE_SUBSCR: // del w[v]
+                        // w | v | -> |
+                        // -------^sp -^sp
+                        sp -= 2;
+                        // delItem(w, v)
+                        PySequence.delItem(s[sp], s[sp + 1]);
+                        break;
+
+                    case Opcode311.RETURN_VALUE:
+                        returnValue = s[--sp]; // POP
+                        break loop;
+
+                    case Opcode311.STORE_NAME: {
+                        String name = names[oparg];
+                        try {
+                            locals.put(name, s[--sp]);
+                        } catch (NullPointerException npe) {
+                            throw noLocals("storing", name);
+                        }
+                        break;
+                    }
+
+                    case Opcode311.DELETE_NAME: {
+                        String name = names[oparg];
+                        try {
+                            locals.remove(name);
+                        } catch (NullPointerException npe) {
+                            throw noLocals("deleting", name);
+                        }
+                        break;
+                    }
+
+                    case Opcode311.UNPACK_SEQUENCE: {
+                        // w | -> w[n-1] | ... | w[0] |
+                        // ---^sp ---------------------^sp
+                        // n = oparg
+                        Object w = s[--sp];
+                        if (w instanceof PyTuple
+                                || w instanceof PyList) {
+                            List<?> seq = (List<?>)w;
+                            if (seq.size() == oparg) {
+                                int i = sp + oparg;
+                                for (Object o : seq) { s[--i] = o; }
+                                sp += oparg;
+                                ip += Opcode311.INLINE_CACHE_ENTRIES_UNPACK_SEQUENCE;
+                                break;
+                            }
+                            // Wrong size: slow path to error message
+                        }
+                        // unpack iterable w to s[sp...sp+n]
+                        sp = unpackIterable(w, oparg, -1, s, sp);
+                        ip += Opcode311.INLINE_CACHE_ENTRIES_UNPACK_SEQUENCE;
+                        break;
+                    }
+
+                    case Opcode311.UNPACK_EX:
+                        // w | -> w[N-1] | ... | w[0] |
+                        // ---^sp ---------------------^sp
+                        sp = unpackIterable(s[--sp], oparg & 0xff,
+                                oparg >> 8, s, sp);
+                        break;
+
+                    case Opcode311.STORE_ATTR:
+                        // o.name = v
+                        // v | o | -> |
+                        // -------^sp -^sp
+                        Abstract.setAttr(s[--sp], names[oparg],
+                                s[--sp]);
+                        ip += Opcode311.INLINE_CACHE_ENTRIES_STORE_ATTR;
+                        break;
+
+                    case Opcode311.DELETE_ATTR:
+                        // del o.name
+                        // o | -> |
+                        // ---^sp -^sp
+                        Abstract.delAttr(s[--sp], names[oparg]);
+                        break;
+
+                    case Opcode311.LOAD_NAME: {
+                        // Resolve against locals, globals and builtins
+                        String name = names[oparg];
+                        Object v;
+                        try {
+                            v = locals.get(name);
+                        } catch (NullPointerException npe) {
+                            throw noLocals("loading", name);
+                        }
+
+                        if (v == null) {
+                            v = globals.loadGlobal(builtins, name);
+                            if (v == null)
+                                throw new NameError(NAME_ERROR_MSG,
+                                        name);
+                        }
+                        s[sp++] = v; // PUSH
+                        break;
+                    }
+
+                    case Opcode311.LOAD_GLOBAL: {
+                        // Resolve against globals and builtins
+                        String name = names[oparg >> 1];
+                        Object v = globals.loadGlobal(builtins, name);
+                        if (v == null) {
+                            // CPython: not if error is already current
+                            throw new NameError(NAME_ERROR_MSG, name);
+                        }
+                        // Optionally push a null to satisfy [PRE]CALL
+                        s[sp] = null;
+                        sp += oparg & 1;
+                        s[sp++] = v;
+                        ip += Opcode311.INLINE_CACHE_ENTRIES_LOAD_GLOBAL;
+                        break;
+                    }
+
+                    case Opcode311.DELETE_FAST:
+                        if (fastlocals[oparg] == null) {
+                            throw unboundFast(oparg);
+                        }
+                        fastlocals[oparg] = null;
+                        break;
+
+                    case Opcode311.MAKE_CELL: {
+                        Object v = fastlocals[oparg];
+                        assert v == null || !(v instanceof PyCell);
+                        // Initial value in same element of fastlocals.
+                        fastlocals[oparg] = new PyCell(v);
+                        break;
+                    }
+
+                    case Opcode311.DELETE_DEREF: {
+                        PyCell cell = (PyCell)fastlocals[oparg];
+                        if (cell.get() == null) {
+                            throw unboundCell(oparg);
+                        }
+                        cell.del();
+                        break;
+                    }
+
+                    case Opcode311.LOAD_DEREF: {
+                        PyCell cell = (PyCell)fastlocals[oparg];
+                        Object w = cell.get();
+                        if (w == null) { throw unboundCell(oparg); }
+                        s[sp++] = w;
+                        break;
+                    }
+
+                    case Opcode311.STORE_DEREF: {
+                        PyCell cell = (PyCell)fastlocals[oparg];
+                        cell.set(s[--sp]);
+                        break;
+                    }
+
+                    case Opcode311.COPY_FREE_VARS: {
+                        /*
+                         * Fill locals from the function closure. The
+                         * compiler inserts this in code that needs it.
+                         */
+                        CPythonLayout layout = code.layout;
+                        assert oparg == layout.nfreevars;
+                        System.arraycopy(func.closure, 0, fastlocals,
+                                layout.free0, layout.nfreevars);
+                        break;
+                    }
+
+                    case Opcode311.BUILD_TUPLE:
+                        // w[0] | ... | w[oparg-1] | -> | tpl |
+                        // -------------------------^sp -------^sp
+                        // Group the N=oparg elements on the stack
+                        // into a single tuple.
+                        sp -= oparg;
+                        s[sp] = new PyTuple(s, sp++, oparg);
+                        break;
+
+                    case Opcode311.BUILD_LIST:
+                        // w[0] | ... | w[oparg-1] | -> | lst |
+                        // -------------------------^sp -------^sp
+                        /*
+                         * Group the N=oparg elements on the stack into
+                         * a single list.
+                         */
+                        sp -= oparg;
+                        s[sp] = new PyList(s, sp++, oparg);
+                        break;
+
+                    case Opcode311.LIST_TO_TUPLE: {
+                        int top = sp - 1;
+                        s[top] = PyTuple.from((PyList)s[top]);
+                        break;
+                    }
+
+                    case Opcode311.LIST_EXTEND: {
+                        Object iterable = s[--sp];
+                        PyList list = (PyList)s[sp - oparg];
+                        list.list_extend(iterable, () -> Abstract
+                                .typeError(VALUE_AFTER_STAR, iterable));
+                        break;
+                    }
+
+                    case Opcode311.BUILD_MAP:
+                        // k1 | v1 | ... | kN | vN | -> | map |
+                        // -------------------------^sp -------^sp
+                        /*
+                         * Build dictionary from the N=oparg key-value
+                         * pairs on the stack in order.
+                         */
+                        sp -= oparg * 2;
+                        s[sp] = PyDict.fromKeyValuePairs(s, sp++,
+                                oparg);
+                        break;
+
+                    case Opcode311.BUILD_CONST_KEY_MAP:
+                        // v1 | ... | vN | keys | -> | map |
+                        // ----------------------^sp -------^sp
+                        /*
+                         * Build dictionary from the N=oparg keys as a
+                         * tuple and values on the stack in order.
+                         */
+                        sp = constKeyMap(sp, oparg);
+                        break;
+
+                    case Opcode311.DICT_UPDATE: {
+                        // map | ... | v | -> | map | ... |
+                        // ---------------^sp -------------^sp
+                        /*
+                         * Update a dictionary from another map v on the
+                         * stack. There are N=oparg arguments including
+                         * v on the stack, but only v is merged. In
+                         * practice N=1 or 2.
+                         */
+                        Object map = s[--sp];
+                        PyDict dict = (PyDict)s[sp - oparg];
+                        try {
+                            dict.update(map);
+                        } catch (AttributeError ae) {
+                            throw new TypeError(
+                                    "'%.200s' object is not a mapping",
+                                    PyType.of(map));
+                        }
+                        break;
+                    }
+
+                    case Opcode311.DICT_MERGE: {
+                        // f | map | ... | v | -> | f | map | ... |
+                        // -------------------^sp -----------------^sp
+                        /*
+                         * Update a dictionary from another map v on the
+                         * stack. There are N=oparg arguments including
+                         * v on the stack, but only v is merged. In
+                         * practice N=1. The function f is only used as
+                         * context in error messages.
+                         */
+                        Object map = s[--sp];
+                        PyDict dict = (PyDict)s[sp - oparg];
+                        try {
+                            dict.merge(map, MergeMode.UNIQUE);
+                        } catch (AttributeError ae) {
+                            throw kwargsTypeError(s[sp - (oparg + 2)],
+                                    map);
+                        } catch (KeyError.Duplicate ke) {
+                            throw kwargsKeyError(ke,
+                                    s[sp - (oparg + 2)]);
+                        }
+                        break;
+                    }
+
+                    case Opcode311.LOAD_ATTR: {
+                        // v | -> | v.name |
+                        // ---^sp ----------^sp
+                        int top = sp - 1;
+                        ip += Opcode311.INLINE_CACHE_ENTRIES_LOAD_ATTR;
+                        int next = wordcode[ip] & 0xffff;
+                        if (next >> 8 == Opcode311.BINARY_OP) {
+                            /*
+                             * If the attribute is a numeric member,
+                             * fuse the read with the BINARY_OP:
+                             */
+                            // w | v | -> | w op v.name |
+                            // -------^sp -------------^sp
+                            Object r = code.memberSite(oparg)
+                                    .binaryOp(s[top - 1], next & 0xff,
+                                            s[top]);
+                            if (r != null) {
+                                s[--sp - 1] = r;
+                                // Skip the BINARY_OP and its cache
+                                ip += 1;
+                                ip += Opcode311.INLINE_CACHE_ENTRIES_BINARY_OP;
+                                break;
+                            }
+                        }
+                        s[top] = Abstract.getAttr(s[top], names[oparg]);
+                        break;
+                    }
+
+                    case Opcode311.COMPARE_OP: {
+                        // v | w | -> | op(v,w) |
+                        // -------^sp -----------^sp
+                        Object w = s[--sp]; // POP
+                        int top = sp - 1;
+                        Object v = s[top]; // TOP
+                        s[top] = Comparison.from(oparg).apply(v, w);
+                        ip += Opcode311.INLINE_CACHE_ENTRIES_COMPARE_OP;
+                        break;
+                    }
+
+                    case Opcode311.IS_OP: {
+                        // v | w | -> | (v is w) ^ oparg |
+                        // -------^sp --------------------^sp
+                        Object w = s[--sp]; // POP
+                        int top = sp - 1;
+                        Object v = s[top]; // TOP
+                        Comparison op = oparg == 0 ? Comparison.IS
+                                : Comparison.IS_NOT;
+                        s[top] = op.apply(v, w);
+                        break;
+                    }
+
+                    case Opcode311.CONTAINS_OP: {
+                        // v | w | -> | (v in w) ^ oparg |
+                        // -------^sp --------------------^sp
+                        Object w = s[--sp]; // POP
+                        int top = sp - 1;
+                        Object v = s[top]; // TOP
+                        Comparison op = oparg == 0 ? Comparison.IN
+                                : Comparison.NOT_IN;
+                        s[top] = op.apply(v, w);
+                        break;
+                    }
+
+                    case Opcode311.JUMP_FORWARD:
+                        ip += oparg;
+                        break;
+
+                    case Opcode311.JUMP_BACKWARD: {
+                        lasti = ip - 1;
+                        if (--tstate.countdown <= 0) { tstate.tick(); }
+                        ip -= oparg;
+                        break;
+                    }
+
+                    case Opcode311.POP_JUMP_BACKWARD_IF_FALSE: {
+                        if (!Abstract.isTrue(s[--sp])) {
+                            lasti = ip - 1;
+                            if (--tstate.countdown <= 0) { tstate.tick(); }
+                            ip -= oparg;
+                        }
+                        break;
+                    }
+                    case Opcode311.POP_JUMP_FORWARD_IF_FALSE: {
+                        if (!Abstract.isTrue(s[--sp])) { ip += oparg; }
+                        break;
+                    }
+
+                    case Opcode311.POP_JUMP_BACKWARD_IF_TRUE: {
+                        if (Abstract.isTrue(s[--sp])) {
+                            lasti = ip - 1;
+                            if (--tstate.countdown <= 0) { tstate.tick(); }
+                            ip -= oparg;
+                        }
+                        break;
+
+                    }
+
+                    case Opcode311.POP_JUMP_FORWARD_IF_TRUE: {
+                        if (Abstract.isTrue(s[--sp])) { ip += oparg; }
+                        break;
+
+                    }
+
+                    case Opcode311.POP_JUMP_BACKWARD_IF_NOT_NONE: {
+                        if (s[--sp] != Py.None) {
+                            lasti = ip - 1;
+                            if (--tstate.countdown <= 0) { tstate.tick(); }
+                            ip -= oparg;
+                        }
+                        break;
+                    }
+
+                    case Opcode311.POP_JUMP_FORWARD_IF_NOT_NONE: {
+                        if (s[--sp] != Py.None) { ip += oparg; }
+                        break;
+                    }
+
+                    case Opcode311.POP_JUMP_BACKWARD_IF_NONE: {
+                        if (s[--sp] == Py.None) {
+                            lasti = ip - 1;
+                            if (--tstate.countdown <= 0) { tstate.tick(); }
+                            ip -= oparg;
+                        }
+                        break;
+                    }
+
+                    case Opcode311.POP_JUMP_FORWARD_IF_NONE: {
+                        if (s[--sp] == Py.None) { ip += oparg; }
+                        break;
+                    }
+
+                    case Opcode311.JUMP_IF_FALSE_OR_POP: {
+                        Object v = s[--sp]; // POP
+                        if (!Abstract.isTrue(v)) {
+                            sp += 1;    // UNPOP
+                            ip += oparg;
+                        }
+                        break;
+                    }
+
+                    case Opcode311.JUMP_IF_TRUE_OR_POP: {
+                        Object v = s[--sp]; // POP
+                        if (Abstract.isTrue(v)) {
+                            sp += 1;    // UNPOP
+                            ip += oparg;
+                        }
+                        break;
+                    }
+
+                    case Opcode311.JUMP_BACKWARD_NO_INTERRUPT: {
+                        // Same as plain JUMP_BACKWARD for us
+                        lasti = ip - 1;
+                        if (--tstate.countdown <= 0) { tstate.tick(); }
+                        ip -= oparg;
+                        break;
+                    }
+
+                    case Opcode311.JUMP_BACKWARD_QUICK: {
+                        // Same as plain JUMP_BACKWARD for us
+                        lasti = ip - 1;
+                        if (--tstate.countdown <= 0) { tstate.tick(); }
+                        ip -= oparg;
+                        break;
+                    }
+
+                    case Opcode311.GET_ITER: {
+                        // Replace an iterable with an iterator
+                        // obj | -> iter(obj) |
+                        // -----^sp -----------^sp
+                        int top = sp - 1;
+                        s[top] = Abstract.getIterator(s[top]);
+                        break;
+                    }
+
+                    case Opcode311.FOR_ITER: {
+                        // Push the next item of an iterator:
+                        // iter | -> iter | next |
+                        // ------^sp -------------^sp
+                        // or pop and jump if it is exhausted:
+                        // iter | -> |
+                        // ------^sp -^sp
+                        Object next = Abstract.next(s[sp - 1]);
+                        if (next != null) {
+                            s[sp++] = next;
+                        } else {
+                            --sp;
+                            ip += oparg;
+                        }
+                        break;
+                    }
+
+                    case Opcode311.LOAD_METHOD:
+                        /*
+                         * Emitted when compiling obj.meth(...). Works
+                         * in tandem with CALL. If we can bypass
+                         * temporary bound method:
+                         */
+                        // obj | -> | desc | self |
+                        // -----^sp ---------------^sp
+                        // Otherwise almost conventional LOAD_ATTR:
+                        // obj | -> | null | meth |
+                        // -----^sp ---------------^sp
+                        getMethod(s[--sp], names[oparg], sp);
+                        sp += 2;
+                        ip += Opcode311.INLINE_CACHE_ENTRIES_LOAD_METHOD;
+                        break;
+
+                    case Opcode311.PRECALL:
+                        /*
+                         * CPython gains from recognising that a
+                         * callable is actually a bound method, and so
+                         * each call is includes a PUSH_NULL beforehand.
+                         * PRECALL uses that space to un-bundle (if it
+                         * can) the callable into an unbound callable
+                         * and its 'self' argument.
+                         *
+                         * There is no proof this would help in Jython.
+                         * It might, but we can safely make this a no-op
+                         * and CALL will still do the right thing.
+                         */
+                        ip += Opcode311.INLINE_CACHE_ENTRIES_PRECALL;
+                        break;
+
+                    case Opcode311.KW_NAMES:
+                        assert (kwsite == null);
+                        assert PyTuple.TYPE.checkExact(consts[oparg]);
+                        kwsite = code.keywordSite(oparg);
+                        break;
 
-        CPython311Code code = func.code;
-        this.valuestack = new Object[code.stacksize];
-        int nfast = 0;
+                    case Opcode311.CALL: {
+                        /*
+                         * Works in tandem with LOAD_METHOD or PRECALL.
+                         * If LOAD_METHOD bypassed the method binding or
+                         * PRECALL un-bundled a bound object:
+                         */
+                        // desc | self | arg[n] | -> | res |
+                        // ----------------------^sp -------^sp
+                        // Otherwise:
+                        // null | meth | arg[n] | -> | res |
+                        // ----------------------^sp -------^sp
+                        // oparg = n
+                        lasti = ip - 1;
+                        if (--tstate.countdown <= 0) { tstate.tick(); }
+                        sp -= oparg + 2;
+                        if (s[sp] != null) {
+                            // We bypassed the method binding. Stack:
+                            // desc | self | arg[n] |
+                            // ^sp
+                            // call desc(self, arg1 ... argN)
+                            s[sp] = kwsite == null
+                                    ? call(tstate, s[sp++], s, sp,
+                                            oparg + 1)
+                                    : kwsite.call(tstate, s[sp++], s, sp,
+                                            oparg + 1);
+                        } else {
+                            // meth is the bound method self.name
+                            // null | meth | arg[n] |
+                            // ^sp
+                            // call meth(arg1 ... argN)
+                            s[sp++] = kwsite == null
+                                    ? call(tstate, s[sp], s, sp + 1,
+                                            oparg)
+                                    : kwsite.call(tstate, s[sp], s,
+                                            sp + 1, oparg);
+                        }
+                        kwsite = null;
+                        ip += Opcode311.INLINE_CACHE_ENTRIES_CALL;
+                        break;
+                    }
 
-        // The need for a dictionary of locals depends on the code
-        EnumSet<PyCode.Trait> traits = code.traits;
-        if (traits.contains(Trait.NEWLOCALS)) {
-            // Ignore locals argument
-            if (traits.contains(Trait.OPTIMIZED)) {
-                // We can create it later but probably won't need to
-                this.locals = null;
-                // Instead locals are in an array
-                nfast = code.layout.size();
-            } else {
-                this.locals = new PyDict();
-            }
-        } else if (locals == null) {
-            // Default to same as globals.
-            this.locals = func.globals;
-        } else {
-            /*
-             * Use supplied locals. As it may not implement j.u.Map, we
-             * wrap any Python object as a Map. Depending on the
-             * operations attempted, this may break later.
-             */
-            this.locals = locals;
-        }
+                    case Opcode311.CALL_FUNCTION_EX: {
+                        // Call with positional & kw args. Stack:
+                        // f | args | kwdict? | -> res |
+                        // --------------------^sp -----^sp
+                        // oparg is 0 (no kwdict) or 1 (kwdict present)
+                        lasti = ip - 1;
+                        if (--tstate.countdown <= 0) { tstate.tick(); }
+                        Object w = (oparg & 0x1) == 0 ? null : s[--sp];
+                        Object v = s[--sp]; // args tuple
+                        sp -= 1;
+                        assert s[sp - 1] == null; // from PUSH_NULL
+                        s[sp - 1] = Callables.callEx(s[sp], v, w);
+                        break;
+                    }
 
-        // Locally present the func.__builtins__ as a Map
-        this.builtins = PyMapping.map(func.builtins);
+                    case Opcode311.MAKE_FUNCTION:
+                        // Make a function object. Stack:
+                        // code | name | 0-4 args | -> func |
+                        // ------------------------^sp ---------^sp
+                        sp = makeFunction(oparg, sp);
+                        break;
 
-        // Initialise local variables (plain and cell)
-        this.fastlocals =
-                nfast > 0 ? new Object[nfast] : EMPTY_OBJECT_ARRAY;
-        // Free variables are initialised by opcode COPY_FREE_VARS
-    }
+                    case Opcode311.COPY: {
+                        assert (oparg != 0);
+                        Object v = s[sp - oparg];
+                        s[sp++] = v;
+                        break;
+                    }
 
-    @Override
-    Object eval() {
+                    case Opcode311.BINARY_OP: {
+                        Object w = s[--sp]; // POP
+                        int top = sp - 1;
+                        Object v = s[top]; // TOP
+                        s[top] = switch (oparg) {
+                            default -> //
+                                    Py.NotImplemented;
+                            case Opcode311.NB_ADD -> //
+                                    PyNumber.add(v, w);
+                            case Opcode311.NB_AND -> //
+                                    PyNumber.and(v, w);
+                            // case Opcode311.NB_FLOOR_DIVIDE -> //
+                            // PyNumber.FloorDivide(v, w);
+                            // case Opcode311.NB_LSHIFT -> //
+                            // PyNumber.Lshift(v, w);
+                            // case Opcode311.NB_MATRIX_MULTIPLY -> //
+                            // PyNumber.MatrixMultiply(v, w);
+                            case Opcode311.NB_MULTIPLY -> //
+                                    PyNumber.multiply(v, w);
+                            // case Opcode311.NB_REMAINDER -> //
+                            // PyNumber.Remainder(v, w);
+                            case Opcode311.NB_OR -> //
+                                    PyNumber.or(v, w);
+                            // case Opcode311.NB_POWER -> //
+                            // PyNumber.PowerNoMod(v, w);
+                            // case Opcode311.NB_RSHIFT -> //
+                            // PyNumber.Rshift(v, w);
+                            case Opcode311.NB_SUBTRACT -> //
+                                    PyNumber.subtract(v, w);
+                            // case Opcode311.NB_TRUE_DIVIDE -> //
+                            // PyNumber.TrueDivide(v, w);
+                            case Opcode311.NB_XOR -> //
+                                    PyNumber.xor(v, w);
+                            // case Opcode311.NB_INPLACE_ADD -> //
+                            // PyNumber.InPlaceAdd(v, w);
+                            // case Opcode311.NB_INPLACE_AND -> //
+                            // PyNumber.InPlaceAnd(v, w);
+                            // case Opcode311.NB_INPLACE_FLOOR_DIVIDE ->
+                            // //
+                            // PyNumber.InPlaceFloorDivide(v, w);
+                            // case Opcode311.NB_INPLACE_LSHIFT -> //
+                            // PyNumber.InPlaceLshift(v, w);
+                            // case Opcode311.NB_INPLACE_MATRIX_MULTIPLY
+                            // -> //
+                            // PyNumber.InPlaceMatrixMultiply(v, w);
+                            // case Opcode311.NB_INPLACE_MULTIPLY -> //
+                            // PyNumber.InPlaceMultiply(v, w);
+                            // case Opcode311.NB_INPLACE_REMAINDER -> //
+                            // PyNumber.InPlaceRemainder(v, w);
+                            // case Opcode311.NB_INPLACE_OR -> //
+                            // PyNumber.InPlaceOr(v, w);
+                            // case Opcode311.NB_INPLACE_POWER -> //
+                            // PyNumber.InPlacePowerNoMod(v, w);
+                            // case Opcode311.NB_INPLACE_RSHIFT -> //
+                            // PyNumber.InPlaceRshift(v, w);
+                            // case Opcode311.NB_INPLACE_SUBTRACT -> //
+                            // PyNumber.InPlaceSubtract(v, w);
+                            // case Opcode311.NB_INPLACE_TRUE_DIVIDE ->
+                            // //
+                            // PyNumber.InPlaceTrueDivide(v, w);
+                            // case Opcode311.NB_INPLACE_XOR -> //
+                            // PyNumber.InPlaceXor(v, w);
+                        };
+                        ip += Opcode311.INLINE_CACHE_ENTRIES_BINARY_OP;
+                        break;
+                    }
 
-        // Push this frame onto the stack of the thread state.
-        ThreadState.get().push(this);
+                    case Opcode311.EXTENDED_ARG:
+                        // Pick up the next instruction.
+                        opword = wordcode[ip++] & 0xffff;
+                        // The current oparg *prefixes* the next oparg,
+                        // which could of course be another
+                        // EXTENDED_ARG. (Trust me, it'll be fine.)
+                        oparg = (oparg << 8) | opword & 0xff;
+                        // This is *instead of* the post-switch fetch.
+                        continue;
+
+                    default:
+                        throw new InterpreterError(
+                                "%s at ip: %d, unknown opcode: %d",
+                                code.qualname, 2 * (ip - 1),
+                                opword >> 8);
+                } // switch
+
+                /*
+                 * Pick up the next instruction and argument. Because we
+                 * use a word array, our ip is half the CPython ip. The
+                 * latter, and all jump arguments, are always even, so
+                 * we have to halve the jump distances or destinations.
+                 */
+                opword = wordcode[ip++] & 0xffff;
+                oparg = opword & 0xff;
+
+            } catch (BaseException pye) {
+                /*
+                 * We ought here to check for exception handlers
+                 * (defined in Python and reflected in the byte code)
+                 * potentially resuming the loop with ip at the handler
+                 * code, or in a Python finally clause.
+                 */
+                // Should handle within Python, but for now, stop.
+                // Report only once (for deep recursion especially).
+                if (back == null) {
+                    System.err.println(pye);
+                }
+                throw pye;
+            } catch (StackOverflowError soe) {
+                // Deep recursion defeated the recursion limit.
+                throw tstate.stackOverflow();
+            } catch (InterpreterError | AssertionError ie) {
+                /*
+                 * An InterpreterError signals an internal error,
+                 * recognised by our implementation: stop.
+                 */
+                System.err.println(ie);
+                throw ie;
+            } catch (Throwable t) {
+                /*
+                 * A non-Python exception signals an internal error, in
+                 * our implementation, in user-supplied Java, or from a
+                 * Java library misused from Python.
+                 */
+                // Should handle within Python, but for now, stop.
+                t.printStackTrace();
+                throw new InterpreterError(t,
+                        "Non-PyException at ip: %d, opcode: %d",
+                        2 * (ip - 1), opword >> 8);
+            }
+        } // loop
+
+        return returnValue;
+    }
+
+    /**
+     * Execute the code in this frame, as {@link #execute(ThreadState)},
+     * but counting, recording and tracing each instruction as
+     * requested. This is a copy of the interpreter loop in
+     * {@link #execute(ThreadState)}, differing only where it
+     * instruments execution, so that frames that need none pay nothing
+     * for the possibility. Changes to either loop must be made to both.
+     *
+     * @param tstate the current thread state
+     * @param counts of executions of each instruction, or {@code null}
+     *     if not profiling
+     * @param bits set for instructions executed, or {@code null} if not
+     *     recording coverage
+     * @param traced whether to signal line events to the trace function
+     * @return return value of the frame
+     */
+    private Object executeInstrumented(ThreadState tstate,
+            long[] counts, long[] bits, boolean traced) {
 
         // Evaluation stack and index
         final Object[] s = valuestack;
@@ -183,18 +1160,32 @@ class CPython311Frame extends PyFrame<CPython311Code> {
         // Wrap locals (any type) as a minimal kind of Java map
         Map<Object, Object> locals = localsMapOrNull();
 
-        // Holds keyword names argument between KW_NAMES and CALL
-        PyTuple kwnames = null;
+        // Holds keyword call site between KW_NAMES and CALL
+        CPython311Code.KeywordCallSite kwsite = null;
+
+        // Whether to count, record or trace each instruction
+        final boolean instrumented =
+                counts != null || bits != null || traced;
 
         loop: while (ip <= END) {
             /*
              * Here every so often, or maybe inside the try, and
              * conditional on the opcode, CPython would have us check
              * for asynchronous events that need handling. Some are not
-             * relevant to this implementation (GIL drop request). Some
-             * probably are.
+             * relevant to this implementation (GIL drop request). We
+             * count backward jumps and calls in tstate.countdown, and
+             * check only when it runs out (see ThreadState.tick()). At
+             * the same places, we note the instruction in lasti.
              */
 
+            // Count, record and trace the instruction if instrumented.
+            if (instrumented) {
+                int i = ip - 1;
+                if (counts != null) { counts[i]++; }
+                if (bits != null) { bits[i >> 6] |= 1L << i; }
+                if (traced) { traceInstruction(tstate, i); }
+            }
+
             // Comparison with CPython macros in c.eval:
             // TOP() : s[sp-1]
             // PEEK(n) : s[sp-n]
@@ -586,12 +1577,18 @@ class CPython311Frame extends PyFrame<CPython311Code> {
                         break;
 
                     case Opcode311.JUMP_BACKWARD: {
+                        lasti = ip - 1;
+                        if (--tstate.countdown <= 0) { tstate.tick(); }
                         ip -= oparg;
                         break;
                     }
 
                     case Opcode311.POP_JUMP_BACKWARD_IF_FALSE: {
-                        if (!Abstract.isTrue(s[--sp])) { ip -= oparg; }
+                        if (!Abstract.isTrue(s[--sp])) {
+                            lasti = ip - 1;
+                            if (--tstate.countdown <= 0) { tstate.tick(); }
+                            ip -= oparg;
+                        }
                         break;
                     }
                     case Opcode311.POP_JUMP_FORWARD_IF_FALSE: {
@@ -600,7 +1597,11 @@ class CPython311Frame extends PyFrame<CPython311Code> {
                     }
 
                     case Opcode311.POP_JUMP_BACKWARD_IF_TRUE: {
-                        if (Abstract.isTrue(s[--sp])) { ip -= oparg; }
+                        if (Abstract.isTrue(s[--sp])) {
+                            lasti = ip - 1;
+                            if (--tstate.countdown <= 0) { tstate.tick(); }
+                            ip -= oparg;
+                        }
                         break;
 
                     }
@@ -612,7 +1613,11 @@ class CPython311Frame extends PyFrame<CPython311Code> {
                     }
 
                     case Opcode311.POP_JUMP_BACKWARD_IF_NOT_NONE: {
-                        if (s[--sp] != Py.None) { ip -= oparg; }
+                        if (s[--sp] != Py.None) {
+                            lasti = ip - 1;
+                            if (--tstate.countdown <= 0) { tstate.tick(); }
+                            ip -= oparg;
+                        }
                         break;
                     }
 
@@ -622,7 +1627,11 @@ class CPython311Frame extends PyFrame<CPython311Code> {
                     }
 
                     case Opcode311.POP_JUMP_BACKWARD_IF_NONE: {
-                        if (s[--sp] == Py.None) { ip -= oparg; }
+                        if (s[--sp] == Py.None) {
+                            lasti = ip - 1;
+                            if (--tstate.countdown <= 0) { tstate.tick(); }
+                            ip -= oparg;
+                        }
                         break;
                     }
 
@@ -651,12 +1660,16 @@ class CPython311Frame extends PyFrame<CPython311Code> {
 
                     case Opcode311.JUMP_BACKWARD_NO_INTERRUPT: {
                         // Same as plain JUMP_BACKWARD for us
+                        lasti = ip - 1;
+                        if (--tstate.countdown <= 0) { tstate.tick(); }
                         ip -= oparg;
                         break;
                     }
 
                     case Opcode311.JUMP_BACKWARD_QUICK: {
                         // Same as plain JUMP_BACKWARD for us
+                        lasti = ip - 1;
+                        if (--tstate.countdown <= 0) { tstate.tick(); }
                         ip -= oparg;
                         break;
                     }
@@ -720,9 +1733,9 @@ class CPython311Frame extends PyFrame<CPython311Code> {
                         break;
 
                     case Opcode311.KW_NAMES:
-                        assert (kwnames == null);
+                        assert (kwsite == null);
                         assert PyTuple.TYPE.checkExact(consts[oparg]);
-                        kwnames = (PyTuple)consts[oparg];
+                        kwsite = code.keywordSite(oparg);
                         break;
 
                     case Opcode311.CALL: {
@@ -737,23 +1750,31 @@ class CPython311Frame extends PyFrame<CPython311Code> {
                         // null | meth | arg[n] | -> | res |
                         // ----------------------^sp -------^sp
                         // oparg = n
+                        lasti = ip - 1;
+                        if (--tstate.countdown <= 0) { tstate.tick(); }
                         sp -= oparg + 2;
                         if (s[sp] != null) {
                             // We bypassed the method binding. Stack:
                             // desc | self | arg[n] |
                             // ^sp
                             // call desc(self, arg1 ... argN)
-                            s[sp] = Callables.vectorcall(s[sp++], s, sp,
-                                    oparg + 1, kwnames);
+                            s[sp] = kwsite == null
+                                    ? call(tstate, s[sp++], s, sp,
+                                            oparg + 1)
+                                    : kwsite.call(tstate, s[sp++], s, sp,
+                                            oparg + 1);
                         } else {
                             // meth is the bound method self.name
                             // null | meth | arg[n] |
                             // ^sp
                             // call meth(arg1 ... argN)
-                            s[sp++] = Callables.vectorcall(s[sp], s,
-                                    sp + 1, oparg, kwnames);
+                            s[sp++] = kwsite == null
+                                    ? call(tstate, s[sp], s, sp + 1,
+                                            oparg)
+                                    : kwsite.call(tstate, s[sp], s,
+                                            sp + 1, oparg);
                         }
-                        kwnames = null;
+                        kwsite = null;
                         ip += Opcode311.INLINE_CACHE_ENTRIES_CALL;
                         break;
                     }
@@ -763,6 +1784,8 @@ class CPython311Frame extends PyFrame<CPython311Code> {
                         // f | args | kwdict? | -> res |
                         // --------------------^sp -----^sp
                         // oparg is 0 (no kwdict) or 1 (kwdict present)
+                        lasti = ip - 1;
+                        if (--tstate.countdown <= 0) { tstate.tick(); }
                         Object w = (oparg & 0x1) == 0 ? null : s[--sp];
                         Object v = s[--sp]; // args tuple
                         sp -= 1;
@@ -878,16 +1901,27 @@ class CPython311Frame extends PyFrame<CPython311Code> {
                 opword = wordcode[ip++] & 0xffff;
                 oparg = opword & 0xff;
 
-            } catch (PyException pye) {
+            } catch (BaseException pye) {
                 /*
                  * We ought here to check for exception handlers
                  * (defined in Python and reflected in the byte code)
                  * potentially resuming the loop with ip at the handler
                  * code, or in a Python finally clause.
                  */
+                if (traced) {
+                    // Signal as the exception reaches this frame
+                    lasti = ip - 1;
+                    tstate.traceException(this, pye);
+                }
                 // Should handle within Python, but for now, stop.
-                System.err.println(pye);
+                // Report only once (for deep recursion especially).
+                if (back == null) {
+                    System.err.println(pye);
+                }
                 throw pye;
+            } catch (StackOverflowError soe) {
+                // Deep recursion defeated the recursion limit.
+                throw tstate.stackOverflow();
             } catch (InterpreterError | AssertionError ie) {
                 /*
                  * An InterpreterError signals an internal error,
@@ -909,10 +1943,12 @@ class CPython311Frame extends PyFrame<CPython311Code> {
             }
         } // loop
 
-        // ThreadState.get().swap(back);
         return returnValue;
     }
 
+    @Override
+    int currentLine() { return code.lineOf(lasti); }
+
     @Override
     // Compare CPython PyFrame_FastToLocalsWithError in frameobject.c
     // Also PyFrame_FastToLocals in frameobject.c
@@ -1114,31 +2150,33 @@ class CPython311Frame extends PyFrame<CPython311Code> {
 
         // Look up the name in the type (null if not found).
         Object typeAttr = objType.lookup(name);
-        if (typeAttr != null) {
+        if (typeAttr instanceof DataDescriptor) {
+            // Built-in data descriptor: call its __get__ directly.
+            valuestack[offset] = null;
+            valuestack[offset + 1] =
+                    ((DataDescriptor)typeAttr).__get__(obj, objType);
+            return;
+        } else if (typeAttr != null) {
             // Found in the type, it might be a descriptor
             Operations typeAttrOps = Operations.of(typeAttr);
-            descrGet = typeAttrOps.op_get;
+            if (Slot.op_get.isDefinedFor(typeAttrOps)) {
+                descrGet = typeAttrOps.op_get;
+            }
             if (typeAttrOps.isMethodDescr()) {
                 /*
                  * We found a method descriptor, but will check the
                  * instance dictionary for a shadowing definition.
                  */
                 methFound = true;
-            } else if (typeAttrOps.isDataDescr()) {
-                // typeAttr is a data descriptor so call its __get__.
-                try {
-                    valuestack[offset] = null;
-                    valuestack[offset + 1] = descrGet
-                            .invokeExact(typeAttr, obj, objType);
-                    return;
-                } catch (Slot.EmptyException e) {
-                    /*
-                     * Only __set__ or __delete__ was defined. We do not
-                     * catch AttributeError: it's definitive. Suppress
-                     * trying __get__ again.
-                     */
-                    descrGet = null;
-                }
+            } else if (descrGet != null && typeAttrOps.isDataDescr()) {
+                /*
+                 * typeAttr is a data descriptor so call its __get__.
+                 * We do not catch AttributeError: it's definitive.
+                 */
+                valuestack[offset] = null;
+                valuestack[offset + 1] =
+                        descrGet.invokeExact(typeAttr, obj, objType);
+                return;
             }
         }
 
@@ -1173,13 +2211,11 @@ class CPython311Frame extends PyFrame<CPython311Code> {
             valuestack[offset + 1] = obj;
             return;
         } else if (descrGet != null) {
-            // typeAttr may be a non-data descriptor: call __get__.
-            try {
-                valuestack[offset] = null;
-                valuestack[offset + 1] =
-                        descrGet.invokeExact(typeAttr, obj, objType);
-                return;
-            } catch (Slot.EmptyException e) {}
+            // typeAttr is a non-data descriptor: call __get__.
+            valuestack[offset] = null;
+            valuestack[offset + 1] =
+                    descrGet.invokeExact(typeAttr, obj, objType);
+            return;
         }
 
         if (typeAttr != null) {
@@ -1253,7 +2289,8 @@ class CPython311Frame extends PyFrame<CPython311Code> {
         Object[] s = valuestack;
         PyFunction<?> f = this.func, func;
 
-        PyCode code = (PyCode)s[--sp];
+        // The code may have been deferred by the loader
+        PyCode code = this.code.resolveConst(s[--sp]);
 
         if (oparg == 0) {
             // Simple case: function object with no extras.
@@ -1275,6 +2312,30 @@ class CPython311Frame extends PyFrame<CPython311Code> {
         return sp;
     }
 
+    /**
+     * Call an object with arguments on a stack slice, all given by
+     * position. A Python function defined by {@link CPython311Code}
+     * receives the thread state of this frame, and its arguments
+     * directly from the stack. Other objects are called with the
+     * vector call protocol.
+     *
+     * @param tstate the current thread state
+     * @param callable target
+     * @param stack positional arguments
+     * @param start position of arguments in the array
+     * @param nargs number of positional arguments
+     * @return the return from the call to the object
+     * @throws Throwable for errors raised in the function
+     */
+    private static Object call(ThreadState tstate, Object callable,
+            Object[] stack, int start, int nargs) throws Throwable {
+        if (callable instanceof CPython311Function func) {
+            return func.call(tstate, stack, start, nargs);
+        } else {
+            return Callables.vectorcall(callable, stack, start, nargs);
+        }
+    }
+
     /**
      * Generate error to throw when we cannot access locals.
      *
@@ -5,7 +5,11 @@ package uk.co.farowl.vsj3.evo1;
 /** A {@link PyFunction} defined in CPython 3.11 byte code. */
 class CPython311Function extends PyFunction<CPython311Code> {
 
-    /** Argument parser matched to {@link #code}. */
+    /**
+     * Argument parser matched to {@link #code}, shared with all
+     * functions created from it. The function supplies {@link #defaults}
+     * and {@link #kwdefaults} when it parses a call.
+     */
     private ArgParser argParser;
 
     /**
@@ -26,8 +30,8 @@ class CPython311Function extends PyFunction<CPython311Code> {
             Object annotations, PyCell[] closure) {
         super(interpreter, code, globals, defaults, kwdefaults,
                 annotations, closure);
-        this.argParser = code.buildParser().defaults(defaults)
-                .kwdefaults(kwdefaults);
+        this.argParser = code.argParser();
+        argParser.checkShape(defaults, kwdefaults);
     }
 
     /**
@@ -47,8 +51,8 @@ class CPython311Function extends PyFunction<CPython311Code> {
     @Override
     void setCode(CPython311Code code) {
         super.setCode(code);
-        argParser = code.buildParser().defaults(defaults)
-                .kwdefaults(kwdefaults);
+        argParser = code.argParser();
+        argParser.checkShape(defaults, kwdefaults);
     }
 
     @Override
@@ -56,8 +60,9 @@ class CPython311Function extends PyFunction<CPython311Code> {
 
     @Override
     void setDefaults(PyTuple defaults) {
-        this.defaults = defaults.toArray();
-        argParser.defaults(this.defaults);
+        Object[] d = defaults.toArray();
+        argParser.checkShape(d, kwdefaults);
+        this.defaults = d;
     }
 
     @Override
@@ -67,8 +72,8 @@ class CPython311Function extends PyFunction<CPython311Code> {
 
     @Override
     void setKwdefaults(PyDict kwdefaults) {
+        argParser.checkShape(defaults, kwdefaults);
         this.kwdefaults = kwdefaults;
-        argParser.kwdefaults(this.kwdefaults);
     }
 
     @Override
@@ -85,8 +90,8 @@ class CPython311Function extends PyFunction<CPython311Code> {
         CPython311Frame frame = createFrame(null);
 
         // Fill the local variables that are arguments
-        ArgParser.FrameWrapper wrapper =
-                argParser.new ArrayFrameWrapper(frame.fastlocals);
+        ArgParser.FrameWrapper wrapper = argParser.new ArrayFrameWrapper(
+                frame.fastlocals, defaults, kwdefaults);
         argParser.parseToFrame(wrapper, args, names);
 
         // Run the function body
@@ -95,5 +100,69 @@ class CPython311Function extends PyFunction<CPython311Code> {
 
     // FastCall support ----------------------------------------------
 
+    /**
+     * Call this function with arguments on a stack slice, all given by
+     * position, from a frame executing in the given thread state.
+     *
+     * @param tstate the current thread state
+     * @param stack positional arguments
+     * @param start position of arguments in the array
+     * @param nargs number of positional arguments
+     * @return the return from the call
+     * @throws Throwable for errors raised in the function
+     */
+    Object call(ThreadState tstate, Object[] stack, int start, int nargs)
+            throws Throwable {
+
+        // Create a loose frame
+        CPython311Frame frame = createFrame(null);
+
+        // Fill the local variables that are arguments
+        ArgParser.FrameWrapper wrapper = argParser.new ArrayFrameWrapper(
+                frame.fastlocals, defaults, kwdefaults);
+        argParser.parseToFrame(wrapper, stack, start, nargs,
+                (String[])null);
+
+        // Run the function body
+        return frame.eval(tstate);
+    }
+
+    /**
+     * Call this function with arguments on a stack slice, the last of
+     * which are given by keyword according to a plan made by the
+     * parser of this function, as supplied by
+     * {@link CPython311Code.KeywordCallSite}.
+     *
+     * @param tstate the current thread state
+     * @param stack positional and keyword arguments
+     * @param start position of arguments in the array
+     * @param nargs number of positional <b>and keyword</b> arguments
+     * @param plan binding the keyword arguments to the frame
+     * @return the return from the call
+     * @throws Throwable for errors raised in the function
+     */
+    Object call(ThreadState tstate, Object[] stack, int start, int nargs,
+            ArgParser.KeywordPlan plan) throws Throwable {
+
+        // Create a loose frame
+        CPython311Frame frame = createFrame(null);
+
+        // Fill the local variables that are arguments
+        ArgParser.FrameWrapper wrapper = argParser.new ArrayFrameWrapper(
+                frame.fastlocals, defaults, kwdefaults);
+        argParser.parseToFrame(wrapper, stack, start, nargs, plan);
+
+        // Run the function body
+        return frame.eval(tstate);
+    }
+
+    /**
+     * The argument parser this function uses, which it shares with
+     * other functions defined by the same code.
+     *
+     * @return the argument parser
+     */
+    ArgParser argParser() { return argParser; }
+
     // plumbing ------------------------------------------------------
 }
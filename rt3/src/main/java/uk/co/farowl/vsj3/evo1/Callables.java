@@ -246,7 +246,27 @@ class Callables extends Abstract {
     // In CPython nargs counts only positional arguments
     static Object vectorcall(Object callable, Object[] stack, int start,
             int nargs, PyTuple kwnames) throws Throwable {
-        String[] names = Callables.namesArray(kwnames);
+        return vectorcall(callable, stack, start, nargs,
+                Callables.namesArray(kwnames));
+    }
+
+    /**
+     * Call an object with the vector call protocol, as
+     * {@link #vectorcall(Object, Object[], int, int, PyTuple)}, when the
+     * keyword names have already been converted to Java {@code String}
+     * (see {@link #namesArray(PyTuple)}).
+     *
+     * @param callable target
+     * @param stack positional and keyword arguments
+     * @param start position of arguments in the array
+     * @param nargs number of positional <b>and keyword</b> arguments
+     * @param names of keyword arguments (not {@code null})
+     * @return the return from the call to the object
+     * @throws TypeError if target is not callable
+     * @throws Throwable for errors raised in the function
+     */
+    static Object vectorcall(Object callable, Object[] stack, int start,
+            int nargs, String[] names) throws Throwable {
         if (callable instanceof FastCall) {
             // Fast path recognising optimised callable
             FastCall fast = (FastCall)callable;
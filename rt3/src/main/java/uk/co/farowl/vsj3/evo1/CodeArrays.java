@@ -0,0 +1,130 @@
+// Copyright (c)2023 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Arrays of {@code long} associated with code objects, kept separately
+ * for each thread, so that an instrumented interpreter loop may update
+ * them without synchronisation. A tool that presents the data (e.g.
+ * {@link OpcodeProfiler} or {@link Coverage}) combines the arrays of
+ * all threads when asked.
+ * <p>
+ * When a thread has ended, its arrays are folded into a single set
+ * for all ended threads (the next time a thread registers or the
+ * arrays are read), so that an application that runs code in many
+ * short-lived threads does not accumulate arrays without limit.
+ */
+final class CodeArrays {
+
+    /** The arrays of each thread, by code object, by thread. */
+    private final Map<Thread, Map<CPython311Code, long[]>> threads =
+            new HashMap<>();
+
+    /** The combined arrays of threads that have ended. */
+    private final Map<CPython311Code, long[]> ended =
+            new IdentityHashMap<>();
+
+    /** The arrays of the current thread, by code object. */
+    private final ThreadLocal<Map<CPython311Code, long[]>> local =
+            ThreadLocal.withInitial(this::newThread);
+
+    /** Creates the array for a code object. */
+    private final Function<CPython311Code, long[]> create;
+
+    /** Combines elements of the arrays of ended threads. */
+    private final LongBinaryOperator combine;
+
+    /**
+     * Create a collection of arrays, where the array for each code
+     * object will be created by the given function, and the arrays of
+     * ended threads combined element by element with the given
+     * operation.
+     *
+     * @param create function creating the array for a code object
+     * @param combine operation combining elements (e.g. sum)
+     */
+    CodeArrays(Function<CPython311Code, long[]> create,
+            LongBinaryOperator combine) {
+        this.create = create;
+        this.combine = combine;
+    }
+
+    /**
+     * Return the array of the current thread for the given code
+     * object, creating it if necessary.
+     *
+     * @param code to be executed
+     * @return array of this thread for {@code code}
+     */
+    long[] get(CPython311Code code) {
+        return local.get().computeIfAbsent(code, create);
+    }
+
+    /**
+     * Create and register the arrays of a new thread.
+     *
+     * @return arrays of the current thread
+     */
+    private Map<CPython311Code, long[]> newThread() {
+        // Other threads iterate this map when merging
+        Map<CPython311Code, long[]> arrays = new ConcurrentHashMap<>();
+        synchronized (threads) {
+            foldEnded();
+            threads.put(Thread.currentThread(), arrays);
+        }
+        return arrays;
+    }
+
+    /**
+     * Combine into {@link #ended} the arrays of threads that have
+     * ended, and forget those threads. The caller holds the lock on
+     * {@link #threads}.
+     */
+    private void foldEnded() {
+        Iterator<Map.Entry<Thread, Map<CPython311Code, long[]>>> i =
+                threads.entrySet().iterator();
+        while (i.hasNext()) {
+            Map.Entry<Thread, Map<CPython311Code, long[]>> e = i.next();
+            // A thread that has ended has made its last update
+            if (!e.getKey().isAlive()) {
+                e.getValue().forEach((code, a) -> {
+                    long[] f = ended.computeIfAbsent(code,
+                            c -> new long[a.length]);
+                    for (int k = 0; k < a.length; k++) {
+                        f[k] = combine.applyAsLong(f[k], a[k]);
+                    }
+                });
+                i.remove();
+            }
+        }
+    }
+
+    /**
+     * Present every array (of every thread) to the given action. The
+     * arrays of a thread that is running may change as we do so.
+     *
+     * @param action to receive each code object and array
+     */
+    void forEach(BiConsumer<CPython311Code, long[]> action) {
+        synchronized (threads) {
+            foldEnded();
+            ended.forEach(action);
+            for (Map<CPython311Code, long[]> t : threads.values()) {
+                t.forEach(action);
+            }
+        }
+    }
+
+    /** Set every array (of every thread) to zero. */
+    void reset() { forEach((code, a) -> Arrays.fill(a, 0L)); }
+}
@@ -0,0 +1,187 @@
+// Copyright (c)2023 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+import java.util.Arrays;
+
+import uk.co.farowl.vsj3.evo1.PyCode.Trait;
+
+/**
+ * Evaluation of one Python function over many rows of data presented
+ * as columns (Java arrays), each column supplying one argument of the
+ * function. For example, given the function {@code f} defined by:
+ * <pre>
+ * def f(x, n):
+ *     return x * n + 1
+ * </pre> and columns {@code double[] xs} and {@code long[] ns} of
+ * equal length, {@link #eval(Object...) eval(xs, ns)} returns the array
+ * of {@code f(xs[i], ns[i])}.
+ * <p>
+ * Rather than call the function for each row, which would create a
+ * frame (and parse the arguments into it) each time, the evaluator
+ * creates one frame, and for each row sets the arguments directly as
+ * the first local variables and executes the frame again.
+ * <p>
+ * The function must be defined in CPython 3.11 byte code, and accept
+ * exactly as many positional arguments as there are columns, without
+ * excess argument collectors ({@code *args} or {@code **kwargs}). An
+ * evaluator may only be used by one thread at a time.
+ */
+public class ColumnEvaluator {
+
+    /** The function to evaluate. */
+    private final CPython311Function func;
+
+    /** The frame re-used for each row. */
+    private final CPython311Frame frame;
+
+    /** Number of arguments (and columns). */
+    private final int argcount;
+
+    /**
+     * Create an evaluator for the given function, which must be a
+     * function object defined in CPython 3.11 byte code.
+     *
+     * @param function to evaluate over the columns
+     * @throws TypeError if {@code function} is not a suitable function
+     */
+    public ColumnEvaluator(Object function) throws TypeError {
+        if (!(function instanceof CPython311Function)) {
+            throw Abstract.requiredTypeError("a function", function);
+        }
+        this.func = (CPython311Function)function;
+        CPython311Code code = func.code;
+        if (!code.traits.contains(Trait.OPTIMIZED)
+                || code.traits.contains(Trait.VARARGS)
+                || code.traits.contains(Trait.VARKEYWORDS)
+                || code.kwonlyargcount != 0) {
+            throw new TypeError(
+                    "%s() must take only positional arguments",
+                    code.name);
+        }
+        this.argcount = code.argcount;
+        this.frame = func.createFrame(null);
+    }
+
+    /**
+     * Evaluate the function with arguments taken from each row of the
+     * columns in turn. Each column must be an array of {@code double},
+     * {@code long}, {@code int}, {@code String} or Python objects
+     * ({@code Object[]}), and all must have the same length.
+     *
+     * @param columns supplying the arguments in order
+     * @return the result for each row
+     * @throws TypeError if the columns do not match the function
+     * @throws ValueError if the columns are of different lengths
+     */
+    public Object[] eval(Object... columns)
+            throws TypeError, ValueError {
+        int n = rows(columns);
+        Object[] result = new Object[n];
+        for (int i = 0; i < n; i++) { result[i] = evalRow(columns, i); }
+        return result;
+    }
+
+    /**
+     * Evaluate the function with arguments taken from each row of the
+     * columns in turn, as {@link #eval(Object...)}, where the result
+     * of each row is a Python {@code float} or acceptable as one.
+     *
+     * @param columns supplying the arguments in order
+     * @return the result for each row
+     * @throws TypeError if the columns do not match the function, or a
+     *     result is not acceptable as a {@code float}
+     * @throws ValueError if the columns are of different lengths
+     */
+    public double[] evalDouble(Object... columns)
+            throws TypeError, ValueError {
+        int n = rows(columns);
+        double[] result = new double[n];
+        try {
+            for (int i = 0; i < n; i++) {
+                result[i] = PyFloat.asDouble(evalRow(columns, i));
+            }
+        } catch (PyException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw Abstract.asUnchecked(t, "converting to float");
+        }
+        return result;
+    }
+
+    /**
+     * Check the columns against the function and each other, and
+     * return the number of rows.
+     *
+     * @param columns supplying the arguments in order
+     * @return the number of rows
+     */
+    private int rows(Object[] columns) throws TypeError, ValueError {
+        if (columns.length != argcount) {
+            throw new TypeError("%s() takes %d arguments but %d columns"
+                    + " were given", func.code.name, argcount,
+                    columns.length);
+        }
+        int n = -1;
+        for (Object c : columns) {
+            int m;
+            if (c instanceof double[]) {
+                m = ((double[])c).length;
+            } else if (c instanceof long[]) {
+                m = ((long[])c).length;
+            } else if (c instanceof int[]) {
+                m = ((int[])c).length;
+            } else if (c instanceof Object[]) {
+                // Includes String[]
+                m = ((Object[])c).length;
+            } else {
+                throw Abstract.requiredTypeError("an array", c);
+            }
+            if (n < 0) {
+                n = m;
+            } else if (m != n) {
+                throw new ValueError("columns have different lengths");
+            }
+        }
+        return Math.max(n, 0);
+    }
+
+    /**
+     * Execute the frame with arguments taken from one row.
+     *
+     * @param columns supplying the arguments in order
+     * @param row index of the row
+     * @return the value returned by the function
+     */
+    private Object evalRow(Object[] columns, int row) {
+        Object[] fastlocals = frame.fastlocals;
+        // Clear the locals left by the previous row
+        Arrays.fill(fastlocals, argcount, fastlocals.length, null);
+        for (int j = 0; j < argcount; j++) {
+            fastlocals[j] = element(columns[j], row);
+        }
+        frame.locals = null;
+        return frame.eval();
+    }
+
+    /**
+     * Return one element of a column as a Python object.
+     *
+     * @param column from which to take the element
+     * @param row index of the element
+     * @return the element
+     */
+    private static Object element(Object column, int row) {
+        if (column instanceof double[]) {
+            return ((double[])column)[row];
+        } else if (column instanceof long[]) {
+            long v = ((long[])column)[row];
+            int i = (int)v;
+            return i == v ? Integer.valueOf(i) : Long.valueOf(v);
+        } else if (column instanceof int[]) {
+            return ((int[])column)[row];
+        } else {
+            return ((Object[])column)[row];
+        }
+    }
+}
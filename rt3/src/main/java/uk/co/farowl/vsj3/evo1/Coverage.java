@@ -0,0 +1,293 @@
+// Copyright (c)2023 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import uk.co.farowl.vsj3.evo1.CPython311Code.LineIndex;
+
+/**
+ * A record of the instructions executed by {@link CPython311Frame}s,
+ * from which we may report the lines and branches of Python code that
+ * have (and have not) been executed.
+ * <p>
+ * Coverage is recorded from when it is installed on an
+ * {@link Interpreter} with {@link Interpreter#setCoverage(Coverage)},
+ * in frames created after that. Each thread records in its own bit
+ * set for each code object (one bit per instruction), with a single
+ * {@code OR} as it executes each instruction, and the sets of all
+ * threads are combined when a report is requested. The data of
+ * several {@code Coverage} objects may be combined with
+ * {@link #merge(Coverage)}, and the line reports (by file) of
+ * separate runs may be combined with {@link BitSet#or(BitSet)}.
+ * <p>
+ * The code objects reported are all those that executed at least one
+ * instruction, and the code objects nested within them (as constants)
+ * so that functions never called are reported as not executed.
+ */
+public final class Coverage {
+
+    /** The instructions executed by each thread, by code object. */
+    private final CodeArrays bits = new CodeArrays(
+            c -> new long[(c.wordcode.length + 63) >> 6], (a, b) -> a | b);
+
+    /** Instructions merged in from other {@code Coverage} objects. */
+    private final Map<CPython311Code, long[]> merged =
+            new IdentityHashMap<>();
+
+    /** Create a record in which no instructions have executed. */
+    public Coverage() {}
+
+    /**
+     * Return the bit set in which the current thread records the
+     * execution of instructions in the given code object, where bit
+     * {@code ip} represents the instruction
+     * {@link CPython311Code#wordcode wordcode[ip]}.
+     *
+     * @param code to be executed
+     * @return bits representing instructions executed by this thread
+     */
+    long[] bits(CPython311Code code) { return bits.get(code); }
+
+    /** Discard all records (as if no code has run). */
+    public void reset() {
+        bits.reset();
+        synchronized (merged) {
+            merged.clear();
+        }
+    }
+
+    /**
+     * Add to this record the instructions executed according to
+     * another.
+     *
+     * @param other record of instructions executed
+     */
+    public void merge(Coverage other) {
+        Map<CPython311Code, long[]> m = other.snapshot();
+        synchronized (merged) {
+            m.forEach((code, b) -> or(merged, code, b));
+        }
+    }
+
+    /**
+     * Combine the records of all threads and merged records, by code
+     * object, including code objects nested in those that executed.
+     *
+     * @return instructions executed, by code object
+     */
+    private Map<CPython311Code, long[]> snapshot() {
+        Map<CPython311Code, long[]> all = new IdentityHashMap<>();
+        bits.forEach((code, b) -> or(all, code, b));
+        synchronized (merged) {
+            merged.forEach((code, b) -> or(all, code, b));
+        }
+        /*
+         * Add nested code objects (as not executed if not seen). Those
+         * the loader deferred must be created now, to be reported.
+         */
+        List<CPython311Code> codes = new ArrayList<>(all.keySet());
+        while (!codes.isEmpty()) {
+            CPython311Code code = codes.remove(codes.size() - 1);
+            for (Object c : code.consts) {
+                if (c instanceof PyCode.Deferred) {
+                    c = code.resolveConst(c);
+                }
+                if (c instanceof CPython311Code nested
+                        && !all.containsKey(nested)) {
+                    or(all, nested, new long[0]);
+                    codes.add(nested);
+                }
+            }
+        }
+        return all;
+    }
+
+    /**
+     * Combine a bit set into the record for a code object in a map.
+     *
+     * @param map of code objects to bit sets
+     * @param code the code object
+     * @param b bits to combine
+     */
+    private static void or(Map<CPython311Code, long[]> map,
+            CPython311Code code, long[] b) {
+        long[] m = map.computeIfAbsent(code,
+                c -> new long[(c.wordcode.length + 63) >> 6]);
+        for (int i = 0; i < b.length; i++) { m[i] |= b[i]; }
+    }
+
+    /**
+     * Test whether an instruction is represented in a bit set.
+     *
+     * @param b bit set
+     * @param ip index of the instruction
+     * @return whether executed
+     */
+    private static boolean executed(long[] b, int ip) {
+        return (b[ip >> 6] & (1L << ip)) != 0;
+    }
+
+    /**
+     * Return the instructions of the given code object that have
+     * executed, as a set of indexes in the word code (half the offset
+     * CPython would report).
+     *
+     * @param code of interest
+     * @return instructions executed
+     */
+    public BitSet executed(PyCode code) {
+        long[] b = snapshot().get(code);
+        return b == null ? new BitSet() : BitSet.valueOf(b);
+    }
+
+    /**
+     * Return the lines that have been executed, by file name. A line
+     * has been executed if any of its instructions has.
+     *
+     * @return executed lines, by file
+     */
+    public SortedMap<String, BitSet> executedLines() {
+        SortedMap<String, BitSet> files = new TreeMap<>();
+        snapshot().forEach((code, b) -> {
+            BitSet lines = files.computeIfAbsent(code.filename,
+                    f -> new BitSet());
+            LineIndex index = code.lineIndex();
+            for (int ip = 0; ip < code.wordcode.length; ip++) {
+                if (executed(b, ip)) {
+                    int line = index.line(ip);
+                    if (line >= 0) { lines.set(line); }
+                }
+            }
+        });
+        return files;
+    }
+
+    /**
+     * Return the lines that could be executed, by file name: those of
+     * the code objects reported, to which any instruction belongs.
+     *
+     * @return executable lines, by file
+     */
+    public SortedMap<String, BitSet> executableLines() {
+        SortedMap<String, BitSet> files = new TreeMap<>();
+        for (CPython311Code code : snapshot().keySet()) {
+            BitSet lines = files.computeIfAbsent(code.filename,
+                    f -> new BitSet());
+            for (int line : code.lineIndex().lines()) { lines.set(line); }
+        }
+        return files;
+    }
+
+    /**
+     * Return the conditional branches in the code objects reported,
+     * and whether each way out of them has been taken. We infer that
+     * a way has been taken if its destination executed, which is
+     * correct except where the destination may also be reached another
+     * way.
+     *
+     * @return the branches
+     */
+    public List<Branch> branches() {
+        List<Branch> branches = new ArrayList<>();
+        snapshot().forEach((code, b) -> {
+            short[] wordcode = code.wordcode;
+            int oparg = 0;
+            for (int ip = 0; ip < wordcode.length; ip++) {
+                int opword = wordcode[ip] & 0xffff;
+                int opcode = opword >> 8;
+                oparg = (oparg << 8) | opword & 0xff;
+                if (opcode == Opcode311.EXTENDED_ARG) { continue; }
+                int next = ip + 1, target = branchTarget(opcode, next,
+                        oparg);
+                if (target >= 0) {
+                    branches.add(new Branch(code, ip,
+                            code.lineIndex().line(ip), executed(b, ip),
+                            next < wordcode.length && executed(b, next),
+                            target < wordcode.length
+                                    && executed(b, target)));
+                }
+                oparg = 0;
+            }
+        });
+        return branches;
+    }
+
+    /**
+     * Return the destination of a conditional branch, or -1 if the
+     * opcode is not a conditional branch.
+     *
+     * @param opcode of the instruction
+     * @param next index of the following instruction
+     * @param oparg argument of the instruction
+     * @return index of destination or -1
+     */
+    private static int branchTarget(int opcode, int next, int oparg) {
+        switch (opcode) {
+            case Opcode311.POP_JUMP_FORWARD_IF_FALSE:
+            case Opcode311.POP_JUMP_FORWARD_IF_TRUE:
+            case Opcode311.POP_JUMP_FORWARD_IF_NONE:
+            case Opcode311.POP_JUMP_FORWARD_IF_NOT_NONE:
+            case Opcode311.JUMP_IF_FALSE_OR_POP:
+            case Opcode311.JUMP_IF_TRUE_OR_POP:
+            case Opcode311.FOR_ITER:
+                return next + oparg;
+            case Opcode311.POP_JUMP_BACKWARD_IF_FALSE:
+            case Opcode311.POP_JUMP_BACKWARD_IF_TRUE:
+            case Opcode311.POP_JUMP_BACKWARD_IF_NONE:
+            case Opcode311.POP_JUMP_BACKWARD_IF_NOT_NONE:
+                return next - oparg;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * A conditional branch instruction and whether it, and each of the
+     * ways out of it, has executed.
+     */
+    public static final class Branch {
+
+        /** Code object containing the branch. */
+        public final PyCode code;
+
+        /** Offset of the branch instruction (as CPython). */
+        public final int offset;
+
+        /** Source line of the branch (or -1 if not known). */
+        public final int line;
+
+        /** Whether the branch instruction executed. */
+        public final boolean executed;
+
+        /** Whether the instruction after the branch executed. */
+        public final boolean fallThrough;
+
+        /** Whether the destination of the branch executed. */
+        public final boolean jump;
+
+        private Branch(PyCode code, int ip, int line, boolean executed,
+                boolean fallThrough, boolean jump) {
+            this.code = code;
+            this.offset = 2 * ip;
+            this.line = line;
+            this.executed = executed;
+            this.fallThrough = fallThrough;
+            this.jump = jump;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s:%d (%s @%d) %s %s", code.filename,
+                    line, code.qualname, offset,
+                    fallThrough ? "fall-through" : "-",
+                    jump ? "jump" : "-");
+        }
+    }
+}
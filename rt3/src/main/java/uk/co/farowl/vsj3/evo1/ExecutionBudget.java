@@ -0,0 +1,146 @@
+// Copyright (c)2023 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+import java.time.Duration;
+
+/**
+ * A limit on the execution of Python code, expressed as a number of
+ * steps, a time allowance, or both, together with the means to
+ * interrupt that execution from another thread. A step is a backward
+ * jump (an iteration of a loop) or a call, so that a script cannot run
+ * indefinitely without taking a step.
+ * <p>
+ * Code runs under a budget when evaluated by
+ * {@link Interpreter#eval(PyCode, PyDict, Object, ExecutionBudget)}.
+ * The interpreter counts steps in the {@link ThreadState} and only
+ * every {@link #CHECK_INTERVAL} steps (or fewer, if the remaining
+ * budget is smaller) consults the budget, so that checking is almost
+ * free. When the steps are exhausted, the time is exceeded, or
+ * {@link #interrupt()} has been called, the interpreter raises
+ * {@link KeyboardInterrupt} in the thread running the code. An
+ * interruption is passed to the {@link ThreadState} of that thread,
+ * which is also how code running without a budget is stopped.
+ * <p>
+ * A budget is consumed by the code that runs under it, and should be
+ * used by only one thread (although any thread may interrupt it).
+ */
+public final class ExecutionBudget {
+
+    /** The largest number of steps between checks. */
+    static final int CHECK_INTERVAL = 1024;
+
+    /** Steps remaining until the budget is exhausted. */
+    private long steps;
+
+    /** Time limit as a {@code System.nanoTime()}, if {@link #timed}. */
+    private final long deadline;
+
+    /** Whether there is a time limit. */
+    private final boolean timed;
+
+    /** Set when another thread asks for execution to stop. */
+    private volatile boolean interrupted;
+
+    /** The thread state running code under this budget, or null. */
+    private volatile ThreadState tstate;
+
+    /**
+     * Create a budget with the given limits.
+     *
+     * @param steps the step at which execution is stopped (or
+     *     {@code Long.MAX_VALUE} for no limit)
+     * @param time allowance from now (or {@code null} for no limit)
+     */
+    public ExecutionBudget(long steps, Duration time) {
+        if (steps < 1) {
+            throw new IllegalArgumentException(
+                    "ExecutionBudget steps must be at least 1");
+        }
+        this.steps = steps;
+        this.timed = time != null;
+        this.deadline = timed ? System.nanoTime() + time.toNanos() : 0L;
+    }
+
+    /**
+     * Create a budget with no limit on steps or time, which only stops
+     * execution when {@link #interrupt()} is called.
+     *
+     * @return a new budget
+     */
+    public static ExecutionBudget unlimited() {
+        return new ExecutionBudget(Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Ask that execution under this budget stop. The running code will
+     * raise {@link KeyboardInterrupt} within a few steps. This may be
+     * called from any thread.
+     */
+    public void interrupt() {
+        interrupted = true;
+        ThreadState ts = tstate;
+        if (ts != null) { ts.interrupt(); }
+    }
+
+    /**
+     * Return the number of steps remaining in the budget, as counted
+     * at the last check.
+     *
+     * @return steps remaining
+     */
+    public long remainingSteps() { return steps; }
+
+    /**
+     * The number of steps to run before the first check.
+     *
+     * @return steps before the first check
+     */
+    int first() { return (int)Math.min(CHECK_INTERVAL, steps); }
+
+    /**
+     * Note that code in the given thread now runs under this budget,
+     * so that {@link #interrupt()} reaches it. An interruption that
+     * came earlier is passed on at once.
+     *
+     * @param ts thread state of the running code
+     */
+    void attach(ThreadState ts) {
+        tstate = ts;
+        // Read after the write, so no interruption is missed
+        if (interrupted) { ts.interrupt(); }
+    }
+
+    /**
+     * Note that code in the given thread no longer runs under this
+     * budget. An interruption not yet acted on is withdrawn, so that it
+     * does not stop code that runs later.
+     *
+     * @param ts thread state of the running code
+     */
+    void detach(ThreadState ts) {
+        tstate = null;
+        if (interrupted) { ts.clearInterrupt(); }
+    }
+
+    /**
+     * Account for the steps taken since the last check, raise
+     * {@link KeyboardInterrupt} if the budget is spent, and return the
+     * number of steps to run before the next check.
+     *
+     * @param taken steps since the last check
+     * @return steps before the next check
+     * @throws KeyboardInterrupt if execution must stop
+     */
+    int renew(int taken) throws KeyboardInterrupt {
+        steps -= taken;
+        if (steps <= 0) {
+            steps = 0;
+            throw new KeyboardInterrupt("execution budget exhausted");
+        }
+        if (timed && System.nanoTime() - deadline > 0) {
+            throw new KeyboardInterrupt("execution time limit exceeded");
+        }
+        return first();
+    }
+}
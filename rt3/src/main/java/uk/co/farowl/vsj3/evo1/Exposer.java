@@ -5,10 +5,6 @@ package uk.co.farowl.vsj3.evo1;
 import java.lang.annotation.Annotation;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles.Lookup;
-import java.lang.reflect.Member;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
-import java.lang.reflect.Parameter;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -34,6 +30,10 @@ import uk.co.farowl.vsj3.evo1.Exposed.PositionalCollector;
 import uk.co.farowl.vsj3.evo1.Exposed.PositionalOnly;
 import uk.co.farowl.vsj3.evo1.Exposed.PythonMethod;
 import uk.co.farowl.vsj3.evo1.Exposed.PythonStaticMethod;
+import uk.co.farowl.vsj3.evo1.ExposureTable.Exposure;
+import uk.co.farowl.vsj3.evo1.ExposureTable.Kind;
+import uk.co.farowl.vsj3.evo1.ExposureTable.MethodEntry;
+import uk.co.farowl.vsj3.evo1.ExposureTable.ParamEntry;
 import uk.co.farowl.vsj3.evo1.ModuleDef.MethodDef;
 import uk.co.farowl.vsj3.evo1.base.InterpreterError;
 import uk.co.farowl.vsj3.evo1.base.MethodKind;
@@ -41,6 +41,10 @@ import uk.co.farowl.vsj3.evo1.base.MethodKind;
 /**
  * An object for tabulating the attributes of classes that define Python
  * types or modules.
+ * <p>
+ * The members of each class that might be exposed are listed by an
+ * {@link ExposureTable}, which is normally generated when the classes
+ * are built, and otherwise obtained by reflection.
  */
 abstract class Exposer {
 
@@ -137,10 +141,10 @@ abstract class Exposer {
     void scanJavaMethods(Class<?> defsClass) throws InterpreterError {
         // Iterate over methods looking for the relevant annotations
         for (Class<?> c : superClasses(defsClass)) {
-            for (Method m : c.getDeclaredMethods()) {
-                PythonMethod a =
-                        m.getDeclaredAnnotation(PythonMethod.class);
-                if (a != null) { addMethodSpec(m, a); }
+            for (MethodEntry m : ExposureTable.forClass(c).methods) {
+                for (Exposure a : m.exposures) {
+                    if (a.kind == Kind.METHOD) { addMethodSpec(m, a); }
+                }
             }
         }
     }
@@ -168,17 +172,17 @@ abstract class Exposer {
      * Python type or module defined in Java, into a specification for a
      * method, and add it to the table of specifications by name.
      *
-     * @param anno annotation encountered
+     * @param anno annotation encountered ({@link PythonMethod})
      * @param meth method annotated
      * @throws InterpreterError on duplicates or unsupported types
      */
-    void addMethodSpec(Method meth, PythonMethod anno)
+    void addMethodSpec(MethodEntry meth, Exposure anno)
             throws InterpreterError {
         // For clarity, name lambda expressions for the actions
-        BiConsumer<MethodSpec, Method> addMethod =
+        BiConsumer<MethodSpec, MethodEntry> addMethod =
                 // Add method m to spec ms
-                (MethodSpec ms, Method m) -> {
-                    ms.add(m, anno.primary(), anno.positionalOnly(),
+                (MethodSpec ms, MethodEntry m) -> {
+                    ms.add(m, anno.primary, anno.positionalOnly,
                             MethodKind.INSTANCE);
                 };
         Function<Spec, MethodSpec> cast =
@@ -186,7 +190,7 @@ abstract class Exposer {
                 spec -> spec instanceof MethodSpec ? (MethodSpec)spec
                         : null;
         // Now use the generic create/update
-        addSpec(meth, anno.value(), cast,
+        addSpec(meth, anno.value, cast,
                 (String name) -> new MethodSpec(name, kind()),
                 ms -> methodSpecs.add(ms), addMethod);
     }
@@ -196,17 +200,17 @@ abstract class Exposer {
      * type or module defined in Java, into a specification for a
      * method, and add it to the table of specifications by name.
      *
-     * @param anno annotation encountered
+     * @param anno annotation encountered ({@link PythonStaticMethod})
      * @param meth method annotated
      * @throws InterpreterError on duplicates or unsupported types
      */
-    void addStaticMethodSpec(Method meth, PythonStaticMethod anno)
+    void addStaticMethodSpec(MethodEntry meth, Exposure anno)
             throws InterpreterError {
         // For clarity, name lambda expressions for the actions
-        BiConsumer<StaticMethodSpec, Method> addMethod =
+        BiConsumer<StaticMethodSpec, MethodEntry> addMethod =
                 // Add method m to spec ms
-                (StaticMethodSpec ms, Method m) -> {
-                    ms.add(m, true, anno.positionalOnly(),
+                (StaticMethodSpec ms, MethodEntry m) -> {
+                    ms.add(m, true, anno.positionalOnly,
                             MethodKind.STATIC);
                 };
         Function<Spec, StaticMethodSpec> cast =
@@ -214,7 +218,7 @@ abstract class Exposer {
                 spec -> spec instanceof StaticMethodSpec
                         ? (StaticMethodSpec)spec : null;
         // Now use the generic create/update
-        addSpec(meth, anno.value(), cast,
+        addSpec(meth, anno.value, cast,
                 (String name) -> new StaticMethodSpec(name, kind()),
                 ms -> methodSpecs.add(ms), addMethod);
     }
@@ -226,15 +230,14 @@ abstract class Exposer {
      * their names or type names).
      *
      * @param name being defined
-     * @param member field or method annotated
+     * @param memberName Java name of field or method annotated
      * @param newSpec of the new entry apparently requested
      * @param priorSpec of the inconsistent, existing entry
      * @return the required error
      */
-    static InterpreterError duplicateError(String name, Member member,
-            Spec newSpec, Spec priorSpec) {
-        String memberName = member.getName();
-        String memberString = memberName == name ? ""
+    static InterpreterError duplicateError(String name,
+            String memberName, Spec newSpec, Spec priorSpec) {
+        String memberString = memberName.equals(name) ? ""
                 : " (called '" + memberName + "' in source)";
         String priorSpecType = priorSpec.annoClassName();
         String newSpecType = newSpec.annoClassName();
@@ -266,15 +269,15 @@ abstract class Exposer {
      * @param addSpec function to add the {@code MS} to the proper list
      * @param addMethod function to update the {@code MS} with a method
      */
-    <MS extends BaseMethodSpec> void addSpec(Method m, String name,
+    <MS extends BaseMethodSpec> void addSpec(MethodEntry m, String name,
             Function<Spec, MS> cast, //
             Function<String, MS> makeSpec, //
             Consumer<MS> addSpec, //
-            BiConsumer<MS, Method> addMethod) {
+            BiConsumer<MS, MethodEntry> addMethod) {
 
         // The name is as annotated or the "natural" one
         if (name == null || name.length() == 0)
-            name = m.getName();
+            name = m.name;
 
         // Find any existing definition
         Spec spec = specs.get(name);
@@ -295,7 +298,7 @@ abstract class Exposer {
              */
             entry = makeSpec.apply(name);
             addMethod.accept(entry, m);
-            throw duplicateError(name, m, entry, spec);
+            throw duplicateError(name, m.name, entry, spec);
         }
     }
 
@@ -379,12 +382,11 @@ abstract class Exposer {
          * @param method that may bear the annotation
          * @throws InterpreterError if {@link #doc} is already set
          */
-        void maybeAddDoc(Method method) throws InterpreterError {
+        void maybeAddDoc(MethodEntry method) throws InterpreterError {
             // There may be a @DocString annotation
-            DocString docAnno = method.getAnnotation(DocString.class);
-            if (docAnno != null) {
+            if (method.doc != null) {
                 if (this.doc == null) {
-                    this.doc = docAnno.value();
+                    this.doc = method.doc;
                 } else {
                     throw new InterpreterError("%s %s documented twice",
                             annoClass(), getJavaName());
@@ -432,7 +434,7 @@ abstract class Exposer {
     static abstract class BaseMethodSpec extends Spec {
 
         /** Collects the methods declared (often just one). */
-        final List<Method> methods;
+        final List<MethodEntry> methods;
 
         BaseMethodSpec(String name, ScopeKind scopeKind) {
             super(name, scopeKind);
@@ -444,7 +446,7 @@ abstract class Exposer {
          *
          * @param method to add to {@link #methods}
          */
-        void add(Method method) { methods.add(method); }
+        void add(MethodEntry method) { methods.add(method); }
 
         /** @return a name designating the method */
         @Override
@@ -452,10 +454,10 @@ abstract class Exposer {
             StringBuilder b = new StringBuilder(64);
             if (!methods.isEmpty()) {
                 // It shouldn't matter, but take the last added
-                Method method = methods.get(methods.size() - 1);
-                b.append(method.getDeclaringClass().getSimpleName());
+                MethodEntry method = methods.get(methods.size() - 1);
+                b.append(method.declaringClass.getSimpleName());
                 b.append('.');
-                b.append(method.getName());
+                b.append(method.name);
             } else {
                 // Take the name from the Spec instead
                 b.append(name);
@@ -513,10 +515,10 @@ abstract class Exposer {
          * @param e what went wrong
          * @return an exception to throw
          */
-        protected static InterpreterError cannotGetHandle(Method m,
-                IllegalAccessException e) {
-            return new InterpreterError(e, CANNOT_GET_HANDLE,
-                    m.getName(), m.getDeclaringClass());
+        protected static InterpreterError cannotGetHandle(
+                MethodEntry m, IllegalAccessException e) {
+            return new InterpreterError(e, CANNOT_GET_HANDLE, m.name,
+                    m.declaringClass);
         }
 
         private static final String CANNOT_GET_HANDLE =
@@ -556,7 +558,7 @@ abstract class Exposer {
         /**
          * Names of parameters not including the {@code self} of
          * instance methods. (The names are the parameters to the method
-         * in the first call to {@link #add(Method)}).
+         * in the first call to {@link #add(MethodEntry)}).
          */
         String[] parameterNames;
 
@@ -632,7 +634,7 @@ abstract class Exposer {
         }
 
         /**
-         * Check that {@link #processParameters(Method, boolean)} has
+         * Check that {@link #processParameters(MethodEntry, boolean)} has
          * been called for a primary definition.
          */
         private boolean isDefined() {
@@ -655,7 +657,7 @@ abstract class Exposer {
         /**
          * Get the argument parser belonging to this
          * {@link CallableSpec}. The many attributes established by
-         * {@link #add(Method, boolean, boolean, MethodKind)}, and the
+         * {@link #add(MethodEntry, boolean, boolean, MethodKind)}, and the
          * parameters of the primary call, determine the attributes of
          * this {@link CallableSpec}.
          * <p>
@@ -691,10 +693,10 @@ abstract class Exposer {
          */
         MethodDef getMethodDef(Lookup lookup) throws InterpreterError {
             assert methods.size() == 1;
-            Method m = methods.get(0);
+            MethodEntry m = methods.get(0);
             MethodHandle mh;
             try {
-                mh = lookup.unreflect(m);
+                mh = m.handle(lookup);
             } catch (IllegalAccessException e) {
                 throw cannotGetHandle(m, e);
             }
@@ -712,14 +714,14 @@ abstract class Exposer {
          *     parameters
          * @param methodKind instance, static or class?
          */
-        void add(Method method, boolean primary, boolean positionalOnly,
-                MethodKind methodKind) throws InterpreterError {
+        void add(MethodEntry method, boolean primary,
+                boolean positionalOnly, MethodKind methodKind)
+                throws InterpreterError {
 
             // Check for defined static (in Java, not Python)
-            int modifiers = method.getModifiers();
-            boolean javaStatic = (modifiers & Modifier.STATIC) != 0;
+            boolean javaStatic = method.javaStatic;
 
-            int n = method.getParameterCount();
+            int n = method.type.parameterCount();
 
             /*
              * Depending on method kind, when Java static, the parameter
@@ -735,7 +737,7 @@ abstract class Exposer {
                 skipFirst = javaStatic;
 
                 if (javaStatic
-                        && (n < 1 || method.getParameterTypes()[0]
+                        && (n < 1 || method.type.parameterType(0)
                                 .isPrimitive())) {
                     throw new InterpreterError(MUST_HAVE_SELF,
                             getJavaName(), scopeKind.selfName);
@@ -803,9 +805,7 @@ abstract class Exposer {
                 if (!positionalOnly) { posonlyargcount = 0; }
 
                 // There may be a @DocString annotation
-                DocString docAnno =
-                        method.getAnnotation(DocString.class);
-                if (docAnno != null) { doc = docAnno.value(); }
+                if (method.doc != null) { doc = method.doc; }
 
                 /*
                  * Process the sequence of parameters and their
@@ -815,8 +815,11 @@ abstract class Exposer {
 
             } else {
                 // This is not the primary definition
-                disallowAnnotation(method, DocString.class);
-                for (Parameter p : method.getParameters()) {
+                if (method.doc != null) {
+                    throw new InterpreterError(SECONDARY_DEF_ANNO,
+                            getJavaName(), DocString.class.getSimpleName());
+                }
+                for (ParamEntry p : method.params()) {
                     disallowAnnotations(p);
                 }
             }
@@ -927,7 +930,7 @@ abstract class Exposer {
          * @param method being defined
          * @param skipFirst skip the first declared parameter
          */
-        private void processParameters(Method method,
+        private void processParameters(MethodEntry method,
                 boolean skipFirst) {
             /*
              * This should have the same logic as
@@ -955,57 +958,58 @@ abstract class Exposer {
              * PositionalOnly, KeywordOnly, PositionalCollector and
              * KeywordCollector annotations.
              */
-            Parameter[] pp = method.getParameters();
+            ParamEntry[] pp = method.params();
 
             for (int ip = skipFirst ? 1 : 0; ip < pp.length; ip++) {
 
                 // The parameter currently being processed
-                Parameter p = pp[ip];
+                ParamEntry p = pp[ip];
 
                 // index of parameter in Python != ip, possibly
                 int i = names.size();
 
                 // Use a replacement Python name if annotated @Name
-                Name name = p.getAnnotation(Name.class);
-                String paramName =
-                        name == null ? p.getName() : name.value();
+                String paramName = p.pyName == null ? p.name : p.pyName;
                 names.add(paramName);
 
                 // Pick up all the other annotations on p
-                PositionalOnly pos =
-                        p.getAnnotation(PositionalOnly.class);
-                KeywordOnly kwd = p.getAnnotation(KeywordOnly.class);
-                Default def = p.getAnnotation(Default.class);
-                PositionalCollector posColl =
-                        p.getAnnotation(PositionalCollector.class);
-                KeywordCollector kwColl =
-                        p.getAnnotation(KeywordCollector.class);
+                boolean pos = p.is(ParamEntry.POSITIONAL_ONLY);
+                boolean kwd = p.is(ParamEntry.KEYWORD_ONLY);
+                boolean posColl = p.is(ParamEntry.POSITIONAL_COLLECTOR);
+                boolean kwColl = p.is(ParamEntry.KEYWORD_COLLECTOR);
+                String def = p.defaultValue;
 
                 // Disallow these on the same parameter
-                notUsedTogether(method, paramName, pos, kwd, posColl,
-                        kwColl);
-                notUsedTogether(method, paramName, def, posColl);
-                notUsedTogether(method, paramName, def, kwColl);
+                notUsedTogether(paramName,
+                        pos ? PositionalOnly.class : null,
+                        kwd ? KeywordOnly.class : null,
+                        posColl ? PositionalCollector.class : null,
+                        kwColl ? KeywordCollector.class : null);
+                notUsedTogether(paramName,
+                        def != null ? Default.class : null,
+                        posColl ? PositionalCollector.class : null);
+                notUsedTogether(paramName,
+                        def != null ? Default.class : null,
+                        kwColl ? KeywordCollector.class : null);
 
                 /*
                  * We have eliminated the possibility of disallowed
                  * combinations of annotations, so we can process the
                  * parameter types as alternatives.
                  */
-                if (pos != null) {
+                if (pos) {
                     // p is the (last) @PositionalOnly parameter
                     posonlyargcount = i + 1;
 
-                } else if (kwd != null
-                        && kwOnlyIndex == Integer.MAX_VALUE) {
+                } else if (kwd && kwOnlyIndex == Integer.MAX_VALUE) {
                     // p is the (first) @KeywordOnly parameter
                     kwOnlyIndex = i;
 
-                } else if (posColl != null) {
+                } else if (posColl) {
                     // p is the @PositionalCollector
                     varArgsIndex = i;
 
-                } else if (kwColl != null) {
+                } else if (kwColl) {
                     // p is the @KeywordCollector
                     varKeywordsIndex = i;
                 }
@@ -1024,12 +1028,12 @@ abstract class Exposer {
                         // p is a positional parameter with a default
                         if (posDefaults == null)
                             posDefaults = new ArrayList<>();
-                        posDefaults.add(eval(def.value()));
+                        posDefaults.add(eval(def));
                     } else { // i >= kwOnlyIndex
                         // p is a keyword-only parameter with a default
                         if (kwdefaults == null)
                             kwdefaults = new HashMap<Object, Object>();
-                        kwdefaults.put(paramName, eval(def.value()));
+                        kwdefaults.put(paramName, eval(def));
                     }
 
                 } else if (posDefaults != null && i < kwOnlyIndex) {
@@ -1047,7 +1051,7 @@ abstract class Exposer {
                  * "regular". Keep count of them, and check we have not
                  * yet defined either collector.
                  */
-                if (kwColl == null) {
+                if (!kwColl) {
                     /*
                      * The parameter is a regular one or a collector of
                      * excess positional arguments.
@@ -1056,7 +1060,7 @@ abstract class Exposer {
                         // ... which comes after a keywords collector
                         throw new InterpreterError(FOLLOWS_KW_COLLECTOR,
                                 getJavaName(), paramName);
-                    if (posColl == null) {
+                    if (!posColl) {
                         // The parameter is a regular one
                         if (hasVarArgs())
                             // .. after a positional collector
@@ -1097,25 +1101,26 @@ abstract class Exposer {
                 PARAM + "annotations %s may not appear together";
 
         /**
-         * Check that only one of the annotations (on a given parameter)
-         * is null.
+         * Check that at most one of the annotations (on a given
+         * parameter) is present.
          *
-         * @param method within which parameter appears
-         * @param paramName its name
-         * @param anno the annotations to check
+         * @param paramName name of the parameter
+         * @param anno the annotations present (or {@code null} for each
+         *     absent)
          * @throws InterpreterError if more than one not {@code null}.
          */
-        private void notUsedTogether(Method method, String paramName,
-                Annotation... anno) throws InterpreterError {
+        @SafeVarargs
+        private void notUsedTogether(String paramName,
+                Class<? extends Annotation>... anno)
+                throws InterpreterError {
             // Is there a problem?
             int count = 0;
-            for (Annotation a : anno) { if (a != null) { count++; } }
+            for (Class<?> a : anno) { if (a != null) { count++; } }
             if (count > 1) {
                 // There is a problem: collect the details.
                 StringJoiner sj = new StringJoiner(",");
-                for (Annotation a : anno) {
-                    String name = a.annotationType().getSimpleName();
-                    sj.add(name);
+                for (Class<?> a : anno) {
+                    if (a != null) { sj.add(a.getSimpleName()); }
                 }
                 throw new InterpreterError(ANNOTATIONS_TOGETHER,
                         getJavaName(), paramName, sj);
@@ -1157,52 +1162,34 @@ abstract class Exposer {
                 "[-+]?\\d+\\.\\d*((e|E)[-+]?\\d+)?";
         private static String REGEX_STRING = "('[~']*'|\"[~\"]*\")";
 
-        /**
-         * Check that the method has no annotation of the given type.
-         *
-         * @param method to process
-         * @parame annoClass type of annotation disallowed
-         */
-        private void disallowAnnotation(Method method,
-                Class<? extends Annotation> annoClass) {
-            Annotation a = method.getAnnotation(annoClass);
-            if (a != null) {
-                String annoName = a.annotationType().getSimpleName();
-                throw new InterpreterError(SECONDARY_DEF_ANNO,
-                        getJavaName(), annoName);
-            }
-        }
-
         private static final String SECONDARY_DEF_ANNO =
                 "Secondary definition of '%s' "
                         + "has disallowed annotation '%s'";
 
         /**
          * Check that the parameter has no annotations
-         * &#064;{@link Name}, &#064;{@link PositionalOnly}, and
-         * &#064;{@link KeywordOnly}.
+         * &#064;{@link Name}, &#064;{@link PositionalOnly},
+         * &#064;{@link KeywordOnly}, and &#064;{@link Default}.
          *
          * @param p to process
          */
-        private void disallowAnnotations(Parameter p) {
-            for (Class<? extends Annotation> annoClass : DISALLOWED_PAR_ANNOS) {
-                Annotation a = p.getAnnotation(annoClass);
-                if (a != null) {
-                    String annoName =
-                            a.annotationType().getSimpleName();
-                    throw new InterpreterError(SECONDARY_DEF_PAR_ANNO,
-                            getJavaName(), p.getName(), annoName);
-                }
+        private void disallowAnnotations(ParamEntry p) {
+            Class<? extends Annotation> a = null;
+            if (p.pyName != null) {
+                a = Name.class;
+            } else if (p.is(ParamEntry.POSITIONAL_ONLY)) {
+                a = PositionalOnly.class;
+            } else if (p.is(ParamEntry.KEYWORD_ONLY)) {
+                a = KeywordOnly.class;
+            } else if (p.defaultValue != null) {
+                a = Default.class;
+            }
+            if (a != null) {
+                throw new InterpreterError(SECONDARY_DEF_PAR_ANNO,
+                        getJavaName(), p.name, a.getSimpleName());
             }
         }
 
-        /**
-         * Parameter annotations disallowed on a secondary definition.
-         */
-        private static final List<Class<? extends Annotation>> //
-        DISALLOWED_PAR_ANNOS = List.of(Name.class, PositionalOnly.class,
-                KeywordOnly.class, Default.class);
-
         private static final String SECONDARY_DEF_PAR_ANNO =
                 "Secondary definition of '%s' parameter '%s' "
                         + "has disallowed annotation '%s'";
@@ -1268,10 +1255,10 @@ abstract class Exposer {
              * Number matching Long and Integer).
              */
             LinkedList<MethodHandle> candidates = new LinkedList<>();
-            for (Method m : methods) {
+            for (MethodEntry m : methods) {
                 // Convert m to a handle (if L args and accessible)
                 try {
-                    MethodHandle mh = lookup.unreflect(m);
+                    MethodHandle mh = m.handle(lookup);
                     if (mh.type().parameterCount() == 1 + L)
                         addOrdered(candidates, mh);
                 } catch (IllegalAccessException e) {
@@ -1323,10 +1310,10 @@ abstract class Exposer {
                         methods.size(), getJavaName());
             }
 
-            Method m = methods.get(0);
+            MethodEntry m = methods.get(0);
             try {
                 // Convert m to a handle (if accessible)
-                MethodHandle mh = lookup.unreflect(m);
+                MethodHandle mh = m.handle(lookup);
                 assert mh.type().parameterCount() == regargcount;
                 PyJavaFunction javaFunction =
                         PyJavaFunction.forStaticMethod(ap, mh);
@@ -0,0 +1,705 @@
+// Copyright (c)2023 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import uk.co.farowl.vsj3.evo1.Exposed.Default;
+import uk.co.farowl.vsj3.evo1.Exposed.Deleter;
+import uk.co.farowl.vsj3.evo1.Exposed.DocString;
+import uk.co.farowl.vsj3.evo1.Exposed.Getter;
+import uk.co.farowl.vsj3.evo1.Exposed.KeywordCollector;
+import uk.co.farowl.vsj3.evo1.Exposed.KeywordOnly;
+import uk.co.farowl.vsj3.evo1.Exposed.Member;
+import uk.co.farowl.vsj3.evo1.Exposed.Name;
+import uk.co.farowl.vsj3.evo1.Exposed.PositionalCollector;
+import uk.co.farowl.vsj3.evo1.Exposed.PositionalOnly;
+import uk.co.farowl.vsj3.evo1.Exposed.PythonMethod;
+import uk.co.farowl.vsj3.evo1.Exposed.PythonNewMethod;
+import uk.co.farowl.vsj3.evo1.Exposed.PythonStaticMethod;
+import uk.co.farowl.vsj3.evo1.Exposed.Setter;
+import uk.co.farowl.vsj3.evo1.base.InterpreterError;
+
+/**
+ * A table of the members declared in one Java class that an
+ * {@link Exposer} should consider when exposing a type or module:
+ * methods having an exposure annotation or the name of a special
+ * method, and fields annotated {@link Member}. For each, the table
+ * records what the {@code Exposer} needs to know from the annotations
+ * on the member and its parameters.
+ * <p>
+ * The table may be obtained by reflection on the class, which involves
+ * creating a {@code Method} for every method declared and reading the
+ * annotations on it. Since this is a significant fraction of the time
+ * taken to create the built-in types, the build runs
+ * {@link #main(String[])} over the compiled classes, to write the table
+ * of each class as a resource beside it. {@link #forClass(Class)} will
+ * read the resource if it exists, and from the table so read, method
+ * and variable handles are found by name and type, without reflection.
+ */
+final class ExposureTable {
+
+    /** Suffix of the resource holding the table for a class. */
+    static final String SUFFIX = ".exposed";
+
+    /** Identifies (the version of) the format of the resource. */
+    private static final int MAGIC = 0x5079_4578;
+
+    /** The class in which the members are declared. */
+    final Class<?> declaringClass;
+
+    /** The methods that may be exposed, in order of declaration. */
+    final List<MethodEntry> methods;
+
+    /** The fields that may be exposed, in order of declaration. */
+    final List<FieldEntry> fields;
+
+    private ExposureTable(Class<?> declaringClass,
+            List<MethodEntry> methods, List<FieldEntry> fields) {
+        this.declaringClass = declaringClass;
+        this.methods = Collections.unmodifiableList(methods);
+        this.fields = Collections.unmodifiableList(fields);
+    }
+
+    /**
+     * Return the table of members of the given class, from the
+     * resource generated at build time if there is one, and otherwise
+     * by reflection.
+     *
+     * @param c the class declaring the members
+     * @return the table
+     * @throws InterpreterError if the resource cannot be read
+     */
+    static ExposureTable forClass(Class<?> c) throws InterpreterError {
+        try (InputStream in = c.getResourceAsStream(resourceName(c))) {
+            if (in != null) { return read(c, in); }
+        } catch (IOException | IllegalArgumentException
+                | TypeNotPresentException e) {
+            throw new InterpreterError(e, CANNOT_READ, c.getName());
+        }
+        return reflect(c);
+    }
+
+    private static final String CANNOT_READ =
+            "cannot read exposure table of %s";
+
+    /**
+     * The name of the resource (relative to the class) holding the
+     * table of the given class.
+     *
+     * @param c the class declaring the members
+     * @return name of the resource
+     */
+    static String resourceName(Class<?> c) {
+        String pkg = c.getPackageName();
+        String name = c.getName();
+        if (pkg.length() > 0) { name = name.substring(pkg.length() + 1); }
+        return name + SUFFIX;
+    }
+
+    /**
+     * Create the table for the given class by reflection.
+     *
+     * @param c the class declaring the members
+     * @return the table
+     */
+    static ExposureTable reflect(Class<?> c) {
+        List<MethodEntry> methods = new ArrayList<>();
+        for (Method m : c.getDeclaredMethods()) {
+            MethodEntry e = MethodEntry.reflect(m);
+            if (e != null) { methods.add(e); }
+        }
+        List<FieldEntry> fields = new ArrayList<>();
+        for (Field f : c.getDeclaredFields()) {
+            Member anno = f.getDeclaredAnnotation(Member.class);
+            if (anno != null) { fields.add(new FieldEntry(f, anno)); }
+        }
+        return new ExposureTable(c, methods, fields);
+    }
+
+    /**
+     * @return true if the table has no entries.
+     */
+    boolean isEmpty() { return methods.isEmpty() && fields.isEmpty(); }
+
+    @Override
+    public String toString() {
+        return String.format("ExposureTable[%s, methods=%s, fields=%s]",
+                declaringClass.getSimpleName(), methods, fields);
+    }
+
+    /**
+     * The kinds of annotation by which a method may be exposed. The
+     * ordinal is used in the external form of the table.
+     */
+    enum Kind {
+        /** &#064;{@link PythonMethod} */
+        METHOD,
+        /** &#064;{@link PythonStaticMethod} */
+        STATIC_METHOD,
+        /** &#064;{@link PythonNewMethod} */
+        NEW_METHOD,
+        /** &#064;{@link Getter} */
+        GETTER,
+        /** &#064;{@link Setter} */
+        SETTER,
+        /** &#064;{@link Deleter} */
+        DELETER
+    }
+
+    /**
+     * The content of an annotation by which a method is exposed. Not
+     * every kind of annotation has every element: the others take the
+     * default.
+     */
+    static final class Exposure {
+
+        /** The kind of annotation. */
+        final Kind kind;
+
+        /** The name given as the value of the annotation (or ""). */
+        final String value;
+
+        /** The element {@code primary} (or {@code true}). */
+        final boolean primary;
+
+        /** The element {@code positionalOnly} (or {@code true}). */
+        final boolean positionalOnly;
+
+        Exposure(Kind kind, String value, boolean primary,
+                boolean positionalOnly) {
+            this.kind = kind;
+            this.value = value;
+            this.primary = primary;
+            this.positionalOnly = positionalOnly;
+        }
+
+        Exposure(Kind kind, String value) {
+            this(kind, value, true, true);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s(\"%s\"%s%s)", kind, value,
+                    primary ? "" : ", primary=false",
+                    positionalOnly ? "" : ", positionalOnly=false");
+        }
+    }
+
+    /**
+     * A parameter of a method that may be exposed, and the annotations
+     * on it.
+     */
+    static final class ParamEntry {
+
+        /** Flag for &#064;{@link PositionalOnly}. */
+        static final int POSITIONAL_ONLY = 1;
+        /** Flag for &#064;{@link KeywordOnly}. */
+        static final int KEYWORD_ONLY = 2;
+        /** Flag for &#064;{@link PositionalCollector}. */
+        static final int POSITIONAL_COLLECTOR = 4;
+        /** Flag for &#064;{@link KeywordCollector}. */
+        static final int KEYWORD_COLLECTOR = 8;
+
+        /** Name of the parameter in Java. */
+        final String name;
+
+        /** Name given by &#064;{@link Name} (or {@code null}). */
+        final String pyName;
+
+        /** Marker annotations present, as flags. */
+        final int flags;
+
+        /** Value given by &#064;{@link Default} (or {@code null}). */
+        final String defaultValue;
+
+        ParamEntry(String name, String pyName, int flags,
+                String defaultValue) {
+            this.name = name;
+            this.pyName = pyName;
+            this.flags = flags;
+            this.defaultValue = defaultValue;
+        }
+
+        /**
+         * Summarise the annotations on a reflected parameter.
+         *
+         * @param p the parameter
+         */
+        ParamEntry(Parameter p) {
+            this.name = p.getName();
+            Name n = p.getAnnotation(Name.class);
+            this.pyName = n == null ? null : n.value();
+            int f = 0;
+            if (p.isAnnotationPresent(PositionalOnly.class)) {
+                f |= POSITIONAL_ONLY;
+            }
+            if (p.isAnnotationPresent(KeywordOnly.class)) {
+                f |= KEYWORD_ONLY;
+            }
+            if (p.isAnnotationPresent(PositionalCollector.class)) {
+                f |= POSITIONAL_COLLECTOR;
+            }
+            if (p.isAnnotationPresent(KeywordCollector.class)) {
+                f |= KEYWORD_COLLECTOR;
+            }
+            this.flags = f;
+            Default d = p.getAnnotation(Default.class);
+            this.defaultValue = d == null ? null : d.value();
+        }
+
+        /**
+         * Test for the presence of a marker annotation.
+         *
+         * @param flag designating the annotation
+         * @return whether present
+         */
+        boolean is(int flag) { return (flags & flag) != 0; }
+
+        @Override
+        public String toString() { return name; }
+    }
+
+    /** A method declared in the class that may be exposed. */
+    static final class MethodEntry {
+
+        /** The class in which the method is declared. */
+        final Class<?> declaringClass;
+
+        /** The name of the method in Java. */
+        final String name;
+
+        /** The type of the method as declared (without any target). */
+        final MethodType type;
+
+        /** The method is {@code static} in Java. */
+        final boolean javaStatic;
+
+        /** Value given by &#064;{@link DocString} (or {@code null}). */
+        final String doc;
+
+        /** The annotations by which the method is exposed. */
+        final List<Exposure> exposures;
+
+        /** The reflected method, or {@code null} if from a resource. */
+        private final Method method;
+
+        /** Parameters of the method (created on demand if reflected). */
+        private ParamEntry[] params;
+
+        private MethodEntry(Class<?> declaringClass, String name,
+                MethodType type, boolean javaStatic, String doc,
+                List<Exposure> exposures, Method method,
+                ParamEntry[] params) {
+            this.declaringClass = declaringClass;
+            this.name = name;
+            this.type = type;
+            this.javaStatic = javaStatic;
+            this.doc = doc;
+            this.exposures = exposures;
+            this.method = method;
+            this.params = params;
+        }
+
+        /**
+         * Create an entry from a reflected method, or return
+         * {@code null} if it is neither annotated for exposure nor
+         * named as a special method.
+         *
+         * @param m the method
+         * @return the entry or {@code null}
+         */
+        static MethodEntry reflect(Method m) {
+            List<Exposure> exposures = new ArrayList<>(1);
+
+            PythonMethod pm = m.getDeclaredAnnotation(PythonMethod.class);
+            if (pm != null) {
+                exposures.add(new Exposure(Kind.METHOD, pm.value(),
+                        pm.primary(), pm.positionalOnly()));
+            }
+            PythonStaticMethod psm =
+                    m.getDeclaredAnnotation(PythonStaticMethod.class);
+            if (psm != null) {
+                exposures.add(new Exposure(Kind.STATIC_METHOD,
+                        psm.value(), true, psm.positionalOnly()));
+            }
+            PythonNewMethod pnm =
+                    m.getDeclaredAnnotation(PythonNewMethod.class);
+            if (pnm != null) {
+                exposures.add(new Exposure(Kind.NEW_METHOD, pnm.value()));
+            }
+            Getter get = m.getAnnotation(Getter.class);
+            if (get != null) {
+                exposures.add(new Exposure(Kind.GETTER, get.value()));
+            }
+            Setter set = m.getAnnotation(Setter.class);
+            if (set != null) {
+                exposures.add(new Exposure(Kind.SETTER, set.value()));
+            }
+            Deleter del = m.getAnnotation(Deleter.class);
+            if (del != null) {
+                exposures.add(new Exposure(Kind.DELETER, del.value()));
+            }
+
+            String name = m.getName();
+            if (exposures.isEmpty() && !isSpecialName(name)) {
+                return null;
+            }
+
+            DocString doc = m.getAnnotation(DocString.class);
+            MethodType mt = MethodType.methodType(m.getReturnType(),
+                    m.getParameterTypes());
+            boolean javaStatic = Modifier.isStatic(m.getModifiers());
+            return new MethodEntry(m.getDeclaringClass(), name, mt,
+                    javaStatic, doc == null ? null : doc.value(),
+                    Collections.unmodifiableList(exposures), m, null);
+        }
+
+        /**
+         * Whether the name could be that of a special method. (The
+         * {@link Exposer} decides which are.)
+         *
+         * @param name of the method
+         * @return whether it is of the form {@code __*__}.
+         */
+        private static boolean isSpecialName(String name) {
+            return name.length() > 4 && name.startsWith("__")
+                    && name.endsWith("__");
+        }
+
+        /**
+         * The parameters of the method and their annotations.
+         *
+         * @return the parameters
+         */
+        ParamEntry[] params() {
+            if (params == null) {
+                Parameter[] pp = method.getParameters();
+                ParamEntry[] a = new ParamEntry[pp.length];
+                for (int i = 0; i < a.length; i++) {
+                    a[i] = new ParamEntry(pp[i]);
+                }
+                params = a;
+            }
+            return params;
+        }
+
+        /**
+         * Get a method handle on the method, with the access of the
+         * given lookup.
+         *
+         * @param lookup authorisation to access the method
+         * @return a handle on the method
+         * @throws IllegalAccessException if the lookup lacks access
+         * @throws InterpreterError if the method does not exist (the
+         *     table is out of date)
+         */
+        MethodHandle handle(Lookup lookup)
+                throws IllegalAccessException, InterpreterError {
+            if (method != null) { return lookup.unreflect(method); }
+            try {
+                return javaStatic
+                        ? lookup.findStatic(declaringClass, name, type)
+                        : lookup.findVirtual(declaringClass, name, type);
+            } catch (NoSuchMethodException e) {
+                throw new InterpreterError(e, STALE_TABLE,
+                        declaringClass.getName(), name);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return declaringClass.getSimpleName() + "." + name + type;
+        }
+    }
+
+    /** A field declared in the class that may be exposed. */
+    static final class FieldEntry {
+
+        /** The class in which the field is declared. */
+        final Class<?> declaringClass;
+
+        /** The name of the field in Java. */
+        final String name;
+
+        /** The type of the field. */
+        final Class<?> type;
+
+        /** The Java modifiers of the field. */
+        final int modifiers;
+
+        /** The content of the &#064;{@link Member} annotation. */
+        final String value;
+
+        /** The element {@code readonly} of the annotation. */
+        final boolean readonly;
+
+        /** The element {@code optional} of the annotation. */
+        final boolean optional;
+
+        /** Value given by &#064;{@link DocString} (or {@code null}). */
+        final String doc;
+
+        /** The reflected field, or {@code null} if from a resource. */
+        private final Field field;
+
+        private FieldEntry(Class<?> declaringClass, String name,
+                Class<?> type, int modifiers, String value,
+                boolean readonly, boolean optional, String doc) {
+            this.declaringClass = declaringClass;
+            this.name = name;
+            this.type = type;
+            this.modifiers = modifiers;
+            this.value = value;
+            this.readonly = readonly;
+            this.optional = optional;
+            this.doc = doc;
+            this.field = null;
+        }
+
+        /**
+         * Create an entry from a reflected field.
+         *
+         * @param f the field
+         * @param anno its &#064;{@link Member} annotation
+         */
+        private FieldEntry(Field f, Member anno) {
+            this.declaringClass = f.getDeclaringClass();
+            this.name = f.getName();
+            this.type = f.getType();
+            this.modifiers = f.getModifiers();
+            this.value = anno.value();
+            this.readonly = anno.readonly();
+            this.optional = anno.optional();
+            DocString doc = f.getAnnotation(DocString.class);
+            this.doc = doc == null ? null : doc.value();
+            this.field = f;
+        }
+
+        /**
+         * Get a variable handle on the field, with the access of the
+         * given lookup.
+         *
+         * @param lookup authorisation to access the field
+         * @return a handle on the field
+         * @throws InterpreterError if the lookup lacks access or the
+         *     table is out of date
+         */
+        VarHandle varHandle(Lookup lookup) throws InterpreterError {
+            try {
+                if (field != null) {
+                    return lookup.unreflectVarHandle(field);
+                } else {
+                    return lookup.findVarHandle(declaringClass, name,
+                            type);
+                }
+            } catch (IllegalAccessException e) {
+                throw new InterpreterError(e,
+                        "cannot get handle for '%s'", this);
+            } catch (NoSuchFieldException e) {
+                throw new InterpreterError(e, STALE_TABLE,
+                        declaringClass.getName(), name);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return declaringClass.getSimpleName() + "." + name;
+        }
+    }
+
+    private static final String STALE_TABLE =
+            "exposure table of %s is out of date (no member '%s')";
+
+    // External form ---------------------------------------------------
+
+    /**
+     * Write the table in the form {@link #read(Class, InputStream)}
+     * expects.
+     *
+     * @param out to receive the table
+     * @throws IOException on errors writing
+     */
+    void write(OutputStream out) throws IOException {
+        DataOutputStream d = new DataOutputStream(out);
+        d.writeInt(MAGIC);
+        d.writeUTF(declaringClass.getName());
+        d.writeInt(methods.size());
+        for (MethodEntry m : methods) {
+            d.writeUTF(m.name);
+            d.writeUTF(m.type.toMethodDescriptorString());
+            d.writeBoolean(m.javaStatic);
+            writeNullable(d, m.doc);
+            d.writeByte(m.exposures.size());
+            for (Exposure x : m.exposures) {
+                d.writeByte(x.kind.ordinal());
+                d.writeUTF(x.value);
+                d.writeBoolean(x.primary);
+                d.writeBoolean(x.positionalOnly);
+            }
+            ParamEntry[] params = m.params();
+            d.writeByte(params.length);
+            for (ParamEntry p : params) {
+                d.writeUTF(p.name);
+                writeNullable(d, p.pyName);
+                d.writeByte(p.flags);
+                writeNullable(d, p.defaultValue);
+            }
+        }
+        d.writeInt(fields.size());
+        for (FieldEntry f : fields) {
+            d.writeUTF(f.name);
+            d.writeUTF(f.type.descriptorString());
+            d.writeInt(f.modifiers);
+            d.writeUTF(f.value);
+            d.writeBoolean(f.readonly);
+            d.writeBoolean(f.optional);
+            writeNullable(d, f.doc);
+        }
+        d.flush();
+    }
+
+    /**
+     * Read a table written by {@link #write(OutputStream)}, for the
+     * given class.
+     *
+     * @param c the class declaring the members
+     * @param in from which to read the table
+     * @return the table
+     * @throws IOException on errors reading or if not a table of
+     *     {@code c}
+     */
+    static ExposureTable read(Class<?> c, InputStream in)
+            throws IOException {
+        DataInputStream d =
+                new DataInputStream(new BufferedInputStream(in));
+        if (d.readInt() != MAGIC || !d.readUTF().equals(c.getName())) {
+            throw new IOException("not an exposure table of " + c);
+        }
+        ClassLoader loader = c.getClassLoader();
+
+        int n = d.readInt();
+        List<MethodEntry> methods = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String name = d.readUTF();
+            MethodType type = MethodType
+                    .fromMethodDescriptorString(d.readUTF(), loader);
+            boolean javaStatic = d.readBoolean();
+            String doc = readNullable(d);
+            Exposure[] exposures = new Exposure[d.readByte()];
+            for (int j = 0; j < exposures.length; j++) {
+                exposures[j] = new Exposure(Kind.values()[d.readByte()],
+                        d.readUTF(), d.readBoolean(), d.readBoolean());
+            }
+            ParamEntry[] params = new ParamEntry[d.readByte()];
+            for (int j = 0; j < params.length; j++) {
+                params[j] = new ParamEntry(d.readUTF(), readNullable(d),
+                        d.readByte(), readNullable(d));
+            }
+            methods.add(new MethodEntry(c, name, type, javaStatic, doc,
+                    List.of(exposures), null, params));
+        }
+
+        n = d.readInt();
+        List<FieldEntry> fields = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String name = d.readUTF();
+            // Resolve the field descriptor as the return of a method
+            Class<?> type = MethodType.fromMethodDescriptorString(
+                    "()" + d.readUTF(), loader).returnType();
+            fields.add(new FieldEntry(c, name, type, d.readInt(),
+                    d.readUTF(), d.readBoolean(), d.readBoolean(),
+                    readNullable(d)));
+        }
+        return new ExposureTable(c, methods, fields);
+    }
+
+    private static void writeNullable(DataOutputStream d, String s)
+            throws IOException {
+        d.writeBoolean(s != null);
+        if (s != null) { d.writeUTF(s); }
+    }
+
+    private static String readNullable(DataInputStream d)
+            throws IOException {
+        return d.readBoolean() ? d.readUTF() : null;
+    }
+
+    // Generation at build time ----------------------------------------
+
+    /**
+     * Write the table of every compiled class in a directory (that has
+     * members to expose) as a resource in a parallel directory tree.
+     * The classes must also be on the class path. This is run by the
+     * build after compilation.
+     *
+     * @param args the directory of classes and the output directory
+     * @throws IOException on errors reading or writing files
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: ExposureTable <classes> <output>");
+            System.exit(2);
+        }
+        Path classes = Paths.get(args[0]), output = Paths.get(args[1]);
+        ClassLoader loader = ExposureTable.class.getClassLoader();
+        int count = 0;
+
+        List<Path> files;
+        try (Stream<Path> s = Files.walk(classes)) {
+            files = s.filter(p -> p.toString().endsWith(".class"))
+                    .sorted().toList();
+        }
+
+        for (Path file : files) {
+            String rel = classes.relativize(file).toString();
+            String className = rel.substring(0, rel.length() - 6)
+                    .replace(file.getFileSystem().getSeparator(), ".");
+            if (className.endsWith("-info")) { continue; }
+
+            // Load (but do not initialise) the class and tabulate it
+            ExposureTable table;
+            try {
+                Class<?> c = Class.forName(className, false, loader);
+                table = reflect(c);
+            } catch (ClassNotFoundException | LinkageError e) {
+                System.err.printf("    skipping %s (%s)\n", className, e);
+                continue;
+            }
+
+            if (!table.isEmpty()) {
+                Path dest = output.resolve(rel).resolveSibling(
+                        resourceName(table.declaringClass));
+                Files.createDirectories(dest.getParent());
+                try (OutputStream out = new BufferedOutputStream(
+                        Files.newOutputStream(dest))) {
+                    table.write(out);
+                }
+                count++;
+            }
+        }
+        System.out.printf("    wrote %d exposure tables to %s\n", count,
+                output);
+    }
+}
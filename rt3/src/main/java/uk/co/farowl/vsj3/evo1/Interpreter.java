@@ -14,8 +14,24 @@ import uk.co.farowl.vsj3.evo1.base.InterpreterError;
  * output streams, and the registry of codecs. Many of these are exposed
  * through the {@code sys} module, rather than any class with
  * "interpreter" in the name.
+ * <p>
+ * Many interpreters may exist in one JVM, and may run concurrently on
+ * different threads, for example to serve several independent clients.
+ * Each has its own {@link #modules}, its own instance of the
+ * {@code builtins} module, and executes code against the globals
+ * supplied to it, so that changes made by code in one interpreter
+ * (even to its {@code builtins}) are not visible in another.
+ * <p>
+ * Interpreters share the state that is immutable once made. This
+ * includes the built-in types with their dictionaries, which Python
+ * code cannot modify, the {@link ModuleDef}s from which each
+ * interpreter instantiates modules defined in Java, and code objects,
+ * which may be loaded once (for example through a
+ * {@link CPython311CodeCache}) and executed in any interpreter. The
+ * first interpreter pays for initialising this shared state, after
+ * which creating an interpreter takes only a few microseconds.
  */
-class Interpreter {
+public class Interpreter {
 
     /**
      * The list of modules created by this interpreter, exposed as
@@ -29,8 +45,41 @@ class Interpreter {
      */
     final PyModule builtinsModule;
 
-    /** Create a new {@code Interpreter}. */
-    Interpreter() {
+    /** The recursion limit of a new interpreter (as CPython). */
+    public static final int DEFAULT_RECURSION_LIMIT = 1000;
+
+    /**
+     * The maximum depth of the Python stack in any thread that is
+     * executing a frame belonging to this interpreter.
+     */
+    // Compare CPython ceval.recursion_limit in pycore_interp.h
+    int recursionLimit = DEFAULT_RECURSION_LIMIT;
+
+    /**
+     * The limit on the number of digits in a conversion between
+     * {@code int} and {@code str} in code executing in this
+     * interpreter.
+     */
+    // Compare CPython _is.int_max_str_digits in pycore_interp.h
+    PyLong.StrDigitsLimit strDigitsLimit = PyLong.StrDigitsLimit.DEFAULT;
+
+    /**
+     * Profiler counting the instructions executed by frames of this
+     * interpreter, or {@code null} if not profiling.
+     */
+    volatile OpcodeProfiler profiler;
+
+    /**
+     * Record of the instructions executed by frames of this
+     * interpreter, or {@code null} if not recording coverage.
+     */
+    volatile Coverage coverage;
+
+    /**
+     * Create a new {@code Interpreter}, isolated from all others except
+     * in the state they share by design.
+     */
+    public Interpreter() {
         builtinsModule = new BuiltinsModule();
         builtinsModule.exec();
         // addModule(builtinsModule);
@@ -49,6 +98,188 @@ class Interpreter {
                     m.name);
     }
 
+    /**
+     * Get the maximum depth of the Python stack, beyond which a call
+     * will raise {@link RecursionError}.
+     *
+     * @return the recursion limit
+     */
+    // Compare CPython sys.getrecursionlimit in sysmodule.c
+    public int getRecursionLimit() { return recursionLimit; }
+
+    /**
+     * Set the maximum depth of the Python stack, beyond which a call
+     * will raise {@link RecursionError}. Independently of this limit,
+     * if the Java stack overflows during execution, the interpreter
+     * raises {@code RecursionError}, but a limit chosen to prevent that
+     * (see {@link #estimateRecursionLimit(long)}) is a surer defence.
+     *
+     * @param limit the new recursion limit
+     * @throws ValueError if the limit is less than one
+     */
+    // Compare CPython sys.setrecursionlimit in sysmodule.c
+    public void setRecursionLimit(int limit) throws ValueError {
+        if (limit < 1) {
+            throw new ValueError("recursion limit must be greater or "
+                    + "equal than 1");
+        }
+        recursionLimit = limit;
+    }
+
+    /**
+     * Get the limit on the number of digits in a conversion between
+     * {@code int} and {@code str} in a base that is not a power of 2,
+     * in code executing in this interpreter. This protects the run-time
+     * against inputs that would take a very long time to convert. Zero
+     * means there is no limit.
+     *
+     * @return the current limit
+     */
+    // Compare CPython sys.get_int_max_str_digits in sysmodule.c
+    public int getIntMaxStrDigits() { return strDigitsLimit.digits; }
+
+    /**
+     * Set the limit on the number of digits in a conversion between
+     * {@code int} and {@code str} in a base that is not a power of 2,
+     * in code executing in this interpreter.
+     *
+     * @param maxdigits the new limit, or zero for no limit
+     * @throws ValueError if the limit is non-zero and less than
+     *     {@link PyLong#MAX_STR_DIGITS_THRESHOLD}
+     */
+    // Compare CPython sys.set_int_max_str_digits in sysmodule.c
+    public void setIntMaxStrDigits(int maxdigits) throws ValueError {
+        strDigitsLimit = new PyLong.StrDigitsLimit(maxdigits);
+    }
+
+    /**
+     * Install a profiler to count the instructions executed in this
+     * interpreter, or remove it. The profiler counts in frames created
+     * after it is installed, and frames created before it continue not
+     * to (or to count in the previous profiler).
+     *
+     * @param profiler to install, or {@code null} to stop profiling
+     */
+    public void setProfiler(OpcodeProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Get the profiler counting the instructions executed in this
+     * interpreter.
+     *
+     * @return the profiler or {@code null} if not profiling
+     */
+    public OpcodeProfiler getProfiler() { return profiler; }
+
+    /**
+     * Install a record of the instructions executed in this
+     * interpreter (for coverage reports), or remove it. As with
+     * {@link #setProfiler(OpcodeProfiler)}, only frames created after
+     * it is installed record their instructions.
+     *
+     * @param coverage to install, or {@code null} to stop recording
+     */
+    public void setCoverage(Coverage coverage) {
+        this.coverage = coverage;
+    }
+
+    /**
+     * Get the record of the instructions executed in this interpreter.
+     *
+     * @return the record or {@code null} if not recording coverage
+     */
+    public Coverage getCoverage() { return coverage; }
+
+    /**
+     * Estimate a recursion limit that a thread with the given stack
+     * size is able to reach, when Python calls Python.
+     * <p>
+     * We measure the depth a recursive Python function reaches before
+     * the Java stack overflows in a new thread, and return three
+     * quarters of it. The allowance is for calls through built-in
+     * functions, which use more Java stack per Python frame. Stack use
+     * is greatest before the code has been compiled by the JVM, which
+     * makes the estimate cautious when taken early.
+     *
+     * @param stackSize of the thread (in bytes), or zero for the JVM
+     *     default (e.g. as set by {@code -Xss}). The JVM may ignore
+     *     this argument, as explained in {@link Thread}.
+     * @return a recursion limit for threads of that stack size
+     */
+    public static int estimateRecursionLimit(long stackSize) {
+        int[] depth = new int[1];
+        Thread probe = new Thread(null, () -> depth[0] = probeDepth(),
+                "recursion-probe", stackSize);
+        probe.start();
+        try {
+            probe.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return Math.max(1, depth[0] / 4 * 3);
+    }
+
+    /**
+     * Find the depth at which a recursive Python function overflows the
+     * Java stack of the current thread.
+     *
+     * @return depth at which the stack overflowed
+     */
+    private static int probeDepth() {
+        Interpreter interp = new Interpreter();
+        interp.recursionLimit = Integer.MAX_VALUE;
+        // def f(): return f()
+        CPython311Code code = recursiveCode("f");
+        PyDict globals = new PyDict();
+        PyFunction<?> f = code.createFunction(interp, globals);
+        globals.put("f", f);
+        ThreadState tstate = ThreadState.get();
+        /*
+         * The RecursionError is expected. An outermost frame reports
+         * the exception that ends it, so we call f() from above a
+         * frame that is never executed.
+         */
+        tstate.push(f.createFrame(globals));
+        try {
+            Callables.call(f);
+        } catch (RecursionError e) {
+            // Expected (from StackOverflowError)
+        } catch (Throwable t) {
+            throw Abstract.asUnchecked(t, "probing recursion depth");
+        } finally {
+            tstate.pop();
+        }
+        return tstate.overflowDepth;
+    }
+
+    /**
+     * Make the code object for a function that does nothing but call
+     * itself (by looking up the given name as a global).
+     *
+     * @param name of the function
+     * @return code of the function
+     */
+    private static CPython311Code recursiveCode(String name) {
+        // Inline cache entries follow certain instructions
+        final int nLoad = Opcode311.INLINE_CACHE_ENTRIES_LOAD_GLOBAL,
+                nPrecall = Opcode311.INLINE_CACHE_ENTRIES_PRECALL,
+                nCall = Opcode311.INLINE_CACHE_ENTRIES_CALL;
+        byte[] b = new byte[2 * (5 + nLoad + nPrecall + nCall)];
+        int i = 0;
+        b[i] = (byte)Opcode311.RESUME;
+        b[i += 2] = (byte)Opcode311.LOAD_GLOBAL;
+        b[i + 1] = 1; // NULL + names[0]
+        b[i += 2 * (1 + nLoad)] = (byte)Opcode311.PRECALL;
+        b[i += 2 * (1 + nPrecall)] = (byte)Opcode311.CALL;
+        b[i += 2 * (1 + nCall)] = (byte)Opcode311.RETURN_VALUE;
+        PyBytes empty = new PyBytes(new byte[0]);
+        return CPython311Code.create("<probe>", name, name,
+                PyCode.CO_OPTIMIZED | PyCode.CO_NEWLOCALS,
+                new PyBytes(b), 1, empty, Py.tuple(Py.None),
+                Py.tuple(name), Py.tuple(), empty, 0, 0, 0, 2, empty);
+    }
+
     /**
      * Execute the code object and return the result. This is quite like
      * {@link BuiltinsModule#exec(Object, Object, Object, Object)
@@ -64,7 +295,7 @@ class Interpreter {
      * @return result of evaluation
      */
     // Compare CPython PyEval_EvalCode in ceval.c
-    Object eval(PyCode code, PyDict globals, Object locals) {
+    public Object eval(PyCode code, PyDict globals, Object locals) {
         if (locals == null) { locals = globals; }
         globals.putIfAbsent("__builtins__", builtinsModule);
         PyFunction<?> func = code.createFunction(this, globals);
@@ -72,6 +303,26 @@ class Interpreter {
         return f.eval();
     }
 
+    /**
+     * Execute the code object and return the result, as
+     * {@link #eval(PyCode, PyDict, Object)}, but within the limits of
+     * the given {@link ExecutionBudget}. If the budget is spent, or
+     * interrupted, the code raises {@link KeyboardInterrupt}.
+     *
+     * @param code compiled code object
+     * @param globals global context dictionary
+     * @param locals local variables (a Python mapping), may be the same
+     *     as {@code globals} or {@code null}
+     * @param budget limiting execution
+     * @return result of evaluation
+     * @throws KeyboardInterrupt if the budget is spent or interrupted
+     */
+    public Object eval(PyCode code, PyDict globals, Object locals,
+            ExecutionBudget budget) throws KeyboardInterrupt {
+        return ThreadState.withBudget(budget,
+                () -> eval(code, globals, locals));
+    }
+
     /**
      * Execute the code object and return the result. This is the
      * equivalent of {@link #eval(PyCode, PyDict, Object) eval(code,
@@ -81,7 +332,7 @@ class Interpreter {
      * @param globals global context dictionary
      * @return result of evaluation
      */
-    Object eval(PyCode code, PyDict globals) {
+    public Object eval(PyCode code, PyDict globals) {
         return eval(code, globals, globals);
     }
 
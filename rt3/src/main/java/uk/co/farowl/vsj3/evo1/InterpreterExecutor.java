@@ -0,0 +1,223 @@
+// Copyright (c)2023 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * An executor for Python code that owns a pool of warm interpreters,
+ * suitable for running the same code objects many times at a high rate.
+ * <p>
+ * A job is a code object (as for a module body) to be executed with
+ * certain initial global variables (the "bindings"). The result of a
+ * job is some value computed from the global variables once the code
+ * has run, and is delivered through a {@link CompletableFuture}.
+ * <p>
+ * Each worker thread takes a context from the pool for the duration of
+ * a job. A context consists of an {@link Interpreter} (created once),
+ * a {@code dict} used as the globals of every job it runs, and the
+ * functions it has made from the code objects submitted to it. Where
+ * {@link Interpreter#eval(PyCode, PyDict, Object)} would make a new
+ * function each time, a context makes a function once for each code
+ * object, and only a frame for each job. Between jobs, the globals are
+ * cleared. Jobs therefore do not see each other's variables, but
+ * neither should a job let objects that refer to its globals (such as
+ * functions it defines) escape through its result.
+ * <p>
+ * The {@code __builtins__} of a job is a {@code dict} belonging to the
+ * context, copied from the {@code builtins} module of its interpreter
+ * when the context is created, and restored from that copy between
+ * jobs. A job that replaces a built-in does not affect the next.
+ */
+public class InterpreterExecutor implements AutoCloseable {
+
+    /**
+     * The number of functions a context retains before it forgets them
+     * all and starts again. This bounds the memory used when many
+     * distinct code objects are submitted.
+     */
+    private static final int MAX_FUNCTIONS = 256;
+
+    /** Count of executors created, used in naming threads. */
+    private static final AtomicInteger executorCount =
+            new AtomicInteger();
+
+    /** Threads on which jobs are run. */
+    private final ExecutorService threads;
+
+    /** Contexts not currently running a job. */
+    private final BlockingQueue<Context> contexts;
+
+    /**
+     * Create an executor with a given number of threads and as many
+     * interpreters, which are created immediately.
+     *
+     * @param size number of threads and interpreters
+     */
+    public InterpreterExecutor(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException(
+                    "InterpreterExecutor size must be at least 1");
+        }
+        this.contexts = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) { contexts.add(new Context()); }
+        String prefix = String.format("InterpreterExecutor-%d-",
+                executorCount.incrementAndGet());
+        AtomicInteger threadCount = new AtomicInteger();
+        this.threads = Executors.newFixedThreadPool(size, r -> {
+            Thread t = new Thread(r,
+                    prefix + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Submit a job that executes the given code with the given initial
+     * global variables, and computes a result from the global variables
+     * when the code completes. The {@code result} function runs on the
+     * worker thread, before the globals are cleared.
+     *
+     * @param <T> type of the result
+     * @param code to execute (module-level code)
+     * @param bindings initial global variables
+     * @param result function to compute the result from the globals
+     * @return future of the result
+     */
+    public <T> CompletableFuture<T> submit(PyCode code,
+            Map<String, ?> bindings,
+            Function<? super PyDict, ? extends T> result) {
+        Objects.requireNonNull(code);
+        Objects.requireNonNull(bindings);
+        Objects.requireNonNull(result);
+        return CompletableFuture
+                .supplyAsync(() -> run(code, bindings, result), threads);
+    }
+
+    /**
+     * Submit a job that executes the given code with the given initial
+     * global variables. The result is a copy of the global variables
+     * when the code completes.
+     *
+     * @param code to execute (module-level code)
+     * @param bindings initial global variables
+     * @return future of the resulting global variables
+     */
+    public CompletableFuture<PyDict> submit(PyCode code,
+            Map<String, ?> bindings) {
+        return submit(code, bindings, globals -> {
+            PyDict copy = new PyDict();
+            copy.putAll(globals);
+            return copy;
+        });
+    }
+
+    /**
+     * Stop accepting jobs. Jobs already submitted will complete.
+     */
+    @Override
+    public void close() { threads.shutdown(); }
+
+    /**
+     * Run a job in a context taken from the pool, returning the
+     * context to the pool afterwards.
+     *
+     * @param <T> type of the result
+     * @param code to execute
+     * @param bindings initial global variables
+     * @param result function to compute the result from the globals
+     * @return the result
+     */
+    private <T> T run(PyCode code, Map<String, ?> bindings,
+            Function<? super PyDict, ? extends T> result) {
+        // There is a context for every thread, so this does not wait.
+        Context context = contexts.poll();
+        assert context != null;
+        try {
+            return context.run(code, bindings, result);
+        } finally {
+            contexts.add(context);
+        }
+    }
+
+    /**
+     * An interpreter with the state it keeps between jobs. A context is
+     * used by one thread at a time.
+     */
+    private static class Context {
+
+        /** The interpreter in which jobs run. */
+        final Interpreter interpreter = new Interpreter();
+
+        /** The globals of every job, cleared between jobs. */
+        final PyDict globals = new PyDict();
+
+        /** The built-ins as the interpreter created them. */
+        final PyDict initialBuiltins = new PyDict();
+
+        /** The built-ins of every job, restored between jobs. */
+        final PyDict builtins = new PyDict();
+
+        Context() {
+            initialBuiltins.putAll(interpreter.builtinsModule.getDict());
+            builtins.putAll(initialBuiltins);
+        }
+
+        /** Functions made from code objects, bound to the globals. */
+        final Map<PyCode, PyFunction<?>> functions =
+                new IdentityHashMap<>();
+
+        /**
+         * Run a job with {@link #globals} set from the bindings and
+         * {@link #builtins} as its {@code __builtins__}.
+         *
+         * @param <T> type of the result
+         * @param code to execute
+         * @param bindings initial global variables
+         * @param result function to compute the result from the globals
+         * @return the result
+         */
+        <T> T run(PyCode code, Map<String, ?> bindings,
+                Function<? super PyDict, ? extends T> result) {
+            try {
+                globals.put("__builtins__", builtins);
+                globals.putAll(bindings);
+                PyFunction<?> func = function(code);
+                func.createFrame(globals).eval();
+                return result.apply(globals);
+            } finally {
+                globals.clear();
+                builtins.clear();
+                builtins.putAll(initialBuiltins);
+            }
+        }
+
+        /**
+         * Find or create the function that executes the given code in
+         * this context.
+         *
+         * @param code to execute
+         * @return function bound to {@link #globals}
+         */
+        private PyFunction<?> function(PyCode code) {
+            PyFunction<?> func = functions.get(code);
+            if (func == null) {
+                if (functions.size() >= MAX_FUNCTIONS) {
+                    functions.clear();
+                }
+                func = code.createFunction(interpreter, globals);
+                functions.put(code, func);
+            }
+            return func;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package uk.co.farowl.vsj3.evo1;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * The Python {@code KeyboardInterrupt} exception. We raise this when
+ * execution is interrupted or runs beyond its
+ * {@link ExecutionBudget}. Since it is not a sub-class of
+ * {@code Exception}, Python code does not catch it by accident.
+ */
+public class KeyboardInterrupt extends BaseException {
+    private static final long serialVersionUID = 1L;
+
+    /** The type object of Python {@code KeyboardInterrupt} exceptions. */
+    @SuppressWarnings("hiding")
+    public static final PyType TYPE = PyType.fromSpec(
+            new PyType.Spec("KeyboardInterrupt", MethodHandles.lookup())
+                    .base(BaseException.TYPE));
+
+    /**
+     * Constructor for sub-class use specifying {@link #type}.
+     *
+     * @param type object being constructed
+     * @param msg a Java format string for the message
+     * @param args to insert in the format string
+     */
+    protected KeyboardInterrupt(PyType type, String msg,
+            Object... args) {
+        super(type, msg, args);
+    }
+
+    /**
+     * Constructor specifying a message.
+     *
+     * @param msg a Java format string for the message
+     * @param args to insert in the format string
+     */
+    public KeyboardInterrupt(String msg, Object... args) {
+        this(TYPE, msg, args);
+    }
+}
@@ -0,0 +1,65 @@
+// Copyright (c)2023 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Run compiled Python programs ({@code .pyc} files from CPython 3.11)
+ * from the command line. Each program named runs in turn as
+ * {@code __main__}, in a fresh global dictionary of the same
+ * {@link Interpreter}.
+ * <p>
+ * This is also the program that trains the class-data sharing (CDS)
+ * archive of the runtime, and the one the launcher script runs against
+ * the archive (see tasks {@code trainCDS} and {@code cdsLauncher} in
+ * {@code rt3.gradle}). A training run loads and links the classes that
+ * bootstrap the type system and the {@code builtins} module, and those
+ * the programs use, so that a later run may map them from the archive
+ * instead of loading them from the jar.
+ */
+public final class Launcher {
+
+    private Launcher() {} // no instances
+
+    /**
+     * Run the compiled Python programs named as arguments.
+     *
+     * @param args paths to {@code .pyc} files
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: Launcher <file.pyc> ...");
+            System.exit(2);
+        }
+
+        // Creating the interpreter bootstraps the type system
+        Interpreter interp = new Interpreter();
+
+        for (String arg : args) {
+            try {
+                CPython311Code code = readCode(Paths.get(arg));
+                PyDict globals = new PyDict();
+                globals.put("__name__", "__main__");
+                interp.eval(code, globals);
+            } catch (BaseException e) {
+                System.err.printf("%s: %s\n", arg, e);
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * Read a {@code code} object from a {@code .pyc} file compiled by
+     * CPython 3.11.
+     *
+     * @param pyc path to the file
+     * @return the {@code code} object
+     * @throws OSError if the file cannot be read
+     * @throws ValueError if it is not a CPython 3.11 module
+     */
+    static CPython311Code readCode(Path pyc) throws OSError, ValueError {
+        return CPython311CodeCache.loadUncached(pyc);
+    }
+}
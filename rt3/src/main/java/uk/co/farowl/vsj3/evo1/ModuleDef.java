@@ -5,6 +5,8 @@ package uk.co.farowl.vsj3.evo1;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles.Lookup;
 
+import uk.co.farowl.vsj3.evo1.base.MethodKind;
+
 /**
  * A {@code ModuleDef} is a definition from which instances of a module
  * may be made. It stands in relation to the Java classes that define
@@ -77,8 +79,15 @@ public class ModuleDef {
         PyDict d = module.dict;
         for (MethodDef md : methods) {
             // Create function by binding to the module
-            PyJavaFunction func = PyJavaFunction.forModule(md.argParser,
-                    md.handle, module, this.name);
+            PyJavaFunction func;
+            if (md.prepared != null) {
+                // Java static: share the handle prepared once
+                func = PyJavaFunction.fromPrepared(md.argParser,
+                        md.signature, md.prepared, module, this.name);
+            } else {
+                func = PyJavaFunction.forModule(md.argParser, md.handle,
+                        module, this.name);
+            }
             d.put(md.argParser.name, func);
         }
     }
@@ -135,6 +144,19 @@ public class ModuleDef {
         // CPython PyMethodDef: ml_meth
         final MethodHandle handle;
 
+        /** The signature chosen to optimise calls to the method. */
+        final MethodSignature signature;
+
+        /**
+         * When the method is static in Java, the {@link #handle}
+         * prepared for {@link #signature}, and otherwise {@code null}.
+         * Such a handle does not depend on the module instance, so it
+         * is made once here and shared by the functions in every
+         * instance of the module. This keeps the creation of a module
+         * instance (and of an {@link Interpreter}) cheap.
+         */
+        final MethodHandle prepared;
+
         /**
          * Create a {@link MethodDef} of the given kind from the
          * {@link ArgParser} provided.
@@ -146,6 +168,10 @@ public class ModuleDef {
             this.argParser = argParser;
             assert meth != null;
             this.handle = meth;
+            this.signature = MethodSignature.fromParser(argParser);
+            this.prepared = argParser.methodKind == MethodKind.STATIC
+                    ? signature.prepareBound(argParser, meth, null)
+                    : null;
         }
 
         @Override
@@ -1,10 +1,10 @@
 package uk.co.farowl.vsj3.evo1;
 
 import java.lang.invoke.MethodHandles.Lookup;
-import java.lang.reflect.Method;
 
-import uk.co.farowl.vsj3.evo1.Exposed.PythonMethod;
-import uk.co.farowl.vsj3.evo1.Exposed.PythonStaticMethod;
+import uk.co.farowl.vsj3.evo1.ExposureTable.Exposure;
+import uk.co.farowl.vsj3.evo1.ExposureTable.Kind;
+import uk.co.farowl.vsj3.evo1.ExposureTable.MethodEntry;
 import uk.co.farowl.vsj3.evo1.base.InterpreterError;
 import uk.co.farowl.vsj3.evo1.ModuleDef.MethodDef;
 
@@ -79,13 +79,14 @@ class ModuleExposer extends Exposer {
             throws InterpreterError {
 
         // Collect exposed functions (Java methods)
-        for (Method m : definingClass.getDeclaredMethods()) {
-            PythonMethod a =
-                    m.getDeclaredAnnotation(PythonMethod.class);
-            if (a != null) { addMethodSpec(m, a); }
-            PythonStaticMethod sm =
-                    m.getDeclaredAnnotation(PythonStaticMethod.class);
-            if (sm != null) { addStaticMethodSpec(m, sm); }
+        for (MethodEntry m : ExposureTable.forClass(definingClass).methods) {
+            for (Exposure a : m.exposures) {
+                if (a.kind == Kind.METHOD) {
+                    addMethodSpec(m, a);
+                } else if (a.kind == Kind.STATIC_METHOD) {
+                    addStaticMethodSpec(m, a);
+                }
+            }
         }
     }
 }
@@ -0,0 +1,185 @@
+// Copyright (c)2023 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A profiler that counts the instructions executed by
+ * {@link CPython311Frame}s, by code object and instruction offset.
+ * From these counts it derives the number of executions of each
+ * opcode, and the hot spots in the Python source (the lines where most
+ * instructions execute).
+ * <p>
+ * A profiler is installed on an {@link Interpreter} with
+ * {@link Interpreter#setProfiler(OpcodeProfiler)}. Frames created after
+ * that count the instructions they execute. Frames created while no
+ * profiler is installed do not count, and pay nothing for the
+ * possibility.
+ * <p>
+ * Each thread counts into its own arrays (one {@code long[]} per code
+ * object, indexed by instruction), without synchronisation. The
+ * counts of all threads are merged when a report is requested. A
+ * report made while code is running is a snapshot that may not include
+ * the most recent counts.
+ */
+public final class OpcodeProfiler {
+
+    /** The counts of each thread, by code object. */
+    private final CodeArrays counts =
+            new CodeArrays(c -> new long[c.wordcode.length], Long::sum);
+
+    /** Create a profiler with no counts. */
+    public OpcodeProfiler() {}
+
+    /**
+     * Return the array in which the current thread counts executions
+     * of each instruction in the given code object, indexed as
+     * {@link CPython311Code#wordcode}.
+     *
+     * @param code to be executed
+     * @return counts of instructions executed by this thread
+     */
+    long[] counts(CPython311Code code) { return counts.get(code); }
+
+    /**
+     * Merge the counts of all threads, by code object.
+     *
+     * @return counts of instructions executed, by code object
+     */
+    private Map<CPython311Code, long[]> merged() {
+        Map<CPython311Code, long[]> merged = new IdentityHashMap<>();
+        counts.forEach((code, c) -> {
+            long[] m = merged.computeIfAbsent(code,
+                    k -> new long[c.length]);
+            for (int ip = 0; ip < c.length; ip++) { m[ip] += c[ip]; }
+        });
+        return merged;
+    }
+
+    /** Discard all counts (as if no code has run). */
+    public void reset() { counts.reset(); }
+
+    /**
+     * Return the number of times each opcode has been executed, as an
+     * array indexed by opcode (as defined in {@link Opcode311}).
+     *
+     * @return counts of executions indexed by opcode
+     */
+    public long[] opcodeCounts() {
+        long[] counts = new long[256];
+        for (Map.Entry<CPython311Code, long[]> e : merged().entrySet()) {
+            short[] wordcode = e.getKey().wordcode;
+            long[] c = e.getValue();
+            for (int ip = 0; ip < c.length; ip++) {
+                counts[(wordcode[ip] >> 8) & 0xff] += c[ip];
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Return the number of instructions executed in each code object
+     * (that has executed any).
+     *
+     * @return counts of instructions executed by code object
+     */
+    public Map<PyCode, Long> codeCounts() {
+        Map<PyCode, Long> counts = new IdentityHashMap<>();
+        for (Map.Entry<CPython311Code, long[]> e : merged().entrySet()) {
+            long n = 0;
+            for (long c : e.getValue()) { n += c; }
+            if (n > 0) { counts.put(e.getKey(), n); }
+        }
+        return counts;
+    }
+
+    /**
+     * Return the number of times each instruction of the given code
+     * object has been executed, indexed by the offset of the
+     * instruction divided by two (i.e. by the 16-bit word).
+     *
+     * @param code of interest
+     * @return counts of executions indexed by instruction
+     */
+    public long[] instructionCounts(PyCode code) {
+        long[] c = merged().get(code);
+        if (c != null) {
+            return c;
+        } else if (code instanceof CPython311Code) {
+            return new long[((CPython311Code)code).wordcode.length];
+        } else {
+            return new long[0];
+        }
+    }
+
+    /**
+     * Return the source lines where most instructions have been
+     * executed, most first.
+     *
+     * @param limit the maximum number of hot spots to return
+     * @return hot spots, most instructions first
+     */
+    public List<HotSpot> hotSpots(int limit) {
+        List<HotSpot> spots = new ArrayList<>();
+        for (Map.Entry<CPython311Code, long[]> e : merged().entrySet()) {
+            CPython311Code code = e.getKey();
+            long[] c = e.getValue();
+            // Sum the counts of the instructions of each line
+            Map<Integer, Long> lines = new HashMap<>();
+            for (int ip = 0; ip < c.length; ip++) {
+                if (c[ip] != 0) {
+                    lines.merge(code.lineOf(ip), c[ip], Long::sum);
+                }
+            }
+            for (Map.Entry<Integer, Long> l : lines.entrySet()) {
+                spots.add(new HotSpot(code, l.getKey(), l.getValue()));
+            }
+        }
+        spots.sort(Comparator.comparingLong((HotSpot h) -> h.count)
+                .reversed());
+        return spots.size() > limit ? spots.subList(0, limit) : spots;
+    }
+
+    /**
+     * Print the source lines where most instructions have been
+     * executed, most first, one line each.
+     *
+     * @param out to receive the report
+     * @param limit the maximum number of hot spots to print
+     */
+    public void dump(PrintStream out, int limit) {
+        for (HotSpot h : hotSpots(limit)) { out.println(h); }
+    }
+
+    /** A source line and the number of instructions executed there. */
+    public static final class HotSpot {
+
+        /** Code object containing the line. */
+        public final PyCode code;
+
+        /** Source line number (or -1 if not known). */
+        public final int line;
+
+        /** Number of instructions executed from the line. */
+        public final long count;
+
+        private HotSpot(PyCode code, int line, long count) {
+            this.code = code;
+            this.line = line;
+            this.count = count;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%12d  %s:%d (%s)", count, code.filename,
+                    line, code.qualname);
+        }
+    }
+}
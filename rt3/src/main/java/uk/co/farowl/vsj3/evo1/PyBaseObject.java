@@ -161,30 +161,57 @@ public class PyBaseObject extends AbstractPyObject {
      * @throws Throwable on other errors, typically from the descriptor
      */
     // Compare CPython PyObject_GenericGetAttr in object.c
-    // Also _PyObject_GenericGetAttrWithDict without the tricks.
     static Object __getattribute__(Object obj, String name)
             throws AttributeError, Throwable {
+        Object attr = getAttribute(obj, name);
+        if (attr == PyObjectUtil.NOT_FOUND) {
+            throw Abstract.noAttributeError(obj, name);
+        }
+        return attr;
+    }
+
+    /**
+     * The default attribute access mechanism, as in
+     * {@link #__getattribute__(Object, String)}, but returning
+     * {@link PyObjectUtil#NOT_FOUND} in place of throwing
+     * {@link AttributeError} when no attribute is found. (A descriptor
+     * may still throw {@code AttributeError}.) This is for internal
+     * use where a miss is an expected outcome.
+     *
+     * @param obj the target of the get
+     * @param name of the attribute
+     * @return attribute value or {@code NOT_FOUND}
+     * @throws AttributeError from a descriptor
+     * @throws Throwable on other errors, typically from the descriptor
+     */
+    // Compare CPython _PyObject_GenericGetAttrWithDict in object.c
+    static Object getAttribute(Object obj, String name)
+            throws AttributeError, Throwable {
 
         PyType objType = PyType.of(obj);
         MethodHandle descrGet = null;
 
         // Look up the name in the type (null if not found).
         Object typeAttr = objType.lookup(name);
-        if (typeAttr != null) {
+        if (typeAttr instanceof DataDescriptor) {
+            /*
+             * A member or get-set descriptor of a built-in type (these
+             * cannot be sub-classed in Python) so call its __get__
+             * directly, rather than through the op_get slot.
+             */
+            return ((DataDescriptor)typeAttr).__get__(obj, objType);
+        } else if (typeAttr != null) {
             // Found in the type, it might be a descriptor
             Operations typeAttrOps = Operations.of(typeAttr);
-            descrGet = typeAttrOps.op_get;
-            if (typeAttrOps.isDataDescr()) {
-                // typeAttr is a data descriptor so call its __get__.
-                try {
-                    return descrGet.invokeExact(typeAttr, obj, objType);
-                } catch (Slot.EmptyException e) {
+            if (Slot.op_get.isDefinedFor(typeAttrOps)) {
+                descrGet = typeAttrOps.op_get;
+                if (typeAttrOps.isDataDescr()) {
                     /*
-                     * Only __set__ or __delete__ was defined. We do not
-                     * catch AttributeError: it's definitive. Suppress
-                     * trying __get__ again.
+                     * typeAttr is a data descriptor so call its
+                     * __get__. We do not catch AttributeError: it's
+                     * definitive.
                      */
-                    descrGet = null;
+                    return descrGet.invokeExact(typeAttr, obj, objType);
                 }
             }
         }
@@ -210,10 +237,8 @@ public class PyBaseObject extends AbstractPyObject {
          * attribute was not found.
          */
         if (descrGet != null) {
-            // typeAttr may be a non-data descriptor: call __get__.
-            try {
-                return descrGet.invokeExact(typeAttr, obj, objType);
-            } catch (Slot.EmptyException e) {}
+            // typeAttr is a non-data descriptor: call __get__.
+            return descrGet.invokeExact(typeAttr, obj, objType);
         }
 
         if (typeAttr != null) {
@@ -225,7 +250,7 @@ public class PyBaseObject extends AbstractPyObject {
         }
 
         // All the look-ups and descriptors came to nothing :(
-        throw Abstract.noAttributeError(obj, name);
+        return PyObjectUtil.NOT_FOUND;
     }
 
     /**
@@ -263,7 +288,11 @@ public class PyBaseObject extends AbstractPyObject {
 
         // Look up the name in the type (null if not found).
         Object typeAttr = PyType.of(obj).lookup(name);
-        if (typeAttr != null) {
+        if (typeAttr instanceof DataDescriptor) {
+            // Built-in data descriptor: call its __set__ directly.
+            ((DataDescriptor)typeAttr).__set__(obj, value);
+            return;
+        } else if (typeAttr != null) {
             // Found in the type, it might be a descriptor.
             Operations typeAttrOps = Operations.of(typeAttr);
             if (typeAttrOps.isDataDescr()) {
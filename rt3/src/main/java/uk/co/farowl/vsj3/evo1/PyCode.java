@@ -81,7 +81,11 @@ public abstract class PyCode implements CraftedPyObject {
     /** First source line number of this code. */
     final int firstlineno;
 
-    /** Constant objects needed by the code. Not {@code null}. */
+    /**
+     * Constant objects needed by the code. Not {@code null}. A nested
+     * code object may be represented by a {@link Deferred} until it is
+     * first needed.
+     */
     final Object[] consts;
 
     /** Names referenced in the code. Not {@code null}. */
@@ -333,7 +337,61 @@ public abstract class PyCode implements CraftedPyObject {
      * @return {@link #consts} as a {@code tuple}
      */
     @Getter
-    PyTuple co_consts() { return PyTuple.from(consts); }
+    PyTuple co_consts() {
+        for (int i = 0; i < consts.length; i++) {
+            if (consts[i] instanceof Deferred d) { consts[i] = d.code(); }
+        }
+        return PyTuple.from(consts);
+    }
+
+    /**
+     * A stand-in for a {@code code} object amongst the constants of
+     * another, so that the work of creating it may be deferred until it
+     * is first needed (for example by {@code MAKE_FUNCTION}). A loader
+     * such as {@code marshal} may create these when reading a module in
+     * which most functions will never be called.
+     */
+    public interface Deferred {
+        /**
+         * Return the {@code code} object this stands for, creating it
+         * on the first call. Subsequent calls return the same object.
+         *
+         * @return the code object
+         */
+        PyCode code();
+    }
+
+    /**
+     * Return the given constant as a {@code PyCode}, creating it if it
+     * is a {@link Deferred} code object.
+     *
+     * @param c a constant that should be a code object
+     * @return {@code c} as a code object
+     */
+    static PyCode of(Object c) {
+        return c instanceof Deferred d ? d.code() : (PyCode)c;
+    }
+
+    /**
+     * Return the given constant of this code as a {@code PyCode}, as
+     * {@link #of(Object)}, and if it is a {@link Deferred} code object,
+     * replace it in {@link #consts} by the code it stands for. Later
+     * uses of the constant then find the code object directly. Threads
+     * may race to do this, but they store the same object.
+     *
+     * @param c a constant of this code that should be a code object
+     * @return {@code c} as a code object
+     */
+    PyCode resolveConst(Object c) {
+        if (c instanceof Deferred d) {
+            PyCode code = d.code();
+            for (int i = 0; i < consts.length; i++) {
+                if (consts[i] == c) { consts[i] = code; }
+            }
+            return code;
+        }
+        return (PyCode)c;
+    }
 
     /**
      * Get {@link #names} as a {@code tuple}.
@@ -149,6 +149,14 @@ public class PyDict extends AbstractMap<Object, Object>
         return map.putIfAbsent(toKey(key), value);
     }
 
+    /**
+     * Override {@code Map.clear} to clear the underlying map directly,
+     * rather than by removing entries one at a time through an
+     * iterator.
+     */
+    @Override
+    public void clear() { map.clear(); }
+
     /** Modes for use with {@link #merge(Object, MergeMode)}. */
     enum MergeMode {
         /**
@@ -11,6 +11,8 @@ import java.util.Map;
 import uk.co.farowl.vsj3.evo1.Exposed.PythonMethod;
 import uk.co.farowl.vsj3.evo1.PyObjectUtil.NoConversion;
 import uk.co.farowl.vsj3.evo1.base.InterpreterError;
+import uk.co.farowl.vsj3.evo1.stringlib.DecimalToDouble;
+import uk.co.farowl.vsj3.evo1.stringlib.DoubleToDecimal;
 import uk.co.farowl.vsj3.evo1.stringlib.FloatFormatter;
 import uk.co.farowl.vsj3.evo1.stringlib.InternalFormat;
 import uk.co.farowl.vsj3.evo1.stringlib.InternalFormat.FormatError;
@@ -23,8 +25,9 @@ public class PyFloat extends AbstractPyObject {
     public static final PyType TYPE = PyType.fromSpec( //
             new PyType.Spec("float", MethodHandles.lookup())
                     .adopt(Double.class)
-                    .operand(Integer.class, BigInteger.class,
-                            PyLong.class, Boolean.class)
+                    .operand(Integer.class, Long.class,
+                            BigInteger.class, PyLong.class,
+                            Boolean.class)
                     .methods(PyFloatMethods.class)
                     .binops(PyFloatBinops.class));
 
@@ -99,8 +102,7 @@ public class PyFloat extends AbstractPyObject {
         else if (x instanceof PyFloat)
             return x;
         else if (x instanceof PyUnicode)
-            return new PyFloat(TYPE,
-                    Double.valueOf(x.toString()).doubleValue());
+            return new PyFloat(TYPE, fromString(x));
         else
             return PyNumber.toFloat(x);
     }
@@ -110,12 +112,10 @@ public class PyFloat extends AbstractPyObject {
     @SuppressWarnings("unused")
     private static String __repr__(Object self) {
         assert TYPE.check(self);
-        return formatDouble(doubleValue(self), SPEC_REPR);
+        // Same result as format with spec " >r", but much faster
+        return DoubleToDecimal.repr(doubleValue(self));
     }
 
-    /** Format specification used by repr(). */
-    private static final Spec SPEC_REPR = InternalFormat.fromText(" >r");
-
     // __str__: let object.__str__ handle it (calls __repr__)
 
     static Object __pow__(Object left, Object right, Object modulus) {
@@ -174,26 +174,6 @@ public class PyFloat extends AbstractPyObject {
         }
     }
 
-    /**
-     * Format this float according to the specification passed in.
-     * Supports {@code __format__}, {@code __str__} and
-     * {@code __repr__}.
-     *
-     * @param value to format
-     * @param spec parsed format specification string
-     * @return formatted value
-     */
-    private static String formatDouble(double value, Spec spec) {
-        try {
-            FloatFormatter f = new Formatter(spec, true);
-            return f.format(value).getResult();
-        } catch (FormatOverflow fe) {
-            throw new OverflowError(fe.getMessage());
-        } catch (FormatError fe) {
-            throw new ValueError(fe.getMessage());
-        }
-    }
-
     // Java-only API -------------------------------------------------
 
     /**
@@ -294,11 +274,16 @@ public class PyFloat extends AbstractPyObject {
      *
      * @param v to convert
      * @return converted value
+     * @throws ValueError if {@code v} is not a valid literal
      */
     // Compare CPython floatobject.c :: PyFloat_FromString
-    static Double fromString(Object v) {
-        // Keep it simple (a lot simpler than in CPython)
-        return Double.valueOf(v.toString());
+    static Double fromString(Object v) throws ValueError {
+        try {
+            return DecimalToDouble.parse(v.toString());
+        } catch (NumberFormatException e) {
+            throw new ValueError(
+                    "could not convert string to float: '%.200s'", v);
+        }
     }
 
     // Python sub-class -----------------------------------------------
@@ -77,7 +77,7 @@ import java.util.Map;
  *
  * @param <C> The type of code that this frame executes
  */
-public abstract class PyFrame<C extends PyCode> {
+public abstract class PyFrame<C extends PyCode> implements CraftedPyObject {
 
     /** The Python type {@code frame}. */
     public static final PyType TYPE = PyType.fromSpec( //
@@ -106,6 +106,14 @@ public abstract class PyFrame<C extends PyCode> {
      */
     Object locals;
 
+    /**
+     * Local trace function, returned by the trace function of the
+     * thread when this frame was entered (see
+     * {@link Tracing#settrace(Object)}), or {@code null}.
+     */
+    // Compare CPython PyFrameObject.f_trace in frameobject.h
+    Object trace;
+
     /**
      * Foundation constructor on which subclass constructors rely. This
      * provides a "loose" frame that is not yet part of any stack until
@@ -124,6 +132,9 @@ public abstract class PyFrame<C extends PyCode> {
         this.code = func.code;
     }
 
+    @Override
+    public PyType getType() { return TYPE; }
+
     /**
      * Get the code object this frame is executing, exposed as read-only
      * {@code f_code}.
@@ -133,6 +144,15 @@ public abstract class PyFrame<C extends PyCode> {
     @Exposed.Getter("f_code")
     C getCode() { return code; }
 
+    /**
+     * Get the source line this frame is executing, exposed as
+     * read-only {@code f_lineno}. (See {@link #currentLine()}.)
+     *
+     * @return the current source line
+     */
+    @Exposed.Getter("f_lineno")
+    int getLineno() { return currentLine(); }
+
     /**
      * Get the interpreter that defines the import context when
      * executing code.
@@ -219,12 +239,40 @@ public abstract class PyFrame<C extends PyCode> {
 
     /**
      * Execute the code in this frame, pushing it to the stack of the
-     * current {@link ThreadState} and popping it afterwards.
+     * current {@link ThreadState} and popping it afterwards. This is
+     * the entry to Python from Java, which finds the thread state bound
+     * to the current thread. A frame calling another passes its own
+     * thread state to {@link #eval(ThreadState)} instead.
+     *
+     * @return return value of the frame
+     */
+    // Compare CPython PyEval_EvalCode in ceval.c
+    Object eval() { return eval(ThreadState.get()); }
+
+    /**
+     * Execute the code in this frame, pushing it to the stack of the
+     * given {@link ThreadState} and popping it afterwards.
      *
+     * @param tstate the thread state of the current thread
      * @return return value of the frame
      */
     // Compare CPython PyEval_EvalFrameEx in ceval.c
-    abstract Object eval();
+    abstract Object eval(ThreadState tstate);
+
+    /**
+     * Return the source line that this frame is executing. The value
+     * may be approximate in the top frame of a running thread, since
+     * implementations record their position only at certain
+     * instructions, such as calls. This default implementation, for
+     * frames that do not record their position, returns the first
+     * line of the code.
+     *
+     * @return the current source line or -1 if it is not known
+     */
+    // Compare CPython PyFrame_GetLineNumber in frameobject.c
+    int currentLine() {
+        return code.firstlineno != 0 ? code.firstlineno : -1;
+    }
 
     /**
      * Convert (or update) a dictionary representation of the local
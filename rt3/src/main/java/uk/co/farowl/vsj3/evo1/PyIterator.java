@@ -60,6 +60,15 @@ public class PyIterator extends AbstractPyIterator {
 
     @Override
     Object __next__() throws Throwable {
+        Object item = next();
+        if (item == PyObjectUtil.NOT_FOUND) {
+            throw PyObjectUtil.STOP_ITERATION;
+        }
+        return item;
+    }
+
+    @Override
+    Object next() throws Throwable {
         try {
             if (index >= 0) {
                 return getitem.invokeExact((Object)index++);
@@ -68,7 +77,7 @@ public class PyIterator extends AbstractPyIterator {
             // Signal in index that we reached the end
             index = -1;
         }
-        throw PyObjectUtil.STOP_ITERATION;
+        return PyObjectUtil.NOT_FOUND;
     }
 
     @Override
@@ -114,8 +114,8 @@ public abstract class PyJavaFunction
             Object self, String module) {
         /*
          * Note this is a recommendation on the assumption all
-         * optimisations are supported. The actual choice is made in the
-         * switch statement.
+         * optimisations are supported. The actual choice is made in
+         * fromPrepared().
          */
         MethodSignature sig = MethodSignature.fromParser(ap);
 
@@ -123,31 +123,40 @@ public abstract class PyJavaFunction
         assert ap.methodKind == MethodKind.INSTANCE
                 || ap.methodKind == MethodKind.STATIC;
 
-        // In each case, prepare a method handle of the chosen shape.
+        // Prepare a method handle of the chosen shape.
+        method = sig.prepareBound(ap, method, self);
+        return fromPrepared(ap, sig, method, self, module);
+    }
+
+    /**
+     * Construct a {@code PyJavaFunction} from an {@link ArgParser} and a
+     * {@code MethodHandle} already prepared for the given signature by
+     * {@link MethodSignature#prepareBound(ArgParser, MethodHandle, Object)
+     * prepareBound}. A {@link ModuleDef} uses this to share one prepared
+     * handle amongst all instances of a module, when the implementation
+     * is static in Java and so does not bind the module.
+     *
+     * @param ap argument parser (provides name etc.)
+     * @param sig the signature for which {@code method} was prepared
+     * @param method prepared handle to the method defined
+     * @param self object to which bound (the module)
+     * @param module name of the module supplying the definition
+     * @return A bound or unbound method supporting the signature
+     */
+    static PyJavaFunction fromPrepared(ArgParser ap, MethodSignature sig,
+            MethodHandle method, Object self, String module) {
         switch (sig) {
             case NOARGS:
-                method = MethodSignature.NOARGS.prepareBound(ap, method,
-                        self);
                 return new NoArgs(ap, method, self, module);
             case O1:
-                method = MethodSignature.O1.prepareBound(ap, method,
-                        self);
                 return new O1(ap, method, self, module);
             case O2:
-                method = MethodSignature.O2.prepareBound(ap, method,
-                        self);
                 return new O2(ap, method, self, module);
             case O3:
-                method = MethodSignature.O3.prepareBound(ap, method,
-                        self);
                 return new O3(ap, method, self, module);
             case POSITIONAL:
-                method = MethodSignature.POSITIONAL.prepareBound(ap,
-                        method, self);
                 return new Positional(ap, method, self, module);
             default:
-                method = MethodSignature.GENERAL.prepareBound(ap,
-                        method, self);
                 return new General(ap, method, self, module);
         }
     }
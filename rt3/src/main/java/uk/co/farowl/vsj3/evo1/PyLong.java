@@ -22,19 +22,27 @@ import uk.co.farowl.vsj3.evo1.stringlib.InternalFormat.AbstractFormatter;
 import uk.co.farowl.vsj3.evo1.stringlib.InternalFormat.FormatError;
 import uk.co.farowl.vsj3.evo1.stringlib.InternalFormat.FormatOverflow;
 import uk.co.farowl.vsj3.evo1.stringlib.InternalFormat.Spec;
+import uk.co.farowl.vsj3.evo1.stringlib.RadixConversion;
 
 /**
  * A Python {@code int} object may be represented by a
- * {@code java.lang.Integer} or a {@code java.math.BigInteger}. An
- * instance of a Python sub-class of {@code int}, must be represented by
- * an instance of (a Java sub-class of) this class.
+ * {@code java.lang.Integer}, a {@code java.lang.Long} or a
+ * {@code java.math.BigInteger}. An instance of a Python sub-class of
+ * {@code int}, must be represented by an instance of (a Java sub-class
+ * of) this class.
+ * <p>
+ * Results computed by the run-time are reduced to the narrowest of
+ * {@code Integer}, {@code Long} and {@code BigInteger} that holds the
+ * value, so that arithmetic on values that fit 64 bits may proceed in
+ * primitive {@code long} arithmetic, with overflow detection, rather
+ * than in {@code BigInteger}.
  */
 public class PyLong extends AbstractPyObject implements PyDict.Key {
 
     /** The type {@code int}. */
     public static final PyType TYPE = PyType.fromSpec( //
             new PyType.Spec("int", MethodHandles.lookup())
-                    .adopt(BigInteger.class, Integer.class)
+                    .adopt(BigInteger.class, Integer.class, Long.class)
                     .accept(Boolean.class) //
                     .methods(PyLongMethods.class)
                     .binops(PyLongBinops.class));
@@ -52,6 +60,15 @@ public class PyLong extends AbstractPyObject implements PyDict.Key {
     static final BigInteger MAX_LONG =
             BigInteger.valueOf(Long.MAX_VALUE);
 
+    /**
+     * Default limit on the number of decimal digits in a conversion
+     * between {@code int} and {@code str} (as in CPython).
+     */
+    public static final int DEFAULT_MAX_STR_DIGITS = 4300;
+
+    /** Smallest non-zero value accepted as the limit. */
+    public static final int MAX_STR_DIGITS_THRESHOLD = 640;
+
     /** The value of this Python {@code int} (sub-class instances). */
     // Has to be package visible for method implementations.
     final BigInteger value;
@@ -229,6 +246,8 @@ public class PyLong extends AbstractPyObject implements PyDict.Key {
             return ((BigInteger)v).signum();
         else if (v instanceof Integer)
             return Integer.signum((Integer)v);
+        else if (v instanceof Long)
+            return Long.signum((Long)v);
         else if (v instanceof PyLong)
             return ((PyLong)v).value.signum();
         else if (v instanceof Boolean)
@@ -244,8 +263,8 @@ public class PyLong extends AbstractPyObject implements PyDict.Key {
      * from specific Java types. The methods make use of special methods
      * on the argument and produce Python exceptions when that goes
      * wrong. Note that they never produce a PyLong, but always Java
-     * Integer or BigInteger. The often correspond to CPython public or
-     * internal API.
+     * Integer, Long or BigInteger. The often correspond to CPython
+     * public or internal API.
      */
     /**
      * Convert the given object to a Python {@code int} using the
@@ -355,26 +374,139 @@ public class PyLong extends AbstractPyObject implements PyDict.Key {
 
     /**
      * Convert a sequence of Unicode digits in the string u to a Python
-     * integer value.
+     * integer value. The syntax is that of an integer literal: leading
+     * and trailing white space, an optional sign, an optional base
+     * prefix ({@code 0x}, {@code 0o} or {@code 0b}) if consistent with
+     * {@code base}, and digits, with single underscores permitted
+     * between digits (and after a prefix). {@code base} may be zero,
+     * meaning the base is given by the prefix (and is otherwise 10).
+     * <p>
+     * Conversion in a base that is not a power of 2 is subject to the
+     * limit {@link Interpreter#getIntMaxStrDigits()} of the current
+     * interpreter.
      *
      * @param u string to convert
      * @param base in which to interpret it
      * @return converted value
-     * @throws ValueError if {@code u} is an invalid literal
+     * @throws ValueError if {@code u} is an invalid literal or too long
      * @throws TypeError if {@code u} is not a Python {@code str}
      */
     // Compare CPython longobject.c :: PyLong_FromUnicodeObject
     static BigInteger fromUnicode(Object u, int base)
             throws ValueError, TypeError {
+        String value = PyUnicode.asString(u);
         try {
-            // XXX maybe check 2<=base<=36 even if Number.asLong does?
-            String value = PyUnicode.asString(u);
-            return new BigInteger(value, base);
+            return fromString(value, base);
         } catch (NumberFormatException e) {
             throw new ValueError(
-                    "invalid literal for int() with base %d: %.200s",
-                    base, u);
+                    "invalid literal for int() with base %d: '%.200s'",
+                    base, value);
+        }
+    }
+
+    /**
+     * Convert a literal integer, as described for
+     * {@link #fromUnicode(Object, int)}, to a {@code BigInteger}.
+     *
+     * @param s text to convert
+     * @param base in which to interpret it (or zero)
+     * @return converted value
+     * @throws NumberFormatException if {@code s} is an invalid literal
+     * @throws ValueError if {@code s} has too many digits
+     */
+    // Compare CPython longobject.c :: PyLong_FromString
+    private static BigInteger fromString(String s, int base)
+            throws NumberFormatException, ValueError {
+
+        int p = 0, end = s.length();
+        while (p < end && isSpace(s.charAt(p))) { p++; }
+        while (end > p && isSpace(s.charAt(end - 1))) { end--; }
+
+        boolean negative = false;
+        if (p < end && (s.charAt(p) == '-' || s.charAt(p) == '+')) {
+            negative = s.charAt(p++) == '-';
+        }
+
+        // A prefix determines or must agree with the base
+        boolean prefixed = false;
+        if (p + 1 < end && s.charAt(p) == '0') {
+            int b;
+            switch (s.charAt(p + 1)) {
+                case 'x':
+                case 'X':
+                    b = 16;
+                    break;
+                case 'o':
+                case 'O':
+                    b = 8;
+                    break;
+                case 'b':
+                case 'B':
+                    b = 2;
+                    break;
+                default:
+                    b = 0;
+            }
+            if (b != 0 && (base == 0 || base == b)) {
+                base = b;
+                p += 2;
+                prefixed = true;
+            }
+        }
+        boolean legacyOctal = false;
+        if (base == 0) {
+            base = 10;
+            // Leading zero only allowed for zero itself
+            legacyOctal = p < end && s.charAt(p) == '0';
+        }
+
+        // Copy the digits as ASCII, checking underscores
+        StringBuilder digits = new StringBuilder(end - p);
+        boolean allZero = true;
+        char prev = prefixed ? '_' : 0;
+        for (; p < end; p++) {
+            char c = s.charAt(p);
+            if (c == '_') {
+                if (prev == '_' && !(prefixed && digits.length() == 0)
+                        || prev == 0 || p + 1 >= end) {
+                    throw new NumberFormatException(s);
+                }
+                prefixed = false;
+            } else {
+                // Non-ASCII decimal digits are allowed (not letters)
+                int d = c < 128 ? Character.digit(c, base)
+                        : Character.isDigit(c) ? Character.digit(c, 10)
+                                : -1;
+                if (d < 0 || d >= base) {
+                    throw new NumberFormatException(s);
+                }
+                digits.append(Character.forDigit(d, base));
+                allZero &= d == 0;
+            }
+            prev = c;
+        }
+
+        int n = digits.length();
+        if (n == 0 || legacyOctal && !allZero) {
+            throw new NumberFormatException(s);
         }
+
+        // Only bases that are not powers of 2 are limited
+        if (n > MAX_STR_DIGITS_THRESHOLD && (base & (base - 1)) != 0) {
+            int limit = strDigitsLimit().digits;
+            if (limit > 0 && n > limit) {
+                throw new ValueError(STR_DIGITS_TO_INT, limit, n);
+            }
+        }
+
+        BigInteger v = RadixConversion.parse(digits, base);
+        return negative ? v.negate() : v;
+    }
+
+    /** Whether a character is white space to Python. */
+    private static boolean isSpace(char c) {
+        return Character.isWhitespace(c) || Character.isSpaceChar(c)
+                || c == 0x0085;
     }
 
     /**
@@ -412,12 +544,124 @@ public class PyLong extends AbstractPyObject implements PyDict.Key {
         return PyFloat.bigIntegerFromDouble(value);
     }
 
+    // Limit on digits in conversion to and from str ------------------
+
+    /**
+     * A limit on the number of digits in a conversion between
+     * {@code int} and {@code str} in a base that is not a power of 2.
+     * This protects the run-time against inputs that would take a very
+     * long time to convert. Each {@link Interpreter} holds one, and
+     * replaces it when the limit changes.
+     */
+    // Compare CPython _is.int_max_str_digits in pycore_interp.h
+    static final class StrDigitsLimit {
+
+        /** The limit of a new interpreter. */
+        static final StrDigitsLimit DEFAULT =
+                new StrDigitsLimit(DEFAULT_MAX_STR_DIGITS);
+
+        /** The number of digits allowed, or zero for no limit. */
+        final int digits;
+
+        /** {@code 10**digits}, computed when first needed. */
+        private BigInteger bound;
+
+        /**
+         * Create a limit of the given number of digits.
+         *
+         * @param digits the limit, or zero for no limit
+         * @throws ValueError if the limit is non-zero and less than
+         *     {@link #MAX_STR_DIGITS_THRESHOLD}
+         */
+        // Compare CPython sys.set_int_max_str_digits
+        StrDigitsLimit(int digits) throws ValueError {
+            if (digits != 0 && digits < MAX_STR_DIGITS_THRESHOLD) {
+                throw new ValueError(
+                        "maxdigits must be 0 or larger than %d",
+                        MAX_STR_DIGITS_THRESHOLD);
+            }
+            this.digits = digits;
+        }
+
+        /**
+         * The least magnitude that has more than {@link #digits}
+         * decimal digits. Threads may race to compute it, but they
+         * produce equal values.
+         *
+         * @return {@code 10**digits}
+         */
+        private BigInteger bound() {
+            BigInteger b = bound;
+            if (b == null) { bound = b = BigInteger.TEN.pow(digits); }
+            return b;
+        }
+    }
+
+    /**
+     * Return the limit on the number of digits in a conversion between
+     * {@code int} and {@code str} that applies to the current thread:
+     * that of the interpreter of the current frame or, when no frame is
+     * executing (a call from Java), the default limit.
+     *
+     * @return the limit
+     */
+    private static StrDigitsLimit strDigitsLimit() {
+        ThreadState ts = ThreadState.getIfBound();
+        if (ts == null || ts.frame == null) {
+            return StrDigitsLimit.DEFAULT;
+        } else {
+            return ts.frame.getInterpreter().strDigitsLimit;
+        }
+    }
+
+    /**
+     * Check that the decimal representation of a value would not exceed
+     * the limit {@link Interpreter#getIntMaxStrDigits()} of the current
+     * interpreter. This is cheap except when the value is close to the
+     * limit, and only values too large to be within
+     * {@link #MAX_STR_DIGITS_THRESHOLD} digits look up the limit.
+     *
+     * @param v to check
+     * @throws ValueError if the limit would be exceeded
+     */
+    static void checkMaxStrDigits(BigInteger v) throws ValueError {
+        // Bounds on the number of digits from the number of bits
+        int bits = v.bitLength();
+        long upper = (long)(bits * LOG10_2) + 1;
+        if (upper > MAX_STR_DIGITS_THRESHOLD) {
+            StrDigitsLimit limit = strDigitsLimit();
+            int digits = limit.digits;
+            long lower = (long)((bits - 1) * LOG10_2) + 1;
+            if (digits > 0 && (lower > digits || upper > digits
+                    && v.abs().compareTo(limit.bound()) >= 0)) {
+                throw new ValueError(STR_DIGITS_FROM_INT, digits);
+            }
+        }
+    }
+
+    private static final double LOG10_2 = Math.log10(2);
+
+    private static final String STR_DIGITS_TO_INT =
+            "Exceeds the limit (%d digits) for integer string "
+                    + "conversion: value has %d digits; use "
+                    + "sys.set_int_max_str_digits() to increase the limit";
+    private static final String STR_DIGITS_FROM_INT =
+            "Exceeds the limit (%d digits) for integer string "
+                    + "conversion; use sys.set_int_max_str_digits() "
+                    + "to increase the limit";
+
     // special methods ------------------------------------------------
 
     @SuppressWarnings("unused")
     private static Object __repr__(Object self) {
         assert TYPE.check(self);
-        return asBigInteger(self).toString();
+        if (self instanceof Integer || self instanceof Long) {
+            return self.toString();
+        } else {
+            BigInteger v = asBigInteger(self);
+            checkMaxStrDigits(v);
+            return v.toString();
+        }
     }
 
     // __str__: let object.__str__ handle it (calls __repr__)
@@ -557,7 +801,12 @@ public class PyLong extends AbstractPyObject implements PyDict.Key {
         @Override
         public IntegerFormatter format(Object o)
                 throws NoConversion, FormatError {
-            return format(convertToBigInteger(o));
+            BigInteger v = convertToBigInteger(o);
+            if ("dn".indexOf(spec.type) >= 0 || spec.type == Spec.NONE) {
+                // Decimal: check for excessive length
+                checkMaxStrDigits(v);
+            }
+            return format(v);
         }
     }
 
@@ -597,6 +846,9 @@ public class PyLong extends AbstractPyObject implements PyDict.Key {
         if (v instanceof Integer)
             // No loss of precision
             return ((Integer)v).doubleValue();
+        else if (v instanceof Long)
+            // Round half-to-even (JLS 5.1.2 round to nearest)
+            return ((Long)v).doubleValue();
         else if (v instanceof BigInteger)
             // Round half-to-even
             return convertToDouble((BigInteger)v);
@@ -651,6 +903,8 @@ public class PyLong extends AbstractPyObject implements PyDict.Key {
         // Check against supported types, most likely first
         if (v instanceof Integer)
             return ((Integer)v).intValue();
+        else if (v instanceof Long)
+            return convertToInt(((Long)v).longValue());
         else if (v instanceof BigInteger)
             return convertToInt((BigInteger)v);
         else if (v instanceof PyLong)
@@ -676,6 +930,23 @@ public class PyLong extends AbstractPyObject implements PyDict.Key {
             throw tooLarge("Python int", "int");
     }
 
+    /**
+     * Convert a {@code long} to a Java {@code int}. Conversion to an
+     * {@code int} may overflow, raising an exception that is propagated
+     * to the caller.
+     *
+     * @param v to convert
+     * @return converted to {@code int}
+     * @throws OverflowError if too large to be a Java {@code int}
+     */
+    static int convertToInt(long v) throws OverflowError {
+        int i = (int)v;
+        if (i == v)
+            return i;
+        else
+            throw tooLarge("Python int", "int");
+    }
+
     /**
      * Convert a Python {@code int} to a Java {@code BigInteger} (or
      * throw {@link NoConversion}). Conversion may raise an exception
@@ -697,6 +968,8 @@ public class PyLong extends AbstractPyObject implements PyDict.Key {
             return (BigInteger)v;
         else if (v instanceof Integer)
             return BigInteger.valueOf(((Integer)v).longValue());
+        else if (v instanceof Long)
+            return BigInteger.valueOf(((Long)v).longValue());
         else if (v instanceof PyLong)
             return ((PyLong)v).value;
         else if (v instanceof Boolean)
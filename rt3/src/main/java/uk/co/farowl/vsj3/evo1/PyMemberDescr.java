@@ -1,9 +1,11 @@
 package uk.co.farowl.vsj3.evo1;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
-import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
 import java.lang.invoke.VarHandle;
-import java.lang.reflect.Field;
+import java.lang.invoke.VarHandle.AccessMode;
+import java.math.BigInteger;
 import java.util.EnumSet;
 
 import uk.co.farowl.vsj3.evo1.base.InterpreterError;
@@ -62,16 +64,6 @@ abstract class PyMemberDescr extends DataDescriptor {
         this.doc = doc != null && doc.length() > 0 ? doc : null;
     }
 
-    private static VarHandle varHandle(Field f, Lookup lookup) {
-        try {
-            return lookup.unreflectVarHandle(f);
-        } catch (IllegalAccessException e) {
-            throw new InterpreterError(e, "cannot get handle for '%s'",
-                    f);
-        }
-
-    }
-
     /**
      * {@inheritDoc}
      *
@@ -163,6 +155,28 @@ abstract class PyMemberDescr extends DataDescriptor {
     // Compare CPython PyMember_GetOne in structmember.c
     protected abstract Object get(Object obj) throws AttributeError;
 
+    /**
+     * Compute {@code v op o.name}, where {@code op} is addition,
+     * subtraction or multiplication (identified as in the argument of
+     * {@link Opcode311#BINARY_OP}), reading a numeric field without
+     * boxing it. This supports a path in the interpreter by which an
+     * attribute read that feeds arithmetic directly does not create a
+     * Python object for the attribute.
+     * <p>
+     * The caller must have found this descriptor on the type of
+     * {@code obj} through {@code object.__getattribute__}. The method
+     * returns {@code null} if it does not support this kind of member,
+     * operation or left operand, or the result does not fit the
+     * arithmetic, and then the caller must read the attribute and
+     * apply the operation in the general way.
+     *
+     * @param v left operand
+     * @param op the operation
+     * @param obj object to access via {@link #handle} (never null)
+     * @return {@code v op o.name} or {@code null}
+     */
+    Object binaryOp(Object v, int op, Object obj) { return null; }
+
     /**
      * A method to set {@code o.name = v}, with conversion to the
      * internal field value if necessary. This method is called from
@@ -303,30 +317,34 @@ abstract class PyMemberDescr extends DataDescriptor {
      *
      * @param objclass Python type that owns the descriptor
      * @param name by which member known externally
-     * @param field field to expose through this descriptor
-     * @param lookup authorisation to access fields
+     * @param vh handle on the field to expose through this descriptor
      * @param flags supplying additional characteristics
      * @param doc documentation string (may be {@code null})
      * @return descriptor for access to the field
      * @throws InterpreterError if the field type is not supported
      */
     static PyMemberDescr forField(PyType objclass, String name,
-            Field field, Lookup lookup, EnumSet<Flag> flags, String doc)
+            VarHandle vh, EnumSet<Flag> flags, String doc)
             throws InterpreterError {
-        Class<?> fieldType = field.getType();
-        VarHandle vh = varHandle(field, lookup);
+        Class<?> fieldType = vh.varType();
         // Note remove to minimise work in checkSet/checkDelete
         boolean opt = flags.remove(Flag.OPTIONAL);
         if (fieldType == int.class)
             return new _int(objclass, name, vh, flags, doc);
         else if (fieldType == double.class)
             return new _double(objclass, name, vh, flags, doc);
+        else if (fieldType == long.class)
+            return new _long(objclass, name, vh, flags, doc);
+        else if (fieldType == float.class)
+            return new _float(objclass, name, vh, flags, doc);
+        else if (fieldType == boolean.class)
+            return new _boolean(objclass, name, vh, flags, doc);
         else if (fieldType == String.class)
             return new _String(objclass, name, vh, flags, doc, opt);
         else if (fieldType.isPrimitive() || fieldType.isArray())
             // Identifiable exclusions as or-ed above. Enough?
             throw new InterpreterError(UNSUPPORTED_TYPE, name,
-                    field.getDeclaringClass().getName(),
+                    vh.coordinateTypes().get(0).getName(),
                     fieldType.getSimpleName());
         else
             // Should be able to handle any object type not excluded.
@@ -336,44 +354,336 @@ abstract class PyMemberDescr extends DataDescriptor {
     private static final String UNSUPPORTED_TYPE =
             "@Member target %.50s in %.100s has unsupported type %.50s";
 
+    /**
+     * Compile an access mode of the field handle to a method handle
+     * taking the object as an {@code Object}, so that each access may
+     * invoke it exactly, rather than adapt the handle to the call.
+     *
+     * @param vh handle on the field
+     * @param mode of access
+     * @param type of the result (in which the object is
+     *     {@code Object})
+     * @return handle on the access
+     */
+    private static MethodHandle compile(VarHandle vh, AccessMode mode,
+            MethodType type) {
+        return vh.toMethodHandle(mode).asType(type);
+    }
+
+    private static final MethodType GET_INT =
+            MethodType.methodType(int.class, Object.class);
+    private static final MethodType SET_INT =
+            MethodType.methodType(void.class, Object.class, int.class);
+    private static final MethodType GET_LONG =
+            MethodType.methodType(long.class, Object.class);
+    private static final MethodType SET_LONG =
+            MethodType.methodType(void.class, Object.class, long.class);
+    private static final MethodType GET_DOUBLE =
+            MethodType.methodType(double.class, Object.class);
+    private static final MethodType SET_DOUBLE =
+            MethodType.methodType(void.class, Object.class, double.class);
+    private static final MethodType SET_FLOAT =
+            MethodType.methodType(void.class, Object.class, float.class);
+    private static final MethodType GET_BOOLEAN =
+            MethodType.methodType(boolean.class, Object.class);
+    private static final MethodType SET_BOOLEAN = MethodType
+            .methodType(void.class, Object.class, boolean.class);
+    private static final MethodType GET_OBJECT =
+            MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SET_OBJECT =
+            MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**
+     * Apply an arithmetic operation to {@code long} operands that
+     * cannot overflow (they fit in an {@code int}).
+     *
+     * @param v left operand
+     * @param op as in {@link #binaryOp(Object, int, Object)}
+     * @param w right operand
+     * @return {@code v op w} or {@code null} if op is not supported
+     */
+    private static Object arithmetic(long v, int op, long w) {
+        return switch (op) {
+            case Opcode311.NB_ADD -> PyLongMethods.toInt(v + w);
+            case Opcode311.NB_SUBTRACT -> PyLongMethods.toInt(v - w);
+            case Opcode311.NB_MULTIPLY -> PyLongMethods.toInt(v * w);
+            default -> null;
+        };
+    }
+
+    /**
+     * Apply an arithmetic operation to {@code long} operands, which
+     * may overflow.
+     *
+     * @param v left operand
+     * @param op as in {@link #binaryOp(Object, int, Object)}
+     * @param w right operand
+     * @return {@code v op w} or {@code null} if op is not supported or
+     *     the result overflows
+     */
+    private static Object exactArithmetic(long v, int op, long w) {
+        try {
+            return switch (op) {
+                case Opcode311.NB_ADD -> //
+                        PyLongMethods.toInt(Math.addExact(v, w));
+                case Opcode311.NB_SUBTRACT -> //
+                        PyLongMethods.toInt(Math.subtractExact(v, w));
+                case Opcode311.NB_MULTIPLY -> //
+                        PyLongMethods.toInt(Math.multiplyExact(v, w));
+                default -> null;
+            };
+        } catch (ArithmeticException e) {
+            // Let the general path produce a BigInteger
+            return null;
+        }
+    }
+
+    /**
+     * Apply an arithmetic operation to {@code double} operands.
+     *
+     * @param v left operand
+     * @param op as in {@link #binaryOp(Object, int, Object)}
+     * @param w right operand
+     * @return {@code v op w} or {@code null} if op is not supported
+     */
+    private static Object arithmetic(double v, int op, double w) {
+        return switch (op) {
+            case Opcode311.NB_ADD -> v + w;
+            case Opcode311.NB_SUBTRACT -> v - w;
+            case Opcode311.NB_MULTIPLY -> v * w;
+            default -> null;
+        };
+    }
+
     private static class _int extends PyMemberDescr {
 
+        /** Compiled get access {@code (O)I}. */
+        private final MethodHandle getter;
+        /** Compiled set access {@code (O,I)V}. */
+        private final MethodHandle setter;
+
         _int(PyType objclass, String name, VarHandle handle,
                 EnumSet<Flag> flags, String doc) {
             super(objclass, name, handle, flags, doc);
-
+            this.getter = compile(handle, AccessMode.GET, GET_INT);
+            this.setter = compile(handle, AccessMode.SET, SET_INT);
         }
 
         @Override
         protected Object get(Object obj) {
-            return (int) handle.get(obj);
+            try {
+                return (int)getter.invokeExact(obj);
+            } catch (Throwable t) {
+                throw Abstract.asUnchecked(t);
+            }
+        }
+
+        @Override
+        Object binaryOp(Object v, int op, Object obj) {
+            try {
+                int w = (int)getter.invokeExact(obj);
+                if (v instanceof Integer i) {
+                    // Cannot overflow a long
+                    return arithmetic(i.longValue(), op, w);
+                } else if (v instanceof Double d) {
+                    return arithmetic(d.doubleValue(), op, w);
+                }
+                return null;
+            } catch (Throwable t) {
+                throw Abstract.asUnchecked(t);
+            }
         }
 
         @Override
         protected void set(Object obj, Object value)
                 throws TypeError, Throwable {
             int v = PyNumber.asSize(value, null);
-            handle.set(obj, v);
+            setter.invokeExact(obj, v);
+        }
+    }
+
+    private static class _long extends PyMemberDescr {
+
+        /** Compiled get access {@code (O)J}. */
+        private final MethodHandle getter;
+        /** Compiled set access {@code (O,J)V}. */
+        private final MethodHandle setter;
+
+        _long(PyType objclass, String name, VarHandle handle,
+                EnumSet<Flag> flags, String doc) {
+            super(objclass, name, handle, flags, doc);
+            this.getter = compile(handle, AccessMode.GET, GET_LONG);
+            this.setter = compile(handle, AccessMode.SET, SET_LONG);
+        }
+
+        @Override
+        protected Object get(Object obj) {
+            try {
+                long v = (long)getter.invokeExact(obj);
+                // Integer if it fits, as Python int values generally
+                return PyLongMethods.toInt(v);
+            } catch (Throwable t) {
+                throw Abstract.asUnchecked(t);
+            }
+        }
+
+        @Override
+        Object binaryOp(Object v, int op, Object obj) {
+            try {
+                long w = (long)getter.invokeExact(obj);
+                if (v instanceof Integer i) {
+                    return exactArithmetic(i.longValue(), op, w);
+                } else if (v instanceof Long x) {
+                    return exactArithmetic(x.longValue(), op, w);
+                } else if (v instanceof Double d) {
+                    return arithmetic(d.doubleValue(), op, w);
+                }
+                return null;
+            } catch (Throwable t) {
+                throw Abstract.asUnchecked(t);
+            }
+        }
+
+        @Override
+        protected void set(Object obj, Object value)
+                throws TypeError, Throwable {
+            BigInteger b = PyLong.asBigInteger(PyNumber.index(value));
+            if (b.bitLength() >= Long.SIZE) {
+                throw new OverflowError(
+                        "Python int too large to convert to Java long");
+            }
+            setter.invokeExact(obj, b.longValue());
         }
     }
 
     private static class _double extends PyMemberDescr {
 
+        /** Compiled get access {@code (O)D}. */
+        private final MethodHandle getter;
+        /** Compiled set access {@code (O,D)V}. */
+        private final MethodHandle setter;
+
         _double(PyType objclass, String name, VarHandle handle,
                 EnumSet<Flag> flags, String doc) {
             super(objclass, name, handle, flags, doc);
+            this.getter = compile(handle, AccessMode.GET, GET_DOUBLE);
+            this.setter = compile(handle, AccessMode.SET, SET_DOUBLE);
         }
 
         @Override
         protected Object get(Object obj) {
-            return (double) handle.get(obj);
+            try {
+                return (double)getter.invokeExact(obj);
+            } catch (Throwable t) {
+                throw Abstract.asUnchecked(t);
+            }
+        }
+
+        @Override
+        Object binaryOp(Object v, int op, Object obj) {
+            try {
+                double w = (double)getter.invokeExact(obj);
+                if (v instanceof Double d) {
+                    return arithmetic(d.doubleValue(), op, w);
+                } else if (v instanceof Integer i) {
+                    return arithmetic(i.doubleValue(), op, w);
+                }
+                return null;
+            } catch (Throwable t) {
+                throw Abstract.asUnchecked(t);
+            }
         }
 
         @Override
         protected void set(Object obj, Object value)
                 throws TypeError, Throwable {
             double v = PyFloat.asDouble(value);
-            handle.set(obj, v);
+            setter.invokeExact(obj, v);
+        }
+    }
+
+    /**
+     * A Java {@code float} field, which appears to Python as a
+     * {@code float}, and is read as a {@code double}.
+     */
+    private static class _float extends PyMemberDescr {
+
+        /** Compiled get access {@code (O)D} (widening the field). */
+        private final MethodHandle getter;
+        /** Compiled set access {@code (O,F)V}. */
+        private final MethodHandle setter;
+
+        _float(PyType objclass, String name, VarHandle handle,
+                EnumSet<Flag> flags, String doc) {
+            super(objclass, name, handle, flags, doc);
+            this.getter = compile(handle, AccessMode.GET, GET_DOUBLE);
+            this.setter = compile(handle, AccessMode.SET, SET_FLOAT);
+        }
+
+        @Override
+        protected Object get(Object obj) {
+            try {
+                return (double)getter.invokeExact(obj);
+            } catch (Throwable t) {
+                throw Abstract.asUnchecked(t);
+            }
+        }
+
+        @Override
+        Object binaryOp(Object v, int op, Object obj) {
+            try {
+                double w = (double)getter.invokeExact(obj);
+                if (v instanceof Double d) {
+                    return arithmetic(d.doubleValue(), op, w);
+                } else if (v instanceof Integer i) {
+                    return arithmetic(i.doubleValue(), op, w);
+                }
+                return null;
+            } catch (Throwable t) {
+                throw Abstract.asUnchecked(t);
+            }
+        }
+
+        @Override
+        protected void set(Object obj, Object value)
+                throws TypeError, Throwable {
+            float v = (float)PyFloat.asDouble(value);
+            setter.invokeExact(obj, v);
+        }
+    }
+
+    private static class _boolean extends PyMemberDescr {
+
+        /** Compiled get access {@code (O)Z}. */
+        private final MethodHandle getter;
+        /** Compiled set access {@code (O,Z)V}. */
+        private final MethodHandle setter;
+
+        _boolean(PyType objclass, String name, VarHandle handle,
+                EnumSet<Flag> flags, String doc) {
+            super(objclass, name, handle, flags, doc);
+            this.getter = compile(handle, AccessMode.GET, GET_BOOLEAN);
+            this.setter = compile(handle, AccessMode.SET, SET_BOOLEAN);
+        }
+
+        @Override
+        protected Object get(Object obj) {
+            try {
+                return (boolean)getter.invokeExact(obj);
+            } catch (Throwable t) {
+                throw Abstract.asUnchecked(t);
+            }
+        }
+
+        @Override
+        protected void set(Object obj, Object value)
+                throws TypeError, Throwable {
+            // As CPython T_BOOL, only a bool is acceptable
+            if (value instanceof Boolean) {
+                setter.invokeExact(obj, ((Boolean)value).booleanValue());
+            } else {
+                throw attrMustBe("a bool", value);
+            }
         }
     }
 
@@ -390,10 +700,48 @@ abstract class PyMemberDescr extends DataDescriptor {
          */
         protected final boolean optional;
 
+        /** Compiled get access {@code (O)O}. */
+        private final MethodHandle getter;
+        /** Compiled set access {@code (O,O)V}. */
+        private final MethodHandle setter;
+
         Reference(PyType objclass, String name, VarHandle handle,
                 EnumSet<Flag> flags, String doc, boolean optional) {
             super(objclass, name, handle, flags, doc);
             this.optional = optional;
+            this.getter = compile(handle, AccessMode.GET, GET_OBJECT);
+            this.setter = compile(handle, AccessMode.SET, SET_OBJECT);
+        }
+
+        /**
+         * Read the field.
+         *
+         * @param obj object to access via {@link #handle} (never null)
+         * @return field value (may be {@code null})
+         */
+        protected Object read(Object obj) {
+            try {
+                return getter.invokeExact(obj);
+            } catch (Throwable t) {
+                throw Abstract.asUnchecked(t);
+            }
+        }
+
+        /**
+         * Write the field.
+         *
+         * @param obj object to access via {@link #handle} (never null)
+         * @param v value to write (may be {@code null})
+         * @throws ClassCastException if {@code v} is not of the type of
+         *     the field
+         */
+        protected void write(Object obj, Object v)
+                throws ClassCastException {
+            try {
+                setter.invokeExact(obj, v);
+            } catch (Throwable t) {
+                throw Abstract.asUnchecked(t);
+            }
         }
 
         /**
@@ -404,9 +752,21 @@ abstract class PyMemberDescr extends DataDescriptor {
          */
         @Override
         protected void delete(Object obj) {
-            if (optional && handle.get(obj) == null)
+            if (optional && read(obj) == null)
                 throw Abstract.noAttributeOnType(objclass, name);
-            handle.set(obj, null);
+            write(obj, null);
+        }
+
+        @Override
+        protected Object get(Object obj) {
+            Object value = read(obj);
+            if (value == null) {
+                if (optional)
+                    throw Abstract.noAttributeOnType(objclass, name);
+                else
+                    return Py.None;
+            }
+            return value;
         }
     }
 
@@ -421,18 +781,6 @@ abstract class PyMemberDescr extends DataDescriptor {
             super(objclass, name, handle, flags, doc, optional);
         }
 
-        @Override
-        protected Object get(Object obj) {
-            String value = (String) handle.get(obj);
-            if (value == null) {
-                if (optional)
-                    throw Abstract.noAttributeOnType(objclass, name);
-                else
-                    return Py.None;
-            }
-            return value;
-        }
-
         @Override
         protected void set(Object obj, Object value)
                 throws TypeError, Throwable {
@@ -442,8 +790,7 @@ abstract class PyMemberDescr extends DataDescriptor {
             } else {
                 String v = PyUnicode.asString(value,
                         (o) -> attrMustBe("a string", o));
-                // String v = value.toString();
-                handle.set(obj, v);
+                write(obj, v);
             }
         }
     }
@@ -459,18 +806,6 @@ abstract class PyMemberDescr extends DataDescriptor {
             super(objclass, name, handle, flags, doc, optional);
         }
 
-        @Override
-        protected Object get(Object obj) {
-            Object value = handle.get(obj);
-            if (value == null) {
-                if (optional)
-                    throw Abstract.noAttributeOnType(objclass, name);
-                else
-                    return Py.None;
-            }
-            return value;
-        }
-
         @Override
         protected void set(Object obj, Object value)
                 throws TypeError, Throwable {
@@ -478,7 +813,7 @@ abstract class PyMemberDescr extends DataDescriptor {
             if (value == Py.None && !optional) { delete(obj); return; }
 
             try {
-                handle.set(obj, value);
+                write(obj, value);
             } catch (ClassCastException cce) {
                 // Raise TypeError mentioning Python type of field.
                 throw attrMustBe(handle.varType(), value);
@@ -126,6 +126,19 @@ public class PyObjectUtil {
     public static final StopIteration STOP_ITERATION =
             new StopIteration();
 
+    /**
+     * A unique object returned in place of a result by the internal
+     * variants of look-up operations (for example
+     * {@link PyBaseObject#getAttribute(Object, String)} or
+     * {@link AbstractPyIterator#next()}), to signal that the thing
+     * sought does not exist, where the Python operation would raise an
+     * exception. It must never reach Python code.
+     */
+    static final Object NOT_FOUND = new Object() {
+        @Override
+        public String toString() { return "<not found>"; }
+    };
+
     // Helpers for methods and attributes -----------------------------
 
     /**
@@ -10,10 +10,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import uk.co.farowl.vsj3.evo1.Exposed.Getter;
 import uk.co.farowl.vsj3.evo1.Exposed.PythonNewMethod;
@@ -207,6 +209,26 @@ public class PyType extends Operations
      */
     private PyType[] mro;
 
+    /**
+     * The ancestors of this type along the chain of {@link #base},
+     * indexed by depth, so that {@code display[0]} is {@code object}
+     * and {@code display[depth]} is this type. A type {@code b} is on
+     * this chain if and only if {@code display[b.depth] == b}, which
+     * makes {@link #isSubTypeOf(PyType)} constant time. It is
+     * {@code null} until the MRO has been set.
+     */
+    private PyType[] display;
+
+    /** The index of this type in its own {@link #display}. */
+    private int depth = -1;
+
+    /**
+     * The types on the MRO that are not in the {@link #display} (only
+     * possible with multiple inheritance), or {@code null} if there are
+     * none.
+     */
+    private Set<PyType> secondary;
+
     /**
      * The dictionary of the type is always an ordered {@code Map}. It
      * is only accessible (outside the core) through a
@@ -214,9 +236,20 @@ public class PyType extends Operations
      * {@code dict}-like object. Internally names are stored as
      * {@code String} for speed and accessed via
      * {@link #lookup(String)}.
+     * <p>
+     * The dictionary of a built-in type may hold
+     * {@link TypeExposer.Deferred} placeholders, in place of
+     * attributes not yet needed, which we replace on first access (see
+     * {@link #dictGet(String)}).
      */
     private final Map<String, Object> dict = new LinkedHashMap<>();
 
+    /**
+     * Whether {@link #dict} may contain
+     * {@link TypeExposer.Deferred} placeholders.
+     */
+    private volatile boolean deferred;
+
     /**
      * The cached value of {@code __new__} found along the MRO of this
      * type, or {@code null}. This is for the convenience of
@@ -268,6 +301,7 @@ public class PyType extends Operations
         this.base = objectType;
         this.bases = new PyType[] {objectType};
         this.mro = new PyType[] {this, objectType};
+        this.setAncestors();
 
         // Defer filling the dictionary for both types we made
         BootstrapTask.shelve(objectSpec, objectType);
@@ -578,6 +612,36 @@ public class PyType extends Operations
         TypeExposer exposer = Exposer.exposeType(this,
                 spec.definingClass, spec.methodClass);
         exposer.populate(dict, spec.lookup);
+        deferred = true;
+    }
+
+    /**
+     * Get an entry from the dictionary of this type, creating the
+     * attribute if it has been deferred. (The exposer defers creating
+     * most of the attributes of built-in types until they are needed.)
+     *
+     * @param name of the entry
+     * @return the entry or {@code null} if there is none
+     */
+    private Object dictGet(String name) {
+        Object v = dict.get(name);
+        if (v instanceof TypeExposer.Deferred) {
+            TypeExposer.Deferred d = (TypeExposer.Deferred)v;
+            v = d.get();
+            // Unless someone has beaten us to it, replace the entry
+            dict.replace(name, d, v);
+        }
+        return v;
+    }
+
+    /**
+     * Create every attribute in the dictionary of this type that has
+     * been deferred, so that the dictionary may be exposed.
+     */
+    private void createDeferred() {
+        dict.replaceAll((k, v) -> v instanceof TypeExposer.Deferred
+                ? ((TypeExposer.Deferred)v).get() : v);
+        deferred = false;
     }
 
     /**
@@ -657,6 +721,39 @@ public class PyType extends Operations
                     "multiple inheritance not supported yet (type `%s`)";
             throw new InterpreterError(fmt, name);
         }
+
+        setAncestors();
+    }
+
+    /**
+     * Set {@link #display}, {@link #depth} and {@link #secondary} from
+     * the {@link #base} and {@link #mro} of this type. If we come to
+     * support assignment to {@code __bases__}, this must be repeated
+     * for the type and every sub-class, as the MRO will be.
+     */
+    private void setAncestors() {
+        PyType[] baseDisplay = base == null ? new PyType[0] : base.display;
+        // If base is incomplete, isSubTypeOf must follow the chain
+        if (baseDisplay == null) { return; }
+        int n = baseDisplay.length;
+        PyType[] d = Arrays.copyOf(baseDisplay, n + 1);
+        d[n] = this;
+
+        // Anything else on the MRO has to be found the slow way
+        Set<PyType> s = null;
+        for (PyType t : mro) {
+            if (t != this && !(t.depth >= 0 && t.depth < n
+                    && d[t.depth] == t)) {
+                if (s == null) {
+                    s = Collections.newSetFromMap(new IdentityHashMap<>());
+                }
+                s.add(t);
+            }
+        }
+
+        this.secondary = s;
+        this.depth = n;
+        this.display = d;
     }
 
     /**
@@ -693,7 +790,7 @@ public class PyType extends Operations
         Slot s;
         if ((s = Slot.forMethodName(name)) != null) {
             // Update affects a slot wrapper.
-            Object def = dict.get(name);
+            Object def = dictGet(name);
             for (Class<?> impl : classes) {
                 Operations ops = Operations.fromClass(impl);
                 s.setDefinition(ops, def);
@@ -804,16 +901,17 @@ public class PyType extends Operations
      */
     // Compare CPython PyType_IsSubtype in typeobject.c
     boolean isSubTypeOf(PyType b) {
-        if (mro != null) {
+        PyType[] display = this.display;
+        if (display != null) {
             /*
-             * Deal with multiple inheritance without recursion by
-             * walking the MRO tuple
+             * Test the chain of bases in constant time, then deal with
+             * multiple inheritance by consulting the rest of the MRO.
              */
-            for (PyType base : mro) {
-                if (base == b)
-                    return true;
+            int d = b.depth;
+            if (d >= 0 && d < display.length && display[d] == b) {
+                return true;
             }
-            return false;
+            return secondary != null && secondary.contains(b);
         } else
             // a is not completely initialized yet; follow base
             return type_is_subtype_base_chain(b);
@@ -975,6 +1073,7 @@ public class PyType extends Operations
     @Getter("__dict__")
     @Override
     public final Map<Object, Object> getDict() {
+        if (deferred) { createDeferred(); }
         return Collections.unmodifiableMap(dict);
     }
 
@@ -1009,7 +1108,7 @@ public class PyType extends Operations
 
         for (PyType base : mro) {
             Object res;
-            if ((res = base.dict.get(name)) != null)
+            if ((res = base.dictGet(name)) != null)
                 return res;
         }
         return null;
@@ -1702,6 +1801,27 @@ public class PyType extends Operations
     // Compare CPython type_getattro in typeobject.c
     protected Object __getattribute__(String name)
             throws AttributeError, Throwable {
+        Object attr = getAttribute(name);
+        if (attr == PyObjectUtil.NOT_FOUND) {
+            throw Abstract.noAttributeError(this, name);
+        }
+        return attr;
+    }
+
+    /**
+     * Attribute access on this type object, as in
+     * {@link #__getattribute__(String)}, but returning
+     * {@link PyObjectUtil#NOT_FOUND} in place of throwing
+     * {@link AttributeError} when no attribute is found. (A descriptor
+     * may still throw {@code AttributeError}.) This is for internal
+     * use where a miss is an expected outcome.
+     *
+     * @param name of the attribute
+     * @return attribute value or {@code NOT_FOUND}
+     * @throws AttributeError from a descriptor
+     * @throws Throwable on other errors, typically from the descriptor
+     */
+    Object getAttribute(String name) throws AttributeError, Throwable {
 
         PyType metatype = getType();
         MethodHandle descrGet = null;
@@ -1711,20 +1831,17 @@ public class PyType extends Operations
         if (metaAttr != null) {
             // Found in the metatype, it might be a descriptor
             Operations metaAttrOps = Operations.of(metaAttr);
-            descrGet = metaAttrOps.op_get;
-            if (metaAttrOps.isDataDescr()) {
-                // metaAttr is a data descriptor so call its __get__.
-                try {
-                    // Note the cast of 'this', to match op_get
-                    return descrGet.invokeExact(metaAttr, (Object)this,
-                            metatype);
-                } catch (Slot.EmptyException e) {
+            if (Slot.op_get.isDefinedFor(metaAttrOps)) {
+                descrGet = metaAttrOps.op_get;
+                if (metaAttrOps.isDataDescr()) {
                     /*
-                     * Only __set__ or __delete__ was defined. We do not
-                     * catch AttributeError: it's definitive. Suppress
-                     * trying __get__ again.
+                     * metaAttr is a data descriptor so call its
+                     * __get__. We do not catch AttributeError: it's
+                     * definitive. Note the cast of 'this', to match
+                     * op_get.
                      */
-                    descrGet = null;
+                    return descrGet.invokeExact(metaAttr, (Object)this,
+                            metatype);
                 }
             }
         }
@@ -1737,19 +1854,19 @@ public class PyType extends Operations
         Object attr = lookup(name);
         if (attr != null) {
             // Found in this type. Try it as a descriptor.
-            try {
+            Operations attrOps = Operations.of(attr);
+            if (Slot.op_get.isDefinedFor(attrOps)) {
                 /*
                  * Note the args are (null, this): we respect
                  * descriptors in this step, but have not forgotten we
-                 * are dereferencing a type.
+                 * are dereferencing a type. We do not catch
+                 * AttributeError: it's definitive.
                  */
-                return Operations.of(attr).op_get.invokeExact(attr,
-                        (Object)null, this);
-            } catch (Slot.EmptyException e) {
-                // We do not catch AttributeError: it's definitive.
-                // Not a descriptor: the attribute itself.
-                return attr;
+                return attrOps.op_get.invokeExact(attr, (Object)null,
+                        this);
             }
+            // Not a descriptor: the attribute itself.
+            return attr;
         }
 
         /*
@@ -1758,11 +1875,8 @@ public class PyType extends Operations
          * descriptor, or null if the attribute was not found.
          */
         if (descrGet != null) {
-            // metaAttr may be a non-data descriptor: call __get__.
-            try {
-                return descrGet.invokeExact(metaAttr, (Object)this,
-                        metatype);
-            } catch (Slot.EmptyException e) {}
+            // metaAttr is a non-data descriptor: call __get__.
+            return descrGet.invokeExact(metaAttr, (Object)this, metatype);
         }
 
         if (metaAttr != null) {
@@ -1774,7 +1888,7 @@ public class PyType extends Operations
         }
 
         // All the look-ups and descriptors came to nothing :(
-        throw Abstract.noAttributeError(this, name);
+        return PyObjectUtil.NOT_FOUND;
     }
 
     /**
@@ -2655,10 +2655,19 @@ public class PyUnicode implements CraftedPyObject, PyDict.Key {
 
         @Override
         Object __next__() throws Throwable {
+            Object item = next();
+            if (item == PyObjectUtil.NOT_FOUND) {
+                throw PyObjectUtil.STOP_ITERATION;
+            }
+            return item;
+        }
+
+        @Override
+        Object next() {
             if (iterator.hasNext()) {
                 return PyUnicode.fromCodePoint(iterator.next());
             }
-            throw PyObjectUtil.STOP_ITERATION;
+            return PyObjectUtil.NOT_FOUND;
         }
     }
 
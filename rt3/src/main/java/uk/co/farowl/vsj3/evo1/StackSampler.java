@@ -0,0 +1,200 @@
+// Copyright (c)2023 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A profiler that periodically samples the Python stack of every
+ * thread executing Python code, and counts how often each distinct
+ * stack is seen. Each stack is a sequence of Python functions (by
+ * qualified name) and the lines they were executing, outermost first.
+ * The counts may be written in the "collapsed stack" format read by
+ * flame graph tools (e.g. {@code flamegraph.pl}).
+ * <p>
+ * Whereas a Java profiler sees only the recursion of the interpreter
+ * loop, this sampler shows which Python functions are hot. The
+ * sampler does not stop the threads it samples, so a sample may
+ * occasionally be inconsistent, if a thread calls or returns as it is
+ * read. The line reported for the innermost frame of each stack is the
+ * line of the last call or backward jump there (see
+ * {@link PyFrame#currentLine()}). Threads are visible to the sampler
+ * only while it is started, so that threads cost nothing to register
+ * when no sampler is running.
+ * <pre>
+ * try (StackSampler sampler = new StackSampler()) {
+ *     sampler.start(Duration.ofMillis(10));
+ *     interp.eval(code, globals);
+ * }
+ * sampler.writeCollapsed(writer);
+ * </pre>
+ */
+public final class StackSampler implements AutoCloseable {
+
+    /** The deepest stack sampled (innermost frames are kept). */
+    static final int MAX_DEPTH = 1024;
+
+    /** Count of each distinct stack in collapsed form. */
+    private final Map<String, Long> stacks = new TreeMap<>();
+
+    /** Number of samples taken (of all threads at once). */
+    private long samples;
+
+    /** Schedules sampling, when started. */
+    private ScheduledExecutorService scheduler;
+
+    /** Create a sampler that has taken no samples. */
+    public StackSampler() {}
+
+    /**
+     * Start sampling periodically on a background (daemon) thread.
+     *
+     * @param interval between samples
+     * @throws IllegalStateException if already started
+     */
+    public synchronized void start(Duration interval)
+            throws IllegalStateException {
+        if (scheduler != null) {
+            throw new IllegalStateException("sampler already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "python-stack-sampler");
+            t.setDaemon(true);
+            return t;
+        });
+        ThreadState.samplerStarted();
+        long nanos = Math.max(1L, interval.toNanos());
+        scheduler.scheduleAtFixedRate(this::sample, nanos, nanos,
+                TimeUnit.NANOSECONDS);
+    }
+
+    /** Stop sampling (if started). The samples taken are kept. */
+    @Override
+    public void close() {
+        ScheduledExecutorService s;
+        synchronized (this) {
+            s = scheduler;
+            scheduler = null;
+        }
+        if (s != null) {
+            ThreadState.samplerStopped();
+            s.shutdown();
+            try {
+                s.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Take one sample of the stack of every thread executing Python
+     * code (other than the current thread).
+     */
+    void sample() {
+        List<String> sampled = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        for (ThreadState ts : ThreadState.allBound()) {
+            if (ts.thread == Thread.currentThread()) { continue; }
+            String stack = collapse(ts.frame, sb);
+            if (stack != null) { sampled.add(stack); }
+        }
+        synchronized (stacks) {
+            samples += 1;
+            for (String stack : sampled) {
+                stacks.merge(stack, 1L, Long::sum);
+            }
+        }
+    }
+
+    /**
+     * Express the stack from the given frame in collapsed form, as
+     * frames outermost first, separated by semicolons. Each frame is
+     * represented by the qualified name of its code and its current
+     * line.
+     *
+     * @param top innermost frame (may be {@code null})
+     * @param sb a buffer to use
+     * @return the stack or {@code null} if {@code top == null}
+     */
+    private static String collapse(PyFrame<?> top, StringBuilder sb) {
+        // Walk from the top (innermost) towards the root
+        List<PyFrame<?>> frames = new ArrayList<>();
+        for (PyFrame<?> f = top; f != null
+                && frames.size() < MAX_DEPTH; f = f.back) {
+            frames.add(f);
+        }
+        if (frames.isEmpty()) { return null; }
+        sb.setLength(0);
+        for (int i = frames.size(); --i >= 0;) {
+            PyFrame<?> f = frames.get(i);
+            sb.append(f.code.qualname).append(':')
+                    .append(f.currentLine());
+            if (i > 0) { sb.append(';'); }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Return the number of samples taken. Each sample includes all the
+     * threads that were executing Python code at the time.
+     *
+     * @return number of samples
+     */
+    public long samples() {
+        synchronized (stacks) {
+            return samples;
+        }
+    }
+
+    /**
+     * Return the count of each distinct stack sampled, in collapsed
+     * form (see {@link #writeCollapsed(Appendable)}).
+     *
+     * @return counts by collapsed stack
+     */
+    public Map<String, Long> stacks() {
+        synchronized (stacks) {
+            return new TreeMap<>(stacks);
+        }
+    }
+
+    /** Discard the samples taken so far. */
+    public void reset() {
+        synchronized (stacks) {
+            stacks.clear();
+            samples = 0;
+        }
+    }
+
+    /**
+     * Write the samples in the collapsed stack format, that is, one
+     * line for each distinct stack, consisting of the frames
+     * (outermost first) separated by semicolons, a space, and the
+     * number of times the stack was seen. Each frame is written as
+     * {@code qualname:line}.
+     *
+     * @param out to receive the output
+     * @throws UncheckedIOException on an error writing {@code out}
+     */
+    public void writeCollapsed(Appendable out)
+            throws UncheckedIOException {
+        try {
+            for (Map.Entry<String, Long> e : stacks().entrySet()) {
+                out.append(e.getKey()).append(' ')
+                        .append(e.getValue().toString()).append('\n');
+            }
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+}
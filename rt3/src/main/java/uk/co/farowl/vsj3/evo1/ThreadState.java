@@ -1,8 +1,25 @@
 package uk.co.farowl.vsj3.evo1;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
 /**
  * Represents a platform thread (that is, a Java {@code Thread})
  * internally to the runtime.
+ * <p>
+ * The interpreter passes the {@code ThreadState} explicitly from a
+ * frame to the frames it calls (see {@link PyFrame#eval(ThreadState)}),
+ * so that the thread-local binding is consulted only when Java enters
+ * Python, or when a built-in needs the current frame. A
+ * {@code ThreadState} is bound to its thread by {@link #get()} the
+ * first time it is needed, and remains bound for the life of the
+ * thread, so that a thread running many short tasks pays once for the
+ * binding. The state is small, and refers to no frame once the stack
+ * is empty, so a thread in a pool retains little after a task. The
+ * state of a virtual thread is released when the thread ends.
  */
 // Compare CPython struct _ts in cpython/pystate.h
 // and CPython PyThreadState in pystate.h
@@ -10,25 +27,84 @@ class ThreadState {
 
     /**
      * Current ThreadState mapped from the current platform thread (that
-     * is, the Java {@code Thread} this represents to Python).
+     * is, the Java {@code Thread} this represents to Python), or
+     * {@code null} if none is bound.
      */
     // Compare CPython struct _ts in cpython/pystate.h
-    static final ThreadLocal<ThreadState> current =
-            new ThreadLocal<ThreadState>() {
+    private static final ThreadLocal<ThreadState> current =
+            new ThreadLocal<ThreadState>();
+
+    /**
+     * Every {@code ThreadState} bound to its thread, while a
+     * {@link StackSampler} is running, so that it may inspect their
+     * stacks. A state is entered when it is bound, or when it next
+     * calls {@link #tick()} or is returned by {@link #get()}.
+     */
+    private static final Set<ThreadState> allBound =
+            ConcurrentHashMap.newKeySet();
 
-                @Override
-                protected ThreadState initialValue() {
-                    return new ThreadState(Thread.currentThread());
-                }
-            };
+    /**
+     * The number of {@link StackSampler}s running. While there are
+     * none, thread states are not entered in {@link #allBound}.
+     */
+    private static volatile int samplers;
+
+    /**
+     * The type of {@link RecursionError}. Referring to it here ensures
+     * the class is initialised before any stack overflow, which would
+     * otherwise prevent its initialisation.
+     */
+    private static final PyType RECURSION_ERROR = RecursionError.TYPE;
 
     // Intentionally missing: Interpreter interp;
 
     /** The top frame of the call stack. */
     PyFrame<? extends PyCode> frame = null;
 
-    // Missing: recursion control recursion state and config
-    // Missing: tracing/profiling (do we need that?)
+    /**
+     * Steps (backward jumps and calls) remaining before the interpreter
+     * should call {@link #tick()}. The interpreter decrements this
+     * directly.
+     */
+    int countdown = ExecutionBudget.CHECK_INTERVAL;
+
+    /** The value to which {@link #countdown} was last set. */
+    private int period = ExecutionBudget.CHECK_INTERVAL;
+
+    /** Budget for code running in this thread, or {@code null}. */
+    private ExecutionBudget budget;
+
+    /** Set when another thread asks for execution to stop. */
+    private volatile boolean interrupted;
+
+    /** The number of frames on the stack. */
+    // Compare CPython _ts.recursion_remaining in cpython/pystate.h
+    int depth = 0;
+
+    /**
+     * The {@link #depth} at which the Java stack last overflowed in
+     * this thread, or zero if it has not.
+     */
+    int overflowDepth = 0;
+
+    /** Trace function (as {@code sys.settrace}), or {@code null}. */
+    // Compare CPython _ts.c_tracefunc in cpython/pystate.h
+    private Object tracefunc;
+
+    /** Profile function (as {@code sys.setprofile}), or {@code null}. */
+    // Compare CPython _ts.c_profilefunc in cpython/pystate.h
+    private Object profilefunc;
+
+    /** Set while calling a trace or profile function. */
+    // Compare CPython _ts.tracing in cpython/pystate.h
+    private boolean inTrace;
+
+    /**
+     * Whether frames entered now should be traced: there is a trace or
+     * profile function, and we are not already calling it.
+     */
+    boolean traced;
+
     // Missing: exception support (main. generators and co-routines).
     // Missing: thread-local dict
     // Missing: hooks for _threadmodule (join, resources, etc.).
@@ -53,9 +129,15 @@ class ThreadState {
      * {@link #frame}.
      *
      * @param frame new stack top.
+     * @throws RecursionError if the stack would be deeper than the
+     *     recursion limit of the interpreter of the frame
      */
-    void push(PyFrame<? extends PyCode> frame) {
-        // XXX Increment & check interpreter stack depth?
+    // Compare CPython _Py_EnterRecursiveCallTstate in pycore_ceval.h
+    void push(PyFrame<? extends PyCode> frame) throws RecursionError {
+        if (depth >= frame.func.interpreter.recursionLimit) {
+            throw new RecursionError("maximum recursion depth exceeded");
+        }
+        depth += 1;
         assert frame.back == null;
         frame.back = this.frame;
         this.frame = frame;
@@ -69,7 +151,7 @@ class ThreadState {
      * @return stack top prior to call.
      */
     PyFrame<? extends PyCode> pop() {
-        // XXX Decrement interpreter stack depth?
+        depth -= 1;
         PyFrame<? extends PyCode> prevFrame = this.frame;
         this.frame = prevFrame.back;
         prevFrame.back = null;
@@ -77,12 +159,276 @@ class ThreadState {
     }
 
     /**
-     * Constructor exclusively used by the ThreadLocal {@link #current}.
+     * Ask that the Python code running in this thread stop. The code
+     * will raise {@link KeyboardInterrupt} at the next check, within
+     * {@link ExecutionBudget#CHECK_INTERVAL} steps, whether or not it
+     * runs under a budget. This may be called from any thread.
+     * Interrupting the {@code Thread} itself has the same effect.
+     */
+    void interrupt() { interrupted = true; }
+
+    /** Withdraw a request to stop that has not yet been acted on. */
+    void clearInterrupt() { interrupted = false; }
+
+    /**
+     * Called by the interpreter when {@link #countdown} reaches zero,
+     * to check for an interruption and the {@link ExecutionBudget} (if
+     * any), and reset the count. This is kept out of line so that the
+     * test of the count is all that appears in the interpreter loop.
+     *
+     * @throws KeyboardInterrupt if execution must stop
+     */
+    void tick() throws KeyboardInterrupt {
+        // A state bound before sampling began enters allBound here
+        if (samplers > 0) { allBound.add(this); }
+        if (interrupted || Thread.interrupted()) {
+            interrupted = false;
+            throw new KeyboardInterrupt("execution interrupted");
+        }
+        int n = budget == null ? ExecutionBudget.CHECK_INTERVAL
+                : budget.renew(period);
+        countdown = period = n;
+    }
+
+    /**
+     * Perform an action (typically the evaluation of code) with the
+     * given {@link ExecutionBudget} applied to the current thread,
+     * restoring the previous budget afterwards.
+     *
+     * @param <T> type of result
+     * @param budget to apply
+     * @param action to perform
+     * @return the result of the action
+     */
+    static <T> T withBudget(ExecutionBudget budget, Supplier<T> action) {
+        ThreadState ts = get();
+        ExecutionBudget prevBudget = ts.budget;
+        int prevCountdown = ts.countdown, prevPeriod = ts.period;
+        ts.budget = budget;
+        ts.countdown = ts.period = budget.first();
+        budget.attach(ts);
+        try {
+            return action.get();
+        } finally {
+            budget.detach(ts);
+            ts.budget = prevBudget;
+            ts.countdown = prevCountdown;
+            ts.period = prevPeriod;
+        }
+    }
+
+    /**
+     * Set the trace function of this thread (as {@code sys.settrace}).
+     * Frames entered from now on are traced.
+     *
+     * @param func trace function, or {@code null} or {@code None}
+     */
+    void setTrace(Object func) {
+        tracefunc = func == Py.None ? null : func;
+        updateTraced();
+    }
+
+    /**
+     * Get the trace function of this thread.
+     *
+     * @return trace function or {@code null}
+     */
+    Object getTrace() { return tracefunc; }
+
+    /**
+     * Set the profile function of this thread (as
+     * {@code sys.setprofile}). Frames entered from now on are profiled.
+     *
+     * @param func profile function, or {@code null} or {@code None}
+     */
+    void setProfile(Object func) {
+        profilefunc = func == Py.None ? null : func;
+        updateTraced();
+    }
+
+    /**
+     * Get the profile function of this thread.
+     *
+     * @return profile function or {@code null}
+     */
+    Object getProfile() { return profilefunc; }
+
+    /** Compute {@link #traced} after a change to what it depends on. */
+    private void updateTraced() {
+        traced = (tracefunc != null || profilefunc != null) && !inTrace;
+    }
+
+    /**
+     * Signal the {@code "call"} event on entry to a traced frame. The
+     * value returned by the trace function (if any) becomes the local
+     * trace function of the frame, which receives the other events.
+     *
+     * @param f the frame entered
+     */
+    // Compare CPython call_trace_protected in ceval.c
+    void traceCall(PyFrame<?> f) {
+        if (profilefunc != null) {
+            callTrace(profilefunc, true, f, "call", Py.None);
+        }
+        if (tracefunc != null) {
+            f.trace = callTrace(tracefunc, false, f, "call", Py.None);
+        }
+    }
+
+    /**
+     * Signal the {@code "line"} event when a traced frame begins a new
+     * line (if it has a local trace function).
+     *
+     * @param f the frame executing
+     */
+    void traceLine(PyFrame<?> f) {
+        if (f.trace != null) {
+            f.trace = callTrace(f.trace, false, f, "line", Py.None);
+        }
+    }
+
+    /**
+     * Signal the {@code "exception"} event when an exception reaches a
+     * traced frame, raised by an instruction of the frame or by a call
+     * it made.
+     *
+     * @param f the frame executing
+     * @param e the exception
+     */
+    void traceException(PyFrame<?> f, BaseException e) {
+        if (f.trace != null) {
+            PyTuple arg = Py.tuple(e.getType(), e, Py.None);
+            f.trace = callTrace(f.trace, false, f, "exception", arg);
+        }
+    }
+
+    /**
+     * Signal the {@code "return"} event when a traced frame returns (or
+     * ends with an exception, when the value is {@code None}).
+     *
+     * @param f the frame returning
+     * @param value returned
+     */
+    void traceReturn(PyFrame<?> f, Object value) {
+        if (f.trace != null) {
+            callTrace(f.trace, false, f, "return", value);
+        }
+        if (profilefunc != null) {
+            callTrace(profilefunc, true, f, "return", value);
+        }
+    }
+
+    /**
+     * Call a trace or profile function, with tracing suspended. If the
+     * function raises an exception, tracing (or profiling) stops in
+     * this thread, and the exception propagates.
+     *
+     * @param func to call
+     * @param profile whether {@code func} is the profile function
+     * @param f the frame
+     * @param event name of the event
+     * @param arg argument of the event
+     * @return the result, or {@code null} for {@code None}
+     */
+    // Compare CPython call_trampoline in sysmodule.c
+    private Object callTrace(Object func, boolean profile, PyFrame<?> f,
+            String event, Object arg) {
+        inTrace = true;
+        updateTraced();
+        try {
+            Object r;
+            if (func instanceof Tracing.Function) {
+                r = ((Tracing.Function)func).trace(f, event, arg);
+            } else {
+                r = Callables.call(func, new Object[] {f, event, arg},
+                        null);
+            }
+            return r == Py.None ? null : r;
+        } catch (Throwable t) {
+            if (profile) {
+                profilefunc = null;
+            } else {
+                tracefunc = null;
+                f.trace = null;
+            }
+            throw Abstract.asUnchecked(t, "in trace function");
+        } finally {
+            inTrace = false;
+            updateTraced();
+        }
+    }
+
+    /**
+     * Return a {@link RecursionError} to throw in place of a
+     * {@code StackOverflowError}, noting the {@link #depth} at which
+     * the Java stack ran out.
+     *
+     * @return exception to throw
+     */
+    RecursionError stackOverflow() {
+        overflowDepth = depth;
+        return new RecursionError(
+                "maximum recursion depth exceeded (Java stack)");
+    }
+
+    /**
+     * Constructor exclusively used to bind a state to
+     * {@link #current}.
      *
      * @param javaThread to encapsulate
      */
-    private ThreadState(Thread javaThread) {
-        this.thread = javaThread;
+    private ThreadState(Thread javaThread) { this.thread = javaThread; }
+
+    /**
+     * Create a {@code ThreadState} for the current thread and bind it
+     * there for the life of the thread.
+     *
+     * @return the new thread state
+     */
+    private static ThreadState bind() {
+        ThreadState ts = new ThreadState(Thread.currentThread());
+        current.set(ts);
+        if (samplers > 0) { allBound.add(ts); }
+        return ts;
+    }
+
+    /**
+     * Note that a {@link StackSampler} has started. Until it stops,
+     * thread states are entered in the set returned by
+     * {@link #allBound()}.
+     */
+    static synchronized void samplerStarted() { samplers += 1; }
+
+    /**
+     * Note that a {@link StackSampler} has stopped. When none is
+     * running, the set returned by {@link #allBound()} is emptied.
+     */
+    static synchronized void samplerStopped() {
+        if (--samplers == 0) { allBound.clear(); }
+    }
+
+    /**
+     * Return the {@code ThreadState}s bound to live threads, as far as
+     * they are known while a {@link StackSampler} is running. A thread
+     * bound before the sampler started appears at its next
+     * {@link #tick()}. The caller may inspect their stacks (reading
+     * {@link #frame} and the {@link PyFrame#back} chain) without
+     * synchronisation, and must therefore be prepared for the stack to
+     * change as it does so.
+     *
+     * @return the bound thread states
+     */
+    static List<ThreadState> allBound() {
+        List<ThreadState> states = new ArrayList<>(allBound.size());
+        for (ThreadState ts : allBound) {
+            if (ts.thread.isAlive()) {
+                states.add(ts);
+            } else {
+                // The thread has ended
+                allBound.remove(ts);
+            }
+        }
+        return states;
     }
 
     /**
@@ -188,11 +534,30 @@ class ThreadState {
 
     /**
      * Find or create a {@code ThreadState} representing the current
-     * Java {@code Thread}. This is never {@code null}.
+     * Java {@code Thread}. This is never {@code null}. A
+     * {@code ThreadState} created here remains bound to the thread.
+     * Code running in a frame should use the {@code ThreadState}
+     * passed to it, where it has one, rather than call this method.
      *
      * @return current thread state
      */
-    static final ThreadState get() { return current.get(); }
+    static final ThreadState get() {
+        ThreadState ts = current.get();
+        if (ts == null) {
+            ts = bind();
+        } else if (samplers > 0) {
+            allBound.add(ts);
+        }
+        return ts;
+    }
+
+    /**
+     * Return the {@code ThreadState} bound to the current Java
+     * {@code Thread}, if there is one, but do not create one.
+     *
+     * @return current thread state or {@code null}
+     */
+    static final ThreadState getIfBound() { return current.get(); }
 
     /**
      * Return a {@link SystemError} with a message along the lines
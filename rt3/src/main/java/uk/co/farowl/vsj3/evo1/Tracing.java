@@ -0,0 +1,98 @@
+// Copyright (c)2023 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+/**
+ * The equivalent of {@code sys.settrace} and {@code sys.setprofile},
+ * by which a debugger, coverage tool or profiler may observe the
+ * execution of Python code in the current thread.
+ * <p>
+ * A trace function is called with arguments {@code (frame, event,
+ * arg)} as in CPython. On entry to each frame, the trace function of
+ * the thread receives the {@code "call"} event, and what it returns
+ * becomes the local trace function of the frame, which receives the
+ * {@code "line"}, {@code "exception"} and {@code "return"} events from
+ * that frame. The profile function of the thread receives the
+ * {@code "call"} and {@code "return"} events of every frame. A trace
+ * or profile function may be a Python callable or a Java
+ * {@link Function}.
+ * <p>
+ * The {@code "exception"} event is signalled in each traced frame an
+ * exception reaches, whether raised by an instruction of the frame or
+ * by a call it made, before the frame ends. Since frames do not yet
+ * handle exceptions, it is always followed by the {@code "return"}
+ * event with argument {@code None}.
+ * <p>
+ * Tracing applies to frames entered after the trace function is set.
+ * Frames entered when neither function is set in their thread execute
+ * without instrumentation, and so at full speed.
+ */
+public final class Tracing {
+
+    private Tracing() {} // No instances
+
+    /** A trace or profile function implemented in Java. */
+    @FunctionalInterface
+    public interface Function {
+
+        /**
+         * Receive an event from a traced frame.
+         *
+         * @param frame in which the event occurred
+         * @param event name of the event, e.g. {@code "line"}
+         * @param arg argument of the event, e.g. the value returned
+         * @return new local trace function, or {@code null} or
+         *     {@code None} to stop tracing the frame
+         * @throws Throwable to propagate into the traced code (which
+         *     also stops tracing the thread)
+         */
+        Object trace(PyFrame<?> frame, String event, Object arg)
+                throws Throwable;
+    }
+
+    /**
+     * Set the trace function of the current thread.
+     *
+     * @param func trace function, or {@code null} or {@code None} to
+     *     stop tracing
+     */
+    // Compare CPython sys_settrace in sysmodule.c
+    public static void settrace(Object func) {
+        ThreadState.get().setTrace(func);
+    }
+
+    /**
+     * Get the trace function of the current thread.
+     *
+     * @return the trace function or {@code None}
+     */
+    // Compare CPython sys_gettrace in sysmodule.c
+    public static Object gettrace() {
+        ThreadState ts = ThreadState.getIfBound();
+        Object func = ts == null ? null : ts.getTrace();
+        return func == null ? Py.None : func;
+    }
+
+    /**
+     * Set the profile function of the current thread.
+     *
+     * @param func profile function, or {@code null} or {@code None} to
+     *     stop profiling
+     */
+    // Compare CPython sys_setprofile in sysmodule.c
+    public static void setprofile(Object func) {
+        ThreadState.get().setProfile(func);
+    }
+
+    /**
+     * Get the profile function of the current thread.
+     *
+     * @return the profile function or {@code None}
+     */
+    // Compare CPython sys_getprofile in sysmodule.c
+    public static Object getprofile() {
+        ThreadState ts = ThreadState.getIfBound();
+        Object func = ts == null ? null : ts.getProfile();
+        return func == null ? Py.None : func;
+    }
+}
@@ -7,8 +7,6 @@ import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles.Lookup;
 import java.lang.invoke.MethodType;
 import java.lang.invoke.WrongMethodTypeException;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.EnumSet;
@@ -25,10 +23,11 @@ import uk.co.farowl.vsj3.evo1.Exposed.Deleter;
 import uk.co.farowl.vsj3.evo1.Exposed.DocString;
 import uk.co.farowl.vsj3.evo1.Exposed.Getter;
 import uk.co.farowl.vsj3.evo1.Exposed.Member;
-import uk.co.farowl.vsj3.evo1.Exposed.PythonMethod;
 import uk.co.farowl.vsj3.evo1.Exposed.PythonNewMethod;
-import uk.co.farowl.vsj3.evo1.Exposed.PythonStaticMethod;
 import uk.co.farowl.vsj3.evo1.Exposed.Setter;
+import uk.co.farowl.vsj3.evo1.ExposureTable.Exposure;
+import uk.co.farowl.vsj3.evo1.ExposureTable.FieldEntry;
+import uk.co.farowl.vsj3.evo1.ExposureTable.MethodEntry;
 import uk.co.farowl.vsj3.evo1.Operations.BinopGrid;
 import uk.co.farowl.vsj3.evo1.PyMemberDescr.Flag;
 import uk.co.farowl.vsj3.evo1.Slot.Signature;
@@ -97,6 +96,14 @@ class TypeExposer extends Exposer {
      * normally the dictionary of the type. Attributes may rely on a
      * {@code MethodHandle} or {@code VarHandle}, so a lookup object
      * must be provided that can create them.
+     * <p>
+     * Special methods and {@code __new__} are created immediately,
+     * since the type consults them as soon as its dictionary is
+     * filled. Other attributes (the bulk of the methods, get-sets and
+     * members of most types) are represented in the map by a
+     * {@link Deferred} placeholder, from which the dictionary will
+     * create the attribute when it is first needed. In either case,
+     * the specification is checked immediately.
      *
      * @param dict to which the attributes should be delivered
      * @param lookup authorisation to access members
@@ -108,11 +115,67 @@ class TypeExposer extends Exposer {
                     "Cannot generate descriptors for type 'null'");
         for (Spec spec : specs.values()) {
             spec.checkFormation();
-            Object attr = spec.asAttribute(type, lookup);
+            Object attr;
+            if (spec instanceof WrapperSpec
+                    || spec instanceof NewMethodSpec) {
+                attr = spec.asAttribute(type, lookup);
+            } else {
+                attr = new Deferred(spec, type, lookup);
+            }
             dict.put(spec.name, attr);
         }
     }
 
+    /**
+     * A placeholder in the dictionary of a type for an attribute that
+     * has been specified but not yet created. The dictionary calls
+     * {@link #get()} to obtain the attribute, and then (normally)
+     * replaces the placeholder with it. Every call returns the same
+     * attribute, even when threads race to create it.
+     */
+    static final class Deferred {
+
+        /** Specification of the attribute (until created). */
+        private Spec spec;
+
+        /** Type in which the attribute is defined (until created). */
+        private PyType type;
+
+        /** Authorisation to access members (until created). */
+        private Lookup lookup;
+
+        /** The attribute once created (or {@code null}). */
+        private Object attr;
+
+        private Deferred(Spec spec, PyType type, Lookup lookup) {
+            this.spec = spec;
+            this.type = type;
+            this.lookup = lookup;
+        }
+
+        /**
+         * Return the attribute, creating it on the first call.
+         *
+         * @return the attribute
+         * @throws InterpreterError on specification errors
+         */
+        synchronized Object get() throws InterpreterError {
+            if (attr == null) {
+                attr = spec.asAttribute(type, lookup);
+                // The specification is no longer needed
+                spec = null;
+                type = null;
+                lookup = null;
+            }
+            return attr;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "Deferred[" + (attr != null ? attr : spec.name) + "]";
+        }
+    }
+
     /**
      * Add to {@link #specs}, definitions based on methods found in the
      * given class and either annotated for exposure or having the name
@@ -126,45 +189,39 @@ class TypeExposer extends Exposer {
 
         // Iterate over methods looking for those to expose
         for (Class<?> c : superClasses(defsClass)) {
-            for (Method m : c.getDeclaredMethods()) {
+            for (MethodEntry m : ExposureTable.forClass(c).methods) {
                 /*
                  * Note: method annotations (and special names) are not
                  * treated as alternatives, to catch exposure of methods
                  * by multiple routes.
                  */
-
-                // Check for instance method
-                PythonMethod pm =
-                        m.getDeclaredAnnotation(PythonMethod.class);
-                if (pm != null) { addMethodSpec(m, pm); }
-
-                // Check for static method
-                PythonStaticMethod psm = m.getDeclaredAnnotation(
-                        PythonStaticMethod.class);
-                if (psm != null) { addStaticMethodSpec(m, psm); }
-
-                // Check for ___new__ method
-                PythonNewMethod pnm = m.getDeclaredAnnotation(
-                        PythonNewMethod.class);
-                if (pnm != null) { addNewMethodSpec(m, pnm, type); }
-
-                // XXX Check for class method
-                // PythonClassMethod pcm =
-                // m.getDeclaredAnnotation(PythonClassMethod.class);
-                // if (pcm != null) { addClassMethodSpec(m, pcm); }
-
-                // Check for getter, setter, deleter methods
-                Getter get = m.getAnnotation(Getter.class);
-                if (get != null) { addGetter(m, get); }
-                Setter set = m.getAnnotation(Setter.class);
-                if (set != null) { addSetter(m, set); }
-                Deleter del = m.getAnnotation(Deleter.class);
-                if (del != null) { addDeleter(m, del); }
+                for (Exposure a : m.exposures) {
+                    switch (a.kind) {
+                        case METHOD:
+                            addMethodSpec(m, a);
+                            break;
+                        case STATIC_METHOD:
+                            addStaticMethodSpec(m, a);
+                            break;
+                        case NEW_METHOD:
+                            addNewMethodSpec(m, a, type);
+                            break;
+                        // XXX Check for class method
+                        case GETTER:
+                            addGetter(m, a);
+                            break;
+                        case SETTER:
+                            addSetter(m, a);
+                            break;
+                        case DELETER:
+                            addDeleter(m, a);
+                            break;
+                    }
+                }
 
                 // If it has a special method name record that
                 // definition.
-                String name = m.getName();
-                Slot slot = Slot.forMethodName(name);
+                Slot slot = Slot.forMethodName(m.name);
                 if (slot != null) { addWrapperSpec(m, slot); }
             }
         }
@@ -176,11 +233,11 @@ class TypeExposer extends Exposer {
      * of specifications by name (or add one) to hold it.
      *
      * @param m method annotated
-     * @param anno annotation encountered
+     * @param anno annotation encountered ({@link Getter})
      * @throws InterpreterError on duplicates or unsupported types
      */
-    private void addGetter(Method m, Getter anno) {
-        addSpec(m, anno.value(), TypeExposer::castGetSet,
+    private void addGetter(MethodEntry m, Exposure anno) {
+        addSpec(m, anno.value, TypeExposer::castGetSet,
                 GetSetSpec::new, ms -> getSetSpecs.add(ms),
                 GetSetSpec::addGetter);
     }
@@ -192,11 +249,11 @@ class TypeExposer extends Exposer {
      *
      *
      * @param m method annotated
-     * @param anno annotation encountered
+     * @param anno annotation encountered ({@link Setter})
      * @throws InterpreterError on duplicates or unsupported types
      */
-    private void addSetter(Method m, Setter anno) {
-        addSpec(m, anno.value(), TypeExposer::castGetSet,
+    private void addSetter(MethodEntry m, Exposure anno) {
+        addSpec(m, anno.value, TypeExposer::castGetSet,
                 GetSetSpec::new, ms -> getSetSpecs.add(ms),
                 GetSetSpec::addSetter);
     }
@@ -208,11 +265,11 @@ class TypeExposer extends Exposer {
      *
      *
      * @param m method annotated
-     * @param anno annotation encountered
+     * @param anno annotation encountered ({@link Deleter})
      * @throws InterpreterError on duplicates or unsupported types
      */
-    private void addDeleter(Method m, Deleter anno) {
-        addSpec(m, anno.value(), TypeExposer::castGetSet,
+    private void addDeleter(MethodEntry m, Exposure anno) {
+        addSpec(m, anno.value, TypeExposer::castGetSet,
                 GetSetSpec::new, ms -> getSetSpecs.add(ms),
                 GetSetSpec::addDeleter);
     }
@@ -236,7 +293,7 @@ class TypeExposer extends Exposer {
      * @param slot annotation encountered
      * @throws InterpreterError on duplicates or unsupported types
      */
-    private void addWrapperSpec(Method meth, Slot slot)
+    private void addWrapperSpec(MethodEntry meth, Slot slot)
             throws InterpreterError {
 
         // For clarity, name lambda expression for cast
@@ -255,17 +312,17 @@ class TypeExposer extends Exposer {
      * a Python type or module defined in Java, into a specification for
      * a method, and add it to the table of specifications by name.
      *
-     * @param anno annotation encountered
+     * @param anno annotation encountered ({@link PythonNewMethod})
      * @param meth method annotated
      * @param type defining type ({@code __self__} in the exposed form)
      * @throws InterpreterError on duplicates or unsupported types
      */
-    void addNewMethodSpec(Method meth, PythonNewMethod anno,
-            PyType type) throws InterpreterError {
+    void addNewMethodSpec(MethodEntry meth, Exposure anno, PyType type)
+            throws InterpreterError {
         // For clarity, name lambda expressions for the actions
-        BiConsumer<NewMethodSpec, Method> addMethod =
+        BiConsumer<NewMethodSpec, MethodEntry> addMethod =
                 // Add method m to spec ms
-                (NewMethodSpec ms, Method m) -> {
+                (NewMethodSpec ms, MethodEntry m) -> {
                     ms.add(m, true, true, MethodKind.NEW);
                 };
         Function<Spec, NewMethodSpec> cast =
@@ -273,7 +330,7 @@ class TypeExposer extends Exposer {
                 spec -> spec instanceof NewMethodSpec
                         ? (NewMethodSpec)spec : null;
         // Now use the generic create/update
-        addSpec(meth, anno.value(), cast,
+        addSpec(meth, anno.value, cast,
                 (String name) -> new NewMethodSpec(name, type),
                 ms -> methodSpecs.add(ms), addMethod);
     }
@@ -288,9 +345,8 @@ class TypeExposer extends Exposer {
     void scanJavaFields(Class<?> defsClass) throws InterpreterError {
         // Iterate over fields looking for the relevant annotations
         for (Class<?> c : superClasses(defsClass)) {
-            for (Field f : c.getDeclaredFields()) {
-                Member m = f.getDeclaredAnnotation(Member.class);
-                if (m != null) { addMemberSpec(f, m); }
+            for (FieldEntry f : ExposureTable.forClass(c).fields) {
+                addMemberSpec(f);
             }
         }
     }
@@ -300,16 +356,15 @@ class TypeExposer extends Exposer {
      * into a specification, and add it to the table of specifications
      * by name.
      *
-     * @param f field annotated
-     * @param anno annotation encountered
+     * @param f field annotated {@link Member}
      * @throws InterpreterError on duplicates or unsupported types
      */
-    void addMemberSpec(Field f, Member anno) throws InterpreterError {
+    void addMemberSpec(FieldEntry f) throws InterpreterError {
 
         // The name is as annotated or the "natural" one
-        String name = anno.value();
+        String name = f.value;
         if (name == null || name.length() == 0)
-            name = f.getName();
+            name = f.name;
 
         /*
          * XXX we follow the same pattern as with other spec types, in
@@ -333,10 +388,10 @@ class TypeExposer extends Exposer {
         } else {
             // Existing entry is not compatible
             memberSpec = new MemberSpec(name);
-            throw duplicateError(name, f, memberSpec, spec);
+            throw duplicateError(name, f.name, memberSpec, spec);
         }
         // Add the field, processing the additional properties
-        memberSpec.add(f, anno.optional(), anno.readonly());
+        memberSpec.add(f, f.optional, f.readonly);
     }
 
     @Override
@@ -351,7 +406,7 @@ class TypeExposer extends Exposer {
     static class MemberSpec extends Exposer.Spec {
 
         /** Collects the fields declared (should be just one). */
-        final List<Field> fields;
+        final List<FieldEntry> fields;
 
         /**
          * The member disappears when the field is {@code null}. This is
@@ -373,10 +428,10 @@ class TypeExposer extends Exposer {
          * @param optional member is optional
          * @param readonly member is read only
          */
-        void add(Field field, boolean optional, boolean readonly) {
+        void add(FieldEntry field, boolean optional, boolean readonly) {
 
             // Final overrides readonly=false
-            int modifiers = field.getModifiers();
+            int modifiers = field.modifiers;
             readonly |= (modifiers & Modifier.FINAL) != 0;
 
             // Disallow static (in Java)
@@ -388,7 +443,7 @@ class TypeExposer extends Exposer {
 
             // Disallow optional if primitive (in Java)
             if (optional) {
-                if (field.getType().isPrimitive()) {
+                if (field.type.isPrimitive()) {
                     throw new InterpreterError(CANNOT_BE_OPTIONAL,
                             "Primitive", getJavaName());
                 } else if (readonly) {
@@ -400,7 +455,7 @@ class TypeExposer extends Exposer {
             // Add the only definition (do we actually need a list?)
             fields.add(field);
             if (fields.size() != 1) {
-                throw duplicateError(name, field, this, this);
+                throw duplicateError(name, field.name, this, this);
             }
 
             // Finally insert the allowed combination
@@ -408,8 +463,7 @@ class TypeExposer extends Exposer {
             this.readonly = readonly;
 
             // There may be a @DocString annotation
-            DocString docAnno = field.getAnnotation(DocString.class);
-            if (docAnno != null) { doc = docAnno.value(); }
+            if (field.doc != null) { doc = field.doc; }
         }
 
         private static final String CANNOT_BE_JAVA_STATIC =
@@ -439,8 +493,9 @@ class TypeExposer extends Exposer {
             EnumSet<Flag> flags = EnumSet.noneOf(Flag.class);
             if (readonly) { flags.add(Flag.READONLY); }
             if (optional) { flags.add(Flag.OPTIONAL); }
-            return PyMemberDescr.forField(objclass, name, fields.get(0),
-                    lookup, flags, doc);
+            FieldEntry field = fields.get(0);
+            return PyMemberDescr.forField(objclass, name,
+                    field.varHandle(lookup), flags, doc);
         }
 
         @Override
@@ -452,10 +507,10 @@ class TypeExposer extends Exposer {
             StringBuilder b = new StringBuilder(64);
             if (!fields.isEmpty()) {
                 // It shouldn't matter, but take the last added
-                Field field = fields.get(fields.size() - 1);
-                b.append(field.getDeclaringClass().getSimpleName());
+                FieldEntry field = fields.get(fields.size() - 1);
+                b.append(field.declaringClass.getSimpleName());
                 b.append('.');
-                b.append(field.getName());
+                b.append(field.name);
             } else {
                 // Take the name from the Spec instead
                 b.append(name);
@@ -468,10 +523,10 @@ class TypeExposer extends Exposer {
             StringBuilder b = new StringBuilder(64);
             if (!fields.isEmpty()) {
                 // It shouldn't matter, but take the last added
-                Field field = fields.get(fields.size() - 1);
-                b.append(field.getType().getSimpleName());
+                FieldEntry field = fields.get(fields.size() - 1);
+                b.append(field.type.getSimpleName());
                 b.append(' ');
-                b.append(field.getName());
+                b.append(field.name);
             }
             return b.toString();
         }
@@ -491,11 +546,11 @@ class TypeExposer extends Exposer {
     static class GetSetSpec extends BaseMethodSpec {
 
         /** Collects the getters declared (often just one). */
-        final List<Method> getters;
+        final List<MethodEntry> getters;
         /** Collects the setters declared (often just one). */
-        final List<Method> setters;
+        final List<MethodEntry> setters;
         /** Collects the deleters declared (often just one). */
-        final List<Method> deleters;
+        final List<MethodEntry> deleters;
         /** Java class of attribute from setter parameter. */
         Class<?> klass = Object.class;
 
@@ -527,7 +582,7 @@ class TypeExposer extends Exposer {
          *
          * @param method to add to {@link #getters}
          */
-        void addGetter(Method method) {
+        void addGetter(MethodEntry method) {
             // Add to list of methods
             getters.add(method);
             // There may be a @DocString annotation
@@ -539,7 +594,7 @@ class TypeExposer extends Exposer {
          *
          * @param method to add to {@link #setters}
          */
-        void addSetter(Method method) {
+        void addSetter(MethodEntry method) {
             // Add to list of methods
             setters.add(method);
             // There may be a @DocString annotation
@@ -553,7 +608,7 @@ class TypeExposer extends Exposer {
          *
          * @param method to add to {@link #deleters}
          */
-        void addDeleter(Method method) {
+        void addDeleter(MethodEntry method) {
             // Add to list of methods
             deleters.add(method);
             // There may be a @DocString annotation
@@ -568,11 +623,10 @@ class TypeExposer extends Exposer {
          *
          * @param method annotated with a {@code Setter}
          */
-        private void determineAttrType(Method method) {
+        private void determineAttrType(MethodEntry method) {
             // Save class of value accepted (if signature is sensible)
-            int modifiers = method.getModifiers();
-            int v = (modifiers & Modifier.STATIC) != 0 ? 1 : 0;
-            Class<?>[] paramClasses = method.getParameterTypes();
+            int v = method.javaStatic ? 1 : 0;
+            Class<?>[] paramClasses = method.type.parameterArray();
             if (paramClasses.length == v + 1) {
                 Class<?> valueClass = paramClasses[v];
                 if (valueClass == klass) {
@@ -643,7 +697,7 @@ class TypeExposer extends Exposer {
         }
 
         private MethodHandle[] unreflect(PyType objclass, Lookup lookup,
-                MethodType mt, List<Method> methods)
+                MethodType mt, List<MethodEntry> methods)
                 throws InterpreterError {
 
             /*
@@ -656,10 +710,10 @@ class TypeExposer extends Exposer {
              * first argument) before the less type-specific.
              */
             LinkedList<MethodHandle> candidates = new LinkedList<>();
-            for (Method m : methods) {
+            for (MethodEntry m : methods) {
                 // Convert m to a handle (if L args and accessible)
                 try {
-                    MethodHandle mh = lookup.unreflect(m);
+                    MethodHandle mh = m.handle(lookup);
                     addOrdered(candidates, mh);
                 } catch (IllegalAccessException e) {
                     throw cannotGetHandle(m, e);
@@ -779,7 +833,7 @@ class TypeExposer extends Exposer {
         }
 
         @Override
-        void add(Method method) { super.add(method); }
+        void add(MethodEntry method) { super.add(method); }
 
         @Override
         Class<? extends Annotation> annoClass() {
@@ -823,10 +877,10 @@ class TypeExposer extends Exposer {
              * Number matching Long and Integer).
              */
             LinkedList<MethodHandle> candidates = new LinkedList<>();
-            for (Method m : methods) {
+            for (MethodEntry m : methods) {
                 // Convert m to a handle (if L args and accessible)
                 try {
-                    MethodHandle mh = lookup.unreflect(m);
+                    MethodHandle mh = m.handle(lookup);
                     if (mh.type().parameterCount() == L)
                         addOrdered(candidates, mh);
                 } catch (IllegalAccessException e) {
@@ -965,10 +1019,10 @@ class TypeExposer extends Exposer {
                         name, methods.size(), getJavaName());
             }
 
-            Method m = methods.get(0);
+            MethodEntry m = methods.get(0);
             try {
                 // Convert m to a handle (if accessible)
-                MethodHandle mh = lookup.unreflect(m);
+                MethodHandle mh = m.handle(lookup);
                 assert mh.type().parameterCount() == regargcount;
                 PyJavaFunction javaFunction =
                         PyJavaFunction.forNewMethod(ap, mh, type);
@@ -1006,10 +1060,9 @@ class TypeExposer extends Exposer {
         // Iterate over methods looking for the relevant annotations
         Map<Slot, BinopGrid> defs = new HashMap<>();
 
-        for (Method m : binops.getDeclaredMethods()) {
+        for (MethodEntry m : ExposureTable.forClass(binops).methods) {
             // If it is a special method, record the definition.
-            String name = m.getName();
-            Slot slot = Slot.forMethodName(name);
+            Slot slot = Slot.forMethodName(m.name);
             if (slot != null && slot.signature == Signature.BINARY) {
                 binopTableAdd(defs, slot, m, lookup, binops, type);
             }
@@ -1033,7 +1086,7 @@ class TypeExposer extends Exposer {
      * @param type to which these belong
      */
     private static void binopTableAdd(Map<Slot, BinopGrid> defs,
-            Slot slot, Method m, Lookup lookup, Class<?> binops,
+            Slot slot, MethodEntry m, Lookup lookup, Class<?> binops,
             PyType type) {
 
         // Get (or create) the table for this slot
@@ -1046,7 +1099,7 @@ class TypeExposer extends Exposer {
 
         try {
             // Convert the method to a handle
-            def.add(lookup.unreflect(m));
+            def.add(m.handle(lookup));
         } catch (IllegalAccessException | WrongMethodTypeException e) {
             throw new InterpreterError(e,
                     "ill-formed or inaccessible binary op '%s'", m);
@@ -13,7 +13,11 @@ import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -216,11 +220,12 @@ public class marshal /* extends JavaModule */ {
             new HashMap<>();
 
     /**
-     * A mapping from the type code to the {@link Decoder} able to
-     * render the record as a Python object.
+     * A table from the type code to the {@link Decoder} able to render
+     * the record as a Python object, or {@code null} if the code is not
+     * valid. (Only the low 7 bits of a code are significant, but we
+     * index the table by any byte value.)
      */
-    private static HashMap<Integer, Decoder> decoderForCode =
-            new HashMap<>();
+    private static final Decoder[] decoderForCode = new Decoder[256];
 
     /**
      * Associate a codec with its target Python type in
@@ -236,8 +241,9 @@ public class marshal /* extends JavaModule */ {
         // Register a read method for each type code
         for (Map.Entry<Integer, Decoder> e : codec.decoders()
                 .entrySet()) {
-            Decoder d = decoderForCode.put(e.getKey(), e.getValue());
-            assert d == null; // No codec should duplicate a code
+            int tc = e.getKey();
+            assert decoderForCode[tc] == null; // No duplicate codes
+            decoderForCode[tc] = e.getValue();
         }
     }
 
@@ -647,6 +653,18 @@ public class marshal /* extends JavaModule */ {
         // Allocate generous initial size for typical code object
         protected List<Object> refs = new ArrayList<Object>();
 
+        /**
+         * When not negative, the index in {@link #refs} that the next
+         * object defining a reference will occupy, the entries having
+         * been allocated already by an earlier pass over the same data
+         * (see {@link BytesReader}). Normally it is {@code -1} and
+         * references are appended to {@link #refs}.
+         */
+        int nextRef = -1;
+
+        /** Depth of nesting of {@code code} objects being read. */
+        int codeDepth = 0;
+
         /**
          * Decode a complete object from the source.
          *
@@ -655,7 +673,7 @@ public class marshal /* extends JavaModule */ {
         public Object readObject() {
             // Get the type code and the decoder for it
             int tcflag = readByte(), tc = tcflag & ~FLAG_REF;
-            Decoder decoder = decoderForCode.get(tc);
+            Decoder decoder = decoderForCode[tc];
             // The decoder will define a reference if requested
             boolean ref = (tcflag & FLAG_REF) != 0;
             if (decoder != null) {
@@ -732,6 +750,24 @@ public class marshal /* extends JavaModule */ {
         // Compare CPython r_byte in marshal.c
         public abstract ByteBuffer readByteBuffer(int n);
 
+        /**
+         * Read a given number of {@code byte}s from the source and
+         * return them as a {@code String} in which each byte is one
+         * character, advancing the stream over these bytes. This is the
+         * payload of the ASCII string types, which CPython (and we)
+         * actually decode as Latin-1. Implementations should avoid the
+         * general machinery of character set decoding.
+         *
+         * @param n number of bytes to read
+         * @return the next {@code n} bytes as a {@code String}
+         */
+        // Compare CPython r_object TYPE_ASCII in marshal.c
+        public String readAscii(int n) {
+            byte[] b = new byte[n];
+            readByteBuffer(n).get(b);
+            return new String(b, StandardCharsets.ISO_8859_1);
+        }
+
         /**
          * Read one {@code BigInteger} value from the source, advancing
          * the stream a variable number of bytes.
@@ -782,6 +818,7 @@ public class marshal /* extends JavaModule */ {
          */
         // Compare CPython r_ref_reserve() in marshal.c
         private int reserveRef() {
+            if (nextRef >= 0) { return nextRef++; }
             int idx = refs.size();
             refs.add(null);
             return idx;
@@ -802,7 +839,11 @@ public class marshal /* extends JavaModule */ {
          */
         // Compare CPython r_ref_insert() in marshal.c
         private <T> T defineRef(T o, int idx) {
-            if (o != null && idx >= 0) { refs.set(idx, o); }
+            if (o != null && idx >= 0) {
+                Object old = refs.set(idx, o);
+                // A placeholder may also be held elsewhere
+                if (old instanceof Deferred d) { d.value = o; }
+            }
             return o;
         }
 
@@ -816,7 +857,13 @@ public class marshal /* extends JavaModule */ {
          */
         // Compare CPython r_ref() or R_REF() in marshal.c
         private <T> T defineRef(T o, boolean ref) {
-            if (ref && o != null) { refs.add(o); }
+            if (ref && o != null) {
+                if (nextRef >= 0) {
+                    defineRef(o, nextRef++);
+                } else {
+                    refs.add(o);
+                }
+            }
             return o;
         }
 
@@ -954,12 +1001,23 @@ public class marshal /* extends JavaModule */ {
         public ByteBuffer readByteBuffer(int n) {
             try {
                 byte[] b = new byte[n];
-                file.read(b);
+                file.readFully(b);
                 ByteBuffer slice = ByteBuffer.wrap(b).asReadOnlyBuffer()
                         .order(ByteOrder.LITTLE_ENDIAN);
                 return slice;
             } catch (IOException ioe) {
-                throw new OSError(ioe);
+                throw pyException(ioe);
+            }
+        }
+
+        @Override
+        public String readAscii(int n) {
+            try {
+                byte[] b = new byte[n];
+                file.readFully(b);
+                return new String(b, StandardCharsets.ISO_8859_1);
+            } catch (IOException ioe) {
+                throw pyException(ioe);
             }
         }
 
@@ -980,10 +1038,39 @@ public class marshal /* extends JavaModule */ {
     }
 
     /**
-     * A {@link Reader} that has a {@code ByteBuffer} as its source.
+     * A {@link Reader} that has a {@code ByteBuffer} as its source. A
+     * compiled module file may be read efficiently through
+     * {@link #fromFile(Path)}, which maps the file into memory.
+     * <p>
+     * A {@code BytesReader} may be asked to defer the decoding of
+     * {@code code} objects nested within the one being read (the bodies
+     * of functions, classes and comprehensions in a module). Such an
+     * object is passed over, and a {@link PyCode.Deferred} left among
+     * the constants of the enclosing code, able to decode it from the
+     * buffer when it is first needed. In a large module, most
+     * functions are never called in a given run, and we save both the
+     * time to create them and the memory they would occupy.
+     * <p>
+     * The complication is that objects within the skipped data may
+     * define references used elsewhere in the stream, and references
+     * are numbered in encounter order. While skipping, we therefore
+     * scan the structure of the data (cheaply, without creating
+     * objects) and fill each reference it would define with a
+     * placeholder, able to decode that object on demand. When a
+     * deferred object is finally decoded, the references it defines
+     * are filled (or found) at their original indices, so that
+     * identity is preserved.
      */
     public static class BytesReader extends Reader {
 
+        /**
+         * Files of at least this size are mapped into memory by
+         * {@link #fromFile(Path)}. Smaller files are read into the heap,
+         * since mapping has a fixed cost greater than that of copying a
+         * few pages.
+         */
+        private static final int MAP_THRESHOLD = 16 * 1024;
+
         /**
          * The source as little-endian a {@code ByteBuffer} on which we
          * shall call {@code getInt()} etc. to read items. A Python
@@ -991,6 +1078,9 @@ public class marshal /* extends JavaModule */ {
          */
         private final ByteBuffer buf;
 
+        /** Whether to defer reading nested {@code code} objects. */
+        private final boolean lazyCode;
+
         /**
          * Form a {@link Reader} on a byte array.
          *
@@ -1008,10 +1098,90 @@ public class marshal /* extends JavaModule */ {
          * @param buf input
          */
         public BytesReader(ByteBuffer buf) {
+            this(buf, false);
+        }
+
+        /**
+         * Form a {@link Reader} on an existing {@code ByteBuffer},
+         * optionally deferring the decoding of nested {@code code}
+         * objects until they are needed. This {@code ByteBuffer} will
+         * have its order set to {@code ByteOrder.LITTLE_ENDIAN}. If
+         * decoding is deferred, the contents of the buffer must not
+         * change while the objects read remain in use.
+         *
+         * @param buf input
+         * @param lazyCode if {@code true} defer nested {@code code}
+         */
+        public BytesReader(ByteBuffer buf, boolean lazyCode) {
             this.buf = buf;
+            this.lazyCode = lazyCode;
             buf.order(ByteOrder.LITTLE_ENDIAN);
         }
 
+        /**
+         * Form a {@link Reader} to decode a deferred object from the
+         * same data and into the same references as another.
+         *
+         * @param source reader of the enclosing object
+         * @param position of the type code of the deferred object
+         * @param firstRef the index it (or its first member) defines
+         */
+        private BytesReader(BytesReader source, int position,
+                int firstRef) {
+            this.buf = source.buf.duplicate()
+                    .order(ByteOrder.LITTLE_ENDIAN).position(position);
+            this.lazyCode = source.lazyCode;
+            this.refs = source.refs;
+            this.nextRef = firstRef;
+        }
+
+        /**
+         * Form a {@link Reader} on the whole contents of a file, for
+         * example a compiled module ({@code .pyc} file). Large files are
+         * mapped read-only into memory, so that the data are read
+         * directly from the page cache without copying through a
+         * stream. The mapping remains valid after the file is closed
+         * and is released when the buffer becomes unreachable.
+         *
+         * @param path of the file to read
+         * @return a reader on the file contents
+         * @throws OSError if the file cannot be opened or read
+         */
+        public static BytesReader fromFile(Path path) throws OSError {
+            return fromFile(path, false);
+        }
+
+        /**
+         * Form a {@link Reader} on the whole contents of a file, as
+         * {@link #fromFile(Path)}, optionally deferring the decoding of
+         * nested {@code code} objects until they are needed.
+         *
+         * @param path of the file to read
+         * @param lazyCode if {@code true} defer nested {@code code}
+         * @return a reader on the file contents
+         * @throws OSError if the file cannot be opened or read
+         */
+        public static BytesReader fromFile(Path path, boolean lazyCode)
+                throws OSError {
+            try (FileChannel ch =
+                    FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = ch.size();
+                if (size > Integer.MAX_VALUE) {
+                    throw new OSError("file too large: %s", path);
+                } else if (size >= MAP_THRESHOLD) {
+                    return new BytesReader(
+                            ch.map(FileChannel.MapMode.READ_ONLY, 0, size),
+                            lazyCode);
+                } else {
+                    ByteBuffer bb = ByteBuffer.allocate((int)size);
+                    while (bb.hasRemaining() && ch.read(bb) >= 0) {}
+                    return new BytesReader(bb.flip(), lazyCode);
+                }
+            } catch (IOException ioe) {
+                throw new OSError(ioe);
+            }
+        }
+
         @Override
         public int readByte() {
             try {
@@ -1062,6 +1232,159 @@ public class marshal /* extends JavaModule */ {
             }
         }
 
+        @Override
+        public Object readObject() {
+            if (nextRef >= 0 && buf.hasRemaining()
+                    && definesRef(buf.get(buf.position()) & 0xff)) {
+                /*
+                 * We are decoding a deferred object. A reference this
+                 * record defines may have been created already, from
+                 * elsewhere in the stream: if so we must use that.
+                 */
+                Object o = refs.get(nextRef);
+                if (o != null && !(o instanceof Deferred)) {
+                    skipObject();
+                    return o;
+                }
+            }
+            return super.readObject();
+        }
+
+        /**
+         * Create a {@link Deferred} to stand for the {@code code}
+         * object, of which the type code has just been read, and
+         * advance over it.
+         *
+         * @param ref if {@code true}, define a reference to it
+         * @return the placeholder
+         */
+        private Deferred deferCode(boolean ref) {
+            int start = buf.position() - 1;
+            Deferred d;
+            if (!ref) {
+                int first = nextRef >= 0 ? nextRef : refs.size();
+                d = new Deferred(this, start, first);
+            } else if (nextRef >= 0) {
+                // Entered when first skipped (and not yet created)
+                d = (Deferred)refs.get(nextRef++);
+            } else {
+                d = new Deferred(this, start, refs.size());
+                refs.add(d);
+            }
+            skipBody(TYPE_CODE);
+            return d;
+        }
+
+        /**
+         * Advance over a complete object without creating it. Where a
+         * record would define a reference, enter a {@link Deferred}
+         * able to create that object on demand (or when decoding a
+         * deferred object, pass over the entry made already).
+         *
+         * @return the type code of the record (without flag)
+         */
+        private int skipObject() {
+            int start = buf.position();
+            int tcflag = readByte(), tc = tcflag & ~FLAG_REF;
+            if (decoderForCode[tc] == null) {
+                throw badData("unknown type 0x%02x = '%c'", tcflag, tc);
+            } else if (definesRef(tcflag)) {
+                if (nextRef >= 0) {
+                    nextRef++;
+                } else {
+                    refs.add(new Deferred(this, start, refs.size()));
+                }
+            }
+            skipBody(tc);
+            return tc;
+        }
+
+        /**
+         * Advance over the data following a type code, consistent with
+         * the the {@link Decoder} for that code.
+         *
+         * @param tc type code (without flag)
+         */
+        private void skipBody(int tc) {
+            switch (tc) {
+                case TYPE_INT:
+                case TYPE_REF:
+                    skip(4);
+                    break;
+                case TYPE_BINARY_FLOAT:
+                    skip(8);
+                    break;
+                case TYPE_LONG:
+                    skip(2 * Math.abs(readInt()));
+                    break;
+                case TYPE_FLOAT:
+                case TYPE_BYTES:
+                case TYPE_ASCII:
+                case TYPE_ASCII_INTERNED:
+                case TYPE_UNICODE:
+                case TYPE_INTERNED:
+                    skip(readInt());
+                    break;
+                case TYPE_SHORT_ASCII:
+                case TYPE_SHORT_ASCII_INTERNED:
+                    skip(readByte());
+                    break;
+                case TYPE_TUPLE:
+                case TYPE_LIST:
+                    for (int n = readInt(); n > 0; --n) { skipObject(); }
+                    break;
+                case TYPE_SMALL_TUPLE:
+                    for (int n = readByte(); n > 0; --n) { skipObject(); }
+                    break;
+                case TYPE_DICT:
+                    while (skipObject() != TYPE_NULL
+                            && skipObject() != TYPE_NULL) {}
+                    break;
+                case TYPE_CODE:
+                    // argcount to flags, then code to qualname
+                    skip(5 * 4);
+                    for (int i = 0; i < 8; i++) { skipObject(); }
+                    // firstlineno, linetable, exceptiontable
+                    skip(4);
+                    skipObject();
+                    skipObject();
+                    break;
+                default:
+                    // Singletons have no data
+                    break;
+            }
+        }
+
+        /**
+         * Advance over a given number of bytes.
+         *
+         * @param n number of bytes
+         */
+        private void skip(int n) {
+            int p = buf.position();
+            if (n < 0 || n > buf.limit() - p) { throw endOfData(); }
+            buf.position(p + n);
+        }
+
+        @Override
+        public String readAscii(int n) {
+            int p = buf.position();
+            if (n < 0 || n > buf.limit() - p) { throw endOfData(); }
+            String s;
+            if (buf.hasArray()) {
+                // Construct directly from the backing array
+                s = new String(buf.array(), buf.arrayOffset() + p, n,
+                        StandardCharsets.ISO_8859_1);
+            } else {
+                // Direct, mapped or read-only: one copy is unavoidable
+                byte[] b = new byte[n];
+                buf.get(p, b);
+                s = new String(b, StandardCharsets.ISO_8859_1);
+            }
+            buf.position(p + n);
+            return s;
+        }
+
         /**
          * Recognise or wrap an eligible file-like data source as a
          * {@code ByteBuffer}.
@@ -1085,6 +1408,79 @@ public class marshal /* extends JavaModule */ {
         }
     }
 
+    /**
+     * Whether a record with the given type code (with flag) defines a
+     * reference when read. The singletons never do, even if flagged.
+     *
+     * @param tcflag type code and flag
+     * @return whether it defines a reference
+     */
+    private static boolean definesRef(int tcflag) {
+        if ((tcflag & FLAG_REF) == 0) { return false; }
+        switch (tcflag & ~FLAG_REF) {
+            case TYPE_NULL:
+            case TYPE_NONE:
+            case TYPE_FALSE:
+            case TYPE_TRUE:
+            case TYPE_STOPITER:
+            case TYPE_ELLIPSIS:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * A placeholder for an object in the data of a {@link BytesReader}
+     * that has been passed over, either because it is a nested
+     * {@code code} object whose decoding is deferred, or because it
+     * defines a reference within one. It is able to decode the object
+     * when asked. The placeholder appears in the list of references of
+     * the reader until then, and (for {@code code}) among the constants
+     * of the enclosing {@code code} object.
+     */
+    private static final class Deferred implements PyCode.Deferred {
+
+        /** A reader on the data containing the object. */
+        private final BytesReader source;
+        /** Position of the type code of the object. */
+        private final int position;
+        /** The first reference index the object would define. */
+        private final int firstRef;
+        /**
+         * The object when it has been decoded. This is volatile so that
+         * a thread finding it set may use it without the lock.
+         */
+        private volatile Object value;
+
+        Deferred(BytesReader source, int position, int firstRef) {
+            this.source = source;
+            this.position = position;
+            this.firstRef = firstRef;
+        }
+
+        /**
+         * Return the object, decoding it from the data the first time.
+         *
+         * @return the object
+         */
+        Object get() {
+            Object v = value;
+            if (v != null) { return v; }
+            // Decoding writes the shared list of references
+            synchronized (source.refs) {
+                if (value == null) {
+                    Reader r = new BytesReader(source, position, firstRef);
+                    value = r.readObject();
+                }
+                return value;
+            }
+        }
+
+        @Override
+        public PyCode code() { return (PyCode)get(); }
+    }
+
     /** {@link Codec} for several Python singletons. */
     private static class SingletonCodec implements Codec {
         private final int typeCode;
@@ -1182,10 +1578,13 @@ public class marshal /* extends JavaModule */ {
         public void write(Writer w, Object v)
                 throws IOException, Throwable {
             assert type().checkExact(v);
-            // May be Integer or BigInteger
+            // May be Integer, Long or BigInteger
             if (v instanceof Integer) {
                 w.writeByte(TYPE_INT);
                 w.writeInt(((Integer)v).intValue());
+            } else if (v instanceof Long) {
+                w.writeByte(TYPE_LONG);
+                w.writeBigInteger(BigInteger.valueOf((Long)v));
             } else {
                 w.writeByte(TYPE_LONG);
                 w.writeBigInteger((BigInteger)v);
@@ -1196,10 +1595,30 @@ public class marshal /* extends JavaModule */ {
         public Map<Integer, Decoder> decoders() {
             Map<Integer, Decoder> m = new HashMap<>();
             m.put(TYPE_INT, (r, ref) -> r.defineRef(r.readInt(), ref));
-            m.put(TYPE_LONG,
-                    (r, ref) -> r.defineRef(r.readBigInteger(), ref));
+            m.put(TYPE_LONG, (r, ref) -> r
+                    .defineRef(narrow(r.readBigInteger()), ref));
             return m;
         }
+
+        /**
+         * Reduce a {@code BigInteger} to {@code Integer} or
+         * {@code Long} if it fits, as the run-time does with the
+         * results it computes, so that a constant such as
+         * {@code 2**40} is represented as the same value computed
+         * would be.
+         *
+         * @param v to reduce
+         * @return equal value
+         */
+        private static Object narrow(BigInteger v) {
+            int n = v.bitLength();
+            if (n < 32)
+                return v.intValue();
+            else if (n < 64)
+                return v.longValue();
+            else
+                return v;
+        }
     }
 
     /** {@link Codec} for Python {@code float}. */
@@ -1330,14 +1749,11 @@ public class marshal /* extends JavaModule */ {
             return m;
         }
 
-        private static Charset ASCII = Charset.forName("ASCII");
         private static Charset UTF8 = Charset.forName("UTF-8");
 
         private static Object readAscii(Reader r, boolean ref, int n,
                 boolean interned) {
-            ByteBuffer buf = r.readByteBuffer(n);
-            CharBuffer cb = ASCII.decode(buf);
-            String s = cb.toString();
+            String s = r.readAscii(n);
             if (interned) { s = s.intern(); }
             return r.defineRef(s, ref);
         }
@@ -1530,10 +1946,17 @@ public class marshal /* extends JavaModule */ {
             return Map.of(TYPE_CODE, CodeCodec::read);
         }
 
-        private static CPython311Code read(Reader r, boolean ref) {
+        private static Object read(Reader r, boolean ref) {
+
+            // A code object nested in another may be deferred
+            if (r.codeDepth > 0 && r instanceof BytesReader br
+                    && br.lazyCode) {
+                return br.deferCode(ref);
+            }
 
             // Get an index now to ensure encounter-order numbering
             int idx = ref ? r.reserveRef() : -1;
+            r.codeDepth += 1;
 
             int argcount = r.readInt();
             int posonlyargcount = r.readInt();
@@ -1555,6 +1978,7 @@ public class marshal /* extends JavaModule */ {
             int firstlineno = r.readInt();
             Object linetable = r.readObject();
             Object exceptiontable = r.readObject();
+            r.codeDepth -= 1;
 
             // PySys_Audit("code.__new__", blah ...);
 
@@ -1601,6 +2025,9 @@ public class marshal /* extends JavaModule */ {
                 Object obj = r.refs.get(idx);
                 if (obj == null) {
                     throw Reader.nullObject("object ref");
+                } else if (obj instanceof Deferred d) {
+                    // The object was skipped: decode it now
+                    obj = d.get();
                 }
                 return obj;
             } catch (IndexOutOfBoundsException iobe) {
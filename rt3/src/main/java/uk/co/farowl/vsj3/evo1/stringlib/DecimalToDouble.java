@@ -0,0 +1,333 @@
+// Copyright (c)2021 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1.stringlib;
+
+import static java.lang.Math.multiplyHigh;
+
+import java.math.BigInteger;
+
+/**
+ * Conversion of text to a {@code double} following the syntax accepted
+ * by Python {@code float()}. The conversion proceeds by the fastest
+ * method able to produce a correctly rounded result:
+ * <ol>
+ * <li>When the significand and power of ten are both exactly
+ * representable, by a single floating multiplication or division
+ * (Clinger's fast path).</li>
+ * <li>When there are at most 19 significant digits, by the
+ * Eisel-Lemire algorithm, which uses a table of 128-bit approximations
+ * to powers of five.</li>
+ * <li>Otherwise (long inputs and rare undecidable cases), by
+ * {@link Double#parseDouble(String)}.</li>
+ * </ol>
+ * Surrounding white space, underscores between digits (PEP 515),
+ * non-ASCII decimal digits and the case-insensitive names {@code inf},
+ * {@code infinity} and {@code nan} are accepted as in CPython.
+ */
+public final class DecimalToDouble {
+
+    /** Range of powers of ten in the Eisel-Lemire table. */
+    private static final int Q_MIN = -342, Q_MAX = 308;
+
+    /** Range of powers of ten that may need round-half-even. */
+    private static final int Q_MIN_EVEN = -4, Q_MAX_EVEN = 23;
+
+    /**
+     * 128-bit approximations to 5<sup>q</sup>, normalised so the most
+     * significant bit is set: the high words indexed by {@code q-Q_MIN}.
+     */
+    private static final long[] POW5_HI = new long[Q_MAX - Q_MIN + 1];
+    /** The corresponding low words. */
+    private static final long[] POW5_LO = new long[Q_MAX - Q_MIN + 1];
+
+    static {
+        BigInteger FIVE = BigInteger.valueOf(5);
+        for (int q = Q_MIN; q <= Q_MAX; q++) {
+            BigInteger c;
+            if (q < 0) {
+                // Rounded-up reciprocal, truncated to 128 bits
+                BigInteger p = FIVE.pow(-q);
+                int z = p.bitLength();
+                int b = q >= -27 ? z + 127 : 2 * z + 128;
+                c = BigInteger.ONE.shiftLeft(b).divide(p)
+                        .add(BigInteger.ONE);
+            } else {
+                c = FIVE.pow(q);
+            }
+            // Align the most significant bit with bit 127 (truncating)
+            c = c.shiftLeft(128 - c.bitLength());
+            POW5_HI[q - Q_MIN] = c.shiftRight(64).longValue();
+            POW5_LO[q - Q_MIN] = c.longValue();
+        }
+    }
+
+    /** Exact powers of ten as {@code double} for the fast path. */
+    private static final double[] POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5,
+            1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+            1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    /** Most significant digits we can hold in a {@code long}. */
+    private static final int MAX_DIGITS = 19;
+
+    private DecimalToDouble() {}
+
+    /**
+     * Convert text to a {@code double} according to the syntax of
+     * Python {@code float()}.
+     *
+     * @param s to convert
+     * @return the correctly rounded value
+     * @throws NumberFormatException if {@code s} is not a valid literal
+     */
+    public static double parse(CharSequence s)
+            throws NumberFormatException {
+
+        int p = 0, end = s.length();
+
+        // Trim surrounding white space
+        while (p < end && isSpace(s.charAt(p))) { p++; }
+        while (end > p && isSpace(s.charAt(end - 1))) { end--; }
+
+        boolean negative = false;
+        if (p < end) {
+            char c = s.charAt(p);
+            if (c == '-' || c == '+') {
+                negative = c == '-';
+                p++;
+            }
+        }
+        int start = p;
+
+        /*
+         * Significand: accumulate up to MAX_DIGITS significant digits.
+         * w is unsigned, since 19 digits may exceed Long.MAX_VALUE.
+         */
+        long w = 0;
+        int nDigits = 0, nSignificant = 0, exp10 = 0;
+        boolean truncated = false, seenPoint = false;
+        char prev = 0;
+
+        for (; p < end; p++) {
+            char c = s.charAt(p);
+            int d = digit(c);
+            if (d >= 0) {
+                nDigits++;
+                if (nSignificant < MAX_DIGITS) {
+                    if (w != 0 || d != 0) {
+                        w = 10 * w + d;
+                        nSignificant++;
+                    }
+                    if (seenPoint) { exp10--; }
+                } else {
+                    // Digit beyond those we can hold
+                    if (d != 0) { truncated = true; }
+                    if (!seenPoint) { exp10++; }
+                }
+            } else if (c == '_') {
+                // Only between digits
+                if (digit(prev) < 0 || p + 1 >= end
+                        || digit(s.charAt(p + 1)) < 0) {
+                    throw invalid(s);
+                }
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+            prev = c;
+        }
+
+        if (nDigits == 0) {
+            // Not a number, unless it is one of the special names
+            if (seenPoint) { throw invalid(s); }
+            return special(s, p, end, negative);
+        }
+
+        // Optional exponent
+        if (p < end) {
+            char c = s.charAt(p++);
+            if (c != 'e' && c != 'E') { throw invalid(s); }
+            boolean negExp = false;
+            if (p < end) {
+                c = s.charAt(p);
+                if (c == '-' || c == '+') {
+                    negExp = c == '-';
+                    p++;
+                }
+            }
+            int e = 0, expDigits = 0;
+            prev = 0;
+            for (; p < end; p++) {
+                c = s.charAt(p);
+                int d = digit(c);
+                if (d >= 0) {
+                    // Saturate: beyond this the result is 0 or inf
+                    if (e < 100_000) { e = 10 * e + d; }
+                    expDigits++;
+                } else if (c == '_' && digit(prev) >= 0 && p + 1 < end
+                        && digit(s.charAt(p + 1)) >= 0) {
+                    // Permitted underscore
+                } else {
+                    throw invalid(s);
+                }
+                prev = c;
+            }
+            if (expDigits == 0) { throw invalid(s); }
+            exp10 += negExp ? -e : e;
+        }
+
+        double v;
+        if (!truncated) {
+            v = fastPath(w, exp10);
+            if (v < 0.0) {
+                v = eiselLemire(w, exp10);
+                // NaN signals the algorithm was unable to decide
+                if (v != v) { v = fallback(s, start, end); }
+            }
+        } else {
+            v = fallback(s, start, end);
+        }
+        return negative ? -v : v;
+    }
+
+    /**
+     * Clinger's fast path: when {@code w} and {@code 10}<sup>q</sup>
+     * are exact as {@code double}s, one correctly-rounded operation
+     * gives the correctly-rounded result.
+     *
+     * @param w significand
+     * @param q power of ten
+     * @return the value or -1.0 if the fast path does not apply
+     */
+    private static double fastPath(long w, int q) {
+        if (0 <= w && w <= 1L << 53 && -22 <= q && q <= 22) {
+            double d = w;
+            return q < 0 ? d / POW10[-q] : d * POW10[q];
+        }
+        return -1.0;
+    }
+
+    /**
+     * The Eisel-Lemire algorithm for {@code w×10}<sup>q</sup> where
+     * {@code w} has at most 19 digits.
+     *
+     * @param w significand
+     * @param q power of ten
+     * @return the value or NaN if it cannot be decided this way
+     */
+    private static double eiselLemire(long w, int q) {
+        if (w == 0 || q < Q_MIN) {
+            return 0.0;
+        } else if (q > Q_MAX) { return Double.POSITIVE_INFINITY; }
+
+        int lz = Long.numberOfLeadingZeros(w);
+        w <<= lz;
+
+        // 128-bit product of w and (the high word of) 5^q
+        int index = q - Q_MIN;
+        long hi = unsignedMultiplyHigh(w, POW5_HI[index]);
+        long lo = w * POW5_HI[index];
+        if ((hi & 0x1FF) == 0x1FF) {
+            // The result may depend on the low word of 5^q
+            long hi2 = unsignedMultiplyHigh(w, POW5_LO[index]);
+            lo += hi2;
+            if (Long.compareUnsigned(hi2, lo) > 0) { hi++; }
+            if (lo == -1L && (q < -27 || q > 55)) { return Double.NaN; }
+        }
+
+        int upperbit = (int)(hi >>> 63);
+        int shift = upperbit + 64 - 52 - 3;
+        long m = hi >>> shift;
+        int power2 = (((152170 + 65536) * q) >> 16) + 63 + upperbit - lz
+                + 1023;
+
+        if (power2 <= 0) {
+            // Subnormal (or zero) result
+            if (-power2 + 1 >= 64) { return 0.0; }
+            m >>>= -power2 + 1;
+            m += m & 1;
+            m >>>= 1;
+            power2 = m < 1L << 52 ? 0 : 1;
+            return Double.longBitsToDouble((long)power2 << 52 | m);
+        }
+
+        // Exactly half way: round half even instead of up
+        if (Long.compareUnsigned(lo, 1) <= 0 && q >= Q_MIN_EVEN
+                && q <= Q_MAX_EVEN && (m & 3) == 1
+                && (m << shift) == hi) {
+            m &= ~1L;
+        }
+
+        m += m & 1;
+        m >>>= 1;
+        if (m >= 2L << 52) {
+            m = 1L << 52;
+            power2++;
+        }
+        m &= ~(1L << 52);
+        if (power2 >= 0x7FF) { return Double.POSITIVE_INFINITY; }
+        return Double.longBitsToDouble((long)power2 << 52 | m);
+    }
+
+    /** Unsigned high word of the 128-bit product {@code a×b}. */
+    private static long unsignedMultiplyHigh(long a, long b) {
+        return multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+    }
+
+    /**
+     * Parse the special names {@code inf}, {@code infinity} and
+     * {@code nan} (case-insensitive) occupying {@code s[p:end]}.
+     */
+    private static double special(CharSequence s, int p, int end,
+            boolean negative) throws NumberFormatException {
+        String name = s.subSequence(p, end).toString();
+        if (name.equalsIgnoreCase("inf")
+                || name.equalsIgnoreCase("infinity")) {
+            return negative ? Double.NEGATIVE_INFINITY
+                    : Double.POSITIVE_INFINITY;
+        } else if (name.equalsIgnoreCase("nan")) {
+            return Double.NaN;
+        }
+        throw invalid(s);
+    }
+
+    /**
+     * Slow but always correct conversion of the (already validated)
+     * unsigned text in {@code s[start:end]}, removing underscores and
+     * translating non-ASCII digits.
+     */
+    private static double fallback(CharSequence s, int start, int end) {
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int p = start; p < end; p++) {
+            char c = s.charAt(p);
+            int d = digit(c);
+            if (d >= 0) {
+                sb.append((char)('0' + d));
+            } else if (c != '_') {
+                sb.append(c);
+            }
+        }
+        return Double.parseDouble(sb.toString());
+    }
+
+    /** Decimal value of a character or -1 if it is not a digit. */
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c < 128) {
+            return -1;
+        } else {
+            return Character.digit(c, 10);
+        }
+    }
+
+    /** Whether a character is white space to Python. */
+    private static boolean isSpace(char c) {
+        return Character.isWhitespace(c) || Character.isSpaceChar(c)
+                || c == 0x0085;
+    }
+
+    private static NumberFormatException invalid(CharSequence s) {
+        return new NumberFormatException(s.toString());
+    }
+}
@@ -0,0 +1,319 @@
+// Copyright (c)2021 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1.stringlib;
+
+import static java.lang.Math.multiplyHigh;
+
+import java.math.BigInteger;
+
+/**
+ * Conversion of a {@code double} to the shortest decimal that rounds
+ * back to it, in the manner of {@code float.__repr__}. The algorithm is
+ * Raffaello Giulietti's "Schubfach", which computes the shortest
+ * correctly-rounded decimal in a fixed number of 64-bit integer
+ * operations, using a table of 128-bit approximations to powers of 10.
+ * <p>
+ * Java's own {@link Double#toString(double)} (before Java 19) sometimes
+ * produces more digits than necessary, and in any case uses a different
+ * layout from Python, so that {@link FloatFormatter} has had to re-scan
+ * and round its output. This class produces the Python {@code repr}
+ * directly and is the default for {@code float.__repr__} and
+ * {@code float.__str__}. {@link FloatFormatter} remains responsible
+ * for explicit format specifications, but uses this class for the
+ * digits of its {@code 'r'} format.
+ */
+public final class DoubleToDecimal {
+
+    /** Precision of a {@code double} in bits (including hidden bit). */
+    private static final int P = 53;
+    /** Mask for the biased exponent. */
+    private static final int BQ_MASK = 0x7ff;
+    /** Mask for the trailing significand. */
+    private static final long T_MASK = (1L << P - 1) - 1;
+    /** Minimum exponent of the unit in the last place. */
+    private static final int Q_MIN = -1074;
+    /** Smallest normal significand. */
+    private static final long C_MIN = 1L << P - 1;
+    /** Range of the decimal exponent {@code k} used in the table. */
+    private static final int K_MIN = -324, K_MAX = 292;
+    /** Mask for the low 63 bits of a {@code long}. */
+    private static final long MASK_63 = (1L << 63) - 1;
+
+    /**
+     * High 63 bits {@code g1} of the 126-bit approximations {@code g}
+     * to {@code 10}<sup>{@code -k}</sup>, indexed by {@code k-K_MIN}.
+     */
+    private static final long[] G1 = new long[K_MAX - K_MIN + 1];
+    /** Corresponding low 63 bits {@code g0}. */
+    private static final long[] G0 = new long[K_MAX - K_MIN + 1];
+
+    static {
+        /*
+         * Let 10^-k = β 2^r with 2^125 <= β < 2^126, so that r =
+         * flog2pow10(-k) - 125, and g = floor(β) + 1.
+         */
+        BigInteger TEN = BigInteger.TEN;
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            int e = 125 - flog2pow10(-k);
+            BigInteger g;
+            if (k <= 0) {
+                BigInteger p = TEN.pow(-k);
+                g = e >= 0 ? p.shiftLeft(e) : p.shiftRight(-e);
+            } else {
+                g = BigInteger.ONE.shiftLeft(e).divide(TEN.pow(k));
+            }
+            g = g.add(BigInteger.ONE);
+            G1[k - K_MIN] = g.shiftRight(63).longValue();
+            G0[k - K_MIN] = g.longValue() & MASK_63;
+        }
+    }
+
+    /** Significand of the decimal result (set by the conversion). */
+    private long f;
+    /** Exponent of the decimal result (set by the conversion). */
+    private int e;
+
+    private DoubleToDecimal() {}
+
+    /**
+     * Return the Python {@code repr} of a {@code double}, that is, the
+     * shortest decimal that rounds to the value, laid out in fixed
+     * notation if the decimal exponent {@code x} (of the leading digit)
+     * satisfies {@code -4 <= x < 16}, and in exponential notation
+     * otherwise.
+     *
+     * @param v to convert
+     * @return {@code repr(v)}
+     */
+    public static String repr(double v) {
+        if (Double.isNaN(v)) {
+            return "nan";
+        } else if (Double.isInfinite(v)) {
+            return v > 0 ? "inf" : "-inf";
+        } else if (v == 0.0) {
+            return Double.doubleToRawLongBits(v) == 0L ? "0.0" : "-0.0";
+        }
+
+        DoubleToDecimal d = new DoubleToDecimal();
+        d.toDecimal(Math.abs(v));
+        d.removeTrailingZeros();
+
+        // Digits of f, most significant first
+        char[] digits = new char[17];
+        int n = d.toDigits(digits);
+        // Decimal exponent of the leading digit
+        int x = d.e + n - 1;
+
+        StringBuilder sb = new StringBuilder(26);
+        if (v < 0) { sb.append('-'); }
+
+        if (-4 <= x && x < 16) {
+            if (x < 0) {
+                // 0.000ddd
+                sb.append("0.");
+                for (int i = -1; i > x; --i) { sb.append('0'); }
+                sb.append(digits, 0, n);
+            } else if (n <= x + 1) {
+                // ddd000.0
+                sb.append(digits, 0, n);
+                for (int i = n; i <= x; i++) { sb.append('0'); }
+                sb.append(".0");
+            } else {
+                // ddd.ddd
+                sb.append(digits, 0, x + 1).append('.')
+                        .append(digits, x + 1, n - x - 1);
+            }
+        } else {
+            // d.ddde+xx
+            sb.append(digits[0]);
+            if (n > 1) { sb.append('.').append(digits, 1, n - 1); }
+            sb.append(x < 0 ? "e-" : "e+");
+            int ax = Math.abs(x);
+            if (ax < 10) { sb.append('0'); }
+            sb.append(ax);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Append to a buffer the digits of the shortest decimal that rounds
+     * to the given positive, finite, non-zero {@code double}, without
+     * trailing zeros, and return the decimal exponent of the first
+     * digit. That is, if the buffer receives {@code ddd}, the value is
+     * {@code d.dd × 10}<sup>{@code exp}</sup>.
+     *
+     * @param v to convert ({@code v > 0} and finite)
+     * @param buf to receive the digits
+     * @return the exponent {@code exp}
+     */
+    static int shortestDigits(double v, StringBuilder buf) {
+        assert v > 0 && v < Double.POSITIVE_INFINITY;
+        DoubleToDecimal d = new DoubleToDecimal();
+        d.toDecimal(v);
+        d.removeTrailingZeros();
+        char[] digits = new char[17];
+        int n = d.toDigits(digits);
+        buf.append(digits, 0, n);
+        return d.e + n - 1;
+    }
+
+    /**
+     * Compute the shortest decimal {@code f×10}<sup>{@code e}</sup> for
+     * a positive finite non-zero {@code double}, leaving the result in
+     * {@link #f} and {@link #e}.
+     *
+     * @param v to convert
+     */
+    private void toDecimal(double v) {
+        long bits = Double.doubleToRawLongBits(v);
+        long t = bits & T_MASK;
+        int bq = (int)(bits >>> P - 1) & BQ_MASK;
+        if (bq != 0) {
+            // Normal value: here mq = -q
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+            // Fast path for integer values
+            if (0 < mq && mq < P) {
+                long fi = c >> mq;
+                if (fi << mq == c) {
+                    f = fi;
+                    e = 0;
+                    return;
+                }
+            }
+            toDecimal(-mq, c);
+        } else {
+            // Subnormal value
+            toDecimal(Q_MIN, t);
+        }
+    }
+
+    /**
+     * The core of the Schubfach algorithm for the value
+     * {@code c×2}<sup>{@code q}</sup>.
+     *
+     * @param q binary exponent
+     * @param c binary significand
+     */
+    private void toDecimal(int q, long c) {
+        int out = (int)c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != C_MIN | q == Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            // Rounding interval is asymmetric at a power of 2
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+
+        long g1 = G1[k - K_MIN];
+        long g0 = G0[k - K_MIN];
+
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s < 100) {
+            /*
+             * Only the smallest subnormals get here. Schubfach proper
+             * only looks for a result one digit shorter than s, which
+             * is not enough for the shortest repr, so we seek the
+             * closest multiple of 100 or 10 in the rounding interval.
+             */
+            for (long p = 100; p >= 10; p /= 10) {
+                long u = s / p * p, w = u + p;
+                boolean uin = vbl + out <= u << 2;
+                boolean win = (w << 2) + out <= vbr;
+                if (uin || win) {
+                    long cmp = vb - (u + w << 1);
+                    f = uin && (!win || cmp < 0
+                            || cmp == 0 && (u / p & 0x1) == 0) ? u : w;
+                    e = k;
+                    return;
+                }
+            }
+        } else {
+            // Try for a result one digit shorter: sp10 = 10 floor(s/10)
+            long sp10 = 10 * multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                f = upin ? sp10 : tp10;
+                e = k;
+                return;
+            }
+        }
+
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            f = uin ? s : t;
+        } else {
+            // Both or neither in the interval: choose the closer
+            long cmp = vb - (s + t << 1);
+            f = cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t;
+        }
+        e = k;
+    }
+
+    /** Remove trailing decimal zeros from {@link #f}. */
+    private void removeTrailingZeros() {
+        while (f % 10 == 0) {
+            f /= 10;
+            e += 1;
+        }
+    }
+
+    /**
+     * Write the digits of {@link #f} to the start of an array.
+     *
+     * @param digits to receive the digits
+     * @return the number of digits written
+     */
+    private int toDigits(char[] digits) {
+        int n = 1;
+        for (long p = 10; n < 17 && p <= f; p *= 10) { n++; }
+        long r = f;
+        for (int i = n - 1; i >= 0; --i) {
+            digits[i] = (char)('0' + (int)(r % 10));
+            r /= 10;
+        }
+        return n;
+    }
+
+    /**
+     * Rounding to odd of the 128-bit product {@code g×cp}, scaled by
+     * 2<sup>-127</sup>.
+     */
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    /** {@code floor(e log}<sub>10</sub>{@code 2)} for small |e|. */
+    private static int flog10pow2(int e) {
+        return (int)(e * 661_971_961_083L >> 41);
+    }
+
+    /** {@code floor(log}<sub>10</sub>{@code (3/4 × 2}<sup>e</sup>)). */
+    private static int flog10threeQuartersPow2(int e) {
+        return (int)(e * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+
+    /** {@code floor(e log}<sub>2</sub>{@code 10)} for small |e|. */
+    private static int flog2pow10(int e) {
+        return (int)(e * 913_124_641_741L >> 38);
+    }
+}
@@ -654,11 +654,10 @@ public abstract class FloatFormatter
 
     /**
      * Implementation of r-format ({@code float.__repr__}) that uses
-     * Java's {@link Double#toString(double)} to provide conversion and
-     * rounding. That method gives us almost what we need, but not quite
-     * (sometimes it yields 18 digits): here we always round to 17
-     * significant digits. Much of the formatting after conversion is
-     * shared with {@link #format_g(double, String, int, int, int)}.
+     * {@link DoubleToDecimal} to provide the shortest digit sequence
+     * that rounds back to the value. Much of the formatting after
+     * conversion is shared with
+     * {@link #format_g(double, String, int, int, int)}.
      * {@code minFracDigits} is consulted since while
      * {@code float.__repr__} truncates to one digit, within
      * {@code complex.__repr__} we truncate fully.
@@ -686,8 +685,8 @@ public abstract class FloatFormatter
         } else {
 
             /*
-             * Generate digit sequence (with no decimal point) with
-             * custom rounding.
+             * Generate the shortest digit sequence (with no decimal
+             * point) that reads back as the value.
              */
             StringBuilder pointlessBuffer = new StringBuilder(20);
             int exp = reprDigits(Math.abs(value), precision,
@@ -886,150 +885,26 @@ public abstract class FloatFormatter
 
     /**
      * Convert a double to digits and an exponent for use in
-     * {@code float.__repr__} (or r-format). This method takes advantage
-     * of (or assumes) a close correspondence between
-     * {@link Double#toString(double)} and Python
-     * {@code float.__repr__}. The correspondence appears to be exact,
-     * insofar as the Java method produces the minimal non-zero digit
-     * string. It mostly chooses the same number of digits (and the same
-     * digits) as the CPython repr, but in a few cases
-     * {@code Double.toString} produces more digits. This method
-     * truncates to the number {@code maxDigits}, which in practice is
-     * always 17.
+     * {@code float.__repr__} (or r-format). The digits are those of the
+     * shortest decimal that rounds to {@code value}, as computed by
+     * {@link DoubleToDecimal}. These are not truncated: a shortest
+     * decimal never has more than 17 digits, and callers always pass
+     * 17 as {@code maxDigits}, which is only asserted.
      *
      * @param value to convert
-     * @param maxDigits maximum number of digits to return in
-     *     {@code buf}.
+     * @param maxDigits digits the caller allows for in {@code buf}
+     *     (must be at least 17)
      * @param buf for digits of result (recommend size be 20)
      * @return the exponent
      */
     private static int reprDigits(double value, int maxDigits,
             StringBuilder buf) {
 
-        // Most of the work is done by Double.
-        String s = Double.toString(value);
-
-        // Variables for scanning the string
-        int p = 0, end = s.length(), first = 0, point = end, exp;
-        char c = 0;
-        boolean allZero = true;
-
-        // Scan whole part and fractional part digits
-        while (p < end) {
-            c = s.charAt(p++);
-            if (Character.isDigit(c)) {
-                if (allZero) {
-                    if (c != '0') {
-                        // This is the first non-zero digit.
-                        buf.append(c);
-                        allZero = false;
-                        // p is one *after* the first non-zero digit.
-                        first = p;
-                    }
-                    // Only seen zeros so far: do nothing.
-                } else {
-                    // We've started, so every digit counts.
-                    buf.append(c);
-                }
-
-            } else if (c == '.') {
-                /*
-                 * We remember this location (one *after* '.') to
-                 * calculate the exponent later.
-                 */
-                point = p;
-
-            } else {
-                // Something after the mantissa. (c=='E' we hope.)
-                break;
-            }
-        }
-
-        /*
-         * Possibly followed by an exponent. p has already advanced past
-         * the 'E'.
-         */
-        if (p < end && c == 'E') {
-            /*
-             * If there is an exponent, the mantissa must be in standard
-             * form: m.mmmm
-             */
-            assert point == first + 1;
-            exp = Integer.parseInt(s.substring(p));
-
-        } else {
-            /*
-             * Exponent is based on relationship of decimal point and
-             * first non-zero digit.
-             */
-            exp = point - first - 1;
-            /*
-             * But that's only correct when the point is to the right
-             * (or absent).
-             */
-            if (exp < 0) {
-                // The point is to the left of the first digit
-                exp += 1; // = -(first-point)
-            }
-        }
-
-        /*
-         * XXX This still does not round in all the cases it could. I
-         * think Java stops generating digits when the residual is <=
-         * ulp/2. This is to neglect the possibility that the extra
-         * ulp/2 (before it becomes a different double) could take us to
-         * a rounder numeral. To fix this, we could express ulp/2 as
-         * digits in the same scale as those in the buffer, and consider
-         * adding them. But Java's behaviour here is probably a
-         * manifestation of bug JDK-4511638.
-         */
-
-        // Sometimes the result is more digits than we want for repr.
-        if (buf.length() > maxDigits) {
-            /*
-             * Chop the trailing digits, remembering the most
-             * significant lost digit.
-             */
-            int d = buf.charAt(maxDigits);
-            buf.setLength(maxDigits);
-            /*
-             * We round half up. Not absolutely correct since Double has
-             * already rounded.
-             */
-            if (d >= '5') {
-                /*
-                 * Treat this as a "carry one" into the numeral
-                 * buf[0:maxDigits].
-                 */
-                for (p = maxDigits - 1; p >= 0; p--) {
-                    /*
-                     * Each pass of the loop does one carry from
-                     * buf[p+1] to buf[p].
-                     */
-                    d = buf.charAt(p) + 1;
-                    if (d <= '9') {
-                        // Carry propagation stops here.
-                        buf.setCharAt(p, (char)d);
-                        break;
-                    } else {
-                        // 9 + 1 -> 0 carry 1. Keep looping.
-                        buf.setCharAt(p, '0');
-                    }
-                }
-                if (p < 0) {
-                    /*
-                     * We fell off the bottom of the buffer with one
-                     * carry still to propagate. You may expect:
-                     * buf.insert(0, '1') here, but note that every
-                     * digit in buf[0:maxDigits] is currently '0', so
-                     * all we need is:
-                     */
-                    buf.setCharAt(0, '1');
-                    exp += 1;
-                }
-            }
-        }
+        // All the work is done by the shortest-decimal conversion.
+        int exp = DoubleToDecimal.shortestDigits(value, buf);
 
+        // A shortest decimal never has more than 17 digits.
+        assert buf.length() <= maxDigits;
         return exp;
     }
 
@@ -0,0 +1,116 @@
+// Copyright (c)2021 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1.stringlib;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Conversion of text in a given radix to {@link BigInteger}, by
+ * divide-and-conquer. {@link BigInteger#BigInteger(String, int)} takes
+ * time quadratic in the number of digits, which makes the conversion
+ * of numbers with many thousands of digits expensive. Here we split
+ * the text at a power of the radix, convert the halves recursively and
+ * combine them with one multiplication, so that the cost is that of a
+ * few large multiplications (which {@code BigInteger} performs by
+ * sub-quadratic methods).
+ * <p>
+ * The opposite conversion needs no help: since Java 8,
+ * {@link BigInteger#toString(int)} divides recursively by cached
+ * powers of the radix in just this way.
+ * <p>
+ * The powers used in the split are
+ * <i>radix</i><sup>{@code CHUNK×2}<sup>i</sup></sup>, and are cached
+ * for each radix as they are computed.
+ */
+public final class RadixConversion {
+
+    /**
+     * The number of digits in the smallest power in the cache. Texts of
+     * up to twice this length are converted by {@code BigInteger}
+     * directly.
+     */
+    private static final int CHUNK = 256;
+
+    /**
+     * Cached powers of each radix: {@code POWERS[radix][i]} is
+     * <i>radix</i><sup>{@code CHUNK×2}<sup>i</sup></sup>. Each array
+     * is replaced when it has to grow. Guarded by the class lock.
+     */
+    private static final BigInteger[][] POWERS =
+            new BigInteger[Character.MAX_RADIX + 1][];
+
+    private RadixConversion() {}
+
+    /**
+     * Convert a sequence of digits in the given radix to a
+     * {@code BigInteger}. The text must consist only of ASCII digits
+     * and letters valid in the radix: there is no sign, space or
+     * separator.
+     *
+     * @param digits to convert
+     * @param radix of the digits (2 to 36)
+     * @return the value
+     * @throws NumberFormatException if a character is not a valid digit
+     */
+    public static BigInteger parse(CharSequence digits, int radix)
+            throws NumberFormatException {
+        return parse(digits, 0, digits.length(), radix);
+    }
+
+    /**
+     * Convert {@code digits[start:end]} to a {@code BigInteger}.
+     *
+     * @param digits to convert
+     * @param start index of first digit
+     * @param end index after last digit
+     * @param radix of the digits
+     * @return the value
+     * @throws NumberFormatException if a character is not a valid digit
+     */
+    private static BigInteger parse(CharSequence digits, int start,
+            int end, int radix) throws NumberFormatException {
+        int n = end - start;
+        if (n <= 2 * CHUNK) {
+            // Small enough for BigInteger to deal with
+            return new BigInteger(
+                    digits.subSequence(start, end).toString(), radix);
+        } else {
+            // Split off the largest cached power fewer than n digits
+            int i = 0;
+            while ((CHUNK << (i + 1)) < n) { i++; }
+            int split = end - (CHUNK << i);
+            BigInteger high = parse(digits, start, split, radix);
+            BigInteger low = parse(digits, split, end, radix);
+            return high.multiply(power(radix, i)).add(low);
+        }
+    }
+
+    /**
+     * Return <i>radix</i><sup>{@code CHUNK×2}<sup>i</sup></sup> from
+     * the cache, extending the cache if necessary.
+     *
+     * @param radix of the power
+     * @param i index of the power
+     * @return the power
+     */
+    private static synchronized BigInteger power(int radix, int i) {
+        BigInteger[] powers = POWERS[radix];
+        if (powers == null || i >= powers.length) {
+            int k;
+            if (powers == null) {
+                powers = new BigInteger[i + 1];
+                powers[0] = BigInteger.valueOf(radix).pow(CHUNK);
+                k = 1;
+            } else {
+                k = powers.length;
+                powers = Arrays.copyOf(powers, i + 1);
+            }
+            for (; k <= i; k++) {
+                powers[k] = powers[k - 1].multiply(powers[k - 1]);
+            }
+            POWERS[radix] = powers;
+        }
+        return powers[i];
+    }
+}
@@ -85,6 +85,15 @@ class PyLongMethods {
         }
     }
 
+    static Object __lshift__(Long v, Object w) {
+        if (v == 0L) {
+            return 0;
+        } else {
+            BigInteger vv = BigInteger.valueOf(v.longValue());
+            return __lshift__(vv, w);
+        }
+    }
+
     static Object __lshift__(Integer v, Object w) {
         if (v == 0) {
             return 0;
@@ -129,6 +138,15 @@ class PyLongMethods {
         }
     }
 
+    static Object __rshift__(Long v, Object w) {
+        try {
+            // Shifting a long right by 63 or more leaves only the sign
+            return toInt(v >> Math.min(toShift(w), 63));
+        } catch (NoConversion e) {
+            return Py.NotImplemented;
+        }
+    }
+
     static Object __rshift__(Integer v, Object w) {
         if (v == 0) {
             return 0;
@@ -171,6 +189,8 @@ class PyLongMethods {
         // Check against supported types, most likely first
         if (v instanceof Integer)
             return BigInteger.valueOf(((Integer) v).longValue());
+        else if (v instanceof Long)
+            return BigInteger.valueOf(((Long) v).longValue());
         else if (v instanceof BigInteger)
             return (BigInteger) v;
         else if (v instanceof PyLong)
@@ -182,9 +202,9 @@ class PyLongMethods {
     }
 
     /**
-     * Reduce a {@code BigInteger} result to {@code Integer} if
-     * possible. This makes it more likely the next operation will be
-     * 32-bit.
+     * Reduce a {@code BigInteger} result to {@code Integer} or
+     * {@code Long} if possible. This makes it more likely the next
+     * operation will be 32-bit, or at least 64-bit.
      * 
      * @param r to reduce
      * @return equal value
@@ -197,12 +217,50 @@ class PyLongMethods {
          * in JDK 11.0.9) doesn't recognise that it can be optimised
          * to a jump. This version of toInt() adds around 5ns.
          */
-        if (r.bitLength() < 32)
+        int n = r.bitLength();
+        if (n < 32)
             return r.intValue();
+        else if (n < 64)
+            return r.longValue();
+        else
+            return r;
+    }
+
+    /**
+     * Reduce a {@code long} result to {@code Integer} if possible, or
+     * otherwise box it as a {@code Long}. This makes it more likely the
+     * next operation will be 32-bit.
+     *
+     * @param r to reduce
+     * @return equal value
+     */
+    static Object toInt(long r) {
+        int s = (int) r;
+        if (s == r)
+            return s;
         else
             return r;
     }
 
+    /**
+     * The hash of a Python {@code int} held as a {@code long}. This
+     * must be the same as {@code BigInteger.hashCode()} for the same
+     * value, and therefore the same as {@code Integer.hashCode()} when
+     * the value is in range of an {@code int}, so that equal values
+     * hash equally whatever their representation.
+     *
+     * @param v to hash
+     * @return hash of {@code v}
+     */
+    static int hash(long v) {
+        // Magnitude as unsigned (even for Long.MIN_VALUE)
+        long m = Math.abs(v);
+        int hi = (int) (m >>> 32), lo = (int) m;
+        // BigInteger hashes its (big-endian) 32-bit words like a String
+        int h = hi == 0 ? lo : 31 * hi + lo;
+        return v < 0L ? -h : h;
+    }
+
     /**
      * Convert a Python {@code object} to a Java {@code int} suitable as
      * a shift distance. Negative values are a {@link ValueError}, while
@@ -228,8 +286,17 @@ class PyLongMethods {
     }
 
     /** 2**31 aka Integer.MIN_VALUE / -1, which Java can't do. */
-    private static BigInteger MINUS_INT_MIN =
-            BigInteger.valueOf(-(long)Integer.MIN_VALUE);
+    private static Long MINUS_INT_MIN = -(long)Integer.MIN_VALUE;
+
+    /** 2**63 aka Long.MIN_VALUE / -1, which Java can't do. */
+    private static BigInteger MINUS_LONG_MIN =
+            BigInteger.valueOf(Long.MIN_VALUE).negate();
+
+    /**
+     * Largest magnitude of {@code long} that converts exactly to
+     * {@code double} (2**53).
+     */
+    private static final long EXACT_DOUBLE_LONG = 1L << 53;
 
     /**
      * Convenience function to create a {@link ZeroDivisionError}.
@@ -345,6 +412,44 @@ class PyLongMethods {
         }
     }
 
+    /**
+     * Divide x by y with integer result, following the Python sign
+     * convention. (See {@link #divide(int, int)}.) Java
+     * {@code Math.floorDiv} follows the same convention, except that
+     * it overflows silently for {@code Long.MIN_VALUE // -1}, where we
+     * throw {@code ArithmeticException} so the caller may fall back to
+     * {@code BigInteger}.
+     *
+     * @param x dividend
+     * @param y divisor
+     * @return quotient
+     * @throws ArithmeticException if the quotient overflows
+     */
+    static long divide(long x, long y) throws ArithmeticException {
+        if (y == 0L)
+            throw zeroDivisionError();
+        else if (y == -1L)
+            return Math.negateExact(x);
+        else
+            return Math.floorDiv(x, y);
+    }
+
+    /**
+     * {@code x mod y} with {@code long} arguments, following the Python
+     * sign convention. (See {@link #modulo(int, int)}.) Java
+     * {@code Math.floorMod} follows the same convention.
+     *
+     * @param x dividend
+     * @param y divisor
+     * @return remainder
+     */
+    static long modulo(long x, long y) {
+        if (y == 0L)
+            throw zeroDivisionError();
+        else
+            return Math.floorMod(x, y);
+    }
+
     /**
      * Divide x by y with integer result, following the Python sign
      * convention. The convention makes sense taken together with that
@@ -438,6 +543,25 @@ class PyLongMethods {
         }
     }
 
+    /**
+     * {@code divmod(x,y)} with {@code long} arguments, following the
+     * Python sign convention.
+     *
+     * @param x dividend
+     * @param y divisor
+     * @return quotient and remainder
+     */
+    static PyTuple divmod(long x, long y) {
+        if (y == 0L) {
+            throw zeroDivisionError();
+        } else if (y == -1L && x == Long.MIN_VALUE) {
+            return Py.tuple(MINUS_LONG_MIN, 0);
+        } else {
+            long q = Math.floorDiv(x, y);
+            return Py.tuple(toInt(q), toInt(x - q * y));
+        }
+    }
+
     /**
      * {@code divmod(x,y)} with {@code BigInteger} arguments, following
      * the Python sign convention.
@@ -451,6 +575,27 @@ class PyLongMethods {
         return Py.tuple(q, x.subtract(q.multiply(y)));
     }
 
+    /**
+     * Python true-division of {@code long} arguments. When both
+     * arguments are exactly representable as {@code double}, the
+     * hardware division is correctly rounded.
+     *
+     * @param x dividend
+     * @param y divisor
+     * @return quotient
+     */
+    static final double trueDivide(long x, long y) {
+        if (y == 0L) {
+            throw zeroDivisionError();
+        } else if (-EXACT_DOUBLE_LONG <= x && x <= EXACT_DOUBLE_LONG
+                && -EXACT_DOUBLE_LONG <= y && y <= EXACT_DOUBLE_LONG) {
+            return (double) x / (double) y;
+        } else {
+            return trueDivide(BigInteger.valueOf(x),
+                    BigInteger.valueOf(y));
+        }
+    }
+
     /**
      * Python true-division of {@code BigInteger} arguments.
      *
@@ -91,13 +91,18 @@ class AbstractNumberAPITest extends UnitTestSupport {
          * Assert that the argument is an {@code Integer} if it could be
          * so represented. (Simple unary operations may not normalise
          * this way, and none of them need to, but it is desirable if it
-         * may be done quickly.)
+         * may be done quickly.) A {@code Long} is acceptable outside
+         * the {@code Integer} range.
          *
          * @param result to test
          */
         static void assertRightSize(Object result) {
             boolean ok = result instanceof Integer;
-            if (!ok && result instanceof BigInteger) {
+            if (!ok && result instanceof Long) {
+                // Justify by being outside the Integer range
+                long r = (Long)result;
+                ok = r != (int)r;
+            } else if (!ok && result instanceof BigInteger) {
                 // Justify by being outside the Integer range
                 BigInteger r = (BigInteger)result;
                 ok = r.compareTo(INT_MIN) < 0
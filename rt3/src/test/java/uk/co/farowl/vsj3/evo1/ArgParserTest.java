@@ -386,6 +386,62 @@ class ArgParserTest {
             assertArrayEquals(expected, frame);
         }
 
+        /**
+         * A plan made for keywords binds them to the same slots as the
+         * general parse would.
+         */
+        @Test
+        void parses_planned_keywords() {
+            ArgParser.KeywordPlan plan =
+                    ap.keywordPlan(new String[] {"h", "e"});
+            Object[] stack = {10, 20, 30, 80, 50};
+
+            Object[] expected = new Object[] {10, 20, 30, 4, 50, 6, 77,
+                    80, 99, PyTuple.EMPTY, Py.dict()};
+
+            Object[] frame = new Object[names.length];
+            ap.parseToFrame(ap.new ArrayFrameWrapper(frame), stack, 0,
+                    stack.length, plan);
+            assertArrayEquals(expected, frame);
+        }
+
+        /**
+         * When more arguments are given by position than the plan
+         * allows for, the general parse takes over.
+         */
+        @Test
+        void planned_keywords_fall_back() {
+            ArgParser.KeywordPlan plan =
+                    ap.keywordPlan(new String[] {"h"});
+            Object[] stack = {1, 2, 3, 4, 5, 6, 7, 80};
+
+            Object[] expected = new Object[] {1, 2, 3, 4, 5, 6, 77, 80,
+                    99, Py.tuple(7), Py.dict()};
+
+            Object[] frame = new Object[names.length];
+            ap.parseToFrame(ap.new ArrayFrameWrapper(frame), stack, 0,
+                    stack.length, plan);
+            assertArrayEquals(expected, frame);
+
+            // e given by position and keyword
+            ArgParser.KeywordPlan plan2 =
+                    ap.keywordPlan(new String[] {"e"});
+            Object[] stack2 = {1, 2, 3, 4, 5, 50};
+            Object[] frame2 = new Object[names.length];
+            assertThrows(TypeError.class,
+                    () -> ap.parseToFrame(ap.new ArrayFrameWrapper(frame2),
+                            stack2, 0, stack2.length, plan2));
+        }
+
+        /** Only keywords naming distinct parameters can be planned. */
+        @Test
+        void plans_only_parameters() {
+            // Positional-only, unknown (for **kk) and repeated names
+            assertEquals(null, ap.keywordPlan(new String[] {"a"}));
+            assertEquals(null, ap.keywordPlan(new String[] {"zz"}));
+            assertEquals(null, ap.keywordPlan(new String[] {"e", "e"}));
+        }
+
         @Override
         @Test
         void has_expected_toString() {
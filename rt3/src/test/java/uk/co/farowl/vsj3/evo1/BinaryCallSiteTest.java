@@ -170,6 +170,46 @@ class BinaryCallSiteTest extends UnitTestSupport {
                 "fallback calls");
     }
 
+    /**
+     * Test invocation of a {@code __mul__} call site on {@code int}
+     * arguments where the result needs 64 bits, or more. A result that
+     * fits a Java {@code long} should be a {@code Long}, and one that
+     * overflows the {@code long} should be a {@code BigInteger}.
+     *
+     * @throws Throwable unexpectedly
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    void mul_long() throws Throwable {
+
+        // Bootstrap the call site
+        BinaryOpCallSite cs = new BinaryOpCallSite(Slot.op_mul);
+        MethodHandle invoker = cs.dynamicInvoker();
+
+        // Integer * Integer may overflow into a Long
+        Object r = invoker.invokeExact((Object)100_000, (Object)100_000);
+        assertEquals(Long.class, r.getClass());
+        assertEquals(10_000_000_000L, r);
+
+        // Long * Integer may stay a Long
+        Object v = 10_000_000_000L;
+        r = invoker.invokeExact(v, (Object)3);
+        assertEquals(Long.class, r.getClass());
+        assertEquals(30_000_000_000L, r);
+
+        // Long * Long may overflow into a BigInteger
+        r = invoker.invokeExact(v, v);
+        assertEquals(BigInteger.class, r.getClass());
+        assertEquals(BigInteger.TEN.pow(20), r);
+
+        // Long * BigInteger may shrink to an Integer
+        Object w = BigInteger.TEN.pow(10).negate();
+        r = invoker.invokeExact(v, w);
+        assertPythonEquals(BigInteger.TEN.pow(20).negate(), r);
+        r = invoker.invokeExact((Object)0L, w);
+        assertEquals(Integer.class, r.getClass());
+    }
+
     /**
      * Test invocation of a {@code __sub__} call site on mixed
      * {@code float} and {@code int} arguments. All combinations of the
@@ -362,9 +362,8 @@ class BuiltinsModuleTest extends UnitTestSupport {
             }
 
             @Override
-            Object eval() {
+            Object eval(ThreadState tstate) {
                 // This frame is loose: push onto stack
-                ThreadState tstate = ThreadState.get();
                 tstate.push(this);
                 try {
                     return func.code.body();
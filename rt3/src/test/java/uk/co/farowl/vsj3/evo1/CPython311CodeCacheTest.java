@@ -0,0 +1,141 @@
+// Copyright (c)2023 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.assertExpectedVariables;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.assertSameCode;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.pycPath;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.readCode;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.readResultDict;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Test that the {@link CPython311CodeCache} saves and restores code
+ * objects equivalent to those read by {@code marshal}, using the
+ * examples compiled for {@link CPython311CodeTest}.
+ */
+@DisplayName("The code cache")
+class CPython311CodeCacheTest extends UnitTestSupport {
+
+    /** A fresh directory for each test. */
+    private Path dir;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        dir = Files.createTempDirectory("CPython311CodeCacheTest");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        for (Path p : entries()) { Files.delete(p); }
+        Files.delete(dir);
+    }
+
+    @DisplayName("restores the code that it saves ...")
+    @ParameterizedTest(name = "{0}.py")
+    @ValueSource(strings = {"load_store_name", "binary_op",
+            "tuple_dot_product", "simple_loop", "function_def",
+            "function_closure", "function_locals", "int_constants"})
+    void restoresCode(String name) throws IOException {
+        CPython311CodeCache cache = new CPython311CodeCache(dir);
+        // The first load populates the cache
+        assertSameCode(readCode(name), cache.load(pycPath(name)));
+        assertEquals(1, entries().size());
+        // The second load is from the cache
+        assertSameCode(readCode(name), cache.load(pycPath(name)));
+        assertEquals(1, entries().size());
+    }
+
+    @DisplayName("restores code we can execute ...")
+    @ParameterizedTest(name = "{0}.py")
+    @ValueSource(strings = {"simple_if", "list_dot_product",
+            "function_call", "function_closure", "function_locals",
+            "int_constants"})
+    void executesCode(String name) {
+        CPython311CodeCache cache = new CPython311CodeCache(dir);
+        cache.load(pycPath(name));
+        CPython311Code code =
+                new CPython311CodeCache(dir).load(pycPath(name));
+        PyDict globals = new PyDict();
+        Interpreter interp = new Interpreter();
+        Object r = interp.eval(code, globals);
+        assertEquals(Py.None, r);
+        assertExpectedVariables(readResultDict(name), globals);
+    }
+
+    @Test
+    @DisplayName("restores int constants as marshal reads them")
+    void restoresIntRepresentation() throws IOException {
+        String name = "int_constants";
+        CPython311CodeCache cache = new CPython311CodeCache(dir);
+        cache.load(pycPath(name));
+        // An entry must exist, or the next load is not from the cache
+        assertEquals(1, entries().size());
+        Object[] expected = readCode(name).consts;
+        Object[] actual = new CPython311CodeCache(dir)
+                .load(pycPath(name)).consts;
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual[i]);
+            assertEquals(expected[i].getClass(), actual[i].getClass());
+        }
+        // The example has constants of each representation
+        List<Class<?>> classes = Arrays.stream(actual)
+                .map(Object::getClass).collect(Collectors.toList());
+        assertTrue(classes.contains(Integer.class));
+        assertTrue(classes.contains(Long.class));
+        assertTrue(classes.contains(BigInteger.class));
+    }
+
+    @Test
+    @DisplayName("ignores and replaces a damaged entry")
+    void replacesDamaged() throws IOException {
+        String name = "function_def";
+        CPython311CodeCache cache = new CPython311CodeCache(dir);
+        cache.load(pycPath(name));
+        Path entry = entries().get(0);
+        byte[] good = Files.readAllBytes(entry);
+        Files.write(entry, new byte[] {1, 2, 3});
+        assertSameCode(readCode(name), cache.load(pycPath(name)));
+        assertEquals(List.of(entry), entries());
+        assertEquals(good.length, Files.size(entry));
+    }
+
+    @Test
+    @DisplayName("names an entry by the SHA-256 digest of the file")
+    void keyIsDigest() throws Exception {
+        String name = "function_def";
+        new CPython311CodeCache(dir).load(pycPath(name));
+        byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(Files.readAllBytes(pycPath(name)));
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest) { hex.append(String.format("%02x", b)); }
+        assertEquals(hex + ".vsj311",
+                entries().get(0).getFileName().toString());
+    }
+
+    /** @return the files in the cache directory */
+    private List<Path> entries() throws IOException {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.collect(Collectors.toList());
+        }
+    }
+}
@@ -5,6 +5,7 @@ package uk.co.farowl.vsj3.evo1;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.BufferedInputStream;
@@ -13,6 +14,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -80,6 +82,81 @@ class CPython311CodeTest extends UnitTestSupport {
         assertPythonType(PyDict.TYPE, dict);
     }
 
+    @Test
+    @DisplayName("functions from one code object share its parser")
+    void sharedParser() throws Throwable {
+        CPython311Code bar = null;
+        for (Object c : readCode("function_def").co_consts()) {
+            if (c instanceof CPython311Code
+                    && ((CPython311Code)c).name.equals("bar")) {
+                bar = (CPython311Code)c;
+            }
+        }
+        assertNotNull(bar);
+
+        // def bar(a, b, c=3, *, d=4, e=5): return (a+b) * (c + d*e)
+        Interpreter interp = new Interpreter();
+        PyDict globals = new PyDict();
+        PyDict kw1 = new PyDict(), kw2 = new PyDict();
+        kw1.put("d", 4);
+        kw1.put("e", 5);
+        kw2.put("d", 1);
+        kw2.put("e", 1);
+        PyFunction<?> f1 = bar.createFunction(interp, globals,
+                new Object[] {3}, kw1, null, null);
+        PyFunction<?> f2 = bar.createFunction(interp, globals,
+                new Object[] {10}, kw2, null, null);
+
+        // Each function applies its own defaults
+        Object[] args = {1, 2};
+        assertEquals(69, Callables.call(f1, args, null));
+        assertEquals(33, Callables.call(f2, args, null));
+        f1.setDefaults(new PyTuple(0));
+        assertEquals(60, Callables.call(f1, args, null));
+        assertEquals(33, Callables.call(f2, args, null));
+
+        // The parser belongs to the code and has no defaults
+        assertTrue(!bar.argParser().hasDefaults());
+    }
+
+    @Test
+    @DisplayName("a keyword call site serves different functions")
+    void keywordCallSite() throws Throwable {
+        CPython311Code bar = null, baz = null;
+        for (Object c : readCode("function_def").co_consts()) {
+            if (c instanceof CPython311Code) {
+                CPython311Code code = (CPython311Code)c;
+                if (code.name.equals("bar")) { bar = code; }
+                if (code.name.equals("baz")) { baz = code; }
+            }
+        }
+
+        // bar(a, b, c=3, *, d=4, e=5) and baz(a, b, c=30, *aa, d=40, e=50)
+        Interpreter interp = new Interpreter();
+        PyDict globals = new PyDict();
+        PyDict kw = new PyDict();
+        kw.put("d", 4);
+        kw.put("e", 5);
+        PyFunction<?> f = bar.createFunction(interp, globals,
+                new Object[] {3}, kw, null, null);
+        PyFunction<?> g = baz.createFunction(interp, globals,
+                new Object[] {30}, null, null, null);
+
+        // As if f(1, 2, e=1) then g(1, 2, e=1) etc.
+        ThreadState ts = ThreadState.get();
+        CPython311Code.KeywordCallSite site =
+                new CPython311Code.KeywordCallSite(Py.tuple("e"));
+        Object[] stack = {1, 2, 1};
+        assertEquals(21, site.call(ts, f, stack, 0, 3));
+        // Missing d because g has no kwdefaults
+        assertThrows(TypeError.class,
+                () -> site.call(ts, g, stack, 0, 3));
+        assertEquals(21, site.call(ts, f, stack, 0, 3));
+        // e is not a parameter of a function with no keywords
+        assertThrows(TypeError.class,
+                () -> site.call(ts, PyLong.TYPE, stack, 0, 3));
+    }
+
     @DisplayNameGeneration(DisplayNameGenerator.Simple.class)
     static abstract class CodeAttributes {
         final String name;
@@ -357,6 +434,85 @@ class CPython311CodeTest extends UnitTestSupport {
         assertExpectedVariables(readResultDict(name), globals);
     }
 
+    /**
+     * Tests of programs that define functions, where marshal defers
+     * decoding the function bodies until they are needed.
+     *
+     * @param name of the Python example
+     */
+    @SuppressWarnings("static-method")
+    @DisplayName("We can execute with deferred nested code ...")
+    @ParameterizedTest(name = "{0}.py")
+    @ValueSource(strings = {"function_def", "function_call",
+            "function_closure", "function_locals"})
+    void executeLazy(String name) {
+        CPython311Code code = readCode(name, true);
+        PyDict globals = new PyDict();
+        Interpreter interp = new Interpreter();
+        Object r = interp.eval(code, globals);
+        assertEquals(Py.None, r);
+        assertExpectedVariables(readResultDict(name), globals);
+    }
+
+    /**
+     * Nested code objects read lazily are the same as those read
+     * eagerly, when they are eventually created.
+     *
+     * @param name of the Python example
+     */
+    @SuppressWarnings("static-method")
+    @DisplayName("Deferred nested code objects match ...")
+    @ParameterizedTest(name = "{0}.py")
+    @ValueSource(strings = {"function_def", "function_call",
+            "function_closure", "function_locals"})
+    void compareLazy(String name) {
+        CPython311Code lazy = readCode(name, true);
+        // Nested code is present in the constants only as placeholders
+        assertTrue(Arrays.stream(lazy.consts)
+                .anyMatch(c -> c instanceof PyCode.Deferred));
+        assertSameCode(readCode(name), lazy);
+    }
+
+    /**
+     * When a deferred nested code object is made into a function, the
+     * code object replaces the placeholder among the constants.
+     */
+    @Test
+    @DisplayName("MAKE_FUNCTION replaces deferred code in consts")
+    void makeFunctionResolvesLazy() {
+        String name = "function_def";
+        CPython311Code code = readCode(name, true);
+        new Interpreter().eval(code, new PyDict());
+        assertTrue(Arrays.stream(code.consts)
+                .noneMatch(c -> c instanceof PyCode.Deferred));
+        assertTrue(Arrays.stream(code.consts)
+                .anyMatch(c -> c instanceof CPython311Code));
+    }
+
+    /**
+     * Compare two code objects (and recursively the code among their
+     * constants) attribute by attribute.
+     *
+     * @param expected code
+     * @param actual code
+     */
+    static void assertSameCode(PyCode expected, PyCode actual) {
+        assertEquals(expected.name, actual.name);
+        assertEquals(expected.qualname, actual.qualname);
+        assertPythonEquals(expected.co_names(), actual.co_names());
+        assertPythonEquals(expected.co_varnames(), actual.co_varnames());
+        assertPythonEquals(expected.co_code(), actual.co_code());
+        PyTuple ec = expected.co_consts(), ac = actual.co_consts();
+        assertEquals(ec.size(), ac.size());
+        for (int i = 0; i < ec.size(); i++) {
+            if (ec.get(i) instanceof PyCode c) {
+                assertSameCode(c, (PyCode)ac.get(i));
+            } else {
+                assertPythonEquals(ec.get(i), ac.get(i));
+            }
+        }
+    }
+
     /**
      * A selection of other tests repeated with locals namespace
      * implemented as a custom type with {@code __setitem__} and
@@ -464,36 +620,53 @@ class CPython311CodeTest extends UnitTestSupport {
      * @return {@code code} object read in
      */
     static CPython311Code readCode(String progName) {
-        String name = progName + "." + CPYTHON_VER + "." + PYC_SUFFIX;
-        File f = PYC_DIR.resolve(name).toFile();
-        try (
-                FileInputStream fs = new FileInputStream(f);
-                BufferedInputStream s = new BufferedInputStream(fs);) {
-
-            // Wrap a marshal reader around the input stream
-            marshal.Reader reader = new marshal.StreamReader(s);
+        return readCode(progName, false);
+    }
 
-            // First 4 bytes is a magic header
-            int magic = reader.readShort();
-            int magic2 = reader.readShort();
-            boolean good = magic == MAGIC_NUMBER && magic2 == 0x0a0d;
+    /**
+     * Read a {@code code} object with {@code marshal}, as
+     * {@link #readCode(String)}, optionally deferring the decoding of
+     * nested code objects until they are needed.
+     *
+     * @param progName base name of program
+     * @param lazyCode if {@code true} defer nested code objects
+     * @return {@code code} object read in
+     */
+    static CPython311Code readCode(String progName, boolean lazyCode) {
+        Path pyc = pycPath(progName);
 
-            // Undocumented
-            for (int i = 0; i < 3; i++) { reader.readInt(); }
+        // Wrap a marshal reader around the (mapped) file
+        marshal.Reader reader =
+                marshal.BytesReader.fromFile(pyc, lazyCode);
 
-            // Next should be a code object
-            if (good) {
-                Object o = reader.readObject();
-                if (o instanceof PyCode) { return (CPython311Code)o; }
-            }
+        // First 4 bytes is a magic header
+        int magic = reader.readShort();
+        int magic2 = reader.readShort();
+        boolean good = magic == MAGIC_NUMBER && magic2 == 0x0a0d;
 
-            // Didn't return a code object
-            throw new InterpreterError("Not a CPython code object: %s",
-                    name);
+        // Undocumented
+        for (int i = 0; i < 3; i++) { reader.readInt(); }
 
-        } catch (IOException ioe) {
-            throw new InterpreterError(ioe);
+        // Next should be a code object
+        if (good) {
+            Object o = reader.readObject();
+            if (o instanceof PyCode) { return (CPython311Code)o; }
         }
+
+        // Didn't return a code object
+        throw new InterpreterError("Not a CPython code object: %s", pyc);
+    }
+
+    /**
+     * Return the path to the compiled form of an example program,
+     * being provided only the base name of the program.
+     *
+     * @param progName base name of program
+     * @return path to the {@code .pyc} file
+     */
+    static Path pycPath(String progName) {
+        return PYC_DIR
+                .resolve(progName + "." + CPYTHON_VER + "." + PYC_SUFFIX);
     }
 
     /**
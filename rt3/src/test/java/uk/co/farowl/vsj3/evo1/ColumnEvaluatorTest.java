@@ -0,0 +1,110 @@
+// Copyright (c)2023 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.readCode;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.readResultDict;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test that the {@link ColumnEvaluator} gives the same results as
+ * CPython calling the functions defined in
+ * {@code column_functions.py} row by row.
+ */
+@DisplayName("The column evaluator")
+class ColumnEvaluatorTest extends UnitTestSupport {
+
+    private static final String NAME = "column_functions";
+
+    private static final double[] XS = {0.25, 0.5, 0.75, 1.5};
+    private static final long[] NS = {2, 3, -1, 10_000_000_000L};
+    private static final String[] SS = {"a", "b", "c", "d"};
+
+    /** Results of the example module computed by CPython. */
+    private PyDict expected;
+
+    @BeforeEach
+    void readExpected() { expected = readResultDict(NAME); }
+
+    @Test
+    @DisplayName("evaluates a function of double and long")
+    void linear() {
+        ColumnEvaluator e = new ColumnEvaluator(function("linear"));
+        assertArrayEquals(expected("linear_r"), e.eval(XS, NS));
+    }
+
+    @Test
+    @DisplayName("evaluates a function to a double column")
+    void linearDouble() {
+        ColumnEvaluator e = new ColumnEvaluator(function("linear"));
+        double[] r = e.evalDouble(XS, NS);
+        Object[] x = expected("linear_r");
+        for (int i = 0; i < r.length; i++) { assertEquals(x[i], r[i]); }
+    }
+
+    @Test
+    @DisplayName("evaluates a function of String and double")
+    void label() {
+        ColumnEvaluator e = new ColumnEvaluator(function("label"));
+        Object[] r = e.eval(SS, XS);
+        Object[] x = expected("label_r");
+        for (int i = 0; i < r.length; i++) {
+            assertEquals(x[i].toString(), r[i].toString());
+        }
+    }
+
+    @Test
+    @DisplayName("evaluates a function with a nested function")
+    void scaled() {
+        ColumnEvaluator e = new ColumnEvaluator(function("scaled"));
+        assertArrayEquals(expected("scaled_r"), e.eval(XS, NS));
+    }
+
+    @Test
+    @DisplayName("checks the columns")
+    void checksColumns() {
+        ColumnEvaluator e = new ColumnEvaluator(function("linear"));
+        assertThrows(TypeError.class, () -> e.eval(XS));
+        assertThrows(TypeError.class, () -> e.eval(XS, "abc"));
+        assertThrows(ValueError.class,
+                () -> e.eval(XS, new long[] {1, 2}));
+        assertEquals(0, e.eval(new double[0], new long[0]).length);
+        assertThrows(TypeError.class, () -> new ColumnEvaluator(42));
+    }
+
+    /**
+     * Make a function from the code of the named function in the
+     * example module.
+     *
+     * @param name of the function
+     * @return the function
+     */
+    private static Object function(String name) {
+        for (Object c : readCode(NAME).co_consts()) {
+            if (c instanceof CPython311Code
+                    && ((CPython311Code)c).name.equals(name)) {
+                return new CPython311Function(new Interpreter(),
+                        (CPython311Code)c, new PyDict());
+            }
+        }
+        throw new AssertionError("no function " + name);
+    }
+
+    /**
+     * Get a tuple result computed by CPython as an array.
+     *
+     * @param name of the result
+     * @return the elements of the result
+     */
+    private Object[] expected(String name) {
+        return ((List<?>)expected.get(name)).toArray();
+    }
+}
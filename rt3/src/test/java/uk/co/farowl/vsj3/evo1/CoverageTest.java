@@ -0,0 +1,195 @@
+// Copyright (c)2023 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.readCode;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.readResultDict;
+
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test that {@link Coverage} reports the same lines executed as
+ * CPython traces for the function in {@code covered.py}, and the
+ * branches taken.
+ */
+@DisplayName("Coverage")
+class CoverageTest extends UnitTestSupport {
+
+    private static final String NAME = "covered";
+
+    /** Results of the example module computed by CPython. */
+    private PyDict expected;
+
+    /** Interpreter in which the function is defined. */
+    private Interpreter interp;
+
+    /** The function {@code classify} from the example. */
+    private PyFunction<?> classify;
+
+    /** The file name in the code of the example. */
+    private String filename;
+
+    @BeforeEach
+    void setUp() {
+        expected = readResultDict(NAME);
+        interp = new Interpreter();
+        PyDict globals = new PyDict();
+        for (Object c : readCode(NAME).co_consts()) {
+            if (c instanceof CPython311Code
+                    && ((CPython311Code)c).name.equals("classify")) {
+                CPython311Code code = (CPython311Code)c;
+                filename = code.filename;
+                classify = code.createFunction(interp, globals);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("reports the lines executed")
+    void executedLines() throws Throwable {
+        Coverage coverage = new Coverage();
+        interp.setCoverage(coverage);
+        assertEquals("positive", call(5));
+        interp.setCoverage(null);
+        assertEquals(expected("positive_lines"),
+                coverage.executedLines().get(filename));
+        assertEquals(expected("executable_lines"),
+                coverage.executableLines().get(filename));
+    }
+
+    @Test
+    @DisplayName("reports the branches taken")
+    void branches() throws Throwable {
+        Coverage coverage = new Coverage();
+        interp.setCoverage(coverage);
+        call(5);
+        List<Coverage.Branch> branches = coverage.branches();
+        assertEquals(2, branches.size());
+        for (Coverage.Branch b : branches) {
+            // Every condition was false
+            assertTrue(b.executed, b.toString());
+            assertFalse(b.fallThrough, b.toString());
+            assertTrue(b.jump, b.toString());
+        }
+
+        call(-1);
+        interp.setCoverage(null);
+        branches = coverage.branches();
+        Coverage.Branch first = branches.get(0), second = branches.get(1);
+        assertEquals(10, first.line);
+        assertTrue(first.fallThrough && first.jump);
+        assertEquals(12, second.line);
+        assertFalse(second.fallThrough);
+    }
+
+    @Test
+    @DisplayName("combines the lines executed by each thread")
+    void threads() throws Throwable {
+        Coverage coverage = new Coverage();
+        interp.setCoverage(coverage);
+        Thread t = new Thread(() -> {
+            try {
+                call(-1);
+            } catch (Throwable e) {
+                throw Abstract.asUnchecked(e);
+            }
+        });
+        t.start();
+        t.join();
+        call(0);
+        interp.setCoverage(null);
+        BitSet lines = expected("negative_lines");
+        lines.or(expected("zero_lines"));
+        assertEquals(lines, coverage.executedLines().get(filename));
+    }
+
+    @Test
+    @DisplayName("merges records and may be reset")
+    void mergeAndReset() throws Throwable {
+        Coverage coverage = new Coverage(), other = new Coverage();
+        interp.setCoverage(coverage);
+        call(5);
+        interp.setCoverage(other);
+        call(0);
+        interp.setCoverage(null);
+        coverage.merge(other);
+        BitSet lines = expected("positive_lines");
+        lines.or(expected("zero_lines"));
+        assertEquals(lines, coverage.executedLines().get(filename));
+
+        coverage.reset();
+        assertTrue(coverage.executedLines().get(filename).isEmpty());
+        assertTrue(coverage.executed(classify.code).isEmpty());
+    }
+
+    @Test
+    @DisplayName("reports nested code the loader deferred")
+    void deferredNested() throws Throwable {
+        // f1 makes f2 but does not call it, so f3 in f2 is not loaded
+        String name = "function_closure";
+        BitSet eager = closureLines(readCode(name));
+        BitSet lazy = closureLines(readCode(name, true));
+        assertEquals(eager, lazy);
+        // The first statement of f3
+        assertTrue(lazy.get(19));
+    }
+
+    /**
+     * Call {@code f1} from {@code function_closure.py} with coverage
+     * recorded, and return the executable lines reported.
+     *
+     * @param module code of {@code function_closure.py}
+     * @return executable lines
+     * @throws Throwable on errors
+     */
+    private static BitSet closureLines(CPython311Code module)
+            throws Throwable {
+        Interpreter interp = new Interpreter();
+        Object f1 = null;
+        for (Object c : module.co_consts()) {
+            if (c instanceof CPython311Code
+                    && ((CPython311Code)c).name.equals("f1")) {
+                f1 = ((CPython311Code)c).createFunction(interp,
+                        new PyDict());
+            }
+        }
+        Coverage coverage = new Coverage();
+        interp.setCoverage(coverage);
+        Callables.call(f1, new Object[] {2, 4, 1}, null);
+        interp.setCoverage(null);
+        return coverage.executableLines().get(module.filename);
+    }
+
+    /**
+     * Call {@code classify} with one argument.
+     *
+     * @param arg argument
+     * @return the result
+     * @throws Throwable on errors
+     */
+    private Object call(Object arg) throws Throwable {
+        return Callables.call(classify, new Object[] {arg}, null);
+    }
+
+    /**
+     * A tuple of line numbers computed by CPython as a set.
+     *
+     * @param name of the result
+     * @return the line numbers
+     */
+    private BitSet expected(String name) {
+        BitSet lines = new BitSet();
+        for (Object line : (List<?>)expected.get(name)) {
+            lines.set((Integer)line);
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,159 @@
+// Copyright (c)2023 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.assertExpectedVariables;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.readCode;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.readResultDict;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test that an {@link ExecutionBudget} stops code that exceeds it, and
+ * not code that does not.
+ */
+@DisplayName("An execution budget")
+class ExecutionBudgetTest extends UnitTestSupport {
+
+    private static final String NAME = "long_loop";
+
+    @Test
+    @DisplayName("allows code within the budget to complete")
+    void withinBudget() {
+        PyDict globals = new PyDict();
+        ExecutionBudget budget = new ExecutionBudget(200_000, null);
+        new Interpreter().eval(readCode(NAME), globals, null, budget);
+        assertExpectedVariables(readResultDict(NAME), globals);
+        // The loop took 99_999 backward jumps
+        long remaining = budget.remainingSteps();
+        assertTrue(remaining <= 200_000 - 99_999 + 1024);
+        assertTrue(remaining > 200_000 - 99_999);
+    }
+
+    @Test
+    @DisplayName("stops code that takes too many steps")
+    void stepsExhausted() {
+        PyDict globals = new PyDict();
+        ExecutionBudget budget = new ExecutionBudget(50_000, null);
+        assertThrows(KeyboardInterrupt.class, () -> new Interpreter()
+                .eval(readCode(NAME), globals, null, budget));
+        // It stopped exactly at the step limit
+        assertEquals(100_000 - 50_000, globals.get("n"));
+        assertEquals(0L, budget.remainingSteps());
+    }
+
+    @Test
+    @DisplayName("stops code that takes too long")
+    void timeExceeded() {
+        PyDict globals = new PyDict();
+        ExecutionBudget budget =
+                new ExecutionBudget(Long.MAX_VALUE, Duration.ZERO);
+        assertThrows(KeyboardInterrupt.class, () -> new Interpreter()
+                .eval(readCode(NAME), globals, null, budget));
+        assertTrue((Integer)globals.get("n") > 0);
+    }
+
+    @Test
+    @DisplayName("stops code when interrupted")
+    void interrupted() {
+        PyDict globals = new PyDict();
+        ExecutionBudget budget = ExecutionBudget.unlimited();
+        budget.interrupt();
+        assertThrows(KeyboardInterrupt.class, () -> new Interpreter()
+                .eval(readCode(NAME), globals, null, budget));
+        assertTrue((Integer)globals.get("n") > 0);
+    }
+
+    @Test
+    @DisplayName("is not retained by the thread")
+    void notRetained() {
+        ExecutionBudget budget = ExecutionBudget.unlimited();
+        budget.interrupt();
+        Interpreter interp = new Interpreter();
+        assertThrows(KeyboardInterrupt.class, () -> interp
+                .eval(readCode(NAME), new PyDict(), null, budget));
+        // Without the budget, the same thread runs to completion
+        PyDict globals = new PyDict();
+        interp.eval(readCode(NAME), globals);
+        assertExpectedVariables(readResultDict(NAME), globals);
+    }
+
+    @Test
+    @DisplayName("leaves no interruption behind when unused")
+    void interruptionWithdrawn() {
+        ExecutionBudget budget = ExecutionBudget.unlimited();
+        Interpreter interp = new Interpreter();
+        // Code too short to reach a check completes under the budget
+        ThreadState.withBudget(budget, () -> {
+            budget.interrupt();
+            return null;
+        });
+        PyDict globals = new PyDict();
+        interp.eval(readCode(NAME), globals);
+        assertExpectedVariables(readResultDict(NAME), globals);
+    }
+
+    @Test
+    @DisplayName("is not needed to interrupt the thread state")
+    void interruptThreadState() throws Exception {
+        CompletableFuture<ThreadState> state =
+                new CompletableFuture<>();
+        Thread worker =
+                runForever(() -> state.complete(ThreadState.get()));
+        state.get(10, TimeUnit.SECONDS).interrupt();
+        worker.join(10_000);
+        assertFalse(worker.isAlive());
+    }
+
+    @Test
+    @DisplayName("is not needed to interrupt the Java thread")
+    void interruptThread() throws Exception {
+        CompletableFuture<Void> started = new CompletableFuture<>();
+        Thread worker = runForever(() -> started.complete(null));
+        started.get(10, TimeUnit.SECONDS);
+        worker.interrupt();
+        worker.join(10_000);
+        assertFalse(worker.isAlive());
+    }
+
+    /**
+     * Start a thread that runs {@code outer(1 << 30)} from
+     * {@code sampled_stacks.py} without a budget, which continues
+     * until it raises {@link KeyboardInterrupt}.
+     *
+     * @param onStart action in the thread before it calls Python
+     * @return the running thread
+     */
+    private static Thread runForever(Runnable onStart) {
+        Interpreter interp = new Interpreter();
+        PyDict globals = new PyDict();
+        for (Object c : readCode("sampled_stacks").co_consts()) {
+            if (c instanceof CPython311Code code) {
+                globals.put(code.name,
+                        code.createFunction(interp, globals));
+            }
+        }
+        Object outer = globals.get("outer");
+        Thread worker = new Thread(() -> {
+            onStart.run();
+            try {
+                Callables.call(outer, new Object[] {1 << 30}, null);
+            } catch (KeyboardInterrupt ki) {
+                // Expected when the test stops the worker
+            } catch (Throwable t) {
+                throw Abstract.asUnchecked(t, "calling outer()");
+            }
+        }, "unbudgeted-worker");
+        worker.start();
+        return worker;
+    }
+}
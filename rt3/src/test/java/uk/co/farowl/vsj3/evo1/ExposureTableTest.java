@@ -0,0 +1,211 @@
+// Copyright (c)2023 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import uk.co.farowl.vsj3.evo1.Exposed.Default;
+import uk.co.farowl.vsj3.evo1.Exposed.DocString;
+import uk.co.farowl.vsj3.evo1.Exposed.KeywordOnly;
+import uk.co.farowl.vsj3.evo1.Exposed.Member;
+import uk.co.farowl.vsj3.evo1.Exposed.Name;
+import uk.co.farowl.vsj3.evo1.Exposed.PositionalCollector;
+import uk.co.farowl.vsj3.evo1.Exposed.PythonMethod;
+import uk.co.farowl.vsj3.evo1.ExposureTable.Exposure;
+import uk.co.farowl.vsj3.evo1.ExposureTable.FieldEntry;
+import uk.co.farowl.vsj3.evo1.ExposureTable.Kind;
+import uk.co.farowl.vsj3.evo1.ExposureTable.MethodEntry;
+import uk.co.farowl.vsj3.evo1.ExposureTable.ParamEntry;
+
+/**
+ * Test that the {@link ExposureTable} of a class, as written at build
+ * time and read back at run time, describes the same members as it
+ * does when obtained by reflection.
+ */
+@DisplayName("An exposure table")
+class ExposureTableTest {
+
+    /** A class with members to expose, annotated in several ways. */
+    @SuppressWarnings("unused")
+    private static class Annotated {
+
+        @Member
+        int i;
+
+        @Member(value = "text", readonly = true)
+        @DocString("Some text")
+        String s;
+
+        /** Not exposed. */
+        double x;
+
+        @PythonMethod(positionalOnly = false)
+        @DocString("Do something")
+        Object f(@Name("first") int a, @Default("None") Object b,
+                @KeywordOnly @Default("1") int c) {
+            return a;
+        }
+
+        @PythonMethod(primary = false)
+        static Object g(Annotated self, @PositionalCollector Object[] a) {
+            return self;
+        }
+
+        Object __repr__() { return "Annotated"; }
+
+        /** Not exposed. */
+        Object h() { return null; }
+    }
+
+    @Test
+    @DisplayName("lists annotated and special members")
+    void reflected() {
+        ExposureTable t = ExposureTable.reflect(Annotated.class);
+        assertEquals(List.of("__repr__", "f", "g"), methodNames(t));
+        assertEquals(2, t.fields.size());
+
+        MethodEntry f = method(t, "f");
+        assertEquals("Do something", f.doc);
+        Exposure x = f.exposures.get(0);
+        assertEquals(Kind.METHOD, x.kind);
+        assertTrue(x.primary);
+        assertEquals(false, x.positionalOnly);
+        ParamEntry[] p = f.params();
+        assertEquals("first", p[0].pyName);
+        assertEquals("None", p[1].defaultValue);
+        assertTrue(p[2].is(ParamEntry.KEYWORD_ONLY));
+
+        MethodEntry g = method(t, "g");
+        assertTrue(g.javaStatic);
+        assertEquals(false, g.exposures.get(0).primary);
+        assertTrue(g.params()[1].is(ParamEntry.POSITIONAL_COLLECTOR));
+
+        assertTrue(method(t, "__repr__").exposures.isEmpty());
+    }
+
+    @Test
+    @DisplayName("reads back as written")
+    void roundTrip() throws IOException {
+        for (Class<?> c : List.of(Annotated.class, PyUnicode.class,
+                PyFloatMethods.class, PyFunction.class, PySlice.class)) {
+            ExposureTable t = ExposureTable.reflect(c);
+            ExposureTable u = readBack(t);
+            assertEquals(describe(t), describe(u), c.getSimpleName());
+        }
+    }
+
+    @Test
+    @DisplayName("gives the same handles as reflection")
+    void handles() throws Throwable {
+        for (Class<?> c : List.of(Annotated.class, PyUnicode.class,
+                PyLong.class)) {
+            Lookup lookup =
+                    MethodHandles.privateLookupIn(c, MethodHandles.lookup());
+            ExposureTable t = ExposureTable.reflect(c);
+            ExposureTable u = readBack(t);
+            for (int i = 0; i < t.methods.size(); i++) {
+                MethodHandle expected = t.methods.get(i).handle(lookup);
+                MethodHandle actual = u.methods.get(i).handle(lookup);
+                assertEquals(expected.type(), actual.type(),
+                        t.methods.get(i).toString());
+            }
+            for (int i = 0; i < t.fields.size(); i++) {
+                assertEquals(t.fields.get(i).varHandle(lookup).varType(),
+                        u.fields.get(i).varHandle(lookup).varType());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("is read only for the class it describes")
+    void wrongClass() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExposureTable.reflect(Annotated.class).write(out);
+        byte[] b = out.toByteArray();
+        assertThrows(IOException.class, () -> ExposureTable
+                .read(PyUnicode.class, new ByteArrayInputStream(b)));
+    }
+
+    @Test
+    @DisplayName("is a resource named after the class")
+    void resourceName() {
+        assertEquals("PyUnicode.exposed",
+                ExposureTable.resourceName(PyUnicode.class));
+        assertEquals("ExposureTableTest$Annotated.exposed",
+                ExposureTable.resourceName(Annotated.class));
+        // There is no resource for a test class
+        assertNull(Annotated.class.getResource(
+                ExposureTable.resourceName(Annotated.class)));
+        assertNotNull(ExposureTable.forClass(Annotated.class));
+    }
+
+    /**
+     * Write the table and read it back.
+     *
+     * @param t table to write
+     * @return table read
+     * @throws IOException on errors
+     */
+    private static ExposureTable readBack(ExposureTable t)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        t.write(out);
+        return ExposureTable.read(t.declaringClass,
+                new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private static List<String> methodNames(ExposureTable t) {
+        List<String> names = new ArrayList<>();
+        for (MethodEntry m : t.methods) { names.add(m.name); }
+        names.sort(null);
+        return names;
+    }
+
+    private static MethodEntry method(ExposureTable t, String name) {
+        for (MethodEntry m : t.methods) {
+            if (m.name.equals(name)) { return m; }
+        }
+        throw new AssertionError("no method " + name);
+    }
+
+    /**
+     * Describe every detail of the table as a list of strings.
+     *
+     * @param t table to describe
+     * @return description
+     */
+    private static List<String> describe(ExposureTable t) {
+        List<String> d = new ArrayList<>();
+        for (MethodEntry m : t.methods) {
+            StringBuilder b = new StringBuilder();
+            b.append(m).append(m.javaStatic ? " static " : " ")
+                    .append(m.doc).append(m.exposures);
+            for (ParamEntry p : m.params()) {
+                b.append(String.format(" %s/%s/%d/%s", p.name, p.pyName,
+                        p.flags, p.defaultValue));
+            }
+            d.add(b.toString());
+        }
+        for (FieldEntry f : t.fields) {
+            d.add(String.format("%s %s %d %s %s %s %s", f, f.type,
+                    f.modifiers, f.value, f.readonly, f.optional, f.doc));
+        }
+        return d;
+    }
+}
@@ -0,0 +1,199 @@
+// Copyright (c)2022 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.readCode;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Tests of conversion between {@code int} and {@code str}: the syntax
+ * accepted by {@code int(str, base)}, the conversion of large values,
+ * and the limit on the number of digits.
+ */
+class IntStrConversionTest extends UnitTestSupport {
+
+    @Nested
+    @DisplayName("int(str, base)")
+    class FromStringTest {
+
+        /**
+         * Provide examples of literals, bases and values. The results
+         * agree with CPython 3.11.
+         *
+         * @return the examples
+         */
+        static Stream<Arguments> literals() {
+            return Stream.of( //
+                    arguments("42", 10, 42), //
+                    arguments("  -42\n", 10, -42), //
+                    arguments("+1_000_000", 10, 1_000_000), //
+                    arguments("0x_ff", 0, 255), //
+                    arguments("0XFF", 16, 255), //
+                    arguments("ff", 16, 255), //
+                    arguments("0o17", 0, 15), //
+                    arguments("0b101", 2, 5), //
+                    arguments("0_0", 0, 0), //
+                    arguments("000", 0, 0), //
+                    arguments("z", 36, 35), //
+                    arguments("0x1", 36, 1189), //
+                    arguments("١٢٣", 10, 123));
+        }
+
+        @DisplayName("converts valid literals")
+        @ParameterizedTest(name = "int(\"{0}\", {1}) == {2}")
+        @MethodSource("literals")
+        void valid(String s, int base, int expected) {
+            assertEquals(BigInteger.valueOf(expected),
+                    PyLong.fromUnicode(s, base));
+        }
+
+        @DisplayName("rejects invalid literals")
+        @ParameterizedTest(name = "int(\"{0}\", 0) raises ValueError")
+        @ValueSource(strings = {"", " ", "-", "_1", "1_", "1__0", "0x",
+                "0x_", "0x__1", "010", "1.0", "0b2", "Ｆ"})
+        void invalid(String s) {
+            assertThrows(ValueError.class, () -> PyLong.fromUnicode(s, 0));
+        }
+
+        @Test
+        @DisplayName("converts large values correctly")
+        void large() throws Throwable {
+            Random r = new Random(42);
+            PyDict globals = example(0);
+            for (int bits : new int[] {1000, 10_000, 100_000}) {
+                BigInteger v = new BigInteger(bits, r);
+                for (int base : new int[] {10, 7, 16, 36}) {
+                    String s = v.toString(base);
+                    assertEquals(v, call(globals, "to_int", s, base));
+                }
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("The limit on digits")
+    class MaxStrDigitsTest {
+
+        @Test
+        @DisplayName("prevents int(str) beyond the limit")
+        void toInt() {
+            String s = "9".repeat(PyLong.DEFAULT_MAX_STR_DIGITS);
+            assertEquals(new BigInteger(s), PyLong.fromUnicode(s, 10));
+            assertThrows(ValueError.class,
+                    () -> PyLong.fromUnicode(s + "9", 10));
+            // But not in a base that is a power of 2
+            PyLong.fromUnicode(s + "9", 16);
+        }
+
+        @Test
+        @DisplayName("prevents repr(int) beyond the limit")
+        void toStr() throws Throwable {
+            BigInteger v = BigInteger.TEN
+                    .pow(PyLong.DEFAULT_MAX_STR_DIGITS).subtract(
+                            BigInteger.ONE);
+            assertEquals(PyLong.DEFAULT_MAX_STR_DIGITS,
+                    Abstract.repr(v).toString().length());
+            assertThrows(ValueError.class,
+                    () -> Abstract.repr(v.add(BigInteger.ONE)));
+            assertThrows(ValueError.class, () -> Abstract.repr(v.negate()
+                    .subtract(BigInteger.ONE)));
+            assertThrows(ValueError.class,
+                    () -> PyLong.__format__(v.add(BigInteger.ONE), "d"));
+            // But not in a base that is a power of 2
+            PyLong.__format__(v.add(BigInteger.ONE), "x");
+        }
+
+        @Test
+        @DisplayName("may be removed or changed")
+        void setLimit() throws Throwable {
+            BigInteger v = BigInteger.TEN.pow(10_000);
+            Interpreter interp = new Interpreter();
+            PyDict globals = example(interp);
+            assertEquals(PyLong.DEFAULT_MAX_STR_DIGITS,
+                    interp.getIntMaxStrDigits());
+            assertThrows(ValueError.class,
+                    () -> call(globals, "to_str", v));
+            interp.setIntMaxStrDigits(0);
+            assertEquals(10_001,
+                    call(globals, "to_str", v).toString().length());
+            interp.setIntMaxStrDigits(20_000);
+            assertEquals(v, call(globals, "to_int", v.toString(), 10));
+            assertThrows(ValueError.class,
+                    () -> interp.setIntMaxStrDigits(1));
+        }
+
+        @Test
+        @DisplayName("is separate in each interpreter")
+        void perInterpreter() throws Throwable {
+            String s = "9".repeat(PyLong.DEFAULT_MAX_STR_DIGITS + 1);
+            PyDict unlimited = example(0), limited = example(2_000);
+            assertEquals(new BigInteger(s),
+                    call(unlimited, "to_int", s, 10));
+            assertThrows(ValueError.class,
+                    () -> call(limited, "to_int", s, 10));
+            // A Java caller (no current frame) has the default limit
+            assertThrows(ValueError.class,
+                    () -> PyLong.fromUnicode(s, 10));
+        }
+    }
+
+    /**
+     * Create the functions of {@code int_str_digits.py} in a new
+     * interpreter with the given limit on digits.
+     *
+     * @param maxdigits limit on digits (zero for none)
+     * @return globals containing the functions
+     */
+    private static PyDict example(int maxdigits) {
+        Interpreter interp = new Interpreter();
+        interp.setIntMaxStrDigits(maxdigits);
+        return example(interp);
+    }
+
+    /**
+     * Create the functions of {@code int_str_digits.py} in the given
+     * interpreter.
+     *
+     * @param interp in which the functions execute
+     * @return globals containing the functions
+     */
+    private static PyDict example(Interpreter interp) {
+        PyDict globals = new PyDict();
+        for (Object c : readCode("int_str_digits").co_consts()) {
+            if (c instanceof CPython311Code) {
+                CPython311Code code = (CPython311Code)c;
+                globals.put(code.name,
+                        code.createFunction(interp, globals));
+            }
+        }
+        return globals;
+    }
+
+    /**
+     * Call a function defined in {@code globals}.
+     *
+     * @param globals containing the function
+     * @param name of the function
+     * @param args arguments to the call
+     * @return result of the call
+     * @throws Throwable from the function
+     */
+    private static Object call(PyDict globals, String name,
+            Object... args) throws Throwable {
+        return Callables.call(globals.get(name), args, null);
+    }
+}
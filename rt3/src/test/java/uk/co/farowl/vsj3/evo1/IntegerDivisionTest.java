@@ -5,7 +5,6 @@ import static uk.co.farowl.vsj3.evo1.PyLongMethods.divide;
 import static uk.co.farowl.vsj3.evo1.PyLongMethods.modulo;
 import static uk.co.farowl.vsj3.evo1.PyLongMethods.divmod;
 
-import java.math.BigInteger;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -39,11 +38,11 @@ class IntegerDivisionTest extends UnitTestSupport {
     private static final int[] YVALUES = argValues(8933, false);
 
     /**
-     * 2**31 aka {@code -Integer.MIN_VALUE / -1}, which Java can't
-     * represent, but is a reasonable request in Python.
+     * 2**31 aka {@code -Integer.MIN_VALUE / -1}, which a Java
+     * {@code int} can't represent, but is a reasonable request in
+     * Python. It is a {@code Long} in the run-time.
      */
-    private static BigInteger MINUS_INT_MIN =
-            BigInteger.valueOf(-(long)Integer.MIN_VALUE);
+    private static Long MINUS_INT_MIN = -(long)Integer.MIN_VALUE;
 
     /**
      * Reference implementation of integer division.
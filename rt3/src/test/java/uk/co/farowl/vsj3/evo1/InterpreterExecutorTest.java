@@ -0,0 +1,111 @@
+// Copyright (c)2023 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.assertExpectedVariables;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.readCode;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.readResultDict;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Test that the {@link InterpreterExecutor} runs jobs correctly and in
+ * isolation from each other.
+ */
+@DisplayName("The interpreter executor")
+class InterpreterExecutorTest extends UnitTestSupport {
+
+    private InterpreterExecutor executor;
+
+    @BeforeEach
+    void createExecutor() { executor = new InterpreterExecutor(3); }
+
+    @AfterEach
+    void closeExecutor() { executor.close(); }
+
+    @DisplayName("runs code repeatedly ...")
+    @ParameterizedTest(name = "{0}.py")
+    @ValueSource(strings = {"simple_if", "list_dot_product",
+            "function_call", "function_closure", "function_locals"})
+    void repeatedJobs(String name) throws Exception {
+        CPython311Code code = readCode(name);
+        PyDict expected = readResultDict(name);
+        List<CompletableFuture<PyDict>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            results.add(executor.submit(code, Map.of()));
+        }
+        for (CompletableFuture<PyDict> r : results) {
+            assertExpectedVariables(expected, r.get());
+        }
+    }
+
+    @Test
+    @DisplayName("presents the bindings as globals")
+    void bindings() throws Exception {
+        // builtins_module.py computes ai = abs(-42): a global shadows it
+        CPython311Code code = readCode("builtins_module");
+        Object repr = new Interpreter().getBuiltin("repr");
+        Object ai = executor
+                .submit(code, Map.of("abs", repr), g -> g.get("ai")).get();
+        assertEquals("-42", ai);
+        // ... but only in the job where it is bound
+        ai = executor.submit(code, Map.of(), g -> g.get("ai")).get();
+        assertEquals(42, ai);
+    }
+
+    @Test
+    @DisplayName("does not carry globals between jobs")
+    void isolatedJobs() throws Exception {
+        CPython311Code code = readCode("simple_if");
+        executor.submit(code, Map.of("secret", 42)).get();
+        for (int i = 0; i < 10; i++) {
+            assertNull(executor.submit(code, Map.of(), g -> g.get("secret"))
+                    .get());
+        }
+    }
+
+    @Test
+    @DisplayName("does not carry built-ins between jobs")
+    void isolatedBuiltins() throws Exception {
+        // builtins_module.py computes ai = abs(-42)
+        CPython311Code code = readCode("builtins_module");
+        Object repr = new Interpreter().getBuiltin("repr");
+        try (InterpreterExecutor one = new InterpreterExecutor(1)) {
+            // A job replaces abs() in its __builtins__
+            Object ai = one.submit(code, Map.of(), g -> {
+                PyDict builtins = (PyDict)g.get("__builtins__");
+                builtins.put("abs", repr);
+                return g.get("ai");
+            }).get();
+            assertEquals(42, ai);
+            // ... which the next job in the same context does not see
+            ai = one.submit(code, Map.of(), g -> g.get("ai")).get();
+            assertEquals(42, ai);
+        }
+    }
+
+    @Test
+    @DisplayName("completes exceptionally when the code raises")
+    void raises() {
+        // builtins_module.py calls abs(), which we bind to an int
+        CPython311Code code = readCode("builtins_module");
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> executor.submit(code, Map.of("abs", 1)).get());
+        assertTrue(e.getCause() instanceof TypeError);
+    }
+}
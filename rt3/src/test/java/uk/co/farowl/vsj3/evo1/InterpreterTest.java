@@ -0,0 +1,193 @@
+// Copyright (c)2023 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.assertExpectedVariables;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.readCode;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.readResultDict;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test that {@link Interpreter}s in the same JVM are isolated from each
+ * other, while sharing the immutable runtime state.
+ */
+@DisplayName("Interpreters")
+class InterpreterTest extends UnitTestSupport {
+
+    @Test
+    @DisplayName("have distinct builtins and modules")
+    void distinctState() {
+        Interpreter a = new Interpreter();
+        Interpreter b = new Interpreter();
+        assertNotSame(a.builtinsModule, b.builtinsModule);
+        assertNotSame(a.modules, b.modules);
+        // Functions are distinct and bound to their own module
+        PyJavaFunction fa = (PyJavaFunction)a.getBuiltin("abs");
+        PyJavaFunction fb = (PyJavaFunction)b.getBuiltin("abs");
+        assertNotSame(fa, fb);
+        assertSame(a.builtinsModule, fa.self);
+        assertSame(b.builtinsModule, fb.self);
+    }
+
+    @Test
+    @DisplayName("share the built-in types")
+    void sharedTypes() {
+        Interpreter a = new Interpreter();
+        Interpreter b = new Interpreter();
+        for (String name : List.of("int", "str", "dict", "type")) {
+            assertSame(a.getBuiltin(name), b.getBuiltin(name));
+        }
+        assertSame(PyLong.TYPE, a.getBuiltin("int"));
+    }
+
+    @Test
+    @DisplayName("do not see each other's changes to builtins")
+    void isolatedBuiltins() {
+        String name = "builtins_module";
+        CPython311Code code = readCode(name);
+        Interpreter a = new Interpreter();
+        Interpreter b = new Interpreter();
+        // Replace abs() in a only: repr(-42) is not abs(-42)
+        a.builtinsModule.dict.put("abs", a.getBuiltin("repr"));
+        PyDict ga = new PyDict();
+        a.eval(code, ga);
+        assertEquals("-42", ga.get("ai"));
+        PyDict gb = new PyDict();
+        b.eval(code, gb);
+        assertExpectedVariables(readResultDict(name), gb);
+    }
+
+    @Test
+    @DisplayName("execute shared code concurrently")
+    void concurrentExecution() throws Exception {
+        String name = "function_closure";
+        CPython311Code code = readCode(name);
+        PyDict expected = readResultDict(name);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<PyDict>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(pool.submit(() -> {
+                    PyDict globals = new PyDict();
+                    new Interpreter().eval(code, globals);
+                    return globals;
+                }));
+            }
+            for (Future<PyDict> r : results) {
+                assertExpectedVariables(expected, r.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Nested
+    @DisplayName("limit recursion")
+    class RecursionLimitTest {
+
+        private static final String NAME = "recursion";
+
+        @Test
+        @DisplayName("to the depth set")
+        void limitsDepth() {
+            CPython311Code code = readCode(NAME);
+            Interpreter interp = new Interpreter();
+            assertEquals(Interpreter.DEFAULT_RECURSION_LIMIT,
+                    interp.getRecursionLimit());
+            // The example needs a depth of 102 frames
+            interp.setRecursionLimit(102);
+            PyDict globals = new PyDict();
+            interp.eval(code, globals);
+            assertExpectedVariables(readResultDict(NAME), globals);
+            interp.setRecursionLimit(101);
+            assertThrows(RecursionError.class,
+                    () -> interp.eval(code, new PyDict()));
+            assertEquals(0, ThreadState.get().depth);
+            assertThrows(ValueError.class,
+                    () -> interp.setRecursionLimit(0));
+        }
+
+        @Test
+        @DisplayName("when the Java stack overflows")
+        void javaStackOverflow() throws Throwable {
+            Interpreter interp = new Interpreter();
+            interp.setRecursionLimit(Integer.MAX_VALUE);
+            Object depth = function(interp, NAME, "depth");
+            Throwable[] thrown = new Throwable[1];
+            Thread t = new Thread(null, () -> {
+                try {
+                    Callables.call(depth, new Object[] {1_000_000},
+                            null);
+                } catch (Throwable e) {
+                    thrown[0] = e;
+                }
+            }, "javaStackOverflow", 256 * 1024);
+            t.start();
+            t.join();
+            assertTrue(thrown[0] instanceof RecursionError);
+        }
+
+        @Test
+        @DisplayName("to an estimate that grows with the stack size")
+        void estimate() {
+            int small = Interpreter.estimateRecursionLimit(1 << 20);
+            int large = Interpreter.estimateRecursionLimit(16 << 20);
+            assertTrue(small > 1);
+            assertTrue(large > small);
+        }
+
+        @Test
+        @DisplayName("to an estimate made without a report to stderr")
+        void estimateQuietly() {
+            PrintStream err = System.err;
+            ByteArrayOutputStream captured = new ByteArrayOutputStream();
+            System.setErr(new PrintStream(captured, true));
+            try {
+                Interpreter.estimateRecursionLimit(1 << 20);
+            } finally {
+                System.setErr(err);
+            }
+            assertEquals("", captured.toString());
+        }
+
+        /**
+         * Make a function in the given interpreter from the code of the
+         * named function in an example module.
+         *
+         * @param interp to own the function
+         * @param progName of the example module
+         * @param name of the function
+         * @return the function
+         */
+        private Object function(Interpreter interp, String progName,
+                String name) {
+            PyDict globals = new PyDict();
+            for (Object c : readCode(progName).co_consts()) {
+                if (c instanceof CPython311Code
+                        && ((CPython311Code)c).name.equals(name)) {
+                    Object f = ((CPython311Code)c).createFunction(interp,
+                            globals);
+                    globals.put(name, f);
+                    return f;
+                }
+            }
+            throw new AssertionError("no function " + name);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+// Copyright (c)2023 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.pycPath;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.readCode;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test that the {@link Launcher} reads compiled programs as the tests
+ * do, and refuses files that are not compiled programs.
+ */
+@DisplayName("The launcher")
+class LauncherTest extends UnitTestSupport {
+
+    @Test
+    @DisplayName("reads a compiled program")
+    void readsCode() {
+        CPython311Code expected = readCode("simple_if");
+        CPython311Code code = Launcher.readCode(pycPath("simple_if"));
+        assertEquals(expected.name, code.name);
+        assertEquals(expected.filename, code.filename);
+        assertEquals(expected.wordcode.length, code.wordcode.length);
+    }
+
+    @Test
+    @DisplayName("refuses a file that is not a compiled program")
+    void refusesOther() {
+        // The saved results are marshalled but have no header
+        Path var = pycPath("simple_if").resolveSibling(
+                "simple_if.cpython-311.var");
+        assertThrows(ValueError.class, () -> Launcher.readCode(var));
+    }
+}
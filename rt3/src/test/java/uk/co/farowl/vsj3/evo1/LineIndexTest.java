@@ -0,0 +1,107 @@
+// Copyright (c)2023 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.readCode;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.readResultDict;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import uk.co.farowl.vsj3.evo1.CPython311Code.LineIndex;
+
+/**
+ * Test that the {@link LineIndex} of a code object agrees with the
+ * mapping between instructions and lines that CPython reports
+ * ({@code co_lines()}) for the code in {@code line_numbers.py}.
+ */
+@DisplayName("The line index of a code object")
+class LineIndexTest extends UnitTestSupport {
+
+    private static final String NAME = "line_numbers";
+
+    @Test
+    @DisplayName("maps module instructions to lines")
+    void moduleLines() {
+        CPython311Code code = readCode(NAME);
+        checkIndex(code, "module_lines");
+    }
+
+    @Test
+    @DisplayName("maps function instructions to lines")
+    void functionLines() {
+        CPython311Code code = null;
+        for (Object c : readCode(NAME).co_consts()) {
+            if (c instanceof CPython311Code) { code = (CPython311Code)c; }
+        }
+        checkIndex(code, "f_lines");
+    }
+
+    @Test
+    @DisplayName("is created once")
+    void createdOnce() {
+        CPython311Code code = readCode(NAME);
+        assertSame(code.lineIndex(), code.lineIndex());
+    }
+
+    /**
+     * Check the line index of a code object against the result of
+     * {@code co_lines()}, both from instruction to line and from line
+     * to instructions.
+     *
+     * @param code to check
+     * @param resultName name of the result of {@code co_lines()}
+     */
+    private static void checkIndex(CPython311Code code,
+            String resultName) {
+        // Expand the CPython (start, end, line) triples to an array
+        int n = code.wordcode.length;
+        int[] expected = new int[n];
+        Arrays.fill(expected, -1);
+        TreeSet<Integer> lines = new TreeSet<>();
+        for (Object o : (List<?>)readResultDict(NAME).get(resultName)) {
+            List<?> t = (List<?>)o;
+            Object line = t.get(2);
+            if (line instanceof Integer) {
+                int start = (Integer)t.get(0) / 2, end = (Integer)t.get(1) / 2;
+                Arrays.fill(expected, start, end, (Integer)line);
+                lines.add((Integer)line);
+            }
+        }
+
+        // Look up each instruction
+        LineIndex index = code.lineIndex();
+        for (int ip = 0; ip < n; ip++) {
+            assertEquals(expected[ip], index.line(ip), "line at " + ip);
+        }
+        assertEquals(-1, index.line(n));
+
+        // Look up each line and check it covers the right instructions
+        assertArrayEquals(lines.stream().mapToInt(x -> x).toArray(),
+                index.lines());
+        for (int line : lines) {
+            int[] r = index.ranges(line);
+            boolean[] covered = new boolean[n];
+            int last = -1;
+            for (int j = 0; j < r.length; j += 2) {
+                // Ranges are in order and do not overlap
+                assertTrue(r[j] > last && r[j] < r[j + 1]);
+                last = r[j + 1];
+                Arrays.fill(covered, r[j], r[j + 1], true);
+            }
+            for (int ip = 0; ip < n; ip++) {
+                assertEquals(expected[ip] == line, covered[ip],
+                        "line " + line + " at " + ip);
+            }
+        }
+        assertEquals(0, index.ranges(10_000).length);
+    }
+}
@@ -2,6 +2,9 @@ package uk.co.farowl.vsj3.evo1;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.math.BigInteger;
 import java.util.LinkedList;
@@ -447,4 +450,65 @@ class LookupTest extends UnitTestSupport {
             assertEquals(s, u);
         }
     }
+
+    @Nested
+    @DisplayName("Misses signalled")
+    class Misses {
+
+        /**
+         * Test that the internal attribute look-up on objects and types
+         * signals a miss by returning {@link PyObjectUtil#NOT_FOUND},
+         * and the API by returning {@code null} or throwing.
+         *
+         * @throws Throwable on failure
+         */
+        @Test
+        void attribute_miss() throws Throwable {
+            for (Object obj : List.of(42, "hello", new Object(),
+                    PyLong.TYPE, PyBaseObject.TYPE)) {
+                String name = "nonexistent";
+                Object attr = obj instanceof PyType
+                        ? ((PyType)obj).getAttribute(name)
+                        : PyBaseObject.getAttribute(obj, name);
+                assertSame(PyObjectUtil.NOT_FOUND, attr);
+                assertNull(Abstract.lookupAttr(obj, name));
+                assertThrows(AttributeError.class,
+                        () -> Abstract.getAttr(obj, name));
+            }
+        }
+
+        /**
+         * Test that the internal attribute look-up on types finds
+         * values that are not descriptors.
+         *
+         * @throws Throwable on failure
+         */
+        @Test
+        void type_attribute() throws Throwable {
+            assertEquals("int", PyLong.TYPE.getAttribute("__name__"));
+            assertEquals("int", Abstract.getAttr(PyLong.TYPE, "__name__"));
+            Object neg = PyLong.TYPE.getAttribute("__neg__");
+            assertSame(PyLong.TYPE.lookup("__neg__"), neg);
+        }
+
+        /**
+         * Test that a built-in iterator signals exhaustion by returning
+         * {@link PyObjectUtil#NOT_FOUND} internally, and {@code null}
+         * through the API.
+         *
+         * @throws Throwable on failure
+         */
+        @Test
+        void iterator_end() throws Throwable {
+            Object it = Abstract.getIterator("ab");
+            assertEquals("a", PyUnicode.asString(Abstract.next(it)));
+            assertEquals("b",
+                    PyUnicode.asString(((AbstractPyIterator)it).next()));
+            assertSame(PyObjectUtil.NOT_FOUND,
+                    ((AbstractPyIterator)it).next());
+            assertNull(Abstract.next(it));
+            assertThrows(StopIteration.class,
+                    () -> ((AbstractPyIterator)it).__next__());
+        }
+    }
 }
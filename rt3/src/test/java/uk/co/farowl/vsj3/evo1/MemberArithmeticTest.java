@@ -0,0 +1,146 @@
+// Copyright (c)2023 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.readCode;
+
+import java.lang.invoke.MethodHandles;
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import uk.co.farowl.vsj3.evo1.Exposed.Member;
+
+/**
+ * Test that an attribute read that feeds arithmetic, where the
+ * attribute is a numeric member, gives the same result when the
+ * interpreter reads the field without boxing it, using the functions
+ * defined in {@code member_arith.py}.
+ */
+@DisplayName("A numeric member feeding arithmetic")
+class MemberArithmeticTest extends UnitTestSupport {
+
+    private static final String NAME = "member_arith";
+
+    /** A Python type with a member of each numeric kind. */
+    private static class Numbers {
+
+        static PyType TYPE = PyType.fromSpec(
+                new PyType.Spec("Numbers", MethodHandles.lookup()));
+
+        @Member
+        int i;
+
+        @Member
+        long n;
+
+        @Member
+        double x;
+
+        @Member
+        float f;
+
+        Numbers(int i, long n, double x, float f) {
+            this.i = i;
+            this.n = n;
+            this.x = x;
+            this.f = f;
+        }
+    }
+
+    /** Globals containing the functions of the example. */
+    private PyDict globals;
+
+    /** Code objects of the functions by name. */
+    private PyDict codes;
+
+    @BeforeEach
+    void setUp() {
+        Interpreter interp = new Interpreter();
+        globals = new PyDict();
+        codes = new PyDict();
+        for (Object c : readCode(NAME).co_consts()) {
+            if (c instanceof CPython311Code code) {
+                globals.put(code.name,
+                        code.createFunction(interp, globals));
+                codes.put(code.name, code);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("gives the same results as a general read")
+    void sameResults() throws Throwable {
+        Numbers o = new Numbers(7, 1L << 40, 2.5, 0.5f);
+        assertSameValue(PyNumber.add(3, 7), call("add_i", 3, o));
+        assertSameValue(PyNumber.add(1.5, 7), call("add_i", 1.5, o));
+        assertSameValue(PyNumber.subtract(3, 1L << 40),
+                call("sub_n", 3, o));
+        assertSameValue(PyNumber.subtract(1L << 40, 1L << 40),
+                call("sub_n", 1L << 40, o));
+        assertSameValue(PyNumber.multiply(4, 2.5), call("mul_x", 4, o));
+        assertSameValue(PyNumber.multiply(0.5, 2.5),
+                call("mul_x", 0.5, o));
+        assertSameValue(PyNumber.add(1, 0.5), call("add_f", 1, o));
+        // A left operand the fast path does not support
+        assertSameValue(PyNumber.add(true, 7), call("add_i", true, o));
+    }
+
+    @Test
+    @DisplayName("overflows to a BigInteger")
+    void overflow() throws Throwable {
+        Numbers o = new Numbers(0, Long.MAX_VALUE, 0.0, 0.0f);
+        BigInteger expected = BigInteger.valueOf(Long.MIN_VALUE)
+                .subtract(BigInteger.valueOf(Long.MAX_VALUE));
+        assertSameValue(expected, call("sub_n", Long.MIN_VALUE, o));
+    }
+
+    @Test
+    @DisplayName("is read without boxing only from a member")
+    void siteEligibility() throws Throwable {
+        CPython311Code code = (CPython311Code)codes.get("add_i");
+        CPython311Code.MemberSite site = code.memberSite(0);
+        assertEquals("i", site.name);
+        Numbers o = new Numbers(7, 0L, 0.0, 0.0f);
+        assertNotNull(site.binaryOp(3, Opcode311.NB_ADD, o));
+        // An operation it does not support
+        assertNull(site.binaryOp(3, Opcode311.NB_OR, o));
+        // An object where i is not a member
+        PyDict d = new PyDict();
+        assertNull(site.binaryOp(3, Opcode311.NB_ADD, d));
+        // The site follows a change of type
+        assertNotNull(site.binaryOp(3, Opcode311.NB_ADD, o));
+    }
+
+    /**
+     * Call a function of the example with two arguments.
+     *
+     * @param name of the function
+     * @param w left operand
+     * @param o object with the member
+     * @return the result
+     * @throws Throwable on errors
+     */
+    private Object call(String name, Object w, Object o)
+            throws Throwable {
+        return Callables.call(globals.get(name), new Object[] {w, o},
+                null);
+    }
+
+    /**
+     * Assert that the results are equal and of the same Java class (so
+     * the same representation of the Python value).
+     *
+     * @param expected result
+     * @param actual result
+     */
+    private static void assertSameValue(Object expected, Object actual) {
+        assertEquals(expected, actual);
+        assertEquals(expected.getClass(), actual.getClass());
+    }
+}
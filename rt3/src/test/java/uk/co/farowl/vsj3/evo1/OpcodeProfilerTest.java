@@ -0,0 +1,117 @@
+// Copyright (c)2023 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.readCode;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import uk.co.farowl.vsj3.evo1.OpcodeProfiler.HotSpot;
+
+/**
+ * Test that the {@link OpcodeProfiler} counts the instructions executed
+ * and attributes them to the correct source lines.
+ */
+@DisplayName("The opcode profiler")
+class OpcodeProfilerTest extends UnitTestSupport {
+
+    /** A loop in which lines 9-11 each execute 4 * 100_000 times. */
+    private static final String NAME = "long_loop";
+
+    private CPython311Code code;
+    private Interpreter interp;
+    private OpcodeProfiler profiler;
+
+    @BeforeEach
+    void setUp() {
+        code = readCode(NAME);
+        interp = new Interpreter();
+        profiler = new OpcodeProfiler();
+        interp.setProfiler(profiler);
+    }
+
+    @Test
+    @DisplayName("counts executions of each opcode")
+    void opcodeCounts() {
+        interp.eval(code, new PyDict());
+        long[] counts = profiler.opcodeCounts();
+        // sum + n and n - 1 on each iteration
+        assertEquals(200_000, counts[Opcode311.BINARY_OP]);
+        assertEquals(1, counts[Opcode311.RESUME]);
+        assertEquals(1, counts[Opcode311.RETURN_VALUE]);
+        // Every instruction belongs to the one code object
+        long total = 0;
+        for (long c : counts) { total += c; }
+        assertEquals(Map.of(code, total), profiler.codeCounts());
+    }
+
+    @Test
+    @DisplayName("finds the hot lines")
+    void hotSpots() {
+        interp.eval(code, new PyDict());
+        List<HotSpot> spots = profiler.hotSpots(3);
+        assertEquals(3, spots.size());
+        Set<Integer> lines = new HashSet<>();
+        for (HotSpot h : spots) {
+            assertEquals(code, h.code);
+            assertTrue(h.count >= 400_000);
+            lines.add(h.line);
+        }
+        assertEquals(Set.of(9, 10, 11), lines);
+    }
+
+    @Test
+    @DisplayName("merges the counts of many threads")
+    void mergesThreads() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            Future<?>[] f = new Future<?>[6];
+            for (int i = 0; i < f.length; i++) {
+                f[i] = pool.submit(() -> interp.eval(code, new PyDict()));
+            }
+            for (Future<?> x : f) { x.get(); }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(6 * 200_000,
+                profiler.opcodeCounts()[Opcode311.BINARY_OP]);
+        profiler.reset();
+        assertEquals(Map.of(), profiler.codeCounts());
+    }
+
+    @Test
+    @DisplayName("keeps the counts of threads that have ended")
+    void endedThreads() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            Thread t = new Thread(() -> interp.eval(code, new PyDict()));
+            t.start();
+            t.join();
+        }
+        // Reading folds the ended threads together: read twice
+        long[] counts = profiler.opcodeCounts();
+        assertEquals(4 * 200_000, counts[Opcode311.BINARY_OP]);
+        assertEquals(4 * 200_000,
+                profiler.opcodeCounts()[Opcode311.BINARY_OP]);
+    }
+
+    @Test
+    @DisplayName("counts nothing once removed")
+    void removed() {
+        interp.setProfiler(null);
+        interp.eval(code, new PyDict());
+        assertEquals(Map.of(), profiler.codeCounts());
+        assertEquals(0, profiler.instructionCounts(code)[0]);
+    }
+}
@@ -3,12 +3,17 @@
 package uk.co.farowl.vsj3.evo1;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 
+import java.lang.invoke.MethodHandles;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.StringJoiner;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -16,10 +21,14 @@ import java.util.stream.Stream;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import uk.co.farowl.vsj3.evo1.Exposed.PythonMethod;
+import uk.co.farowl.vsj3.evo1.PyType.Spec;
+
 /**
  * Tests of some basic mechanisms in {@link PyType} when exercised from
  * Java. We make a unit test of this because at the stage where these
@@ -298,6 +307,113 @@ class PyTypeTest {
         }
     }
 
+    /**
+     * The dictionary of a built-in type creates most attributes only
+     * when first needed. Test that this is invisible.
+     */
+    @Nested
+    @DisplayName("a type dictionary")
+    class DictionaryTest {
+
+        /** A type with methods, at least one of them never used. */
+        @SuppressWarnings("unused")
+        private static class Lazy {
+            static PyType TYPE = PyType
+                    .fromSpec(new Spec("Lazy", MethodHandles.lookup()));
+
+            @PythonMethod
+            Object m() { return 1; }
+
+            @PythonMethod
+            Object n() { return 2; }
+        }
+
+        @Test
+        @DisplayName("creates each attribute once")
+        void createsOnce() throws Throwable {
+            // Threads race to create the same attribute
+            List<Object> found = new ArrayList<>();
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                threads.add(new Thread(() -> {
+                    Object m = Lazy.TYPE.lookup("m");
+                    synchronized (found) {
+                        found.add(m);
+                    }
+                }));
+            }
+            for (Thread t : threads) { t.start(); }
+            for (Thread t : threads) { t.join(); }
+            Object m = Lazy.TYPE.lookup("m");
+            assertTrue(m instanceof PyMethodDescr);
+            for (Object f : found) { assertSame(m, f); }
+            assertSame(m, Lazy.TYPE.getDict().get("m"));
+            assertSame(Lazy.TYPE.lookup("n"),
+                    Lazy.TYPE.getDict().get("n"));
+        }
+
+        @Test
+        @DisplayName("shows only attributes in __dict__")
+        void noPlaceholders() {
+            for (PyType type : List.of(PyUnicode.TYPE, PyLong.TYPE,
+                    PyFloat.TYPE, PyType.TYPE)) {
+                Map<Object, Object> dict = type.getDict();
+                assertTrue(dict.containsKey("__repr__"));
+                for (Map.Entry<Object, Object> e : dict.entrySet()) {
+                    Object v = e.getValue();
+                    assertFalse(v instanceof TypeExposer.Deferred,
+                            e.toString());
+                    assertSame(v, type.lookup((String)e.getKey()));
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("finds attributes along the MRO")
+        void alongMRO() {
+            // bool inherits a method of int, not a special method
+            Object format = PyBool.TYPE.lookup("__format__");
+            assertTrue(format instanceof PyMethodDescr);
+            assertSame(format, PyLong.TYPE.getDict().get("__format__"));
+            assertFalse(PyBool.TYPE.getDict().containsKey("__format__"));
+        }
+    }
+
+    @Nested
+    @DisplayName("sub-type checks")
+    class SubTypeTest {
+
+        /** Types among which to test sub-type relationships. */
+        private final List<PyType> types = List.of(PyBaseObject.TYPE,
+                PyType.TYPE, PyLong.TYPE, PyBool.TYPE, PyFloat.TYPE,
+                PyUnicode.TYPE, PyTuple.TYPE, PyDict.TYPE,
+                PyException.TYPE, TypeError.TYPE, ValueError.TYPE,
+                KeyError.TYPE, LookupError.TYPE);
+
+        @Test
+        @DisplayName("agree with the MRO")
+        void agreeWithMRO() {
+            for (PyType a : types) {
+                List<PyType> mro = List.of(a.getMRO());
+                for (PyType b : types) {
+                    assertEquals(mro.contains(b), a.isSubTypeOf(b),
+                            a.getName() + " < " + b.getName());
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("include a type made by type()")
+        void newType() throws Throwable {
+            PyType t = (PyType)Callables.callFunction(PyType.TYPE, "A",
+                    Py.tuple(PyBaseObject.TYPE), new PyDict());
+            assertTrue(t.isSubTypeOf(t));
+            assertTrue(t.isSubTypeOf(PyBaseObject.TYPE));
+            assertFalse(t.isSubTypeOf(PyLong.TYPE));
+            assertFalse(PyBaseObject.TYPE.isSubTypeOf(t));
+        }
+    }
+
     // creation of a metatype
 
     // construction with a metatype
@@ -0,0 +1,154 @@
+// Copyright (c)2023 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.readCode;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test that the {@link StackSampler} sees the Python stack of a thread
+ * that is running a function defined in {@code sampled_stacks.py}.
+ */
+@DisplayName("The stack sampler")
+class StackSamplerTest extends UnitTestSupport {
+
+    private static final String NAME = "sampled_stacks";
+
+    /** The stack while outer() calls inner() in its loop. */
+    private static final String STACK = "outer:12;inner:7";
+
+    /** Budget with which to stop the worker. */
+    private ExecutionBudget budget;
+
+    /** Thread running outer(). */
+    private Thread worker;
+
+    @BeforeEach
+    void startWorker() {
+        // Globals in which outer() finds inner()
+        Interpreter interp = new Interpreter();
+        PyDict globals = new PyDict();
+        for (Object c : readCode(NAME).co_consts()) {
+            if (c instanceof CPython311Code) {
+                CPython311Code code = (CPython311Code)c;
+                globals.put(code.name,
+                        code.createFunction(interp, globals));
+            }
+        }
+        Object outer = globals.get("outer");
+        budget = ExecutionBudget.unlimited();
+        worker = new Thread(() -> {
+            try {
+                ThreadState.withBudget(budget, () -> call(outer));
+            } catch (KeyboardInterrupt ki) {
+                // Expected when the test stops the worker
+            }
+        }, "sampled-worker");
+        worker.start();
+    }
+
+    /**
+     * Call {@code outer(1 << 30)}, which will run until interrupted.
+     *
+     * @param outer the function
+     * @return never returns normally
+     */
+    private static Object call(Object outer) {
+        try {
+            return Callables.call(outer, new Object[] {1 << 30}, null);
+        } catch (PyException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw Abstract.asUnchecked(t, "calling outer()");
+        }
+    }
+
+    @AfterEach
+    void stopWorker() throws InterruptedException {
+        budget.interrupt();
+        worker.join();
+    }
+
+    @Test
+    @DisplayName("records the stack of a running thread")
+    void sample() throws InterruptedException {
+        try (StackSampler sampler = new StackSampler()) {
+            // Started only so that threads register: we sample here
+            sampler.start(Duration.ofDays(1));
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (!sampler.stacks().containsKey(STACK)
+                    && System.nanoTime() < deadline) {
+                sampler.sample();
+                Thread.sleep(1);
+            }
+            assertTrue(sampler.stacks().containsKey(STACK));
+            assertTrue(sampler.samples() > 0);
+            StringBuilder out = new StringBuilder();
+            sampler.writeCollapsed(out);
+            assertTrue(out.toString().contains(STACK + " "));
+            sampler.reset();
+            assertEquals(Map.of(), sampler.stacks());
+        }
+    }
+
+    @Test
+    @DisplayName("registers threads only while started")
+    void registersWhileStarted() throws InterruptedException {
+        // The worker is bound, but not registered without a sampler
+        Thread.sleep(10);
+        assertFalse(registered(worker));
+        try (StackSampler sampler = new StackSampler()) {
+            sampler.start(Duration.ofDays(1));
+            // The worker registers at its next check of the budget
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (!registered(worker) && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertTrue(registered(worker));
+        }
+        assertFalse(registered(worker));
+    }
+
+    /**
+     * Report whether the state of the given thread is amongst those
+     * visible to a sampler.
+     *
+     * @param t the thread
+     * @return whether its state is registered
+     */
+    private static boolean registered(Thread t) {
+        for (ThreadState ts : ThreadState.allBound()) {
+            if (ts.thread == t) { return true; }
+        }
+        return false;
+    }
+
+    @Test
+    @DisplayName("samples periodically when started")
+    void periodic() throws InterruptedException {
+        try (StackSampler sampler = new StackSampler()) {
+            sampler.start(Duration.ofMillis(1));
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (sampler.stacks().getOrDefault(STACK, 0L) < 10
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            sampler.close();
+            long n = sampler.samples();
+            assertTrue(sampler.stacks().getOrDefault(STACK, 0L) >= 10);
+            // Once closed, it does not sample
+            Thread.sleep(20);
+            assertEquals(n, sampler.samples());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+// Copyright (c)2023 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.assertExpectedVariables;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.readCode;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.readResultDict;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test that the {@link ThreadState} is bound to a thread while code
+ * runs, and that the frames are not retained afterwards.
+ */
+@DisplayName("The thread state")
+class ThreadStateTest extends UnitTestSupport {
+
+    @Test
+    @DisplayName("is bound once and retains no frame after eval()")
+    void boundOnce() throws Exception {
+        CPython311Code code = readCode("function_call");
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Callable<ThreadState> task = () -> {
+                new Interpreter().eval(code, new PyDict());
+                return ThreadState.getIfBound();
+            };
+            ThreadState ts = pool.submit(task).get();
+            assertNotNull(ts);
+            assertTrue(ts.stackEmpty());
+            // A second task on the thread re-uses the binding
+            assertSame(ts, pool.submit(task).get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("is left with an empty stack after eval()")
+    void stackEmptied() {
+        ThreadState ts = ThreadState.get();
+        new Interpreter().eval(readCode("function_call"), new PyDict());
+        assertSame(ts, ThreadState.getIfBound());
+        assertTrue(ts.stackEmpty());
+    }
+
+    @Test
+    @DisplayName("is left with an empty stack after an exception")
+    void stackEmptiedOnError() {
+        ThreadState ts = ThreadState.get();
+        Interpreter interp = new Interpreter();
+        interp.builtinsModule.dict.remove("abs");
+        assertThrows(NameError.class, () -> interp
+                .eval(readCode("builtins_module"), new PyDict()));
+        assertTrue(ts.stackEmpty());
+    }
+
+    @Test
+    @DisplayName("is bound while code runs")
+    void boundWhileRunning() throws Exception {
+        // This uses locals(), which needs the current frame
+        String name = "function_locals";
+        CPython311Code code = readCode(name);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            PyDict globals = pool.submit(() -> {
+                PyDict g = new PyDict();
+                new Interpreter().eval(code, g);
+                return g;
+            }).get();
+            assertExpectedVariables(readResultDict(name), globals);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+// Copyright (c)2023 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.readCode;
+import static uk.co.farowl.vsj3.evo1.CPython311CodeTest.readResultDict;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test that trace and profile functions set through {@link Tracing}
+ * receive the same events as CPython generates for the functions in
+ * {@code traced.py}.
+ */
+@DisplayName("Tracing")
+class TracingTest extends UnitTestSupport {
+
+    private static final String NAME = "traced";
+
+    /** Results of the example module computed by CPython. */
+    private PyDict expected;
+
+    /** Globals containing the functions of the example. */
+    private PyDict globals;
+
+    @BeforeEach
+    void setUp() {
+        expected = readResultDict(NAME);
+        Interpreter interp = new Interpreter();
+        globals = new PyDict();
+        globals.put("events", new PyList());
+        for (Object c : readCode(NAME).co_consts()) {
+            if (c instanceof CPython311Code) {
+                CPython311Code code = (CPython311Code)c;
+                globals.put(code.name,
+                        code.createFunction(interp, globals));
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        Tracing.settrace(null);
+        Tracing.setprofile(null);
+    }
+
+    @Test
+    @DisplayName("delivers events to a Java trace function")
+    void javaTracer() throws Throwable {
+        List<String> events = new ArrayList<>();
+        Tracing.Function tracer = new Tracing.Function() {
+
+            @Override
+            public Object trace(PyFrame<?> frame, String event,
+                    Object arg) {
+                events.add(event + " " + frame.code.name + " "
+                        + frame.getLineno());
+                return this;
+            }
+        };
+        Tracing.settrace(tracer);
+        assertSame(tracer, Tracing.gettrace());
+        call("outer", 3);
+        Tracing.settrace(null);
+        assertEquals(Py.None, Tracing.gettrace());
+        assertEquals(expected("outer_events"), events);
+    }
+
+    @Test
+    @DisplayName("delivers events to a Python trace function")
+    void pythonTracer() throws Throwable {
+        Tracing.settrace(globals.get("tracer"));
+        call("outer", 3);
+        Tracing.settrace(null);
+        assertEquals(expected("outer_events"), actual());
+    }
+
+    @Test
+    @DisplayName("delivers an exception event")
+    void exceptionEvent() throws Throwable {
+        Tracing.settrace(globals.get("tracer"));
+        assertThrows(TypeError.class, () -> call("inner", "a"));
+        Tracing.settrace(null);
+        assertEquals(expected("inner_events"), actual());
+    }
+
+    @Test
+    @DisplayName("delivers the first line of a one-line function")
+    void oneLineEvents() throws Throwable {
+        Tracing.settrace(globals.get("tracer"));
+        assertEquals(8, call("<lambda>", 3));
+        Tracing.settrace(null);
+        // call, line and return for each of the lambda and one()
+        assertEquals(6, actual().size());
+        assertEquals(expected("lambda_events"), actual());
+    }
+
+    @Test
+    @DisplayName("stops tracing if the trace function raises")
+    void tracerRaises() throws Throwable {
+        Tracing.settrace((Tracing.Function)(f, e, a) -> {
+            throw new ValueError("tracer failed");
+        });
+        assertThrows(ValueError.class, () -> call("outer", 3));
+        assertEquals(Py.None, Tracing.gettrace());
+        assertEquals(0, call("outer", 0));
+    }
+
+    @Test
+    @DisplayName("delivers calls and returns to a profile function")
+    void profile() throws Throwable {
+        List<String> events = new ArrayList<>();
+        Tracing.setprofile((Tracing.Function)(f, e, a) -> {
+            events.add(e + " " + f.code.name);
+            return null;
+        });
+        call("outer", 3);
+        Tracing.setprofile(null);
+        assertEquals(List.of("call outer", "call inner", "return inner",
+                "call inner", "return inner", "return outer"), events);
+    }
+
+    /**
+     * Call a function of the example with one argument.
+     *
+     * @param name of the function
+     * @param arg argument
+     * @return the result
+     * @throws Throwable on errors
+     */
+    private Object call(String name, Object arg) throws Throwable {
+        return Callables.call(globals.get(name), new Object[] {arg},
+                null);
+    }
+
+    /**
+     * The events recorded by {@code tracer()} as strings.
+     *
+     * @return the events recorded
+     */
+    private List<String> actual() {
+        return strings((List<?>)globals.get("events"));
+    }
+
+    /**
+     * The events recorded by CPython as strings.
+     *
+     * @param name of the result
+     * @return the events recorded
+     */
+    private List<String> expected(String name) {
+        return strings((List<?>)expected.get(name));
+    }
+
+    /**
+     * Express a list of tuples of (event, name, line) as strings.
+     *
+     * @param events list of tuples
+     * @return list of strings
+     */
+    private static List<String> strings(List<?> events) {
+        List<String> list = new ArrayList<>();
+        for (Object o : events) {
+            List<?> t = (List<?>)o;
+            list.add(t.get(0) + " " + t.get(1) + " " + t.get(2));
+        }
+        return list;
+    }
+}
@@ -88,6 +88,18 @@ class TypeExposerMemberTest extends UnitTestSupport {
         @Member(readonly = true)
         PyUnicode strhex;
 
+        /** {@code long} member. */
+        @Member
+        long n;
+
+        /** {@code float} member. */
+        @Member
+        float f;
+
+        /** {@code boolean} member. */
+        @Member
+        boolean b;
+
         /**
          * Give all the members values based on a single "seed"
          *
@@ -100,6 +112,9 @@ class TypeExposerMemberTest extends UnitTestSupport {
             obj = i;
             tup = new PyTuple(i, x, t);
             strhex = newPyUnicode(Integer.toString(i, 16));
+            n = 1_000_000_000_000L * i;
+            f = (float)value;
+            b = i > 0;
         }
     }
 
@@ -365,6 +380,173 @@ class TypeExposerMemberTest extends UnitTestSupport {
 
     }
 
+    @Nested
+    @DisplayName("implemented as a long")
+    class TestLong extends BaseSettablePrimitive {
+
+        @BeforeEach
+        void setup() throws AttributeError, Throwable {
+            setup("n", 42, -1);
+        }
+
+        @Override
+        @Test
+        void descr_get_works() {
+            assertEquals(42_000_000_000_000L, md.__get__(o, null));
+            assertEquals(-1_000_000_000_000L, md.__get__(p, null));
+        }
+
+        @Test
+        void descr_get_narrows_to_Integer() throws Throwable {
+            md.__set__(o, 43);
+            assertEquals(Integer.valueOf(43), md.__get__(o, null));
+        }
+
+        @Override
+        @Test
+        void abstract_getAttr_works() throws Throwable {
+            assertEquals(42_000_000_000_000L, Abstract.getAttr(o, name));
+            assertEquals(-1_000_000_000_000L, Abstract.getAttr(p, name));
+        }
+
+        @Override
+        @Test
+        void descr_set_works() throws Throwable {
+            md.__set__(o, 43);
+            md.__set__(p, BigInteger.valueOf(Long.MIN_VALUE));
+            assertEquals(43L, o.n);
+            assertEquals(Long.MIN_VALUE, p.n);
+        }
+
+        @Override
+        @Test
+        void abstract_setAttr_works() throws Throwable {
+            Abstract.setAttr(o, name, true);
+            Abstract.setAttr(p, name, BigInteger.valueOf(Long.MAX_VALUE));
+            assertEquals(1L, o.n);
+            assertEquals(Long.MAX_VALUE, p.n);
+        }
+
+        @Override
+        @Test
+        void set_detects_TypeError() throws Throwable {
+            // Things that are not a Python int
+            assertThrows(TypeError.class, () -> md.__set__(o, "Gumby"));
+            assertThrows(TypeError.class,
+                    () -> Abstract.setAttr(p, name, 1.0));
+            assertThrows(TypeError.class, () -> md.__set__(o, Py.None));
+        }
+
+        @Test
+        void set_detects_OverflowError() throws Throwable {
+            BigInteger big = BigInteger.ONE.shiftLeft(63);
+            assertThrows(OverflowError.class, () -> md.__set__(o, big));
+            assertEquals(42_000_000_000_000L, o.n);
+        }
+    }
+
+    @Nested
+    @DisplayName("implemented as a float")
+    class TestFloat extends BaseSettablePrimitive {
+
+        @BeforeEach
+        void setup() throws AttributeError, Throwable {
+            setup("f", 42.5, -1);
+        }
+
+        @Override
+        @Test
+        void descr_get_works() {
+            assertEquals(42.5, md.__get__(o, null));
+            assertEquals(-1.0, md.__get__(p, null));
+        }
+
+        @Override
+        @Test
+        void abstract_getAttr_works() throws Throwable {
+            assertEquals(42.5, Abstract.getAttr(o, name));
+            assertEquals(-1.0, Abstract.getAttr(p, name));
+        }
+
+        @Override
+        @Test
+        void descr_set_works() throws Throwable {
+            md.__set__(o, 1.125);
+            md.__set__(p, 7);
+            assertEquals(1.125f, o.f);
+            assertEquals(7.0f, p.f);
+        }
+
+        @Override
+        @Test
+        void abstract_setAttr_works() throws Throwable {
+            Abstract.setAttr(o, name, 1.125);
+            Abstract.setAttr(p, name, BigInteger.valueOf(7));
+            assertEquals(1.125f, o.f);
+            assertEquals(7.0f, p.f);
+        }
+
+        @Override
+        @Test
+        void set_detects_TypeError() throws Throwable {
+            // Things that are not a Python float
+            assertThrows(TypeError.class, () -> md.__set__(o, "Gumby"));
+            assertThrows(TypeError.class, () -> md.__set__(o, Py.None));
+        }
+    }
+
+    @Nested
+    @DisplayName("implemented as a boolean")
+    class TestBoolean extends BaseSettablePrimitive {
+
+        @BeforeEach
+        void setup() throws AttributeError, Throwable {
+            setup("b", 42, -1);
+        }
+
+        @Override
+        @Test
+        void descr_get_works() {
+            assertSame(Boolean.TRUE, md.__get__(o, null));
+            assertSame(Boolean.FALSE, md.__get__(p, null));
+        }
+
+        @Override
+        @Test
+        void abstract_getAttr_works() throws Throwable {
+            assertSame(Boolean.TRUE, Abstract.getAttr(o, name));
+            assertSame(Boolean.FALSE, Abstract.getAttr(p, name));
+        }
+
+        @Override
+        @Test
+        void descr_set_works() throws Throwable {
+            md.__set__(o, false);
+            md.__set__(p, true);
+            assertEquals(false, o.b);
+            assertEquals(true, p.b);
+        }
+
+        @Override
+        @Test
+        void abstract_setAttr_works() throws Throwable {
+            Abstract.setAttr(o, name, false);
+            Abstract.setAttr(p, name, true);
+            assertEquals(false, o.b);
+            assertEquals(true, p.b);
+        }
+
+        @Override
+        @Test
+        void set_detects_TypeError() throws Throwable {
+            // Only a bool will do (not even an int)
+            assertThrows(TypeError.class, () -> md.__set__(o, 1));
+            assertThrows(TypeError.class,
+                    () -> Abstract.setAttr(p, name, "True"));
+            assertThrows(TypeError.class, () -> md.__set__(o, Py.None));
+        }
+    }
+
     /**
      * Base test of settable attribute with object reference
      * implementation.
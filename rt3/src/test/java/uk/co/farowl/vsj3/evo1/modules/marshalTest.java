@@ -9,7 +9,11 @@ import static org.junit.jupiter.params.provider.Arguments.arguments;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -379,12 +383,12 @@ class marshalTest extends UnitTestSupport {
                     loadExample("2047**4", // tc='l'
                             bytes(0xec, 0x03, 0x00, 0x00, 0x00, 0x01,
                                     0x60, 0xff, 0x02, 0xe0, 0x3f),
-                            new BigInteger("17557851463681")),
+                            17557851463681L),
                     loadExample("2**45", // tc='l'
                             bytes(0xec, 0x04, 0x00, 0x00, 0x00, 0x00,
                                     0x00, 0x00, 0x00, 0x00, 0x00, 0x01,
                                     0x00),
-                            new BigInteger("35184372088832")),
+                            35184372088832L),
                     loadExample("-42**15", // tc='l'
                             bytes(0xec, 0xfa, 0xff, 0xff, 0xff, 0x00,
                                     0x00, 0xfd, 0x20, 0xa7, 0x39, 0x4b,
@@ -573,6 +577,16 @@ class marshalTest extends UnitTestSupport {
             assertPythonEquals(expected, r);
         }
 
+        @DisplayName("loads(b) of an int narrows to Long")
+        @Test
+        void loadsNarrowsLong() {
+            // 2**45, which CPython marshals as tc='l'
+            Object r = marshal.loads(new PyBytes(bytes(0xec, 0x04, 0x00,
+                    0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x01,
+                    0x00)));
+            assertEquals(Long.valueOf(35184372088832L), r);
+        }
+
         @DisplayName("loads((listself,4))")
         @Test
         void loadsListSelf() throws Throwable {
@@ -621,6 +635,70 @@ class marshalTest extends UnitTestSupport {
         }
     }
 
+    /**
+     * Tests reading a complete object from a file, through
+     * {@link BytesReader#fromFile(Path)}, which maps large files into
+     * memory.
+     */
+    @Nested
+    @DisplayName("Read object from a file")
+    class MarshalLoadFileTest extends AbstractLoadTest {
+
+        @DisplayName("fromFile(f).readObject()")
+        @ParameterizedTest(name = "readObject() = {0}")
+        @MethodSource("objectLoadExamples")
+        void loadsTest(String name, byte[] b, Object expected)
+                throws IOException {
+            Object r = readFromFile(b);
+            assertPythonType(PyType.of(expected), r);
+            assertPythonEquals(expected, r);
+        }
+
+        @DisplayName("a long ASCII string (mapped)")
+        @Test
+        void loadsMapped() throws IOException {
+            // Long enough that the file will be mapped
+            String s = "0123456789abcdef".repeat(2000);
+            Object r = readFromFile(asciiRecord(s));
+            assertEquals(s, r);
+        }
+
+        @DisplayName("an ASCII string from a direct buffer")
+        @Test
+        void loadsDirect() {
+            String s = "caf\u00e9 and Latin-1";
+            byte[] b = asciiRecord(s);
+            ByteBuffer bb = ByteBuffer.allocateDirect(b.length);
+            bb.put(b).flip();
+            Object r = new BytesReader(bb).readObject();
+            assertEquals(s, r);
+        }
+
+        /**
+         * Write the bytes to a temporary file and read one object from
+         * it with a {@link BytesReader}.
+         */
+        private Object readFromFile(byte[] b) throws IOException {
+            Path p = Files.createTempFile("marshalTest", ".bin");
+            try {
+                Files.write(p, b);
+                return BytesReader.fromFile(p).readObject();
+            } finally {
+                Files.delete(p);
+            }
+        }
+
+        /** A {@code TYPE_ASCII} record containing the string. */
+        private byte[] asciiRecord(String s) {
+            int n = s.length();
+            byte[] b = new byte[n + 5];
+            b[0] = 'a';
+            for (int i = 0; i < 4; i++) { b[i + 1] = (byte)(n >> 8 * i); }
+            for (int i = 0; i < n; i++) { b[i + 5] = (byte)s.charAt(i); }
+            return b;
+        }
+    }
+
     // Support methods ------------------------------------------------
 
     /**
@@ -0,0 +1,185 @@
+// Copyright (c)2022 Jython Developers.
+// Licensed to PSF under a contributor agreement.
+package uk.co.farowl.vsj3.evo1.stringlib;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import uk.co.farowl.vsj3.evo1.stringlib.InternalFormat.FormatError;
+
+/**
+ * Tests of the conversions between {@code double} and text that
+ * underlie {@code float.__repr__} and {@code float()}: the shortest
+ * decimal {@link DoubleToDecimal} and the fast parser
+ * {@link DecimalToDouble}. Expected results were generated by CPython.
+ */
+class FloatConversionTest {
+
+    @Nested
+    @DisplayName("DoubleToDecimal")
+    class ReprTest {
+
+        /**
+         * Provide examples of {@code repr(float)}, including the
+         * boundaries between fixed and exponential notation, and
+         * subnormals.
+         *
+         * @return the examples
+         */
+        static Stream<Arguments> reprExamples() {
+            return Stream.of( //
+                    arguments(0.1, "0.1"), //
+                    arguments(0.1 + 0.2, "0.30000000000000004"), //
+                    arguments(1.0 / 3.0, "0.3333333333333333"), //
+                    arguments(-2.5, "-2.5"), //
+                    arguments(100.0, "100.0"), //
+                    arguments(1e15, "1000000000000000.0"), //
+                    arguments(1e16, "1e+16"), //
+                    arguments(1.5e16, "1.5e+16"), //
+                    arguments(1e22, "1e+22"), //
+                    arguments(1e23, "1e+23"), //
+                    arguments(1e-4, "0.0001"), //
+                    arguments(1e-5, "1e-05"), //
+                    arguments(2.5e-5, "2.5e-05"), //
+                    arguments(123.456, "123.456"), //
+                    arguments(9007199254740993.0, "9007199254740992.0"), //
+                    arguments(Double.MAX_VALUE, "1.7976931348623157e+308"), //
+                    arguments(Double.MIN_NORMAL, "2.2250738585072014e-308"), //
+                    arguments(Double.MIN_VALUE, "5e-324"), //
+                    arguments(8e-323, "8e-323"), //
+                    arguments(0.0, "0.0"), //
+                    arguments(-0.0, "-0.0"), //
+                    arguments(Double.POSITIVE_INFINITY, "inf"), //
+                    arguments(Double.NEGATIVE_INFINITY, "-inf"), //
+                    arguments(Double.NaN, "nan"));
+        }
+
+        @DisplayName("gives the Python repr")
+        @ParameterizedTest(name = "repr({0}) == \"{1}\"")
+        @MethodSource("reprExamples")
+        void repr(double v, String expected) {
+            assertEquals(expected, DoubleToDecimal.repr(v));
+        }
+
+        @Test
+        @DisplayName("agrees with the r-format of FloatFormatter")
+        void agreesWithFormatter() throws FormatError {
+            Random r = new Random(42);
+            for (int i = 0; i < 1000; i++) {
+                double v = Double.longBitsToDouble(r.nextLong());
+                if (Double.isNaN(v)) { continue; }
+                StringBuilder b = new StringBuilder();
+                FloatFormatter f = new FloatFormatter(b,
+                        InternalFormat.fromText("r")) {
+
+                    @Override
+                    public FloatFormatter format(Object o) {
+                        return this;
+                    }
+                };
+                assertEquals(f.format(v).getResult(),
+                        DoubleToDecimal.repr(v));
+            }
+        }
+
+        @Test
+        @DisplayName("round-trips random values")
+        void roundTrip() {
+            Random r = new Random(42);
+            for (int i = 0; i < 10000; i++) {
+                double v = Double.longBitsToDouble(r.nextLong());
+                if (Double.isNaN(v)) { continue; }
+                String s = DoubleToDecimal.repr(v);
+                assertEquals(v, Double.parseDouble(s), s);
+                assertEquals(v, DecimalToDouble.parse(s), s);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("DecimalToDouble")
+    class ParseTest {
+
+        /**
+         * Provide examples of {@code float(str)}.
+         *
+         * @return the examples
+         */
+        static Stream<Arguments> parseExamples() {
+            return Stream.of( //
+                    arguments("1", 1.0), //
+                    arguments(" 2.5 \n", 2.5), //
+                    arguments("-0", -0.0), //
+                    arguments("+3e2", 300.0), //
+                    arguments(".5", 0.5), //
+                    arguments("5.", 5.0), //
+                    arguments("1_000.000_5", 1000.0005), //
+                    arguments("1e1_0", 1e10), //
+                    arguments("1E-5", 1e-5), //
+                    arguments("٣.٥", 3.5), //
+                    arguments("1e400", Double.POSITIVE_INFINITY), //
+                    arguments("1e-400", 0.0), //
+                    arguments("4.9e-324", Double.MIN_VALUE), //
+                    arguments("2.4703282292062328e-324", Double.MIN_VALUE), //
+                    arguments("2.4703282292062327e-324", 0.0), //
+                    arguments("9007199254740993", 9007199254740992.0), //
+                    arguments("9007199254740993.0000000000001",
+                            9007199254740994.0), //
+                    arguments("123456789012345678901234567890",
+                            1.2345678901234568e29), //
+                    arguments("1.7976931348623157e308", Double.MAX_VALUE), //
+                    arguments("1.7976931348623159e308",
+                            Double.POSITIVE_INFINITY), //
+                    arguments("inf", Double.POSITIVE_INFINITY), //
+                    arguments("-Infinity", Double.NEGATIVE_INFINITY), //
+                    arguments("NaN", Double.NaN));
+        }
+
+        @DisplayName("parses Python float literals")
+        @ParameterizedTest(name = "float(\"{0}\") == {1}")
+        @MethodSource("parseExamples")
+        void parse(String s, double expected) {
+            assertEquals(expected, DecimalToDouble.parse(s));
+        }
+
+        @DisplayName("rejects invalid literals")
+        @ParameterizedTest(name = "float(\"{0}\") raises")
+        @ValueSource(strings = {"", " ", ".", "1__0", "_1", "1_", "1_.5",
+                "1._5", "1e", "1e+", "e5", "0x10", "1.2.3", "--1", "infin",
+                ".inf"})
+        void invalid(String s) {
+            assertThrows(NumberFormatException.class,
+                    () -> DecimalToDouble.parse(s));
+        }
+
+        @Test
+        @DisplayName("is correctly rounded for random inputs")
+        void correctlyRounded() {
+            Random r = new Random(42);
+            for (int i = 0; i < 10000; i++) {
+                StringBuilder b = new StringBuilder();
+                int n = 1 + r.nextInt(22);
+                for (int j = 0; j < n; j++) { b.append(r.nextInt(10)); }
+                b.insert(r.nextInt(n + 1), '.');
+                b.append('e').append(r.nextInt(650) - 340);
+                String s = b.toString();
+                double expected = Double.parseDouble(s);
+                assertEquals(expected, DecimalToDouble.parse(s), s);
+            }
+            assertTrue(Double.isNaN(DecimalToDouble.parse("-nan")));
+        }
+    }
+}
@@ -0,0 +1,31 @@
+# column_functions.py
+#
+# Functions to evaluate over columns of data, and the results CPython
+# gives when applying them row by row, for comparison.
+
+def linear(x, n):
+    return x * n + 1
+
+def label(s, x):
+    if x > 0.5:
+        t = s + '+'
+    else:
+        t = s + '-'
+    return t
+
+def scaled(x, n):
+    # Uses a cell variable and a nested function
+    def f(y):
+        return y * n
+    return f(x) + f(1.0)
+
+xs = (0.25, 0.5, 0.75, 1.5)
+ns = (2, 3, -1, 10_000_000_000)
+ss = ('a', 'b', 'c', 'd')
+
+linear_r = tuple(linear(x, n) for x, n in zip(xs, ns))
+label_r = tuple(label(s, x) for s, x in zip(ss, xs))
+scaled_r = tuple(scaled(x, n) for x, n in zip(xs, ns))
+
+# Delete since function object not marshallable:
+del linear, label, scaled
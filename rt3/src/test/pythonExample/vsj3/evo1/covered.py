@@ -0,0 +1,38 @@
+# covered.py
+#
+# A function with branches, the coverage of which we record in CPython
+# (using a trace function) to compare with the lines Jython reports as
+# executed when the test calls classify() with various arguments.
+
+import sys
+
+def classify(n):
+    if n < 0:
+        s = "negative"
+    elif n == 0:
+        s = "zero"
+    else:
+        s = "positive"
+    return s
+
+lines = set()
+
+def tracer(frame, event, arg):
+    if frame.f_code.co_name == "classify":
+        lines.add(frame.f_lineno)
+    return tracer
+
+def executed(n):
+    lines.clear()
+    sys.settrace(tracer)
+    classify(n)
+    sys.settrace(None)
+    return tuple(sorted(lines))
+
+positive_lines = executed(5)
+negative_lines = executed(-1)
+zero_lines = executed(0)
+executable_lines = tuple(sorted(
+    {line for _, _, line in classify.__code__.co_lines() if line}))
+
+del classify, tracer, executed, lines, sys
@@ -0,0 +1,11 @@
+# int_constants.py
+#
+# Constants of int that marshal represents in each of the ways the
+# run-time does: int (32 bits), long (64 bits) and BigInteger.
+
+a = 42
+b = 2**40
+c = -2**40
+d = 1180591620717411303424  # 2**70
+
+total = (a + b) * c + d
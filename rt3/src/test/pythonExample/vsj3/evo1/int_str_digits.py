@@ -0,0 +1,15 @@
+# int_str_digits.py
+#
+# Conversions between int and str, which are subject to the limit on
+# the number of digits of the interpreter in which the functions run.
+# The test creates the functions from the code of this module.
+
+def to_int(s, base):
+    return int(s, base)
+
+def to_str(v):
+    return repr(v)
+
+small = to_str(to_int("-12_345", 10))
+
+del to_int, to_str
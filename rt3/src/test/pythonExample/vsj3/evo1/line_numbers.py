@@ -0,0 +1,29 @@
+# line_numbers.py
+#
+# Code in which instructions map to source lines in various ways, and
+# which records the mapping as CPython reports it (by co_lines()), to
+# test our decoding of the location table.
+
+import sys
+
+def f(a, b):
+    # A comment, then an expression over several lines
+    x = (a +
+         b)
+    if x > 0:
+        while x < 100:
+            x = x * 2
+    else:
+        x = -x
+
+
+
+    # A jump of several lines, and a long line with far columns
+    y = "....................................................................................................................................." + str(x)
+    return (x,
+            y)
+
+module_lines = tuple(sys._getframe().f_code.co_lines())
+f_lines = tuple(f.__code__.co_lines())
+
+del f, sys
@@ -0,0 +1,11 @@
+# long_loop.py
+#
+# A loop that takes many steps (backward jumps), with which to test
+# the limits applied by an execution budget.
+
+n = 100_000
+
+sum = 0
+while n > 0:
+    sum = sum + n
+    n = n - 1
@@ -0,0 +1,19 @@
+# member_arith.py
+#
+# Functions in which an attribute read feeds arithmetic directly. The
+# test creates them from the code of this module, and applies them to
+# an object with numeric fields exposed as members.
+
+def add_i(w, o):
+    return w + o.i
+
+def sub_n(w, o):
+    return w - o.n
+
+def mul_x(w, o):
+    return w * o.x
+
+def add_f(w, o):
+    return w + o.f
+
+del add_i, sub_n, mul_x, add_f
@@ -0,0 +1,15 @@
+# recursion.py
+#
+# A recursive function, with which to test the recursion limit.
+
+def depth(n):
+    if n > 0:
+        return depth(n - 1) + 1
+    else:
+        return 0
+
+# Module frame + 101 calls = 102 frames
+d100 = depth(100)
+
+# Delete since function object not marshallable:
+del depth
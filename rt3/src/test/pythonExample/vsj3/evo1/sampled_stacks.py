@@ -0,0 +1,16 @@
+# sampled_stacks.py
+#
+# Functions that call each other, with which to test the stack sampler
+# (which calls outer() with a large argument).
+
+def inner(n):
+    while n > 0:
+        n = n - 1
+    return n
+
+def outer(n):
+    return inner(n) + inner(n)
+
+r = outer(10)
+
+del inner, outer
@@ -0,0 +1,50 @@
+# traced.py
+#
+# Functions traced by a trace function. We record the events CPython
+# generates, to compare with those Jython generates when the test
+# calls outer(3), inner("a") and twice(3) with tracer() as the trace
+# function. The first line of one() and the lambda is also the line of
+# the RESUME that starts them.
+
+import sys
+
+def inner(n):
+    while n > 0:
+        n = n - 1
+    return n
+
+def outer(n):
+    return inner(n) + inner(n)
+
+def one(n): return n + 1
+
+twice = lambda n: one(n) * 2
+
+events = []
+
+def tracer(frame, event, arg):
+    # Not events.append() or events += (not yet supported)
+    e = events.__iadd__([(event, frame.f_code.co_name, frame.f_lineno)])
+    return tracer
+
+sys.settrace(tracer)
+r = outer(3)
+sys.settrace(None)
+outer_events = tuple(events)
+
+events.clear()
+sys.settrace(tracer)
+try:
+    inner("a")
+except TypeError:
+    pass
+sys.settrace(None)
+inner_events = tuple(events)
+
+events.clear()
+sys.settrace(tracer)
+r = twice(3)
+sys.settrace(None)
+lambda_events = tuple(events)
+
+del inner, outer, one, twice, tracer, sys, events
@@ -43,6 +43,8 @@ PY_LONG_CLASS = FloatTypeInfo('PyLong', WorkingType.DOUBLE,
                     lambda x: f'convertToDouble({x}.value)')
 BIG_INTEGER_CLASS = FloatTypeInfo('BigInteger', WorkingType.DOUBLE,
                     lambda x: f'convertToDouble({x})')
+LONG_CLASS = FloatTypeInfo('Long', WorkingType.DOUBLE,
+                    lambda x: f'{x}.doubleValue()')
 INTEGER_CLASS = FloatTypeInfo('Integer', WorkingType.DOUBLE,
                     lambda x: f'{x}.doubleValue()')
 BOOLEAN_CLASS = FloatTypeInfo('Boolean', WorkingType.DOUBLE,
@@ -201,6 +203,7 @@ class PyFloatGenerator(ImplementationGenerator):
         # equivalent to the one in  PyFloatMethods.
         PY_LONG_CLASS,
         BIG_INTEGER_CLASS,
+        LONG_CLASS,
         INTEGER_CLASS,
         BOOLEAN_CLASS,
     ]
@@ -39,6 +39,9 @@ OBJECT_CLASS = IntTypeInfo('Object', WorkingType.OBJECT,
                     lambda x: f'toBig({x})')
 BIG_INTEGER_CLASS = IntTypeInfo('BigInteger', WorkingType.BIG,
                     itself)
+LONG_CLASS = IntTypeInfo('Long', WorkingType.LONG,
+                    lambda x: f'BigInteger.valueOf({x})',
+                    lambda x: f'((long) {x})')
 INTEGER_CLASS = IntTypeInfo('Integer', WorkingType.INT,
                     lambda x: f'BigInteger.valueOf({x})',
                     lambda x: f'((long) {x})',
@@ -55,6 +58,9 @@ PRIMITIVE_INT = IntTypeInfo('int', WorkingType.INT)
 
 @dataclass
 class UnaryOpInfo(OpInfo):
+    # There is a template (a function) to generate the method body
+    body_method: Callable
+
     # There is a template (a function) to generate an expression for
     # each Java working type in which the result may be evaluated.
 
@@ -65,6 +71,11 @@ class UnaryOpInfo(OpInfo):
     # Working type is Java int
     int_op: Callable
 
+    # Working type is Java long, and the operand may be a full 64 bits,
+    # so overflow is possible: the expression must throw
+    # ArithmeticException when the result does not fit a long.
+    long_exact_op: Callable = None
+
 
 @dataclass
 class BinaryOpInfo(OpInfo):
@@ -84,9 +95,71 @@ class BinaryOpInfo(OpInfo):
     # Also create class-specific binop specialisations
     class_specific: bool = False
 
+    # Working type is Java long, and an operand may be a full 64 bits,
+    # so overflow is possible: the expression must throw
+    # ArithmeticException when the result does not fit a long.
+    long_exact_op: Callable = None
+
+
+def is_wide(*types:IntTypeInfo):
+    """True if any of the types may hold values needing all 64 bits
+    of a long, so that arithmetic in a long may overflow."""
+    return any(t.min_working_type == WorkingType.LONG for t in types)
+
+
+def unary_intmethod(op:UnaryOpInfo, t:IntTypeInfo):
+    """Template for a unary operation with int result.
+
+    The argument is converted according to its static type then the
+    operation is applied which must yield a result in the working
+    type. Processing is applied to that result to choose an integer
+    representation."""
+    # Decide the width at which to work with this type and op
+    iw = max(op.min_working_type.value, t.min_working_type.value)
+    w = WorkingType(iw)
+    if w == WorkingType.INT:
+        return _unary_method_int(op, t)
+    elif w == WorkingType.LONG:
+        if op.long_exact_op and is_wide(t):
+            return _unary_intmethod_long_exact(op, t)
+        else:
+            return _unary_intmethod_long(op, t)
+    elif w == WorkingType.BIG:
+        return _unary_intmethod_big(op, t)
+    else:
+        raise ValueError(
+            f"Cannot make method body for {op.name} and {w}")
+
+def _unary_intmethod_long(op:UnaryOpInfo, t:IntTypeInfo):
+    "Template for unary int methods when the working type is LONG"
+    return f'''
+        return toInt({op.long_op(t.as_long("self"))});
+    '''
+
+def _unary_intmethod_long_exact(op:UnaryOpInfo, t:IntTypeInfo):
+    """Template for unary int methods when the working type is LONG
+    and the operation may overflow a long"""
+    return f'''
+        try {{
+            return toInt({op.long_exact_op(t.as_long("self"))});
+        }} catch (ArithmeticException e) {{
+            return toInt({op.big_op(t.as_big("self"))});
+        }}
+    '''
+
+def _unary_intmethod_big(op:UnaryOpInfo, t:IntTypeInfo):
+    "Template for unary int methods when the working type is BIG"
+    return f'''
+        return toInt({op.big_op(t.as_big("self"))});
+    '''
+
 
 def unary_method(op:UnaryOpInfo, t:IntTypeInfo):
-    "Template generating the body of a unary operation."
+    """Template for a unary operation with any result type.
+
+    The argument is converted according to its static type then the
+    operation is applied and the result returned without further
+    processing."""
     # Decide the width at which to work with this type and op
     iw = max(op.min_working_type.value, t.min_working_type.value)
     w = WorkingType(iw)
@@ -109,9 +182,7 @@ def _unary_method_int(op:UnaryOpInfo, t:IntTypeInfo):
 def _unary_method_long(op:UnaryOpInfo, t:IntTypeInfo):
     "Template for unary methods when the working type is LONG"
     return f'''
-        long r = {op.long_op(t.as_long("self"))};
-        int s = (int) r;
-        return s == r ? s : BigInteger.valueOf(r);
+        return {op.long_op(t.as_long("self"))};
     '''
 
 def _unary_method_big(op:UnaryOpInfo, t:IntTypeInfo):
@@ -139,7 +210,10 @@ def binary_intmethod(op:BinaryOpInfo,
     if w == WorkingType.INT:
         return _binary_intmethod_int(op, t1, n1, t2, n2)
     elif w == WorkingType.LONG:
-        return _binary_intmethod_long(op, t1, n1, t2, n2)
+        if op.long_exact_op and is_wide(t1, t2):
+            return _binary_intmethod_long_exact(op, t1, n1, t2, n2)
+        else:
+            return _binary_intmethod_long(op, t1, n1, t2, n2)
     elif w == WorkingType.BIG:
         return _binary_intmethod_big(op, t1, n1, t2, n2)
     elif w == WorkingType.OBJECT:
@@ -161,9 +235,21 @@ def _binary_intmethod_long(op:BinaryOpInfo,
                            t2:IntTypeInfo, n2):
     "Template for binary int methods when the working type is LONG"
     return f'''
-        long r = {op.long_op(t1.as_long(n1), t2.as_long(n2))};
-        int s = (int) r;
-        return s == r ? s : BigInteger.valueOf(r);
+        return toInt({op.long_op(t1.as_long(n1), t2.as_long(n2))});
+    '''
+
+def _binary_intmethod_long_exact(op:BinaryOpInfo,
+                                 t1:IntTypeInfo, n1,
+                                 t2:IntTypeInfo, n2):
+    """Template for binary int methods when the working type is LONG
+    and the operation may overflow a long"""
+    x, y = t1.as_long(n1), t2.as_long(n2)
+    return f'''
+        try {{
+            return toInt({op.long_exact_op(x, y)});
+        }} catch (ArithmeticException e) {{
+            return toInt({op.big_op(t1.as_big(n1), t2.as_big(n2))});
+        }}
     '''
 
 def _binary_intmethod_big(op:BinaryOpInfo,
@@ -256,6 +342,7 @@ class PyLongGenerator(ImplementationGenerator):
     ACCEPTED_CLASSES = [
         PY_LONG_CLASS,
         BIG_INTEGER_CLASS,
+        LONG_CLASS,
         INTEGER_CLASS,
         BOOLEAN_CLASS,
     ]
@@ -264,41 +351,56 @@ class PyLongGenerator(ImplementationGenerator):
 
     # Operations have to provide versions in which long and
     # BigInteger are the common type to which arguments are converted.
+    # Where an operand may be a full 64-bit Long, operations that can
+    # overflow a long also provide an "exact" version that throws
+    # ArithmeticException, so that we may fall back to BigInteger.
 
     UNARY_OPS = [
         # Arguments are: name, return_type, min_working_type,
-        # big_op, long_op, int_op
+        #            body_method,
+        #            big_op, long_op, int_op,
+        #            long_exact_op
         UnaryOpInfo('__abs__', OBJECT_CLASS, WorkingType.LONG,
+            unary_intmethod,
             lambda x: f'{x}.abs()',
             lambda x: f'Math.abs({x})',
-            lambda x: f'Math.abs({x})'),
+            lambda x: f'Math.abs({x})',
+            lambda x: f'Math.absExact({x})'),
         UnaryOpInfo('__index__', OBJECT_CLASS, WorkingType.INT,
+            unary_intmethod,
             itself,
             itself,
             itself),
         UnaryOpInfo('__int__', OBJECT_CLASS, WorkingType.INT,
+            unary_intmethod,
             itself,
             itself,
             itself),
         UnaryOpInfo('__invert__', OBJECT_CLASS, WorkingType.INT,
+            unary_intmethod,
             lambda x: f'{x}.not()',
             lambda x: f'~{x}',
             lambda x: f'~{x}'),
         UnaryOpInfo('__neg__', OBJECT_CLASS, WorkingType.LONG,
+            unary_intmethod,
             lambda x: f'{x}.negate()',
             lambda x: f'-{x}',
-            lambda x: f'-{x}'),
+            lambda x: f'-{x}',
+            lambda x: f'Math.negateExact({x})'),
         UnaryOpInfo('__float__', OBJECT_CLASS, WorkingType.INT,
+            unary_method,
             lambda x: f'PyLong.convertToDouble({x})',
             lambda x: f'((double) {x})',
             lambda x: f'((double) {x})'),
         UnaryOpInfo('__bool__', PRIMITIVE_BOOLEAN, WorkingType.BOOLEAN,
+            unary_method,
             lambda x: f'{x}.signum() != 0',
             lambda x: f'{x} != 0L',
             lambda x: f'{x} != 0'),
         UnaryOpInfo('__hash__', PRIMITIVE_INT, WorkingType.INT,
+            unary_method,
             lambda x: f'{x}.hashCode()',
-            lambda x: f'{x}.hashCode()',
+            lambda x: f'hash({x})',
             lambda x: f'{x}'),
     ]
 
@@ -306,55 +408,64 @@ class PyLongGenerator(ImplementationGenerator):
         # Arguments are: name, return_type, working_type,
         #            body_method,
         #            big_op, long_op, int_op,
-        #            with_class_specific_binops
+        #            with_class_specific_binops,
+        #            long_exact_op
         BinaryOpInfo('__add__', OBJECT_CLASS, WorkingType.LONG,
             binary_intmethod,
             lambda x, y: f'{x}.add({y})',
             lambda x, y: f'{x} + {y}', 
             lambda x, y: f'{x} + {y}',
-            True),
+            True,
+            lambda x, y: f'Math.addExact({x}, {y})'),
         BinaryOpInfo('__radd__', OBJECT_CLASS, WorkingType.LONG,
             binary_intmethod,
             lambda x, y: f'{y}.add({x})',
             lambda x, y: f'{y} + {x}', 
             lambda x, y: f'{y} + {x}',
-            True),
+            True,
+            lambda x, y: f'Math.addExact({y}, {x})'),
         BinaryOpInfo('__sub__', OBJECT_CLASS, WorkingType.LONG,
             binary_intmethod,
             lambda x, y: f'{x}.subtract({y})',
             lambda x, y: f'{x} - {y}', 
             lambda x, y: f'{x} - {y}',
-            True),
+            True,
+            lambda x, y: f'Math.subtractExact({x}, {y})'),
         BinaryOpInfo('__rsub__', OBJECT_CLASS, WorkingType.LONG,
             binary_intmethod,
             lambda x, y: f'{y}.subtract({x})',
             lambda x, y: f'{y} - {x}', 
             lambda x, y: f'{y} - {x}',
-            True),
+            True,
+            lambda x, y: f'Math.subtractExact({y}, {x})'),
         BinaryOpInfo('__mul__', OBJECT_CLASS, WorkingType.LONG,
             binary_intmethod,
             lambda x, y: f'{x}.multiply({y})',
             lambda x, y: f'{x} * {y}', 
             lambda x, y: f'{x} * {y}',
-            True),
+            True,
+            lambda x, y: f'Math.multiplyExact({x}, {y})'),
         BinaryOpInfo('__rmul__', OBJECT_CLASS, WorkingType.LONG,
             binary_intmethod,
             lambda x, y: f'{y}.multiply({x})',
             lambda x, y: f'{y} * {x}', 
             lambda x, y: f'{y} * {x}',
-            True),
+            True,
+            lambda x, y: f'Math.multiplyExact({y}, {x})'),
         BinaryOpInfo('__floordiv__', OBJECT_CLASS, WorkingType.INT,
             binary_intmethod,
             lambda x, y: f'divide({x}, {y})',
             lambda x, y: f'divide({x}, {y})',
             lambda x, y: f'divide({x}, {y})',
-            True),
+            True,
+            lambda x, y: f'divide({x}, {y})'),
         BinaryOpInfo('__rfloordiv__', OBJECT_CLASS, WorkingType.INT,
             binary_intmethod,
             lambda x, y: f'divide({y}, {x})',
             lambda x, y: f'divide({y}, {x})',
             lambda x, y: f'divide({y}, {x})',
-            True),
+            True,
+            lambda x, y: f'divide({y}, {x})'),
         BinaryOpInfo('__mod__', OBJECT_CLASS, WorkingType.INT,
             binary_intmethod,
             lambda x, y: f'modulo({x}, {y})',
@@ -520,7 +631,7 @@ class PyLongGenerator(ImplementationGenerator):
         e.emit('static ').emit(op.return_type.name).emit(' ')
         e.emit(op.name).emit('(').emit(t.name).emit(' self) {')
         with e.indentation():
-            method = unary_method(op, t)
+            method = op.body_method(op, t)
             method = self.left_justify(method)
             e.emit_lines(method)
         e.emit_line('}').emit_line()